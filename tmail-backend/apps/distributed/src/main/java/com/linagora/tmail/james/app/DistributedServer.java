@@ -207,6 +207,7 @@ import com.linagora.tmail.james.jmap.service.discovery.LinagoraServicesDiscovery
 import com.linagora.tmail.james.jmap.settings.CassandraJmapSettingsRepositoryModule;
 import com.linagora.tmail.james.jmap.settings.TWPSettingsModule;
 import com.linagora.tmail.james.jmap.settings.TWPSettingsModuleChooserConfiguration;
+import com.linagora.tmail.james.jmap.team.CassandraTeamMailboxMembershipIndexModule;
 import com.linagora.tmail.james.jmap.team.mailboxes.TeamMailboxJmapModule;
 import com.linagora.tmail.james.jmap.ticket.CassandraTicketStoreModule;
 import com.linagora.tmail.james.jmap.ticket.TicketRoutesModule;
@@ -404,6 +405,7 @@ public class DistributedServer {
             new CassandraUserQuotaReporterModule(),
             new CassandraJmapSettingsRepositoryModule(),
             new CassandraPublicAssetRepositoryModule(),
+            new CassandraTeamMailboxMembershipIndexModule(),
             new DistributedTaskSerializationModule(),
             new EventBusDisconnectorModule(),
             new RabbitMQEmailAddressContactModule(),
@@ -124,6 +124,7 @@ import com.linagora.tmail.listener.FilteringRuleReferenceUpdaterListenerModule;
 import com.linagora.tmail.mailbox.quota.memory.MemoryUserQuotaReporterModule;
 import com.linagora.tmail.rate.limiter.api.memory.MemoryRateLimitingModule;
 import com.linagora.tmail.smtp.TMailSMTPModule;
+import com.linagora.tmail.team.MemoryTeamMailboxMembershipIndexModule;
 import com.linagora.tmail.team.TMailScanningQuotaSearcherModule;
 import com.linagora.tmail.team.TeamMailboxModule;
 import com.linagora.tmail.vault.TMailDeletedMessageVaultModule;
@@ -212,6 +213,7 @@ public class MemoryServer {
           new DKIMMailetModule())
         .with(WebAdminServerModule.defaultPasswordGenerationModule(false),
             new TeamMailboxModule(),
+            new MemoryTeamMailboxMembershipIndexModule(),
             new TMailScanningQuotaSearcherModule(),
             new MemoryRateLimiterModule(),
             new MemoryRateLimitingModule(),
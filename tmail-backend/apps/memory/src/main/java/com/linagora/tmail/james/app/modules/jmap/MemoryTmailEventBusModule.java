@@ -35,6 +35,8 @@ import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
+import com.linagora.tmail.cache.CacheInvalidationRegistration;
+import com.linagora.tmail.cache.CacheInvalidationSubscriber;
 import com.linagora.tmail.disconnector.DisconnectorNotificationRegistration;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactListener;
 import com.linagora.tmail.james.jmap.identity.IdentityMetadataListener;
@@ -47,18 +49,21 @@ public class MemoryTmailEventBusModule extends AbstractModule {
             Multibinder.newSetBinder(binder(), EventListener.ReactiveGroupEventListener.class, Names.named(TMAIL_EVENT_BUS_INJECT_NAME));
         tmailListenerBinder.addBinding().to(EmailAddressContactListener.class);
         tmailListenerBinder.addBinding().to(LabelMetadataListener.class);
+        Multibinder.newSetBinder(binder(), CacheInvalidationSubscriber.class);
     }
 
     @ProvidesIntoSet
     public InitializationOperation registerListener(
             @Named(TMAIL_EVENT_BUS_INJECT_NAME) EventBus tmailEventBus,
             @Named(TMAIL_EVENT_BUS_INJECT_NAME) Set<EventListener.ReactiveGroupEventListener> tmailListeners,
-            DisconnectorNotificationRegistration disconnectorNotificationRegistration) {
+            DisconnectorNotificationRegistration disconnectorNotificationRegistration,
+            CacheInvalidationRegistration cacheInvalidationRegistration) {
         return InitilizationOperationBuilder
                 .forClass(EmailAddressContactEventLoader.class)
                 .init(() -> {
                     tmailListeners.forEach(tmailEventBus::register);
                     disconnectorNotificationRegistration.register();
+                    cacheInvalidationRegistration.register();
                 });
     }
 
@@ -188,6 +188,7 @@ import com.linagora.tmail.james.jmap.service.discovery.LinagoraServicesDiscovery
 import com.linagora.tmail.james.jmap.settings.PostgresJmapSettingsRepositoryModule;
 import com.linagora.tmail.james.jmap.settings.TWPSettingsModule;
 import com.linagora.tmail.james.jmap.settings.TWPSettingsModuleChooserConfiguration;
+import com.linagora.tmail.james.jmap.team.PostgresTeamMailboxMembershipIndexModule;
 import com.linagora.tmail.james.jmap.team.mailboxes.TeamMailboxJmapModule;
 import com.linagora.tmail.james.jmap.ticket.PostgresTicketStoreModule;
 import com.linagora.tmail.james.jmap.ticket.TicketRoutesModule;
@@ -415,6 +416,7 @@ public class PostgresTmailServer {
             new PostgresDomainSignatureTemplateRepositoryModule(),
             new PostgresJmapSettingsRepositoryModule(),
             new PostgresPublicAssetRepositoryModule(),
+            new PostgresTeamMailboxMembershipIndexModule(),
             new PostgresTicketStoreModule(),
             new TasksHeathCheckModule(),
             chooseQueueModules(configuration),
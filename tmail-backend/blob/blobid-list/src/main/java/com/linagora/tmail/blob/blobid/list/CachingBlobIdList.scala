@@ -0,0 +1,99 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.blobid.list
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicLong
+
+import com.google.common.annotations.VisibleForTesting
+import com.google.common.base.Preconditions
+import com.google.common.cache.{Cache, CacheBuilder}
+import org.apache.james.blob.api.BlobId
+import org.apache.james.metrics.api.{Metric, MetricFactory}
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SMono
+
+object BlobIdListCacheConfiguration {
+  val DEFAULT_MAXIMUM_SIZE: Long = 100000
+  val DEFAULT_TTL: Duration = Duration.ofHours(1)
+  val DISABLED: BlobIdListCacheConfiguration = BlobIdListCacheConfiguration(enabled = false, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL)
+  val DEFAULT: BlobIdListCacheConfiguration = BlobIdListCacheConfiguration(enabled = true, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL)
+}
+
+case class BlobIdListCacheConfiguration(enabled: Boolean, maximumSize: Long, ttl: Duration) {
+  Preconditions.checkArgument(maximumSize > 0, "'maximumSize' needs to be strictly positive".asInstanceOf[Object])
+  Preconditions.checkArgument(!ttl.isNegative && !ttl.isZero, "'ttl' needs to be strictly positive".asInstanceOf[Object])
+}
+
+/**
+ * Remembers node-locally the blob ids known to be stored, so that saving an already stored blob into the default
+ * bucket does not need a database round trip.
+ *
+ * Only positive answers are cached: a blob id missing from the cache is always looked up, hence a stale entry can only
+ * come from a removal issued on another node, bounded by the TTL.
+ */
+class CachingBlobIdList(underlying: BlobIdList,
+                        metricFactory: MetricFactory,
+                        configuration: BlobIdListCacheConfiguration) extends BlobIdList {
+
+  private val cache: Cache[BlobId, java.lang.Boolean] = CacheBuilder.newBuilder()
+    .maximumSize(configuration.maximumSize)
+    .expireAfterWrite(configuration.ttl)
+    .build()
+  // Bumped on every removal so that a lookup racing with a removal do not populate the cache with a stale value
+  private val invalidationGeneration: AtomicLong = new AtomicLong()
+  private val hitMetric: Metric = metricFactory.generate("blob-id-list-cache-hit")
+  private val missMetric: Metric = metricFactory.generate("blob-id-list-cache-miss")
+
+  override def isStored(blobId: BlobId): Publisher[java.lang.Boolean] =
+    Option(cache.getIfPresent(blobId))
+      .map(isStored => {
+        hitMetric.increment()
+        SMono.just(isStored)
+      })
+      .getOrElse(lookup(blobId))
+
+  private def lookup(blobId: BlobId): SMono[java.lang.Boolean] = {
+    missMetric.increment()
+    val generation: Long = invalidationGeneration.get()
+    SMono.fromPublisher(underlying.isStored(blobId))
+      .doOnNext(isStored => remember(blobId, isStored, generation))
+  }
+
+  override def store(blobId: BlobId): Publisher[Unit] = {
+    val generation: Long = invalidationGeneration.get()
+    SMono.fromPublisher(underlying.store(blobId))
+      .doOnSuccess(_ => remember(blobId, java.lang.Boolean.TRUE, generation))
+  }
+
+  override def remove(blobId: BlobId): Publisher[Unit] =
+    SMono.fromPublisher(underlying.remove(blobId))
+      .doFinally(_ => invalidate(blobId))
+
+  private def remember(blobId: BlobId, isStored: java.lang.Boolean, generation: Long): Unit =
+    if (isStored && generation == invalidationGeneration.get()) {
+      cache.put(blobId, isStored)
+    }
+
+  @VisibleForTesting
+  def invalidate(blobId: BlobId): Unit = {
+    invalidationGeneration.incrementAndGet()
+    cache.invalidate(blobId)
+  }
+}
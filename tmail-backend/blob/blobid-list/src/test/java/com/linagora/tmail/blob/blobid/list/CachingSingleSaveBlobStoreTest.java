@@ -0,0 +1,132 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.blobid.list;
+
+import static org.apache.james.blob.api.BlobStoreDAOFixture.SHORT_BYTEARRAY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.james.backends.cassandra.CassandraCluster;
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.backends.cassandra.components.CassandraDataDefinition;
+import org.apache.james.backends.cassandra.versions.CassandraSchemaVersionDataDefinition;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.PlainBlobId;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdList;
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdListDAO;
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdListModule;
+
+import reactor.core.publisher.Mono;
+
+public class CachingSingleSaveBlobStoreTest implements SingleSaveBlobStoreContract {
+
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(
+        CassandraDataDefinition.aggregateModules(CassandraBlobIdListModule.MODULE(),
+                    CassandraSchemaVersionDataDefinition.MODULE));
+
+    private CassandraBlobIdList cassandraBlobIdList;
+    private CachingBlobIdList cachingBlobIdList;
+    private RecordingMetricFactory metricFactory;
+    private BlobStoreDAO blobStoreDAO;
+
+    @BeforeEach
+    void setUp(CassandraCluster cassandra) {
+        cassandraBlobIdList = new CassandraBlobIdList(new CassandraBlobIdListDAO(cassandra.getConf()));
+        metricFactory = new RecordingMetricFactory();
+        cachingBlobIdList = new CachingBlobIdList(cassandraBlobIdList, metricFactory, BlobIdListCacheConfiguration.DEFAULT());
+        blobStoreDAO = new SingleSaveBlobStoreDAO(new MemoryBlobStoreDAO(), cachingBlobIdList, defaultBucketName());
+    }
+
+    @Override
+    public BlobStoreDAO testee() {
+        return blobStoreDAO;
+    }
+
+    @Override
+    public BlobIdList blobIdList() {
+        return cachingBlobIdList;
+    }
+
+    @Override
+    public BlobId.Factory blobIdFactory() {
+        return new PlainBlobId.Factory();
+    }
+
+    @Override
+    public BucketName defaultBucketName() {
+        return BucketName.DEFAULT;
+    }
+
+    @Override
+    @Disabled("Not supported")
+    public void listBucketsShouldReturnBucketsWithNoBlob() {
+
+    }
+
+    @Test
+    void savingAgainShouldBeServedFromTheCache() {
+        BlobId blobId = blobIdFactory().of("abc");
+        Mono.from(testee().save(defaultBucketName(), blobId, SHORT_BYTEARRAY)).block();
+
+        Mono.from(testee().save(defaultBucketName(), blobId, SHORT_BYTEARRAY)).block();
+
+        assertThat(metricFactory.countFor("blob-id-list-cache-miss")).isEqualTo(1);
+        assertThat(metricFactory.countFor("blob-id-list-cache-hit")).isEqualTo(1);
+    }
+
+    @Test
+    void isStoredShouldCachePositiveLookups() {
+        BlobId blobId = blobIdFactory().of("abc");
+        Mono.from(cassandraBlobIdList.store(blobId)).block();
+
+        Mono.from(cachingBlobIdList.isStored(blobId)).block();
+        Mono.from(cassandraBlobIdList.remove(blobId)).block();
+
+        assertThat(Mono.from(cachingBlobIdList.isStored(blobId)).block()).isTrue();
+    }
+
+    @Test
+    void isStoredShouldNotCacheNegativeLookups() {
+        BlobId blobId = blobIdFactory().of("abc");
+        Mono.from(cachingBlobIdList.isStored(blobId)).block();
+
+        Mono.from(cassandraBlobIdList.store(blobId)).block();
+
+        assertThat(Mono.from(cachingBlobIdList.isStored(blobId)).block()).isTrue();
+    }
+
+    @Test
+    void removeShouldInvalidateTheCachedEntry() {
+        BlobId blobId = blobIdFactory().of("abc");
+        Mono.from(cachingBlobIdList.store(blobId)).block();
+
+        Mono.from(cachingBlobIdList.remove(blobId)).block();
+
+        assertThat(Mono.from(cachingBlobIdList.isStored(blobId)).block()).isFalse();
+    }
+}
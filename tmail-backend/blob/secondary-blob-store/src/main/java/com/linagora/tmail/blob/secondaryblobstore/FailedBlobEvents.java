@@ -30,9 +30,21 @@ public interface FailedBlobEvents {
         Username USERNAME = Username.of("SecondaryBlobStore");
 
         ObjectStorageIdentity getFailedObjectStorage();
+
+        /**
+         * @return true when the operation was not attempted on the failed object storage but deferred to the
+         * FailedBlobOperationListener by the asynchronous replication mode
+         */
+        boolean isDeferred();
+
+        BlobEvent asNotDeferred();
     }
 
-    record BlobAddition(EventId eventId, BucketName bucketName, BlobId blobId, ObjectStorageIdentity failedObjectStorage) implements BlobEvent {
+    record BlobAddition(EventId eventId, BucketName bucketName, BlobId blobId, ObjectStorageIdentity failedObjectStorage, boolean deferred) implements BlobEvent {
+        public BlobAddition(EventId eventId, BucketName bucketName, BlobId blobId, ObjectStorageIdentity failedObjectStorage) {
+            this(eventId, bucketName, blobId, failedObjectStorage, false);
+        }
+
         @Override
         public Username getUsername() {
             return USERNAME;
@@ -52,9 +64,23 @@ public interface FailedBlobEvents {
         public ObjectStorageIdentity getFailedObjectStorage() {
             return failedObjectStorage;
         }
+
+        @Override
+        public boolean isDeferred() {
+            return deferred;
+        }
+
+        @Override
+        public BlobAddition asNotDeferred() {
+            return new BlobAddition(eventId, bucketName, blobId, failedObjectStorage);
+        }
     }
 
-    record BlobsDeletion(EventId eventId, BucketName bucketName, Collection<BlobId> blobIds, ObjectStorageIdentity failedObjectStorage) implements BlobEvent {
+    record BlobsDeletion(EventId eventId, BucketName bucketName, Collection<BlobId> blobIds, ObjectStorageIdentity failedObjectStorage, boolean deferred) implements BlobEvent {
+        public BlobsDeletion(EventId eventId, BucketName bucketName, Collection<BlobId> blobIds, ObjectStorageIdentity failedObjectStorage) {
+            this(eventId, bucketName, blobIds, failedObjectStorage, false);
+        }
+
         @Override
         public Username getUsername() {
             return USERNAME;
@@ -74,9 +100,23 @@ public interface FailedBlobEvents {
         public ObjectStorageIdentity getFailedObjectStorage() {
             return failedObjectStorage;
         }
+
+        @Override
+        public boolean isDeferred() {
+            return deferred;
+        }
+
+        @Override
+        public BlobsDeletion asNotDeferred() {
+            return new BlobsDeletion(eventId, bucketName, blobIds, failedObjectStorage);
+        }
     }
 
-    record BucketDeletion(EventId eventId, BucketName bucketName, ObjectStorageIdentity failedObjectStorage) implements BlobEvent {
+    record BucketDeletion(EventId eventId, BucketName bucketName, ObjectStorageIdentity failedObjectStorage, boolean deferred) implements BlobEvent {
+        public BucketDeletion(EventId eventId, BucketName bucketName, ObjectStorageIdentity failedObjectStorage) {
+            this(eventId, bucketName, failedObjectStorage, false);
+        }
+
         @Override
         public Username getUsername() {
             return USERNAME;
@@ -96,5 +136,15 @@ public interface FailedBlobEvents {
         public ObjectStorageIdentity getFailedObjectStorage() {
             return failedObjectStorage;
         }
+
+        @Override
+        public boolean isDeferred() {
+            return deferred;
+        }
+
+        @Override
+        public BucketDeletion asNotDeferred() {
+            return new BucketDeletion(eventId, bucketName, failedObjectStorage);
+        }
     }
 }
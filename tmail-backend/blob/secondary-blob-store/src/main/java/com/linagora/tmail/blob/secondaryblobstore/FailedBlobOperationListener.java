@@ -24,8 +24,13 @@ import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.BlobStoreDAO;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.events.Event;
+import org.apache.james.events.EventDeadLetters;
 import org.apache.james.events.EventListener;
 import org.apache.james.events.Group;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +40,9 @@ import reactor.core.scheduler.Schedulers;
 
 public class FailedBlobOperationListener implements EventListener.ReactiveGroupEventListener {
     public static final Logger LOGGER = LoggerFactory.getLogger(FailedBlobOperationListener.class);
+    // Incremented upon deferred dispatches and decremented once replayed or dead-lettered: summed across nodes it gives
+    // the replication lag of the asynchronous replication mode
+    public static final String PENDING_REPLICATION_METRIC_NAME = "secondary-blobstore-replication-pending";
 
     public static class FailedBlobOperationListenerGroup extends Group {
     }
@@ -42,23 +50,61 @@ public class FailedBlobOperationListener implements EventListener.ReactiveGroupE
     private final BlobStoreDAO primaryBlobStoreDAO;
     private final BlobStoreDAO secondaryBlobStoreDAO;
     private final String secondaryBucketSuffix;
+    private final EventDeadLetters eventDeadLetters;
+    private final RetryBackoffConfiguration retryBackoffConfiguration;
+    private final Metric pendingReplicationMetric;
 
     public FailedBlobOperationListener(BlobStoreDAO primaryBlobStoreDAO,
                                        BlobStoreDAO secondaryBlobStoreDAO,
-                                       String secondaryBucketSuffix) {
+                                       String secondaryBucketSuffix,
+                                       EventDeadLetters eventDeadLetters) {
+        this(primaryBlobStoreDAO, secondaryBlobStoreDAO, secondaryBucketSuffix, eventDeadLetters, RetryBackoffConfiguration.DEFAULT, new NoopMetricFactory());
+    }
+
+    public FailedBlobOperationListener(BlobStoreDAO primaryBlobStoreDAO,
+                                       BlobStoreDAO secondaryBlobStoreDAO,
+                                       String secondaryBucketSuffix,
+                                       EventDeadLetters eventDeadLetters,
+                                       RetryBackoffConfiguration retryBackoffConfiguration,
+                                       MetricFactory metricFactory) {
         this.primaryBlobStoreDAO = primaryBlobStoreDAO;
         this.secondaryBlobStoreDAO = secondaryBlobStoreDAO;
         this.secondaryBucketSuffix = secondaryBucketSuffix;
+        this.eventDeadLetters = eventDeadLetters;
+        this.retryBackoffConfiguration = retryBackoffConfiguration;
+        this.pendingReplicationMetric = metricFactory.generate(PENDING_REPLICATION_METRIC_NAME);
     }
 
     @Override
     public Publisher<Void> reactiveEvent(Event event) {
         return switch (event) {
+            case FailedBlobEvents.BlobEvent blobEvent when blobEvent.isDeferred() -> replayDeferred(blobEvent);
+            case FailedBlobEvents.BlobEvent blobEvent -> replay(blobEvent);
+            default -> Mono.empty();
+        };
+    }
+
+    // Deferred events are retried and dead-lettered here rather than by the event bus, so that the pending replication
+    // metric is decremented once and only once for each of them. The dead letter is stored as a regular failure, as it
+    // is no longer accounted as pending.
+    private Mono<Void> replayDeferred(FailedBlobEvents.BlobEvent blobEvent) {
+        return Mono.defer(() -> replay(blobEvent))
+            .retryWhen(retryBackoffConfiguration.asReactorRetry().scheduler(Schedulers.boundedElastic()))
+            .onErrorResume(e -> {
+                LOGGER.error("Failed to replicate {} to the {} object storage, storing it in the dead letters", blobEvent.getEventId().getId(),
+                    blobEvent.getFailedObjectStorage().name().toLowerCase(), e);
+                return Mono.from(eventDeadLetters.store(getDefaultGroup(), blobEvent.asNotDeferred())).then();
+            })
+            .doOnSuccess(any -> pendingReplicationMetric.decrement());
+    }
+
+    private Mono<Void> replay(FailedBlobEvents.BlobEvent blobEvent) {
+        return Mono.from(switch (blobEvent) {
             case FailedBlobEvents.BlobAddition blobAdditionEvent -> handleFailedBlobsAdditionEvent(blobAdditionEvent);
             case FailedBlobEvents.BlobsDeletion blobsDeletionEvent -> handleFailedBlobsDeletionEvent(blobsDeletionEvent);
             case FailedBlobEvents.BucketDeletion bucketDeletionEvent -> handleFailedBucketDeletionEvent(bucketDeletionEvent);
-            default -> Mono.empty();
-        };
+            default -> Mono.<Void>empty();
+        });
     }
 
     @Override
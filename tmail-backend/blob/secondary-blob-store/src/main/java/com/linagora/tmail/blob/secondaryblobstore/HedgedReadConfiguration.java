@@ -0,0 +1,48 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.time.Duration;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Hedged reads send a duplicate read to the secondary object storage when the primary one did not answer within the
+ * given percentile of its recent read latencies. The first answer wins, the other read is cancelled.
+ *
+ * @param percentile percentile of the primary read latency after which a hedged read is issued, eg 0.95
+ * @param minimumDelay lower bound of the hedging delay, preventing to hedge reads of an healthy and fast primary storage
+ * @param budgetRatio maximum share of reads allowed to be hedged, eg 0.1 for 10%
+ */
+public record HedgedReadConfiguration(boolean enabled, double percentile, Duration minimumDelay, double budgetRatio) {
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final Duration DEFAULT_MINIMUM_DELAY = Duration.ofMillis(20);
+    public static final double DEFAULT_BUDGET_RATIO = 0.1;
+    public static final HedgedReadConfiguration DISABLED = new HedgedReadConfiguration(false, DEFAULT_PERCENTILE, DEFAULT_MINIMUM_DELAY, DEFAULT_BUDGET_RATIO);
+
+    public static HedgedReadConfiguration enabled(double percentile, Duration minimumDelay, double budgetRatio) {
+        return new HedgedReadConfiguration(true, percentile, minimumDelay, budgetRatio);
+    }
+
+    public HedgedReadConfiguration {
+        Preconditions.checkArgument(percentile > 0 && percentile < 1, "'percentile' must be strictly between 0 and 1");
+        Preconditions.checkArgument(!minimumDelay.isNegative(), "'minimumDelay' must not be negative");
+        Preconditions.checkArgument(budgetRatio > 0 && budgetRatio <= 1, "'budgetRatio' must be in ]0, 1]");
+    }
+}
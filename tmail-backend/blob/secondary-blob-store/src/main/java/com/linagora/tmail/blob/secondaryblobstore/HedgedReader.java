@@ -0,0 +1,209 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Races a read of the primary object storage against a delayed read of the secondary one.
+ *
+ * The delay is the configured percentile of a rolling window of the primary read latencies, so that only the reads
+ * already slower than usual get hedged. No read is hedged until enough latencies had been recorded. A token budget,
+ * credited on each read, caps the share of hedged reads so that a degraded primary does not double the load on the
+ * secondary object storage.
+ */
+class HedgedReader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgedReader.class);
+    private static final int WINDOW_SIZE = 1024;
+    private static final int MINIMUM_SAMPLES = 100;
+    private static final int THRESHOLD_REFRESH_INTERVAL = 64;
+    // Allows a burst of slow reads to be hedged beyond the steady budget ratio
+    private static final long MAXIMUM_BUDGET_TOKENS = 10;
+    private static final long TOKEN = 1000;
+
+    static class LatencyWindow {
+        private final double percentile;
+        private final AtomicLongArray samples;
+        private final AtomicLong recordedCount;
+        private volatile Optional<Duration> threshold;
+
+        LatencyWindow(double percentile) {
+            this.percentile = percentile;
+            this.samples = new AtomicLongArray(WINDOW_SIZE);
+            this.recordedCount = new AtomicLong();
+            this.threshold = Optional.empty();
+        }
+
+        void record(Duration latency) {
+            long count = recordedCount.incrementAndGet();
+            samples.set((int) ((count - 1) % WINDOW_SIZE), latency.toNanos());
+            if (count >= MINIMUM_SAMPLES && count % THRESHOLD_REFRESH_INTERVAL == 0) {
+                refreshThreshold((int) Math.min(count, WINDOW_SIZE));
+            }
+        }
+
+        // Sorting the window is cheap enough as it only happens once every THRESHOLD_REFRESH_INTERVAL reads
+        private void refreshThreshold(int sampleCount) {
+            long[] sortedSamples = new long[sampleCount];
+            for (int i = 0; i < sampleCount; i++) {
+                sortedSamples[i] = samples.get(i);
+            }
+            Arrays.sort(sortedSamples);
+            int index = Math.max(0, (int) Math.ceil(percentile * sampleCount) - 1);
+            threshold = Optional.of(Duration.ofNanos(sortedSamples[index]));
+        }
+
+        Optional<Duration> threshold() {
+            return threshold;
+        }
+    }
+
+    static class Budget {
+        private final long creditPerRead;
+        private final AtomicLong balance;
+
+        Budget(double budgetRatio) {
+            this.creditPerRead = Math.round(budgetRatio * TOKEN);
+            this.balance = new AtomicLong();
+        }
+
+        void credit() {
+            balance.accumulateAndGet(creditPerRead, (current, credit) -> Math.min(current + credit, MAXIMUM_BUDGET_TOKENS * TOKEN));
+        }
+
+        boolean tryWithdraw() {
+            while (true) {
+                long current = balance.get();
+                if (current < TOKEN) {
+                    return false;
+                }
+                if (balance.compareAndSet(current, current - TOKEN)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private final HedgedReadConfiguration configuration;
+    private final LatencyWindow latencyWindow;
+    private final Budget budget;
+    private final Metric readMetric;
+    private final Metric hedgedReadMetric;
+    private final Metric hedgedReadWonMetric;
+
+    HedgedReader(HedgedReadConfiguration configuration, MetricFactory metricFactory) {
+        this.configuration = configuration;
+        this.latencyWindow = new LatencyWindow(configuration.percentile());
+        this.budget = new Budget(configuration.budgetRatio());
+        this.readMetric = metricFactory.generate("secondary-blobstore-read");
+        this.hedgedReadMetric = metricFactory.generate("secondary-blobstore-hedged-read");
+        this.hedgedReadWonMetric = metricFactory.generate("secondary-blobstore-hedged-read-won");
+    }
+
+    /**
+     * Records the latency of the successful primary reads. Reads cancelled because the hedged one won are recorded as
+     * well, with the time spent until the cancellation, so that a slow primary keeps on raising the hedging delay.
+     */
+    <T> Mono<T> recordLatency(Mono<T> primaryRead) {
+        if (!configuration.enabled()) {
+            return primaryRead;
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return primaryRead
+                .doOnSuccess(any -> latencyWindow.record(Duration.ofNanos(System.nanoTime() - start)))
+                .doOnCancel(() -> latencyWindow.record(Duration.ofNanos(System.nanoTime() - start)));
+        });
+    }
+
+    /**
+     * @param read the read of the primary object storage, falling back to the secondary one on failure
+     * @param hedgedRead the read of the secondary object storage
+     * @param discard releases a value read after the other side already answered
+     */
+    <T> Mono<T> hedge(Mono<T> read, Supplier<Mono<T>> hedgedRead, Consumer<T> discard) {
+        if (!configuration.enabled()) {
+            return read;
+        }
+        return Mono.defer(() -> {
+            readMetric.increment();
+            budget.credit();
+
+            return latencyWindow.threshold()
+                .map(threshold -> race(read, hedgedRead, discard, max(threshold, configuration.minimumDelay())))
+                .orElse(read);
+        });
+    }
+
+    private <T> Mono<T> race(Mono<T> read, Supplier<Mono<T>> hedgedRead, Consumer<T> discard, Duration delay) {
+        AtomicBoolean answered = new AtomicBoolean(false);
+
+        // Errors and empty answers of the hedged read are left to the primary read, that falls back on its own
+        Mono<T> hedge = Mono.delay(delay)
+            .filter(any -> budget.tryWithdraw())
+            .doOnNext(any -> hedgedReadMetric.increment())
+            .flatMap(any -> hedgedRead.get())
+            .onErrorResume(e -> {
+                LOGGER.debug("Hedged read on the secondary blob store failed", e);
+                return Mono.empty();
+            })
+            .flatMap(value -> firstAnswer(answered, value, discard))
+            .doOnNext(any -> hedgedReadWonMetric.increment())
+            .switchIfEmpty(Mono.never());
+
+        return Mono.firstWithSignal(read.flatMap(value -> firstAnswer(answered, value, discard)), hedge);
+    }
+
+    // The losing side never signals so that it can not be mistaken for the answer
+    private <T> Mono<T> firstAnswer(AtomicBoolean answered, T value, Consumer<T> discard) {
+        if (answered.compareAndSet(false, true)) {
+            return Mono.just(value);
+        }
+        discard.accept(value);
+        return Mono.never();
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        if (a.compareTo(b) >= 0) {
+            return a;
+        }
+        return b;
+    }
+
+    @VisibleForTesting
+    Optional<Duration> hedgingThreshold() {
+        return latencyWindow.threshold();
+    }
+}
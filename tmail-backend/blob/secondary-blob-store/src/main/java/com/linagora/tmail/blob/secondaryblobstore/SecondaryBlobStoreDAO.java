@@ -18,12 +18,11 @@
 
 package com.linagora.tmail.blob.secondaryblobstore;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.james.blob.api.BlobId;
@@ -35,6 +34,9 @@ import org.apache.james.blob.api.ObjectStoreIOException;
 import org.apache.james.events.Event;
 import org.apache.james.events.EventBus;
 import org.apache.james.events.RegistrationKey;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,8 +47,6 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.io.ByteSource;
-import com.google.common.io.FileBackedOutputStream;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -54,63 +54,67 @@ import reactor.core.scheduler.Schedulers;
 
 public class SecondaryBlobStoreDAO implements BlobStoreDAO {
 
-    private static class FileBackedOutputStreamByteSource extends ByteSource {
-        private final FileBackedOutputStream stream;
-        private final long size;
-
-        private FileBackedOutputStreamByteSource(FileBackedOutputStream stream, long size) {
-            Preconditions.checkArgument(size >= 0, "'size' must be positive");
-            this.stream = stream;
-            this.size = size;
-        }
-
-        @Override
-        public InputStream openStream() throws IOException {
-            return stream.asByteSource().openStream();
-        }
-
-        @Override
-        public com.google.common.base.Optional<Long> sizeIfKnown() {
-            return com.google.common.base.Optional.of(size);
-        }
-
-        @Override
-        public long size() {
-            return size;
-        }
+    public enum ReplicationMode {
+        // Writes complete once both object storages acknowledged them
+        SYNCHRONOUS,
+        // Writes complete once the primary object storage acknowledged them, the secondary object storage is updated
+        // in the background by the FailedBlobOperationListener
+        ASYNCHRONOUS
     }
 
-    record SavingStatus(Optional<Throwable> e, ObjectStorageIdentity objectStorageIdentity) {
+    record SavingStatus(Optional<Throwable> e, ObjectStorageIdentity objectStorageIdentity, boolean deferred) {
         public static SavingStatus success(ObjectStorageIdentity objectStorageIdentity) {
-            return new SavingStatus(Optional.empty(), objectStorageIdentity);
+            return new SavingStatus(Optional.empty(), objectStorageIdentity, false);
         }
 
         public static SavingStatus failure(Throwable e, ObjectStorageIdentity objectStorageIdentity) {
-            return new SavingStatus(Optional.of(e), objectStorageIdentity);
+            return new SavingStatus(Optional.of(e), objectStorageIdentity, false);
+        }
+
+        public static SavingStatus deferred(ObjectStorageIdentity objectStorageIdentity) {
+            return new SavingStatus(Optional.empty(), objectStorageIdentity, true);
         }
 
         public boolean isSuccess() {
-            return e.isEmpty();
+            return e.isEmpty() && !deferred;
         }
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SecondaryBlobStoreDAO.class);
     private static final Set<RegistrationKey> NO_REGISTRATION_KEYS = ImmutableSet.of();
-    private static final int FILE_THRESHOLD = 100 * 1024 * 1024;
+    // Lag allowed between the primary and secondary uploads before the content is spilled to disk
+    private static final long TEE_WINDOW = 8 * 1024 * 1024;
 
     private final BlobStoreDAO primaryBlobStoreDAO;
     private final BlobStoreDAO secondaryBlobStoreDAO;
     private final String secondaryBucketSuffix;
     private final EventBus eventBus;
+    private final HedgedReader hedgedReader;
+    private final ReplicationMode replicationMode;
+    private final Metric pendingReplicationMetric;
 
     public SecondaryBlobStoreDAO(BlobStoreDAO primaryBlobStoreDAO,
                                  BlobStoreDAO secondaryBlobStoreDAO,
                                  String secondaryBucketSuffix,
                                  EventBus eventBus) {
+        this(primaryBlobStoreDAO, secondaryBlobStoreDAO, secondaryBucketSuffix, eventBus, HedgedReadConfiguration.DISABLED,
+            ReplicationMode.SYNCHRONOUS, new NoopMetricFactory());
+    }
+
+    public SecondaryBlobStoreDAO(BlobStoreDAO primaryBlobStoreDAO,
+                                 BlobStoreDAO secondaryBlobStoreDAO,
+                                 String secondaryBucketSuffix,
+                                 EventBus eventBus,
+                                 HedgedReadConfiguration hedgedReadConfiguration,
+                                 ReplicationMode replicationMode,
+                                 MetricFactory metricFactory) {
         this.primaryBlobStoreDAO = primaryBlobStoreDAO;
         this.secondaryBlobStoreDAO = secondaryBlobStoreDAO;
         this.secondaryBucketSuffix = secondaryBucketSuffix;
         this.eventBus = eventBus;
+        this.hedgedReader = new HedgedReader(hedgedReadConfiguration, metricFactory);
+        this.replicationMode = replicationMode;
+        this.pendingReplicationMetric = metricFactory.generate(FailedBlobOperationListener.PENDING_REPLICATION_METRIC_NAME);
     }
 
     @Override
@@ -133,7 +137,7 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
 
     @Override
     public Mono<InputStreamBlob> readReactive(BucketName bucketName, BlobId blobId) {
-        return Mono.from(primaryBlobStoreDAO.readReactive(bucketName, blobId))
+        Mono<InputStreamBlob> read = hedgedReader.recordLatency(Mono.from(primaryBlobStoreDAO.readReactive(bucketName, blobId)))
             .onErrorResume(ex -> Mono.from(secondaryBlobStoreDAO.readReactive(withSuffix(bucketName), blobId))
                 .onErrorResume(ex2 -> {
                     if (ex instanceof ObjectNotFoundException && ex2 instanceof ObjectNotFoundException) {
@@ -142,11 +146,14 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
                     return Mono.error(new ObjectStoreException("Failure to read " + blobId.asString() + " in bucket " + bucketName.asString() + " on both blobstores, first error:", ex));
                 })
                 .doOnSuccess(any -> LOGGER.warn("Fail to read from the first blob store with bucket name {} and blobId {}. Use second blob store", bucketName.asString(), blobId.asString(), ex)));
+        return hedgedReader.hedge(read,
+            () -> Mono.from(secondaryBlobStoreDAO.readReactive(withSuffix(bucketName), blobId)),
+            blob -> IOUtils.closeQuietly(blob.payload()));
     }
 
     @Override
     public Mono<BytesBlob> readBytes(BucketName bucketName, BlobId blobId) {
-        return Mono.from(primaryBlobStoreDAO.readBytes(bucketName, blobId))
+        Mono<BytesBlob> read = hedgedReader.recordLatency(Mono.from(primaryBlobStoreDAO.readBytes(bucketName, blobId)))
             .onErrorResume(ex -> Mono.from(secondaryBlobStoreDAO.readBytes(withSuffix(bucketName), blobId))
                 .onErrorResume(ex2 -> {
                     if (ex instanceof ObjectNotFoundException && ex2 instanceof ObjectNotFoundException) {
@@ -155,6 +162,9 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
                     return Mono.error(new ObjectStoreException("Failure to read " + blobId.asString() + " in bucket " + bucketName.asString() + " on both blobstores, first error:", ex));
                 })
                 .doOnSuccess(any -> LOGGER.warn("Fail to read from the first blob store with bucket name {} and blobId {}. Use second blob store", bucketName.asString(), blobId.asString(), ex)));
+        return hedgedReader.hedge(read,
+            () -> Mono.from(secondaryBlobStoreDAO.readBytes(withSuffix(bucketName), blobId)),
+            any -> { });
     }
 
     @Override
@@ -167,67 +177,61 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
     }
 
     private Mono<Void> save(BucketName bucketName, BlobId blobId, BytesBlob bytesBlob) {
-        return Flux.merge(asSavingStatus(primaryBlobStoreDAO.save(bucketName, blobId, bytesBlob), ObjectStorageIdentity.PRIMARY),
-                asSavingStatus(secondaryBlobStoreDAO.save(withSuffix(bucketName), blobId, bytesBlob), ObjectStorageIdentity.SECONDARY))
-            .collectList()
+        return write(() -> primaryBlobStoreDAO.save(bucketName, blobId, bytesBlob),
+                () -> secondaryBlobStoreDAO.save(withSuffix(bucketName), blobId, bytesBlob))
             .flatMap(savingStatuses -> merge(blobId, savingStatuses,
-                failedObjectStorage -> eventBus.dispatch(new FailedBlobEvents.BlobAddition(Event.EventId.random(), bucketName, blobId, failedObjectStorage), NO_REGISTRATION_KEYS)));
+                failed -> journal(new FailedBlobEvents.BlobAddition(Event.EventId.random(), bucketName, blobId, failed.objectStorageIdentity(), failed.deferred()))));
     }
 
     private Mono<Void> save(BucketName bucketName, BlobId blobId, InputStreamBlob inputStreamBlob) {
+        if (replicationMode == ReplicationMode.ASYNCHRONOUS) {
+            // The secondary object storage is later written from the primary one: teeing would retain the whole content for a
+            // secondary branch only read upon primary failures. The content being read once, a primary failure fails the save.
+            return Mono.from(primaryBlobStoreDAO.save(bucketName, blobId, inputStreamBlob))
+                .then(Mono.defer(() -> journal(new FailedBlobEvents.BlobAddition(Event.EventId.random(), bucketName, blobId, ObjectStorageIdentity.SECONDARY, true))));
+        }
         return Mono.using(
-                () -> new FileBackedOutputStream(FILE_THRESHOLD),
-                fileBackedOutputStream -> Mono.fromCallable(() -> IOUtils.copy(inputStreamBlob.payload(), fileBackedOutputStream))
-                    .flatMap(size -> {
-                        ByteSourceBlob duplicatedBlob = ByteSourceBlob.of(
-                            new FileBackedOutputStreamByteSource(fileBackedOutputStream, size),
-                            inputStreamBlob.metadata());
-                        return Flux.merge(
-                                asSavingStatus(primaryBlobStoreDAO.save(bucketName, blobId, duplicatedBlob), ObjectStorageIdentity.PRIMARY),
-                                asSavingStatus(secondaryBlobStoreDAO.save(withSuffix(bucketName), blobId, duplicatedBlob), ObjectStorageIdentity.SECONDARY))
-                            .collectList()
-                            .flatMap(savingStatuses -> merge(blobId, savingStatuses,
-                                failedObjectStorage -> eventBus.dispatch(
-                                    new FailedBlobEvents.BlobAddition(Event.EventId.random(), bucketName, blobId, failedObjectStorage),
-                                    NO_REGISTRATION_KEYS)));
-                    }),
-                Throwing.consumer(FileBackedOutputStream::reset))
+                () -> new StreamingTee(inputStreamBlob.payload(), TEE_WINDOW),
+                tee -> write(() -> primaryBlobStoreDAO.save(bucketName, blobId, InputStreamBlob.of(tee.primary(), inputStreamBlob.metadata())),
+                        () -> secondaryBlobStoreDAO.save(withSuffix(bucketName), blobId, InputStreamBlob.of(tee.secondary(), inputStreamBlob.metadata())))
+                    .flatMap(savingStatuses -> tee.sourceFailure()
+                        // The content could not be read, retrying the save on the other storage is pointless
+                        .map(Mono::<Void>error)
+                        .orElseGet(() -> merge(blobId, savingStatuses,
+                            failed -> journal(new FailedBlobEvents.BlobAddition(Event.EventId.random(), bucketName, blobId, failed.objectStorageIdentity(), failed.deferred()))))),
+                Throwing.consumer(StreamingTee::close))
             .subscribeOn(Schedulers.boundedElastic());
     }
 
     private Mono<Void> save(BucketName bucketName, BlobId blobId, ByteSourceBlob byteSourceBlob) {
-        return Flux.merge(asSavingStatus(primaryBlobStoreDAO.save(bucketName, blobId, byteSourceBlob), ObjectStorageIdentity.PRIMARY),
-                asSavingStatus(secondaryBlobStoreDAO.save(withSuffix(bucketName), blobId, byteSourceBlob), ObjectStorageIdentity.SECONDARY))
-            .collectList()
+        return write(() -> primaryBlobStoreDAO.save(bucketName, blobId, byteSourceBlob),
+                () -> secondaryBlobStoreDAO.save(withSuffix(bucketName), blobId, byteSourceBlob))
             .flatMap(savingStatuses -> merge(blobId, savingStatuses,
-                failedObjectStorage -> eventBus.dispatch(new FailedBlobEvents.BlobAddition(Event.EventId.random(), bucketName, blobId, failedObjectStorage), NO_REGISTRATION_KEYS)));
+                failed -> journal(new FailedBlobEvents.BlobAddition(Event.EventId.random(), bucketName, blobId, failed.objectStorageIdentity(), failed.deferred()))));
     }
 
     @Override
     public Mono<Void> delete(BucketName bucketName, BlobId blobId) {
-        return Flux.merge(asSavingStatus(primaryBlobStoreDAO.delete(bucketName, blobId), ObjectStorageIdentity.PRIMARY),
-                asSavingStatus(secondaryBlobStoreDAO.delete(withSuffix(bucketName), blobId), ObjectStorageIdentity.SECONDARY))
-            .collectList()
+        return write(() -> primaryBlobStoreDAO.delete(bucketName, blobId),
+                () -> secondaryBlobStoreDAO.delete(withSuffix(bucketName), blobId))
             .flatMap(savingStatuses -> merge(blobId, savingStatuses,
-                failedObjectStorage -> eventBus.dispatch(new FailedBlobEvents.BlobsDeletion(Event.EventId.random(), bucketName, ImmutableList.of(blobId), failedObjectStorage), NO_REGISTRATION_KEYS)));
+                failed -> journal(new FailedBlobEvents.BlobsDeletion(Event.EventId.random(), bucketName, ImmutableList.of(blobId), failed.objectStorageIdentity(), failed.deferred()))));
     }
 
     @Override
     public Mono<Void> delete(BucketName bucketName, Collection<BlobId> blobIds) {
-        return Flux.merge(asSavingStatus(primaryBlobStoreDAO.delete(bucketName, blobIds), ObjectStorageIdentity.PRIMARY),
-                asSavingStatus(secondaryBlobStoreDAO.delete(withSuffix(bucketName), blobIds), ObjectStorageIdentity.SECONDARY))
-            .collectList()
+        return write(() -> primaryBlobStoreDAO.delete(bucketName, blobIds),
+                () -> secondaryBlobStoreDAO.delete(withSuffix(bucketName), blobIds))
             .flatMap(savingStatuses -> merge(savingStatuses,
-                failedObjectStorage -> eventBus.dispatch(new FailedBlobEvents.BlobsDeletion(Event.EventId.random(), bucketName, blobIds, failedObjectStorage), NO_REGISTRATION_KEYS)));
+                failed -> journal(new FailedBlobEvents.BlobsDeletion(Event.EventId.random(), bucketName, blobIds, failed.objectStorageIdentity(), failed.deferred()))));
     }
 
     @Override
     public Mono<Void> deleteBucket(BucketName bucketName) {
-        return Flux.merge(asSavingStatus(primaryBlobStoreDAO.deleteBucket(bucketName), ObjectStorageIdentity.PRIMARY),
-                asSavingStatus(secondaryBlobStoreDAO.deleteBucket(withSuffix(bucketName)), ObjectStorageIdentity.SECONDARY))
-            .collectList()
+        return write(() -> primaryBlobStoreDAO.deleteBucket(bucketName),
+                () -> secondaryBlobStoreDAO.deleteBucket(withSuffix(bucketName)))
             .flatMap(savingStatuses -> merge(savingStatuses,
-                failedObjectStorage -> eventBus.dispatch(new FailedBlobEvents.BucketDeletion(Event.EventId.random(), bucketName, failedObjectStorage), NO_REGISTRATION_KEYS)));
+                failed -> journal(new FailedBlobEvents.BucketDeletion(Event.EventId.random(), bucketName, failed.objectStorageIdentity(), failed.deferred()))));
     }
 
     @Override
@@ -240,12 +244,39 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
         return Flux.from(primaryBlobStoreDAO.listBlobs(bucketName));
     }
 
+    private Mono<List<SavingStatus>> write(Supplier<Publisher<Void>> primaryWrite, Supplier<Publisher<Void>> secondaryWrite) {
+        return switch (replicationMode) {
+            case SYNCHRONOUS -> Flux.merge(asSavingStatus(primaryWrite.get(), ObjectStorageIdentity.PRIMARY),
+                    asSavingStatus(secondaryWrite.get(), ObjectStorageIdentity.SECONDARY))
+                .collectList();
+            // The secondary write is journaled like a failed one, and replayed by the FailedBlobOperationListener.
+            // Should the primary write fail, the secondary one is attempted right away to not lose the write.
+            case ASYNCHRONOUS -> asSavingStatus(primaryWrite.get(), ObjectStorageIdentity.PRIMARY)
+                .flatMap(primaryStatus -> {
+                    if (primaryStatus.isSuccess()) {
+                        return Mono.just(List.of(primaryStatus, SavingStatus.deferred(ObjectStorageIdentity.SECONDARY)));
+                    }
+                    return asSavingStatus(secondaryWrite.get(), ObjectStorageIdentity.SECONDARY)
+                        .map(secondaryStatus -> List.of(primaryStatus, secondaryStatus));
+                });
+        };
+    }
+
+    private Mono<Void> journal(FailedBlobEvents.BlobEvent event) {
+        return eventBus.dispatch(event, NO_REGISTRATION_KEYS)
+            .doOnSuccess(any -> {
+                if (event.isDeferred()) {
+                    pendingReplicationMetric.increment();
+                }
+            });
+    }
+
     private Mono<SavingStatus> asSavingStatus(Publisher<Void> publisher, ObjectStorageIdentity objectStorageIdentity) {
         return Mono.from(publisher).then(Mono.just(SavingStatus.success(objectStorageIdentity)))
             .onErrorResume(e -> Mono.just(SavingStatus.failure(e, objectStorageIdentity)));
     }
 
-    private Mono<Void> merge(List<SavingStatus> savingStatuses, Function<ObjectStorageIdentity, Mono<Void>> partialFailureHandler) {
+    private Mono<Void> merge(List<SavingStatus> savingStatuses, Function<SavingStatus, Mono<Void>> partialFailureHandler) {
         Preconditions.checkArgument(savingStatuses.size() == 2);
         boolean bothSucceeded = savingStatuses.get(0).isSuccess() && savingStatuses.get(1).isSuccess();
         boolean bothFailed = !savingStatuses.get(0).isSuccess() && !savingStatuses.get(1).isSuccess();
@@ -257,11 +288,11 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
         }
 
         SavingStatus failedSavingStatus = savingStatuses.stream().filter(savingStatus -> !savingStatus.isSuccess()).findFirst().get();
-        LOGGER.warn("Failure to save in {} blobStore", failedSavingStatus.objectStorageIdentity().name().toLowerCase(), failedSavingStatus.e.get());
-        return partialFailureHandler.apply(failedSavingStatus.objectStorageIdentity());
+        failedSavingStatus.e.ifPresent(e -> LOGGER.warn("Failure to save in {} blobStore", failedSavingStatus.objectStorageIdentity().name().toLowerCase(), e));
+        return partialFailureHandler.apply(failedSavingStatus);
     }
 
-    private Mono<Void> merge(BlobId blobId, List<SavingStatus> savingStatuses, Function<ObjectStorageIdentity, Mono<Void>> partialFailureHandler) {
+    private Mono<Void> merge(BlobId blobId, List<SavingStatus> savingStatuses, Function<SavingStatus, Mono<Void>> partialFailureHandler) {
         Preconditions.checkArgument(savingStatuses.size() == 2);
         boolean bothSucceeded = savingStatuses.get(0).isSuccess() && savingStatuses.get(1).isSuccess();
         boolean bothFailed = !savingStatuses.get(0).isSuccess() && !savingStatuses.get(1).isSuccess();
@@ -274,9 +305,9 @@ public class SecondaryBlobStoreDAO implements BlobStoreDAO {
         }
 
         SavingStatus failedSavingStatus = savingStatuses.stream().filter(savingStatus -> !savingStatus.isSuccess()).findFirst().get();
-        LOGGER.warn("Failure to save {} in {} blobStore", blobId.asString(),
-            failedSavingStatus.objectStorageIdentity().name().toLowerCase(), failedSavingStatus.e.get());
-        return partialFailureHandler.apply(failedSavingStatus.objectStorageIdentity());
+        failedSavingStatus.e.ifPresent(e -> LOGGER.warn("Failure to save {} in {} blobStore", blobId.asString(),
+            failedSavingStatus.objectStorageIdentity().name().toLowerCase(), e));
+        return partialFailureHandler.apply(failedSavingStatus);
     }
 
     private BucketName withSuffix(BucketName bucketName) {
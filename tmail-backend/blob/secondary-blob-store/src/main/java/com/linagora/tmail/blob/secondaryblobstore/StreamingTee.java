@@ -0,0 +1,251 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Optional;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * Splits an input stream into two branches that can be consumed concurrently, at their own pace.
+ *
+ * The branch ahead pulls chunks from the source, which are kept in memory until the other branch consumed them. When
+ * the lagging branch falls behind by more than the window, the oldest retained chunks are spilled to a temporary file.
+ * The source is thus read once, uploads start right away, and the heap use is bounded by the window whatever the size
+ * of the content. Reads never wait on the other branch, so that consuming both branches sequentially does not
+ * deadlock.
+ */
+class StreamingTee implements Closeable {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long CLOSED = Long.MAX_VALUE;
+
+    private record Chunk(long offset, byte[] bytes) {
+        long end() {
+            return offset + bytes.length;
+        }
+    }
+
+    class Branch extends InputStream {
+        private final byte[] singleByte;
+        private long position;
+
+        private Branch() {
+            this.singleByte = new byte[1];
+            this.position = 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = read(singleByte, 0, 1);
+            if (read == -1) {
+                return -1;
+            }
+            return singleByte[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            synchronized (StreamingTee.this) {
+                Preconditions.checkState(position != CLOSED, "Branch is closed");
+                if (length == 0) {
+                    return 0;
+                }
+                int read = StreamingTee.this.read(position, buffer, offset, length);
+                if (read > 0) {
+                    position += read;
+                    trim();
+                }
+                return read;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (StreamingTee.this) {
+                position = CLOSED;
+                trim();
+            }
+        }
+    }
+
+    private final InputStream source;
+    private final long window;
+    private final Branch primary;
+    private final Branch secondary;
+    private final Deque<Chunk> chunks;
+    private long sourceOffset;
+    private boolean sourceExhausted;
+    private Optional<IOException> sourceFailure;
+    private Optional<File> spillFile;
+    private Optional<RandomAccessFile> spill;
+    private long spillStart;
+    private long spillEnd;
+
+    StreamingTee(InputStream source, long window) {
+        Preconditions.checkArgument(window >= CHUNK_SIZE, "'window' must be at least %s bytes", CHUNK_SIZE);
+        this.source = source;
+        this.window = window;
+        this.primary = new Branch();
+        this.secondary = new Branch();
+        this.chunks = new ArrayDeque<>();
+        this.sourceOffset = 0;
+        this.sourceExhausted = false;
+        this.sourceFailure = Optional.empty();
+        this.spillFile = Optional.empty();
+        this.spill = Optional.empty();
+        this.spillStart = 0;
+        this.spillEnd = 0;
+    }
+
+    InputStream primary() {
+        return primary;
+    }
+
+    InputStream secondary() {
+        return secondary;
+    }
+
+    /**
+     * Failure of the source, to tell it apart from the failures of the consumers of the branches.
+     */
+    synchronized Optional<IOException> sourceFailure() {
+        return sourceFailure;
+    }
+
+    private int read(long position, byte[] buffer, int offset, int length) throws IOException {
+        if (position < spillEnd) {
+            return readSpill(position, buffer, offset, (int) Math.min(length, spillEnd - position));
+        }
+        if (position >= sourceOffset && !pull()) {
+            return -1;
+        }
+        return readChunks(position, buffer, offset, length);
+    }
+
+    private int readSpill(long position, byte[] buffer, int offset, int length) throws IOException {
+        RandomAccessFile file = spill.orElseThrow();
+        file.seek(position - spillStart);
+        return file.read(buffer, offset, length);
+    }
+
+    private int readChunks(long position, byte[] buffer, int offset, int length) {
+        for (Chunk chunk : chunks) {
+            if (position < chunk.end()) {
+                int start = (int) (position - chunk.offset());
+                int read = Math.min(length, chunk.bytes().length - start);
+                System.arraycopy(chunk.bytes(), start, buffer, offset, read);
+                return read;
+            }
+        }
+        throw new IllegalStateException("Position " + position + " is not retained by the tee");
+    }
+
+    private boolean pull() throws IOException {
+        if (sourceFailure.isPresent()) {
+            throw sourceFailure.get();
+        }
+        if (sourceExhausted) {
+            return false;
+        }
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int read;
+        try {
+            read = source.readNBytes(chunk, 0, CHUNK_SIZE);
+        } catch (IOException e) {
+            sourceFailure = Optional.of(e);
+            throw e;
+        }
+        if (read == 0) {
+            sourceExhausted = true;
+            return false;
+        }
+        chunks.addLast(new Chunk(sourceOffset, read == CHUNK_SIZE ? chunk : Arrays.copyOf(chunk, read)));
+        sourceOffset += read;
+        spillIfNeeded();
+        return true;
+    }
+
+    private void spillIfNeeded() throws IOException {
+        while (!chunks.isEmpty() && sourceOffset - chunks.peekFirst().offset() > window) {
+            Chunk oldest = chunks.removeFirst();
+            RandomAccessFile file = openSpill(oldest.offset());
+            file.seek(spillEnd - spillStart);
+            file.write(oldest.bytes());
+            spillEnd = oldest.end();
+        }
+    }
+
+    private RandomAccessFile openSpill(long offset) throws IOException {
+        if (spill.isEmpty()) {
+            File file = Files.createTempFile("secondary-blob-store-tee", ".tmp").toFile();
+            spillFile = Optional.of(file);
+            spill = Optional.of(new RandomAccessFile(file, "rw"));
+        }
+        if (spillEnd <= offset && spillEnd == spillStart) {
+            spillStart = offset;
+            spillEnd = offset;
+        }
+        return spill.get();
+    }
+
+    // Releases the data consumed by both branches
+    private void trim() throws IOException {
+        long consumed = Math.min(primary.position, secondary.position);
+        while (!chunks.isEmpty() && chunks.peekFirst().end() <= consumed) {
+            chunks.removeFirst();
+        }
+        if (spill.isPresent() && consumed >= spillEnd && spillEnd > spillStart) {
+            spill.get().setLength(0);
+            spillStart = spillEnd;
+        }
+    }
+
+    @VisibleForTesting
+    synchronized long retainedInMemory() {
+        return chunks.stream().mapToLong(chunk -> chunk.bytes().length).sum();
+    }
+
+    @VisibleForTesting
+    synchronized boolean hasSpilled() {
+        return spillFile.isPresent();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        chunks.clear();
+        try {
+            source.close();
+        } finally {
+            if (spill.isPresent()) {
+                spill.get().close();
+            }
+            spillFile.ifPresent(File::delete);
+        }
+    }
+}
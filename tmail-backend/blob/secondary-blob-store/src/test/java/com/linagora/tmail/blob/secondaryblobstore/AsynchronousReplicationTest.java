@@ -0,0 +1,183 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import static org.apache.james.blob.api.BlobStoreDAOFixture.SHORT_BYTEARRAY;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BUCKET_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectNotFoundException;
+import org.apache.james.blob.api.ObjectStoreException;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.Group;
+import org.apache.james.events.InVMEventBus;
+import org.apache.james.events.MemoryEventDeadLetters;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.delivery.InVmEventDelivery;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class AsynchronousReplicationTest {
+    private static final String SECONDARY_BUCKET_NAME_SUFFIX = "-secondary-bucket-suffix";
+    private static final BucketName TEST_SECONDARY_BUCKET_NAME = BucketName.of(TEST_BUCKET_NAME.asString() + SECONDARY_BUCKET_NAME_SUFFIX);
+    private static final RetryBackoffConfiguration FAST_RETRY_BACKOFF = RetryBackoffConfiguration.builder()
+        .maxRetries(2)
+        .firstBackoff(Duration.ofMillis(1))
+        .jitterFactor(0.5)
+        .build();
+
+    private MemoryBlobStoreDAO primaryBlobStoreDAO;
+    private MemoryBlobStoreDAO secondaryBlobStoreDAO;
+    private RecordingMetricFactory metricFactory;
+    private MemoryEventDeadLetters eventDeadLetters;
+    private EventBus eventBus;
+    private SecondaryBlobStoreDAO testee;
+
+    @BeforeEach
+    void setUp() {
+        primaryBlobStoreDAO = new MemoryBlobStoreDAO();
+        secondaryBlobStoreDAO = new MemoryBlobStoreDAO();
+        metricFactory = new RecordingMetricFactory();
+        eventDeadLetters = new MemoryEventDeadLetters();
+        eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory()), RetryBackoffConfiguration.DEFAULT, eventDeadLetters);
+        testee = new SecondaryBlobStoreDAO(primaryBlobStoreDAO, secondaryBlobStoreDAO, SECONDARY_BUCKET_NAME_SUFFIX, eventBus,
+            HedgedReadConfiguration.DISABLED, SecondaryBlobStoreDAO.ReplicationMode.ASYNCHRONOUS, metricFactory);
+    }
+
+    private void startReplication() {
+        startReplication(secondaryBlobStoreDAO);
+    }
+
+    private void startReplication(MemoryBlobStoreDAO secondaryBlobStoreDAO) {
+        eventBus.register(new FailedBlobOperationListener(primaryBlobStoreDAO, secondaryBlobStoreDAO, SECONDARY_BUCKET_NAME_SUFFIX,
+            eventDeadLetters, FAST_RETRY_BACKOFF, metricFactory));
+    }
+
+    private static MemoryBlobStoreDAO failingBlobStoreDAO() {
+        return new MemoryBlobStoreDAO() {
+            @Override
+            public Mono<Void> save(BucketName bucketName, BlobId blobId, Blob blob) {
+                return Mono.error(new ObjectStoreException("Object storage is down"));
+            }
+        };
+    }
+
+    @Test
+    void saveShouldCompleteBeforeTheSecondaryBlobStoreIsWritten() {
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Mono.from(primaryBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block().payload())
+            .isEqualTo(SHORT_BYTEARRAY.payload());
+        assertThatThrownBy(() -> Mono.from(secondaryBlobStoreDAO.readBytes(TEST_SECONDARY_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isInstanceOf(ObjectNotFoundException.class);
+        assertThat(metricFactory.countFor(FailedBlobOperationListener.PENDING_REPLICATION_METRIC_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void saveShouldBeReplicatedToTheSecondaryBlobStore() {
+        startReplication();
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Mono.from(secondaryBlobStoreDAO.readBytes(TEST_SECONDARY_BUCKET_NAME, TEST_BLOB_ID)).block().payload())
+            .isEqualTo(SHORT_BYTEARRAY.payload());
+        assertThat(metricFactory.countFor(FailedBlobOperationListener.PENDING_REPLICATION_METRIC_NAME)).isZero();
+    }
+
+    @Test
+    void saveInputStreamShouldBeReplicatedToTheSecondaryBlobStore() {
+        startReplication();
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY.asInputStream())).block();
+
+        assertThat(Mono.from(primaryBlobStoreDAO.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block().payload())
+            .isEqualTo(SHORT_BYTEARRAY.payload());
+        assertThat(Mono.from(secondaryBlobStoreDAO.readBytes(TEST_SECONDARY_BUCKET_NAME, TEST_BLOB_ID)).block().payload())
+            .isEqualTo(SHORT_BYTEARRAY.payload());
+    }
+
+    @Test
+    void saveInputStreamShouldCompleteBeforeTheSecondaryBlobStoreIsWritten() {
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY.asInputStream())).block();
+
+        assertThatThrownBy(() -> Mono.from(secondaryBlobStoreDAO.readBytes(TEST_SECONDARY_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isInstanceOf(ObjectNotFoundException.class);
+        assertThat(metricFactory.countFor(FailedBlobOperationListener.PENDING_REPLICATION_METRIC_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void saveInputStreamShouldFailWhenThePrimaryBlobStoreFails() {
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(failingBlobStoreDAO(), secondaryBlobStoreDAO, SECONDARY_BUCKET_NAME_SUFFIX, eventBus,
+            HedgedReadConfiguration.DISABLED, SecondaryBlobStoreDAO.ReplicationMode.ASYNCHRONOUS, metricFactory);
+
+        assertThatThrownBy(() -> Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY.asInputStream())).block())
+            .isInstanceOf(ObjectStoreException.class);
+        assertThat(metricFactory.countFor(FailedBlobOperationListener.PENDING_REPLICATION_METRIC_NAME)).isZero();
+    }
+
+    @Test
+    void primaryFailuresShouldNotBeCountedAsPendingReplications() {
+        SecondaryBlobStoreDAO testee = new SecondaryBlobStoreDAO(failingBlobStoreDAO(), secondaryBlobStoreDAO, SECONDARY_BUCKET_NAME_SUFFIX, eventBus,
+            HedgedReadConfiguration.DISABLED, SecondaryBlobStoreDAO.ReplicationMode.ASYNCHRONOUS, metricFactory);
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Mono.from(secondaryBlobStoreDAO.readBytes(TEST_SECONDARY_BUCKET_NAME, TEST_BLOB_ID)).block().payload())
+            .isEqualTo(SHORT_BYTEARRAY.payload());
+        assertThat(metricFactory.countFor(FailedBlobOperationListener.PENDING_REPLICATION_METRIC_NAME)).isZero();
+    }
+
+    @Test
+    void deadLetteredReplicationsShouldNoLongerBePending() {
+        startReplication(failingBlobStoreDAO());
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        Group group = new FailedBlobOperationListener.FailedBlobOperationListenerGroup();
+        assertThat(metricFactory.countFor(FailedBlobOperationListener.PENDING_REPLICATION_METRIC_NAME)).isZero();
+        assertThat(eventDeadLetters.failedIds(group)
+                .flatMap(insertionId -> eventDeadLetters.failedEvent(group, insertionId))
+                .collectList()
+                .block())
+            .singleElement()
+            .satisfies(event -> assertThat(((FailedBlobEvents.BlobEvent) event).isDeferred()).isFalse());
+    }
+
+    @Test
+    void deleteShouldBeReplicatedToTheSecondaryBlobStore() {
+        startReplication();
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        Mono.from(testee.delete(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThatThrownBy(() -> Mono.from(secondaryBlobStoreDAO.readBytes(TEST_SECONDARY_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isInstanceOf(ObjectNotFoundException.class);
+        assertThat(metricFactory.countFor(FailedBlobOperationListener.PENDING_REPLICATION_METRIC_NAME)).isZero();
+    }
+}
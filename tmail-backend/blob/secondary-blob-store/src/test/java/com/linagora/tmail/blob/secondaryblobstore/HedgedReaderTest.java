@@ -0,0 +1,146 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class HedgedReaderTest {
+    private static final Duration MINIMUM_DELAY = Duration.ofMillis(10);
+    private static final Duration SLOW = Duration.ofSeconds(1);
+    private static final int WARM_UP_READS = 128;
+
+    private RecordingMetricFactory metricFactory;
+
+    @BeforeEach
+    void setUp() {
+        metricFactory = new RecordingMetricFactory();
+    }
+
+    private HedgedReader testee(double budgetRatio) {
+        return new HedgedReader(HedgedReadConfiguration.enabled(0.95, MINIMUM_DELAY, budgetRatio), metricFactory);
+    }
+
+    private void warmUp(HedgedReader testee, int reads) {
+        IntStream.range(0, reads)
+            .forEach(i -> testee.hedge(testee.recordLatency(Mono.just("primary")), () -> Mono.just("secondary"), any -> { }).block());
+    }
+
+    @Test
+    void readsShouldNotBeHedgedBeforeEnoughLatenciesAreRecorded() {
+        HedgedReader testee = testee(0.1);
+        warmUp(testee, 50);
+
+        assertThat(testee.hedgingThreshold()).isEmpty();
+        assertThat(testee.hedge(testee.recordLatency(Mono.delay(Duration.ofMillis(100)).thenReturn("primary")), () -> Mono.just("secondary"), any -> { }).block())
+            .isEqualTo("primary");
+        assertThat(metricFactory.countFor("secondary-blobstore-hedged-read")).isZero();
+    }
+
+    @Test
+    void fastPrimaryReadsShouldNotBeHedged() {
+        HedgedReader testee = testee(0.1);
+        warmUp(testee, WARM_UP_READS);
+
+        assertThat(testee.hedgingThreshold()).isPresent();
+        assertThat(testee.hedge(testee.recordLatency(Mono.just("primary")), () -> Mono.just("secondary"), any -> { }).block())
+            .isEqualTo("primary");
+        assertThat(metricFactory.countFor("secondary-blobstore-hedged-read")).isZero();
+    }
+
+    @Test
+    void slowPrimaryReadsShouldBeHedged() {
+        HedgedReader testee = testee(0.1);
+        warmUp(testee, WARM_UP_READS);
+
+        assertThat(testee.hedge(testee.recordLatency(Mono.delay(SLOW).thenReturn("primary")), () -> Mono.just("secondary"), any -> { })
+            .block(Duration.ofMillis(500)))
+            .isEqualTo("secondary");
+        assertThat(metricFactory.countFor("secondary-blobstore-hedged-read")).isEqualTo(1);
+        assertThat(metricFactory.countFor("secondary-blobstore-hedged-read-won")).isEqualTo(1);
+    }
+
+    @Test
+    void primaryReadShouldWinWhenTheHedgedReadIsSlower() {
+        HedgedReader testee = testee(0.1);
+        warmUp(testee, WARM_UP_READS);
+
+        assertThat(testee.hedge(testee.recordLatency(Mono.delay(Duration.ofMillis(100)).thenReturn("primary")),
+                () -> Mono.delay(SLOW).thenReturn("secondary"), any -> { })
+            .block())
+            .isEqualTo("primary");
+        assertThat(metricFactory.countFor("secondary-blobstore-hedged-read")).isEqualTo(1);
+        assertThat(metricFactory.countFor("secondary-blobstore-hedged-read-won")).isZero();
+    }
+
+    @Test
+    void failingHedgedReadShouldNotFailTheRead() {
+        HedgedReader testee = testee(0.1);
+        warmUp(testee, WARM_UP_READS);
+
+        assertThat(testee.hedge(testee.recordLatency(Mono.delay(Duration.ofMillis(100)).thenReturn("primary")),
+                () -> Mono.error(new RuntimeException()), any -> { })
+            .block())
+            .isEqualTo("primary");
+    }
+
+    @Test
+    void primaryReadErrorsShouldBePropagated() {
+        HedgedReader testee = testee(0.1);
+        warmUp(testee, WARM_UP_READS);
+
+        assertThatThrownBy(() -> testee.hedge(testee.recordLatency(Mono.delay(Duration.ofMillis(100)).then(Mono.<String>error(new IllegalStateException()))),
+                () -> Mono.error(new RuntimeException()), any -> { })
+            .block())
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void hedgedReadsShouldBeCappedByTheBudget() {
+        // 128 reads credit 1.28 tokens: a single read can be hedged
+        HedgedReader testee = testee(0.01);
+        warmUp(testee, WARM_UP_READS);
+
+        testee.hedge(testee.recordLatency(Mono.delay(Duration.ofMillis(200)).thenReturn("primary")), () -> Mono.just("secondary"), any -> { }).block();
+
+        assertThat(testee.hedge(testee.recordLatency(Mono.delay(Duration.ofMillis(200)).thenReturn("primary")), () -> Mono.just("secondary"), any -> { })
+            .block())
+            .isEqualTo("primary");
+        assertThat(metricFactory.countFor("secondary-blobstore-hedged-read")).isEqualTo(1);
+    }
+
+    @Test
+    void disabledHedgingShouldOnlyReadThePrimary() {
+        HedgedReader testee = new HedgedReader(HedgedReadConfiguration.DISABLED, metricFactory);
+        warmUp(testee, WARM_UP_READS);
+
+        assertThat(testee.hedge(testee.recordLatency(Mono.delay(Duration.ofMillis(100)).thenReturn("primary")), () -> Mono.just("secondary"), any -> { }).block())
+            .isEqualTo("primary");
+        assertThat(metricFactory.countFor("secondary-blobstore-read")).isZero();
+    }
+}
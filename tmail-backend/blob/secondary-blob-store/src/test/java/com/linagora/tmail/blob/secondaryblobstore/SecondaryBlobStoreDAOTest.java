@@ -79,8 +79,9 @@ public class SecondaryBlobStoreDAOTest implements BlobStoreDAOContract {
 
         primaryBlobStoreDAO = createS3BlobStoreDAO(primaryS3);
         secondaryBlobStoreDAO = createS3BlobStoreDAO(secondaryS3);
-        EventBus eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory()), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters());
-        eventBus.register(new FailedBlobOperationListener(primaryBlobStoreDAO, secondaryBlobStoreDAO, SECONDARY_BUCKET_NAME_SUFFIX));
+        MemoryEventDeadLetters eventDeadLetters = new MemoryEventDeadLetters();
+        EventBus eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory()), RetryBackoffConfiguration.DEFAULT, eventDeadLetters);
+        eventBus.register(new FailedBlobOperationListener(primaryBlobStoreDAO, secondaryBlobStoreDAO, SECONDARY_BUCKET_NAME_SUFFIX, eventDeadLetters));
         testee = new SecondaryBlobStoreDAO(primaryBlobStoreDAO, secondaryBlobStoreDAO, SECONDARY_BUCKET_NAME_SUFFIX, eventBus);
     }
 
@@ -0,0 +1,118 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import com.google.common.io.FileBackedOutputStream;
+
+/**
+ * Compares duplicating a 50 MB blob for the primary and secondary uploads by copying it in a FileBackedOutputStream
+ * (100 MB in memory threshold, the former behaviour) against the streaming tee.
+ *
+ * The GC profiler reports the bytes allocated per save (gc.alloc.rate.norm). The uploads are simulated by consuming
+ * both branches in lockstep, as two uploads progressing at the same pace would.
+ */
+public class StreamingTeeBenchmark {
+    private static final int BLOB_SIZE = 50 * 1024 * 1024;
+    private static final int FILE_THRESHOLD = 100 * 1024 * 1024;
+    private static final int TEE_WINDOW = 8 * 1024 * 1024;
+    private static final int UPLOAD_BUFFER_SIZE = 16 * 1024;
+
+    @State(Scope.Benchmark)
+    public static class Blobs {
+        public byte[] content;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            content = new byte[BLOB_SIZE];
+            new Random(42).nextBytes(content);
+        }
+    }
+
+    @Disabled("Benchmark, excluded from the build. Run it with: mvn test -Dtest=StreamingTeeBenchmark "
+        + "-Djunit.jupiter.conditions.deactivate=org.junit.*DisabledCondition")
+    @Test
+    public void launchBenchmark() throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(this.getClass().getName() + ".*")
+            .mode(Mode.AverageTime)
+            .timeUnit(TimeUnit.MILLISECONDS)
+            .warmupTime(TimeValue.seconds(5))
+            .warmupIterations(2)
+            .measurementTime(TimeValue.seconds(5))
+            .measurementIterations(3)
+            .threads(1)
+            .forks(1)
+            .shouldFailOnError(true)
+            .shouldDoGC(true)
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    @Benchmark
+    public void fileBackedOutputStreamCopy(Blobs blobs, Blackhole blackhole) throws Exception {
+        FileBackedOutputStream fileBackedOutputStream = new FileBackedOutputStream(FILE_THRESHOLD);
+        try {
+            new ByteArrayInputStream(blobs.content).transferTo(fileBackedOutputStream);
+            try (InputStream primary = fileBackedOutputStream.asByteSource().openStream();
+                 InputStream secondary = fileBackedOutputStream.asByteSource().openStream()) {
+                uploadInLockstep(primary, secondary, blackhole);
+            }
+        } finally {
+            fileBackedOutputStream.reset();
+        }
+    }
+
+    @Benchmark
+    public void streamingTee(Blobs blobs, Blackhole blackhole) throws Exception {
+        try (StreamingTee tee = new StreamingTee(new ByteArrayInputStream(blobs.content), TEE_WINDOW)) {
+            uploadInLockstep(tee.primary(), tee.secondary(), blackhole);
+        }
+    }
+
+    private void uploadInLockstep(InputStream primary, InputStream secondary, Blackhole blackhole) throws Exception {
+        byte[] buffer = new byte[UPLOAD_BUFFER_SIZE];
+        int read;
+        while ((read = primary.readNBytes(buffer, 0, buffer.length)) > 0) {
+            blackhole.consume(read);
+            blackhole.consume(secondary.readNBytes(buffer, 0, buffer.length));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.blob.secondaryblobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class StreamingTeeTest {
+    private static final int WINDOW = 128 * 1024;
+    private static final byte[] CONTENT = randomBytes(1024 * 1024);
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void branchesShouldBothReadTheWholeContentWhenConsumedSequentially() throws Exception {
+        try (StreamingTee testee = new StreamingTee(new ByteArrayInputStream(CONTENT), WINDOW)) {
+            assertThat(testee.primary().readAllBytes()).isEqualTo(CONTENT);
+            assertThat(testee.secondary().readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void laggingBranchShouldSpillBeyondTheWindow() throws Exception {
+        try (StreamingTee testee = new StreamingTee(new ByteArrayInputStream(CONTENT), WINDOW)) {
+            testee.primary().readAllBytes();
+
+            assertThat(testee.hasSpilled()).isTrue();
+            assertThat(testee.retainedInMemory()).isLessThanOrEqualTo(WINDOW);
+        }
+    }
+
+    @Test
+    void branchesConsumedAtTheSamePaceShouldNotRetainContent() throws Exception {
+        try (StreamingTee testee = new StreamingTee(new ByteArrayInputStream(CONTENT), WINDOW)) {
+            InputStream primary = testee.primary();
+            InputStream secondary = testee.secondary();
+            byte[] buffer = new byte[8 * 1024];
+
+            while (primary.readNBytes(buffer, 0, buffer.length) > 0) {
+                secondary.readNBytes(buffer, 0, buffer.length);
+                assertThat(testee.retainedInMemory()).isLessThanOrEqualTo(64 * 1024);
+            }
+
+            assertThat(testee.hasSpilled()).isFalse();
+        }
+    }
+
+    @Test
+    void branchesShouldReadTheWholeContentWhenInterleaved() throws Exception {
+        try (StreamingTee testee = new StreamingTee(new ByteArrayInputStream(CONTENT), WINDOW)) {
+            InputStream primary = testee.primary();
+            InputStream secondary = testee.secondary();
+            byte[] primaryHead = primary.readNBytes(300 * 1024);
+            byte[] secondaryHead = secondary.readNBytes(10);
+
+            assertThat(concat(primaryHead, primary.readAllBytes())).isEqualTo(CONTENT);
+            assertThat(concat(secondaryHead, secondary.readAllBytes())).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void closingABranchShouldReleaseTheRetainedContent() throws Exception {
+        try (StreamingTee testee = new StreamingTee(new ByteArrayInputStream(CONTENT), WINDOW)) {
+            testee.secondary().close();
+
+            assertThat(testee.primary().readAllBytes()).isEqualTo(CONTENT);
+            assertThat(testee.retainedInMemory()).isZero();
+            assertThat(testee.hasSpilled()).isFalse();
+        }
+    }
+
+    @Test
+    void sourceFailureShouldBeReportedToBothBranches() throws Exception {
+        InputStream failingSource = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("broken source");
+            }
+        };
+
+        try (StreamingTee testee = new StreamingTee(failingSource, WINDOW)) {
+            assertThatThrownBy(() -> testee.primary().readAllBytes()).isInstanceOf(IOException.class);
+            assertThatThrownBy(() -> testee.secondary().readAllBytes()).isInstanceOf(IOException.class);
+            assertThat(testee.sourceFailure()).isPresent();
+        }
+    }
+
+    private byte[] concat(byte[] head, byte[] tail) {
+        byte[] result = new byte[head.length + tail.length];
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(tail, 0, result, head.length, tail.length);
+        return result;
+    }
+}
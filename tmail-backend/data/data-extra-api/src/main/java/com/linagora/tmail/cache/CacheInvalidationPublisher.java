@@ -0,0 +1,44 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.cache;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import org.apache.james.events.EventBus;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Asks every node, this one included, to drop an entry of a node-local cache.
+ */
+@Singleton
+public class CacheInvalidationPublisher {
+    private final EventBus tmailEventBus;
+
+    @Inject
+    public CacheInvalidationPublisher(@Named("TMAIL_EVENT_BUS") EventBus tmailEventBus) {
+        this.tmailEventBus = tmailEventBus;
+    }
+
+    public Mono<Void> invalidate(String cacheName, String entry) {
+        return tmailEventBus.dispatch(CacheInvalidationRequested.of(cacheName, entry), new CacheInvalidationRegistrationKey(cacheName));
+    }
+}
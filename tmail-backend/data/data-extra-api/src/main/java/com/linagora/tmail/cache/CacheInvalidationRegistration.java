@@ -0,0 +1,85 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.cache;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import org.apache.james.events.Event;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.EventListener;
+import org.apache.james.events.Registration;
+import org.reactivestreams.Publisher;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Singleton
+public class CacheInvalidationRegistration {
+    record CacheInvalidationListener(CacheInvalidationSubscriber subscriber) implements EventListener.ReactiveEventListener {
+        @Override
+        public boolean isHandling(Event event) {
+            return event instanceof CacheInvalidationRequested cacheInvalidationRequested
+                && cacheInvalidationRequested.cacheName().equals(subscriber.cacheName());
+        }
+
+        @Override
+        public Publisher<Void> reactiveEvent(Event event) {
+            return Mono.fromRunnable(() -> subscriber.invalidate(((CacheInvalidationRequested) event).entry()));
+        }
+    }
+
+    private final EventBus tmailEventBus;
+    private final Set<CacheInvalidationSubscriber> subscribers;
+    private final AtomicReference<List<Registration>> registrations;
+
+    @Inject
+    public CacheInvalidationRegistration(@Named("TMAIL_EVENT_BUS") EventBus tmailEventBus,
+                                         Set<CacheInvalidationSubscriber> subscribers) {
+        this.tmailEventBus = tmailEventBus;
+        this.subscribers = subscribers;
+        this.registrations = new AtomicReference<>(ImmutableList.of());
+    }
+
+    public void register() {
+        if (!registrations.get().isEmpty()) {
+            return;
+        }
+        registrations.set(Flux.fromIterable(subscribers)
+            .concatMap(subscriber -> tmailEventBus.register(new CacheInvalidationListener(subscriber), new CacheInvalidationRegistrationKey(subscriber.cacheName())))
+            .collect(ImmutableList.toImmutableList())
+            .block());
+    }
+
+    @PreDestroy
+    public void unregister() {
+        Flux.fromIterable(registrations.getAndSet(ImmutableList.of()))
+            .concatMap(Registration::unregister)
+            .then()
+            .block();
+    }
+}
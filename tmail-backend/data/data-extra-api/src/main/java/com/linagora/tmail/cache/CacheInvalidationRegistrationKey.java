@@ -0,0 +1,46 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.cache;
+
+import org.apache.james.events.RegistrationKey;
+
+import com.google.common.base.Preconditions;
+
+public record CacheInvalidationRegistrationKey(String cacheName) implements RegistrationKey {
+    public static class Factory implements RegistrationKey.Factory {
+        @Override
+        public Class<? extends RegistrationKey> forClass() {
+            return CacheInvalidationRegistrationKey.class;
+        }
+
+        @Override
+        public RegistrationKey fromString(String asString) {
+            return new CacheInvalidationRegistrationKey(asString);
+        }
+    }
+
+    public CacheInvalidationRegistrationKey {
+        Preconditions.checkArgument(cacheName != null && !cacheName.isBlank(), "'cacheName' should not be blank");
+    }
+
+    @Override
+    public String asString() {
+        return cacheName;
+    }
+}
@@ -0,0 +1,45 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.cache;
+
+import org.apache.james.core.Username;
+import org.apache.james.events.Event;
+
+public record CacheInvalidationRequested(EventId eventId, String cacheName, String entry) implements Event {
+    public static CacheInvalidationRequested of(String cacheName, String entry) {
+        return new CacheInvalidationRequested(EventId.random(), cacheName, entry);
+    }
+
+    private static final Username USERNAME = Username.of("cache-invalidation");
+
+    @Override
+    public Username getUsername() {
+        return USERNAME;
+    }
+
+    @Override
+    public boolean isNoop() {
+        return false;
+    }
+
+    @Override
+    public EventId getEventId() {
+        return eventId;
+    }
+}
@@ -0,0 +1,89 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.cache;
+
+import java.util.Collection;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import org.apache.james.events.DeserializationResult;
+import org.apache.james.events.Event;
+import org.apache.james.events.EventSerializer;
+import org.apache.james.events.SerializationResult;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Singleton
+public class CacheInvalidationRequestedEventSerializer implements EventSerializer {
+    record CacheInvalidationRequestedDTO(String eventId, String cacheName, String entry) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    @Inject
+    public CacheInvalidationRequestedEventSerializer() {
+        this.objectMapper = new ObjectMapper();
+    }
+
+    @Override
+    public SerializationResult toJson(Event event) {
+        if (!(event instanceof CacheInvalidationRequested cacheInvalidationRequested)) {
+            return new SerializationResult.Failure("Unsupported event: " + event);
+        }
+
+        CacheInvalidationRequestedDTO dto = new CacheInvalidationRequestedDTO(
+            cacheInvalidationRequested.getEventId().getId().toString(),
+            cacheInvalidationRequested.cacheName(),
+            cacheInvalidationRequested.entry());
+
+        try {
+            return new SerializationResult.Success(objectMapper.writeValueAsString(dto));
+        } catch (JsonProcessingException e) {
+            return new SerializationResult.Failure(e.getMessage());
+        }
+    }
+
+    @Override
+    public SerializationResult toJson(Collection<Event> event) {
+        if (event.size() != 1) {
+            return new SerializationResult.Failure("Not supported for multiple events, please serialize separately");
+        }
+        return toJson(event.iterator().next());
+    }
+
+    @Override
+    public DeserializationResult asEvent(String serialized) {
+        try {
+            CacheInvalidationRequestedDTO dto = objectMapper.readValue(serialized, CacheInvalidationRequestedDTO.class);
+            if (dto.cacheName() == null || dto.entry() == null) {
+                return new DeserializationResult.Failure("Not a cache invalidation: " + serialized);
+            }
+            return new DeserializationResult.Success(new CacheInvalidationRequested(Event.EventId.of(dto.eventId()), dto.cacheName(), dto.entry()));
+        } catch (JsonProcessingException e) {
+            return new DeserializationResult.Failure(e.getMessage());
+        }
+    }
+
+    @Override
+    public DeserializationResult asEvents(String serialized) {
+        return asEvent(serialized);
+    }
+}
@@ -0,0 +1,98 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.james.events.InVMEventBus;
+import org.apache.james.events.MemoryEventDeadLetters;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.delivery.InVmEventDelivery;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationRegistrationTest {
+    private static class RecordingSubscriber implements CacheInvalidationSubscriber {
+        private final String cacheName;
+        private final List<String> invalidatedEntries = new CopyOnWriteArrayList<>();
+
+        RecordingSubscriber(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        @Override
+        public String cacheName() {
+            return cacheName;
+        }
+
+        @Override
+        public void invalidate(String entry) {
+            invalidatedEntries.add(entry);
+        }
+    }
+
+    private InVMEventBus eventBus;
+    private CacheInvalidationPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory()), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters());
+        publisher = new CacheInvalidationPublisher(eventBus);
+    }
+
+    @Test
+    void invalidateShouldReachTheSubscribersOfEveryNode() {
+        RecordingSubscriber node1 = new RecordingSubscriber("cache");
+        RecordingSubscriber node2 = new RecordingSubscriber("cache");
+        new CacheInvalidationRegistration(eventBus, Set.of(node1)).register();
+        new CacheInvalidationRegistration(eventBus, Set.of(node2)).register();
+
+        publisher.invalidate("cache", "entry").block();
+
+        assertThat(node1.invalidatedEntries).containsExactly("entry");
+        assertThat(node2.invalidatedEntries).containsExactly("entry");
+    }
+
+    @Test
+    void invalidateShouldNotReachTheSubscribersOfOtherCaches() {
+        RecordingSubscriber otherCache = new RecordingSubscriber("other-cache");
+        new CacheInvalidationRegistration(eventBus, Set.of(otherCache)).register();
+
+        publisher.invalidate("cache", "entry").block();
+
+        assertThat(otherCache.invalidatedEntries).isEmpty();
+    }
+
+    @Test
+    void invalidateShouldNotReachUnregisteredSubscribers() {
+        RecordingSubscriber subscriber = new RecordingSubscriber("cache");
+        CacheInvalidationRegistration registration = new CacheInvalidationRegistration(eventBus, Set.of(subscriber));
+        registration.register();
+        registration.unregister();
+
+        publisher.invalidate("cache", "entry").block();
+
+        assertThat(subscriber.invalidatedEntries).isEmpty();
+    }
+}
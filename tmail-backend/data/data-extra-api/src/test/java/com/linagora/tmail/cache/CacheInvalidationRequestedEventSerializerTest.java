@@ -0,0 +1,51 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.james.events.DeserializationResult;
+import org.apache.james.events.Event;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationRequestedEventSerializerTest {
+    private final CacheInvalidationRequestedEventSerializer testee = new CacheInvalidationRequestedEventSerializer();
+
+    @Test
+    void roundTripShouldPreserveEventIdCacheNameAndEntry() {
+        CacheInvalidationRequested event = new CacheInvalidationRequested(Event.EventId.random(), "team-mailbox-existence", "marketing@domain.tld");
+
+        Event deserialized = testee.asEvent(testee.toJson(event).json())
+            .event();
+
+        assertThat(deserialized).isEqualTo(event);
+    }
+
+    @Test
+    void deserializeShouldRejectOtherEvents() {
+        String json = """
+            {
+              "eventId": "%s",
+              "usernames": []
+            }
+            """.formatted(Event.EventId.random().getId());
+
+        assertThat(testee.asEvent(json)).isInstanceOf(DeserializationResult.Failure.class);
+    }
+}
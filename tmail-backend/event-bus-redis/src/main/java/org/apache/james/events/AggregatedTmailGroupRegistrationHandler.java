@@ -25,6 +25,7 @@ import java.util.stream.Stream;
 
 import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
 import org.apache.james.backends.rabbitmq.ReceiverProvider;
+import org.apache.james.metrics.api.MetricFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -42,26 +43,20 @@ public class AggregatedTmailGroupRegistrationHandler implements TmailGroupRegist
                                                                       ReceiverProvider receiverProvider,
                                                                       EventDeadLetters eventDeadLetters,
                                                                       ListenerExecutor listenerExecutor,
-                                                                      RabbitMQEventBus.Configurations configurations) {
+                                                                      RabbitMQEventBus.Configurations configurations,
+                                                                      MetricFactory metricFactory) {
         Preconditions.checkArgument(!namingStrategies.isEmpty(), "At least one naming strategy is required");
 
-        RabbitMQEventBus.Configurations dividedConcurrencyConfiguration = splitConcurrencyConfiguration(configurations, namingStrategies.size());
+        GroupConcurrencyBudget concurrencyBudget = new GroupConcurrencyBudget(configurations.eventBusConfiguration().maxConcurrency(),
+            namingStrategies.size(), metricFactory);
 
         return namingStrategies.stream()
             .map(namingStrategy -> new DefaultTmailGroupRegistrationHandler(namingStrategy, eventSerializer, channelPool,
-                sender, receiverProvider, eventDeadLetters, listenerExecutor, dividedConcurrencyConfiguration))
+                sender, receiverProvider, eventDeadLetters, listenerExecutor, configurations,
+                concurrencyBudget.newPartition(namingStrategy.workQueue(TmailGroupRegistrationHandler.GROUP).asString())))
             .collect(ImmutableList.toImmutableList());
     }
 
-    @VisibleForTesting
-    static RabbitMQEventBus.Configurations splitConcurrencyConfiguration(RabbitMQEventBus.Configurations configurations, int partitionCount) {
-        Preconditions.checkArgument(partitionCount > 0, "Partition count should be strictly positive");
-
-        int shardConcurrency = Math.max(1, configurations.eventBusConfiguration().maxConcurrency() / partitionCount);
-        return new RabbitMQEventBus.Configurations(configurations.rabbitMQConfiguration(), configurations.retryBackoff(),
-            new EventBus.Configuration(shardConcurrency, configurations.eventBusConfiguration().executionTimeout()));
-    }
-
     private final ImmutableList<TmailGroupRegistrationHandler> delegates;
 
     public AggregatedTmailGroupRegistrationHandler(List<NamingStrategy> namingStrategies, EventSerializer eventSerializer,
@@ -69,9 +64,10 @@ public class AggregatedTmailGroupRegistrationHandler implements TmailGroupRegist
                                                    ReceiverProvider receiverProvider,
                                                    EventDeadLetters eventDeadLetters,
                                                    ListenerExecutor listenerExecutor,
-                                                   RabbitMQEventBus.Configurations configurations) {
+                                                   RabbitMQEventBus.Configurations configurations,
+                                                   MetricFactory metricFactory) {
         this(buildDelegates(namingStrategies, eventSerializer, channelPool, sender, receiverProvider,
-            eventDeadLetters, listenerExecutor, configurations));
+            eventDeadLetters, listenerExecutor, configurations, metricFactory));
     }
 
     @VisibleForTesting
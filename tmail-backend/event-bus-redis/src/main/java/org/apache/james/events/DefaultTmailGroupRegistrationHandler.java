@@ -79,6 +79,7 @@ class DefaultTmailGroupRegistrationHandler implements TmailGroupRegistrationHand
     private final ListenerExecutor listenerExecutor;
     private final RabbitMQEventBus.Configurations configurations;
     private final GroupRegistration.WorkQueueName queueName;
+    private final GroupConcurrencyBudget.Partition concurrencyBudget;
     private final Scheduler scheduler;
     private Optional<Disposable> consumer;
 
@@ -86,7 +87,8 @@ class DefaultTmailGroupRegistrationHandler implements TmailGroupRegistrationHand
                                          ReactorRabbitMQChannelPool channelPool, Sender sender,
                                          ReceiverProvider receiverProvider, EventDeadLetters eventDeadLetters,
                                          ListenerExecutor listenerExecutor,
-                                         RabbitMQEventBus.Configurations configurations) {
+                                         RabbitMQEventBus.Configurations configurations,
+                                         GroupConcurrencyBudget.Partition concurrencyBudget) {
         this.namingStrategy = namingStrategy;
         this.eventSerializer = eventSerializer;
         this.channelPool = channelPool;
@@ -95,6 +97,7 @@ class DefaultTmailGroupRegistrationHandler implements TmailGroupRegistrationHand
         this.eventDeadLetters = eventDeadLetters;
         this.listenerExecutor = listenerExecutor;
         this.configurations = configurations;
+        this.concurrencyBudget = concurrencyBudget;
         this.groupRegistrations = new ConcurrentHashMap<>();
         this.queueName = namingStrategy.workQueue(TmailGroupRegistrationHandler.GROUP);
         this.scheduler = Schedulers.newBoundedElastic(configurations.eventBusConfiguration().maxConcurrency(),
@@ -192,7 +195,8 @@ class DefaultTmailGroupRegistrationHandler implements TmailGroupRegistrationHand
                     new ConsumeOptions().qos(configurations.eventBusConfiguration().maxConcurrency())),
                 Receiver::close)
             .filter(delivery -> Objects.nonNull(delivery.getBody()))
-            .flatMap(this::deliver, configurations.eventBusConfiguration().maxConcurrency())
+            // Each partition may use the whole node budget, the shared concurrency budget bounds the overall processing
+            .flatMap(delivery -> concurrencyBudget.withPermit(deliver(delivery)), configurations.eventBusConfiguration().maxConcurrency())
             .subscribeOn(scheduler)
             .subscribe();
     }
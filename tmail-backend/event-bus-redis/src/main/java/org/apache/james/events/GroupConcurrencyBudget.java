@@ -0,0 +1,216 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package org.apache.james.events;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Node-wide concurrency budget shared by the partitioned group registration handlers.
+ *
+ * Each partition is guaranteed one reserved permit so that it can never be starved, the remaining permits are shared
+ * and granted to whichever partition needs them. Released shared permits are handed over to the waiting partitions in
+ * a round-robin fashion. Hence a hot partition can drain at the full node capacity while the other ones are idle.
+ */
+class GroupConcurrencyBudget {
+    private static final int RESERVED_PERMITS_PER_PARTITION = 1;
+
+    class Partition {
+        private final Queue<Waiter> waiters;
+        private final Metric inFlightMetric;
+        private final Metric queueDepthMetric;
+        private int availableReservedPermits;
+
+        private Partition(String name) {
+            this.waiters = new ArrayDeque<>();
+            this.inFlightMetric = metricFactory.generate("event-bus-group-partition-in-flight-" + name);
+            this.queueDepthMetric = metricFactory.generate("event-bus-group-partition-queue-depth-" + name);
+            this.availableReservedPermits = RESERVED_PERMITS_PER_PARTITION;
+        }
+
+        <T> Mono<T> withPermit(Mono<T> task) {
+            return Mono.usingWhen(acquire(this),
+                permit -> task,
+                permit -> Mono.fromRunnable(permit::release));
+        }
+    }
+
+    class Permit {
+        private final Partition partition;
+        private final boolean reserved;
+        private final AtomicBoolean released;
+
+        private Permit(Partition partition, boolean reserved) {
+            this.partition = partition;
+            this.reserved = reserved;
+            this.released = new AtomicBoolean(false);
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                GroupConcurrencyBudget.this.release(this);
+            }
+        }
+    }
+
+    private static class Waiter {
+        private final MonoSink<Permit> sink;
+        private Optional<Permit> grantedPermit;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+            this.grantedPermit = Optional.empty();
+        }
+    }
+
+    private final Object lock;
+    private final MetricFactory metricFactory;
+    private final int partitionCount;
+    private final ImmutableList.Builder<Partition> partitionsBuilder;
+    private ImmutableList<Partition> partitions;
+    private int availableSharedPermits;
+    private int nextPartitionToServe;
+
+    GroupConcurrencyBudget(int maxConcurrency, int partitionCount, MetricFactory metricFactory) {
+        Preconditions.checkArgument(partitionCount > 0, "Partition count should be strictly positive");
+        Preconditions.checkArgument(maxConcurrency > 0, "Max concurrency should be strictly positive");
+
+        this.lock = new Object();
+        this.metricFactory = metricFactory;
+        this.partitionCount = partitionCount;
+        this.partitionsBuilder = ImmutableList.builder();
+        this.partitions = ImmutableList.of();
+        this.availableSharedPermits = Math.max(0, maxConcurrency - partitionCount * RESERVED_PERMITS_PER_PARTITION);
+        this.nextPartitionToServe = 0;
+    }
+
+    Partition newPartition(String name) {
+        synchronized (lock) {
+            Preconditions.checkState(partitions.size() < partitionCount, "All the %s partitions of the budget are already allocated", partitionCount);
+            Partition partition = new Partition(name);
+            partitions = partitionsBuilder.add(partition).build();
+            return partition;
+        }
+    }
+
+    @VisibleForTesting
+    int availableSharedPermits() {
+        synchronized (lock) {
+            return availableSharedPermits;
+        }
+    }
+
+    private Mono<Permit> acquire(Partition partition) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            Optional<Permit> permit;
+            synchronized (lock) {
+                permit = tryAcquire(partition);
+                if (permit.isEmpty()) {
+                    partition.waiters.add(waiter);
+                    partition.queueDepthMetric.increment();
+                }
+            }
+            permit.ifPresentOrElse(sink::success,
+                () -> sink.onCancel(() -> cancel(partition, waiter)));
+        });
+    }
+
+    private Optional<Permit> tryAcquire(Partition partition) {
+        if (partition.availableReservedPermits > 0) {
+            partition.availableReservedPermits--;
+            return Optional.of(grant(partition, true));
+        }
+        if (availableSharedPermits > 0) {
+            availableSharedPermits--;
+            return Optional.of(grant(partition, false));
+        }
+        return Optional.empty();
+    }
+
+    private void cancel(Partition partition, Waiter waiter) {
+        Optional<Permit> grantedPermit;
+        synchronized (lock) {
+            if (partition.waiters.remove(waiter)) {
+                partition.queueDepthMetric.decrement();
+            }
+            grantedPermit = waiter.grantedPermit;
+        }
+        // The permit might have been handed over concurrently with the cancellation
+        grantedPermit.ifPresent(Permit::release);
+    }
+
+    private void release(Permit permit) {
+        Optional<Waiter> servedWaiter;
+        synchronized (lock) {
+            permit.partition.inFlightMetric.decrement();
+            if (permit.reserved) {
+                servedWaiter = handOverReservedPermit(permit.partition);
+            } else {
+                servedWaiter = handOverSharedPermit();
+            }
+        }
+        servedWaiter.ifPresent(waiter -> waiter.grantedPermit.ifPresent(waiter.sink::success));
+    }
+
+    private Optional<Waiter> handOverReservedPermit(Partition partition) {
+        Waiter waiter = partition.waiters.poll();
+        if (waiter == null) {
+            partition.availableReservedPermits++;
+            return Optional.empty();
+        }
+        return Optional.of(serve(partition, waiter, true));
+    }
+
+    private Optional<Waiter> handOverSharedPermit() {
+        for (int i = 0; i < partitions.size(); i++) {
+            Partition partition = partitions.get((nextPartitionToServe + i) % partitions.size());
+            Waiter waiter = partition.waiters.poll();
+            if (waiter != null) {
+                nextPartitionToServe = (nextPartitionToServe + i + 1) % partitions.size();
+                return Optional.of(serve(partition, waiter, false));
+            }
+        }
+        availableSharedPermits++;
+        return Optional.empty();
+    }
+
+    private Waiter serve(Partition partition, Waiter waiter, boolean reserved) {
+        partition.queueDepthMetric.decrement();
+        waiter.grantedPermit = Optional.of(grant(partition, reserved));
+        return waiter;
+    }
+
+    private Permit grant(Partition partition, boolean reserved) {
+        partition.inFlightMetric.increment();
+        return new Permit(partition, reserved);
+    }
+}
@@ -0,0 +1,101 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package org.apache.james.events;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Binary framing of the messages published on a Redis registration channel.
+ *
+ * <pre>
+ * | magic (1 byte, 0x00) | version (1 byte) | eventBusId length (int) | eventBusId (UTF-8)
+ * | routing key count (int) | for each routing key: length (int) | routing key (UTF-8)
+ * | event payload (remaining bytes, serialized events as JSON) |
+ * </pre>
+ *
+ * The header can be read without touching the event payload, so that receivers only decode events when a local listener
+ * is registered for one of the routing keys. Legacy {@link KeyChannelMessage} strings start with an event bus id and thus
+ * never with the magic byte, which allows receivers to accept both formats during rolling upgrades.
+ */
+public record KeyChannelFrame(EventBusId eventBusId, List<String> routingKeys, byte[] frame, int payloadOffset) {
+    static final byte MAGIC = 0x00;
+    static final byte VERSION_1 = 0x01;
+
+    static boolean isBinaryFrame(byte[] message) {
+        return message.length > 0 && message[0] == MAGIC;
+    }
+
+    static byte[] encode(EventBusId eventBusId, Collection<String> routingKeys, byte[] eventPayload) {
+        byte[] eventBusIdBytes = eventBusId.asString().getBytes(UTF_8);
+        List<byte[]> routingKeysBytes = routingKeys.stream()
+            .map(routingKey -> routingKey.getBytes(UTF_8))
+            .collect(ImmutableList.toImmutableList());
+        int headerSize = 2 + Integer.BYTES + eventBusIdBytes.length + Integer.BYTES
+            + routingKeysBytes.stream().mapToInt(bytes -> Integer.BYTES + bytes.length).sum();
+
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + eventPayload.length)
+            .put(MAGIC)
+            .put(VERSION_1)
+            .putInt(eventBusIdBytes.length)
+            .put(eventBusIdBytes)
+            .putInt(routingKeysBytes.size());
+        routingKeysBytes.forEach(bytes -> buffer.putInt(bytes.length).put(bytes));
+        return buffer.put(eventPayload)
+            .array();
+    }
+
+    static KeyChannelFrame decodeHeader(byte[] frame) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            Preconditions.checkArgument(buffer.get() == MAGIC, "Not a binary key channel frame");
+            byte version = buffer.get();
+            Preconditions.checkArgument(version == VERSION_1, "Unsupported key channel frame version %s", version);
+
+            EventBusId eventBusId = EventBusId.of(readString(buffer));
+            int routingKeyCount = buffer.getInt();
+            Preconditions.checkArgument(routingKeyCount > 0, "A key channel frame should target at least one routing key");
+            ImmutableList.Builder<String> routingKeys = ImmutableList.builderWithExpectedSize(routingKeyCount);
+            for (int i = 0; i < routingKeyCount; i++) {
+                routingKeys.add(readString(buffer));
+            }
+            return new KeyChannelFrame(eventBusId, routingKeys.build(), frame, buffer.position());
+        } catch (Exception e) {
+            throw new RuntimeException("Can not parse the Redis event bus keys channel binary frame", e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    byte[] eventPayload() {
+        return Arrays.copyOfRange(frame, payloadOffset, frame.length);
+    }
+}
@@ -18,13 +18,45 @@
 
 package org.apache.james.events;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.apache.commons.lang3.StringUtils;
 
-public record KeyChannelMessage(EventBusId eventBusId, String routingKey, String eventAsJson) {
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Message published on a Redis registration channel.
+ *
+ * A message targeting a single routing key is serialized as {@code eventBusId|||routingKey|||json}. A coalesced message
+ * targeting several routing keys carries them as a JSON array of strings in place of the routing key:
+ * {@code eventBusId|||["routingKey1","routingKey2"]|||json}. Routing keys never start with '[' so both formats can be
+ * told apart upon parsing.
+ */
+public record KeyChannelMessage(EventBusId eventBusId, List<String> routingKeys, String eventAsJson) {
     public static final String REDIS_CHANNEL_MESSAGE_DELIMITER = "|||";
+    private static final String ROUTING_KEYS_ARRAY_PREFIX = "[";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> ROUTING_KEYS_TYPE = new TypeReference<>() {
+    };
+
+    public KeyChannelMessage {
+        Preconditions.checkArgument(!routingKeys.isEmpty(), "A key channel message should target at least one routing key");
+        routingKeys = ImmutableList.copyOf(routingKeys);
+    }
 
     static KeyChannelMessage from(EventBusId eventBusId, RoutingKeyConverter.RoutingKey routingKey, String eventAsJson) {
-        return new KeyChannelMessage(eventBusId, routingKey.asString(), eventAsJson);
+        return new KeyChannelMessage(eventBusId, ImmutableList.of(routingKey.asString()), eventAsJson);
+    }
+
+    static KeyChannelMessage from(EventBusId eventBusId, Collection<RoutingKeyConverter.RoutingKey> routingKeys, String eventAsJson) {
+        return new KeyChannelMessage(eventBusId, routingKeys.stream()
+            .map(RoutingKeyConverter.RoutingKey::asString)
+            .collect(ImmutableList.toImmutableList()), eventAsJson);
     }
 
     static KeyChannelMessage parse(String channelMessage) {
@@ -32,16 +64,34 @@ public record KeyChannelMessage(EventBusId eventBusId, String routingKey, String
             int maxParts = 3;
             String[] parts = StringUtils.split(channelMessage, REDIS_CHANNEL_MESSAGE_DELIMITER, maxParts);
             EventBusId eventBusId = EventBusId.of(parts[0]);
-            String routingKey = parts[1];
+            List<String> routingKeys = parseRoutingKeys(parts[1]);
             String eventAsJson = parts[2];
 
-            return new KeyChannelMessage(eventBusId, routingKey, eventAsJson);
+            return new KeyChannelMessage(eventBusId, routingKeys, eventAsJson);
         } catch (Exception e) {
             throw new RuntimeException("Can not parse the Redis event bus keys channel message", e);
         }
     }
 
+    private static List<String> parseRoutingKeys(String routingKeysPart) throws JsonProcessingException {
+        if (routingKeysPart.startsWith(ROUTING_KEYS_ARRAY_PREFIX)) {
+            return OBJECT_MAPPER.readValue(routingKeysPart, ROUTING_KEYS_TYPE);
+        }
+        return ImmutableList.of(routingKeysPart);
+    }
+
     public String serialize() {
-        return eventBusId.asString() + REDIS_CHANNEL_MESSAGE_DELIMITER + routingKey + REDIS_CHANNEL_MESSAGE_DELIMITER + eventAsJson;
+        return eventBusId.asString() + REDIS_CHANNEL_MESSAGE_DELIMITER + serializeRoutingKeys() + REDIS_CHANNEL_MESSAGE_DELIMITER + eventAsJson;
+    }
+
+    private String serializeRoutingKeys() {
+        if (routingKeys.size() == 1) {
+            return routingKeys.getFirst();
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(routingKeys);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Can not serialize the Redis event bus keys channel message routing keys", e);
+        }
     }
 }
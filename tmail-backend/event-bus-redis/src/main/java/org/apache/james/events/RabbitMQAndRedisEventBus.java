@@ -93,12 +93,13 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
     private final MetricFactory metricFactory;
     private final RedisEventBusClientFactory redisEventBusClientFactory;
     private final RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
-    private final RedisPubSubReactiveCommands<String, String> redisPublisher;
+    private final RedisPubSubReactiveCommands<String, byte[]> redisPublisher;
 
     private volatile boolean isRunning;
     private volatile boolean isStopping;
     private TmailGroupRegistrationHandler groupRegistrationHandler;
     private RedisKeyRegistrationHandler keyRegistrationHandler;
+    private RedisRoutingTable routingTable;
     private TMailEventDispatcher eventDispatcher;
     private final RedisEventBusConfiguration redisEventBusConfiguration;
 
@@ -136,7 +137,7 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
         this.metricFactory = metricFactory;
         this.redisEventBusClientFactory = redisEventBusClientFactory;
         this.redisSetReactiveCommands = redisEventBusClientFactory.createRedisSetCommand();
-        this.redisPublisher = redisEventBusClientFactory.createRedisPubSubCommand();
+        this.redisPublisher = redisEventBusClientFactory.createBinaryRedisPubSubCommand();
         this.isRunning = false;
         this.isStopping = false;
         this.redisEventBusConfiguration = redisEventBusConfiguration;
@@ -146,6 +147,7 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
     public void start() {
         if (!isRunning && !isStopping) {
             createEventBusComponents();
+            routingTable.start();
             eventDispatcher.start();
             keyRegistrationHandler.start();
             isRunning = true;
@@ -161,6 +163,7 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
     void startWithoutStartingKeyRegistrationHandler() {
         if (!isRunning && !isStopping) {
             createEventBusComponents();
+            routingTable.start();
             eventDispatcher.start();
             isRunning = true;
         }
@@ -173,6 +176,7 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
             isRunning = false;
             groupRegistrationHandler.stop();
             keyRegistrationHandler.stop();
+            routingTable.stop();
         }
     }
 
@@ -249,13 +253,15 @@ public class RabbitMQAndRedisEventBus implements EventBus, Startable {
     private void createEventBusComponents() {
         LocalListenerRegistry localListenerRegistry = new LocalListenerRegistry();
         LocalKeyListenerExecutor localKeyListenerExecutor = new LocalKeyListenerExecutor(localListenerRegistry, listenerExecutor);
+        routingTable = new RedisRoutingTable(RedisKeyEventDispatcher.baseEventBusName(namingStrategy, eventBusId), redisSetReactiveCommands,
+            redisPublisher, redisEventBusClientFactory, redisEventBusConfiguration, metricFactory);
         keyRegistrationHandler = new RedisKeyRegistrationHandler(namingStrategy, eventBusId, eventSerializer, routingKeyConverter,
             localListenerRegistry, listenerExecutor, configurations.retryBackoff(), metricFactory, redisEventBusClientFactory,
-            redisSetReactiveCommands, redisEventBusConfiguration);
+            redisSetReactiveCommands, routingTable, redisEventBusConfiguration);
         groupRegistrationHandler = new AggregatedTmailGroupRegistrationHandler(namingStrategies, eventSerializer, channelPool,
-            sender, receiverProvider, eventDeadLetters, listenerExecutor, configurations);
+            sender, receiverProvider, eventDeadLetters, listenerExecutor, configurations, metricFactory);
         RedisKeyEventDispatcher redisKeyEventDispatcher = new RedisKeyEventDispatcher(eventBusId, namingStrategy, eventSerializer,
-            redisPublisher, redisSetReactiveCommands, redisEventBusConfiguration);
+            redisPublisher, routingTable, redisEventBusConfiguration);
         TmailGroupEventDispatcher groupEventDispatcher = new AggregatedTmailGroupEventDispatcher(namingStrategies, eventBusId,
             sender, eventDeadLetters, configurations.rabbitMQConfiguration());
         eventDispatcher = new TMailEventDispatcher(eventSerializer, groupRegistrationHandler, groupEventDispatcher,
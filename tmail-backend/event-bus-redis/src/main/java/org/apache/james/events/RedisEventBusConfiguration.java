@@ -24,9 +24,35 @@ import java.util.Optional;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.james.util.DurationParser;
 
-public record RedisEventBusConfiguration(boolean failureIgnore, Duration durationTimeout) {
+import com.google.common.base.Preconditions;
+
+public record RedisEventBusConfiguration(boolean failureIgnore, Duration durationTimeout, RoutingTableCacheConfiguration routingTableCache,
+                                         boolean publishCoalescing, boolean binaryFraming) {
+    public record RoutingTableCacheConfiguration(boolean enabled, long maximumSize, Duration ttl) {
+        public static final boolean ENABLED_DEFAULT = false;
+        public static final long MAXIMUM_SIZE_DEFAULT = 100_000;
+        public static final Duration TTL_DEFAULT = Duration.ofMinutes(1);
+        public static final RoutingTableCacheConfiguration DEFAULT = new RoutingTableCacheConfiguration(ENABLED_DEFAULT, MAXIMUM_SIZE_DEFAULT, TTL_DEFAULT);
+
+        public RoutingTableCacheConfiguration {
+            Preconditions.checkArgument(maximumSize > 0, "'eventBus.redis.routing.cache.size' must be strictly positive");
+            Preconditions.checkArgument(!ttl.isNegative() && !ttl.isZero(), "'eventBus.redis.routing.cache.ttl' must be strictly positive");
+        }
+
+        static RoutingTableCacheConfiguration from(Configuration configuration) {
+            return new RoutingTableCacheConfiguration(
+                configuration.getBoolean("eventBus.redis.routing.cache.enabled", ENABLED_DEFAULT),
+                configuration.getLong("eventBus.redis.routing.cache.size", MAXIMUM_SIZE_DEFAULT),
+                Optional.ofNullable(configuration.getString("eventBus.redis.routing.cache.ttl"))
+                    .map(DurationParser::parse)
+                    .orElse(TTL_DEFAULT));
+        }
+    }
+
     public static final boolean FAILURE_IGNORE_DEFAULT = false;
     public static final Duration DURATION_TIMEOUT_DEFAULT = Duration.ofSeconds(10);
+    public static final boolean PUBLISH_COALESCING_DEFAULT = false;
+    public static final boolean BINARY_FRAMING_DEFAULT = false;
     public static final RedisEventBusConfiguration DEFAULT = new RedisEventBusConfiguration(FAILURE_IGNORE_DEFAULT, DURATION_TIMEOUT_DEFAULT);
 
     public static RedisEventBusConfiguration from(Configuration configuration) {
@@ -34,6 +60,22 @@ public record RedisEventBusConfiguration(boolean failureIgnore, Duration duratio
             configuration.getBoolean("eventBus.redis.failure.ignore", FAILURE_IGNORE_DEFAULT),
             Optional.ofNullable(configuration.getString("eventBus.redis.timeout"))
                 .map(DurationParser::parse)
-                .orElse(DURATION_TIMEOUT_DEFAULT));
+                .orElse(DURATION_TIMEOUT_DEFAULT),
+            RoutingTableCacheConfiguration.from(configuration),
+            configuration.getBoolean("eventBus.redis.publish.coalescing", PUBLISH_COALESCING_DEFAULT),
+            configuration.getBoolean("eventBus.redis.binary.framing", BINARY_FRAMING_DEFAULT));
+    }
+
+    public RedisEventBusConfiguration(boolean failureIgnore, Duration durationTimeout) {
+        this(failureIgnore, durationTimeout, RoutingTableCacheConfiguration.DEFAULT);
+    }
+
+    public RedisEventBusConfiguration(boolean failureIgnore, Duration durationTimeout, RoutingTableCacheConfiguration routingTableCache) {
+        this(failureIgnore, durationTimeout, routingTableCache, PUBLISH_COALESCING_DEFAULT);
+    }
+
+    public RedisEventBusConfiguration(boolean failureIgnore, Duration durationTimeout, RoutingTableCacheConfiguration routingTableCache,
+                                      boolean publishCoalescing) {
+        this(failureIgnore, durationTimeout, routingTableCache, publishCoalescing, BINARY_FRAMING_DEFAULT);
     }
 }
@@ -18,20 +18,24 @@
 
 package org.apache.james.events;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.james.events.RoutingKeyConverter.RoutingKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import io.lettuce.core.RedisException;
-import io.lettuce.core.api.reactive.RedisSetReactiveCommands;
 import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -58,8 +62,8 @@ public class RedisKeyEventDispatcher {
     }
 
     private final EventSerializer eventSerializer;
-    private final RedisPubSubReactiveCommands<String, String> redisPublisher;
-    private final RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
+    private final RedisPubSubReactiveCommands<String, byte[]> redisPublisher;
+    private final RedisRoutingTable routingTable;
     private final EventBusId eventBusId;
     private final RedisEventBusConfiguration redisEventBusConfiguration;
     private final String baseEventBusName;
@@ -67,12 +71,12 @@ public class RedisKeyEventDispatcher {
     public RedisKeyEventDispatcher(EventBusId eventBusId,
                                    NamingStrategy namingStrategy,
                                    EventSerializer eventSerializer,
-                                   RedisPubSubReactiveCommands<String, String> redisPublisher,
-                                   RedisSetReactiveCommands<String, String> redisSetReactiveCommands,
+                                   RedisPubSubReactiveCommands<String, byte[]> redisPublisher,
+                                   RedisRoutingTable routingTable,
                                    RedisEventBusConfiguration redisEventBusConfiguration) {
         this.eventSerializer = eventSerializer;
         this.redisPublisher = redisPublisher;
-        this.redisSetReactiveCommands = redisSetReactiveCommands;
+        this.routingTable = routingTable;
         this.eventBusId = eventBusId;
         this.redisEventBusConfiguration = redisEventBusConfiguration;
         this.baseEventBusName = baseEventBusName(namingStrategy, eventBusId).value();
@@ -118,12 +122,16 @@ public class RedisKeyEventDispatcher {
         if (routingKeys.isEmpty()) {
             return Mono.empty();
         }
+        Supplier<byte[]> eventAsBytes = Suppliers.memoize(() -> eventAsJson.getBytes(StandardCharsets.UTF_8));
+        if (redisEventBusConfiguration.publishCoalescing() && routingKeys.size() > 1) {
+            return coalescedRemoteDispatch(eventAsJson, eventAsBytes, routingKeys);
+        }
 
         return Flux.fromIterable(routingKeys)
             .flatMap(routingKey ->
                 getTargetChannels(routingKey)
                     .filter(this::targetSameEventBus) // e.g. tmail notification should not be published to jmap event bus
-                    .flatMap(channel -> redisPublisher.publish(channel, KeyChannelMessage.from(eventBusId, routingKey, eventAsJson).serialize()))
+                    .flatMap(channel -> redisPublisher.publish(channel, channelMessage(ImmutableList.of(routingKey), eventAsJson, eventAsBytes)))
                     .timeout(redisEventBusConfiguration.durationTimeout())
                     .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()),
                         e -> {
@@ -134,8 +142,45 @@ public class RedisKeyEventDispatcher {
             .then();
     }
 
+    // Publishes a single message per target channel carrying all the routing keys it subscribed to, rather than one
+    // message per (routing key, channel) pair. Publishes are issued concurrently on the shared connection, which Lettuce pipelines.
+    private Mono<Void> coalescedRemoteDispatch(String eventAsJson, Supplier<byte[]> eventAsBytes, Collection<RoutingKey> routingKeys) {
+        return Flux.fromIterable(routingKeys)
+            .flatMap(routingKey -> getTargetChannels(routingKey)
+                .filter(this::targetSameEventBus)
+                .map(channel -> Pair.of(channel, routingKey))
+                .timeout(redisEventBusConfiguration.durationTimeout())
+                .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()),
+                    e -> {
+                        LOGGER.warn("Redis dispatch failed for routingKey={}", routingKey, e);
+                        return Flux.empty();
+                    }))
+            .collectMultimap(Pair::getKey, Pair::getValue)
+            .flatMapIterable(Map::entrySet)
+            .flatMap(channelAndRoutingKeys -> redisPublisher.publish(channelAndRoutingKeys.getKey(),
+                    channelMessage(channelAndRoutingKeys.getValue(), eventAsJson, eventAsBytes))
+                .timeout(redisEventBusConfiguration.durationTimeout())
+                .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()),
+                    e -> {
+                        LOGGER.warn("Redis dispatch failed for channel={}", channelAndRoutingKeys.getKey(), e);
+                        return Mono.empty();
+                    }))
+            .then();
+    }
+
+    private byte[] channelMessage(Collection<RoutingKey> routingKeys, String eventAsJson, Supplier<byte[]> eventAsBytes) {
+        if (redisEventBusConfiguration.binaryFraming()) {
+            return KeyChannelFrame.encode(eventBusId, routingKeys.stream()
+                .map(RoutingKey::asString)
+                .collect(ImmutableList.toImmutableList()), eventAsBytes.get());
+        }
+        return KeyChannelMessage.from(eventBusId, routingKeys, eventAsJson)
+            .serialize()
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
     private Flux<String> getTargetChannels(RoutingKey routingKey) {
-        return redisSetReactiveCommands.smembers(routingKey.asString());
+        return routingTable.targetChannels(routingKey);
     }
 
     private boolean targetSameEventBus(String channel) {
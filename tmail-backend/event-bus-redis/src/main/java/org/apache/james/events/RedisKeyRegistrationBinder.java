@@ -28,11 +28,14 @@ class RedisKeyRegistrationBinder {
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisKeyRegistrationBinder.class);
 
     private final RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
+    private final RedisRoutingTable routingTable;
     private final RegistrationQueueName registrationChannel;
 
     RedisKeyRegistrationBinder(RedisSetReactiveCommands<String, String> redisSetReactiveCommands,
+                               RedisRoutingTable routingTable,
                                RegistrationQueueName registrationChannel) {
         this.redisSetReactiveCommands = redisSetReactiveCommands;
+        this.routingTable = routingTable;
         this.registrationChannel = registrationChannel;
     }
 
@@ -41,7 +44,7 @@ class RedisKeyRegistrationBinder {
         RoutingKeyConverter.RoutingKey routingKey = RoutingKeyConverter.RoutingKey.of(key);
         return redisSetReactiveCommands.sadd(routingKey.asString(), registrationChannel.asString())
             .doOnSuccess(l -> LOGGER.debug("Registered {} key-channel mapping to Redis with key {} and channel {}", l, routingKey.asString(), registrationChannel.asString()))
-            .then();
+            .then(Mono.defer(() -> routingTable.publishInvalidation(routingKey)));
     }
 
     Mono<Void> unbind(RegistrationKey key) {
@@ -49,6 +52,6 @@ class RedisKeyRegistrationBinder {
         RoutingKeyConverter.RoutingKey routingKey = RoutingKeyConverter.RoutingKey.of(key);
         return redisSetReactiveCommands.srem(routingKey.asString(), registrationChannel.asString())
             .doOnSuccess(l -> LOGGER.debug("Unregistered {} key-channel mapping to Redis with key {} and channel {}", l, routingKey.asString(), registrationChannel.asString()))
-            .then();
+            .then(Mono.defer(() -> routingTable.publishInvalidation(routingKey)));
     }
 }
\ No newline at end of file
@@ -20,12 +20,15 @@ package org.apache.james.events;
 
 import static org.apache.james.events.TMailEventDispatcher.REDIS_ERROR_PREDICATE;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.util.MDCBuilder;
 import org.apache.james.util.MDCStructuredLogger;
@@ -35,7 +38,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableList;
 
 import io.lettuce.core.api.reactive.RedisSetReactiveCommands;
 import io.lettuce.core.pubsub.api.reactive.ChannelMessage;
@@ -61,7 +63,7 @@ public class RedisKeyRegistrationHandler {
     private final RetryBackoffConfiguration retryBackoff;
     private Optional<Disposable> receiverSubscriber;
     private final MetricFactory metricFactory;
-    private final RedisPubSubReactiveCommands<String, String> redisSubscriber;
+    private final RedisPubSubReactiveCommands<String, byte[]> redisSubscriber;
     private Scheduler scheduler;
     private final RedisEventBusConfiguration redisEventBusConfiguration;
     private volatile boolean isStopping;
@@ -70,7 +72,8 @@ public class RedisKeyRegistrationHandler {
                                 RoutingKeyConverter routingKeyConverter, LocalListenerRegistry localListenerRegistry,
                                 ListenerExecutor listenerExecutor, RetryBackoffConfiguration retryBackoff, MetricFactory metricFactory,
                                 RedisEventBusClientFactory redisEventBusClientFactory,
-                                RedisSetReactiveCommands<String, String> redisSetReactiveCommands, RedisEventBusConfiguration redisEventBusConfiguration) {
+                                RedisSetReactiveCommands<String, String> redisSetReactiveCommands, RedisRoutingTable routingTable,
+                                RedisEventBusConfiguration redisEventBusConfiguration) {
         this.eventBusId = eventBusId;
         this.eventBusName = namingStrategy.getEventBusName();
         this.eventSerializer = eventSerializer;
@@ -81,9 +84,9 @@ public class RedisKeyRegistrationHandler {
         this.metricFactory = metricFactory;
         this.redisEventBusConfiguration = redisEventBusConfiguration;
         this.registrationChannel = namingStrategy.queueName(eventBusId);
-        this.registrationBinder = new RedisKeyRegistrationBinder(redisSetReactiveCommands, registrationChannel);
+        this.registrationBinder = new RedisKeyRegistrationBinder(redisSetReactiveCommands, routingTable, registrationChannel);
         this.receiverSubscriber = Optional.empty();
-        this.redisSubscriber = redisEventBusClientFactory.createRedisPubSubCommand();
+        this.redisSubscriber = redisEventBusClientFactory.createBinaryRedisPubSubCommand();
         this.isStopping = false;
     }
 
@@ -169,30 +172,44 @@ public class RedisKeyRegistrationHandler {
         return Mono.empty();
     }
 
-    private Mono<Void> handleChannelMessage(ChannelMessage<String, String> channelMessage) {
-        LOGGER.debug("Processing message body {} from Redis channel {} for eventBus={}",
-            channelMessage.getMessage(), channelMessage.getChannel(), eventBusName.value());
-
+    private Mono<Void> handleChannelMessage(ChannelMessage<String, byte[]> channelMessage) {
         if (channelMessage.getMessage() == null) {
             return Mono.empty();
         }
 
-        KeyChannelMessage keyChannelMessage = KeyChannelMessage.parse(channelMessage.getMessage());
-        RegistrationKey registrationKey = routingKeyConverter.toRegistrationKey(keyChannelMessage.routingKey());
+        LOGGER.debug("Processing message of {} bytes from Redis channel {} for eventBus={}",
+            channelMessage.getMessage().length, channelMessage.getChannel(), eventBusName.value());
+
+        // Events are only decoded once a local listener is known to be registered for one of the routing keys
+        if (KeyChannelFrame.isBinaryFrame(channelMessage.getMessage())) {
+            KeyChannelFrame frame = KeyChannelFrame.decodeHeader(channelMessage.getMessage());
+            return dispatchToLocalListeners(frame.eventBusId(), frame.routingKeys(),
+                () -> eventSerializer.asEventsFromBytes(frame.eventPayload()).events());
+        }
+
+        KeyChannelMessage keyChannelMessage = KeyChannelMessage.parse(new String(channelMessage.getMessage(), StandardCharsets.UTF_8));
+        return dispatchToLocalListeners(keyChannelMessage.eventBusId(), keyChannelMessage.routingKeys(),
+            () -> toEvents(keyChannelMessage.eventAsJson()));
+    }
 
-        List<EventListener.ReactiveEventListener> listenersToCall = localListenerRegistry.getLocalListeners(registrationKey)
-            .stream()
-            .filter(listener -> !isLocalSynchronousListeners(keyChannelMessage.eventBusId(), listener))
-            .collect(ImmutableList.toImmutableList());
+    private Mono<Void> dispatchToLocalListeners(EventBusId originEventBusId, List<String> routingKeys, Supplier<List<Event>> eventsDecoder) {
+        // A coalesced message targets several routing keys: a listener registered on several of them is called once
+        Map<EventListener.ReactiveEventListener, RegistrationKey> listenersToCall = new LinkedHashMap<>();
+        routingKeys.stream()
+            .map(routingKeyConverter::toRegistrationKey)
+            .forEach(registrationKey -> localListenerRegistry.getLocalListeners(registrationKey)
+                .stream()
+                .filter(listener -> !isLocalSynchronousListeners(originEventBusId, listener))
+                .forEach(listener -> listenersToCall.putIfAbsent(listener, registrationKey)));
 
         if (listenersToCall.isEmpty()) {
             return Mono.empty();
         }
 
-        List<Event> events = toEvents(keyChannelMessage.eventAsJson());
+        List<Event> events = eventsDecoder.get();
 
-        return Flux.fromIterable(listenersToCall)
-            .flatMap(listener -> executeListener(listener, events, registrationKey), EventBus.DEFAULT_MAX_CONCURRENCY)
+        return Flux.fromIterable(listenersToCall.entrySet())
+            .flatMap(listenerAndKey -> executeListener(listenerAndKey.getKey(), events, listenerAndKey.getValue()), EventBus.DEFAULT_MAX_CONCURRENCY)
             .then();
     }
 
@@ -216,7 +233,7 @@ public class RedisKeyRegistrationHandler {
     @VisibleForTesting
     public List<Event> toEvents(String eventAsJson) {
         // if the json is an array, we have multiple events
-        if (StringUtils.trim(eventAsJson).startsWith("[")) {
+        if (firstNonWhitespaceCharacter(eventAsJson) == '[') {
             return eventSerializer.asEvents(eventAsJson)
                 .events();
         }
@@ -228,6 +245,16 @@ public class RedisKeyRegistrationHandler {
         }
     }
 
+    private static char firstNonWhitespaceCharacter(String value) {
+        // Avoids copying the whole payload as a trim would do
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return value.charAt(i);
+            }
+        }
+        return ' ';
+    }
+
     private StructuredLogger structuredLogger(List<Event> events, RegistrationKey key) {
         return MDCStructuredLogger.forLogger(LOGGER)
             .field(EVENT_BUS_NAME, eventBusName.value())
@@ -0,0 +1,193 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package org.apache.james.events;
+
+import static org.apache.james.events.TMailEventDispatcher.REDIS_ERROR_PREDICATE;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.apache.james.events.RedisEventBusConfiguration.RoutingTableCacheConfiguration;
+import org.apache.james.events.RoutingKeyConverter.RoutingKey;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.collect.ImmutableSet;
+
+import io.lettuce.core.api.reactive.RedisSetReactiveCommands;
+import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the Redis channels subscribed to a routing key.
+ *
+ * When the routing table cache is enabled, the registration key -> channels mapping is kept node-locally so that
+ * the steady-state dispatch does not need a SMEMBERS round trip. Each bind/unbind publishes the modified routing key on
+ * an invalidation channel shared by all the nodes of the event bus, and entries expire after a TTL as a fallback for
+ * lost invalidation messages (eg. during a reconnection).
+ *
+ * As the cache correctness relies on invalidation messages, all the nodes of a cluster need to share the same setting.
+ */
+class RedisRoutingTable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisRoutingTable.class);
+    private static final String INVALIDATION_CHANNEL_SUFFIX = "-routing-table-invalidation";
+
+    static String invalidationChannel(EventBusName baseEventBusName) {
+        return baseEventBusName.value() + INVALIDATION_CHANNEL_SUFFIX;
+    }
+
+    private final RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
+    private final RedisPubSubReactiveCommands<String, byte[]> redisPublisher;
+    private final RedisEventBusClientFactory redisEventBusClientFactory;
+    private final RedisEventBusConfiguration redisEventBusConfiguration;
+    private final String invalidationChannel;
+    private final Optional<Cache<String, Set<String>>> cache;
+    // Bumped on every invalidation so that a SMEMBERS racing with a bind/unbind do not populate the cache with a stale value
+    private final AtomicLong invalidationGeneration;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+    private final Metric invalidationMetric;
+    private final Metric expirationMetric;
+    private Optional<RedisPubSubReactiveCommands<String, String>> invalidationSubscriber;
+    private Optional<Disposable> invalidationSubscription;
+
+    RedisRoutingTable(EventBusName baseEventBusName,
+                      RedisSetReactiveCommands<String, String> redisSetReactiveCommands,
+                      RedisPubSubReactiveCommands<String, byte[]> redisPublisher,
+                      RedisEventBusClientFactory redisEventBusClientFactory,
+                      RedisEventBusConfiguration redisEventBusConfiguration,
+                      MetricFactory metricFactory) {
+        this.redisSetReactiveCommands = redisSetReactiveCommands;
+        this.redisPublisher = redisPublisher;
+        this.redisEventBusClientFactory = redisEventBusClientFactory;
+        this.redisEventBusConfiguration = redisEventBusConfiguration;
+        this.invalidationChannel = invalidationChannel(baseEventBusName);
+        this.invalidationGeneration = new AtomicLong();
+        this.hitMetric = metricFactory.generate("redis-routing-table-cache-hit");
+        this.missMetric = metricFactory.generate("redis-routing-table-cache-miss");
+        this.invalidationMetric = metricFactory.generate("redis-routing-table-cache-invalidation");
+        this.expirationMetric = metricFactory.generate("redis-routing-table-cache-expiration");
+        this.cache = Optional.of(redisEventBusConfiguration.routingTableCache())
+            .filter(RoutingTableCacheConfiguration::enabled)
+            .map(this::buildCache);
+        this.invalidationSubscriber = Optional.empty();
+        this.invalidationSubscription = Optional.empty();
+    }
+
+    private Cache<String, Set<String>> buildCache(RoutingTableCacheConfiguration configuration) {
+        return CacheBuilder.newBuilder()
+            .maximumSize(configuration.maximumSize())
+            .expireAfterWrite(configuration.ttl())
+            .<String, Set<String>>removalListener(notification -> {
+                if (notification.getCause() == RemovalCause.EXPIRED) {
+                    expirationMetric.increment();
+                }
+            })
+            .build();
+    }
+
+    void start() {
+        cache.ifPresent(any -> {
+            RedisPubSubReactiveCommands<String, String> subscriber = redisEventBusClientFactory.createRedisPubSubCommand();
+
+            Mono.from(subscriber.subscribe(invalidationChannel))
+                .timeout(redisEventBusConfiguration.durationTimeout())
+                .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()), e -> {
+                    LOGGER.warn("Error while subscribing to routing table invalidation channel", e);
+                    return Mono.empty();
+                })
+                .block();
+
+            invalidationSubscription = Optional.of(subscriber.observeChannels()
+                .filter(channelMessage -> invalidationChannel.equals(channelMessage.getChannel()))
+                .filter(channelMessage -> channelMessage.getMessage() != null)
+                .doOnNext(channelMessage -> invalidateLocally(channelMessage.getMessage()))
+                .doOnError(throwable -> LOGGER.error("Error while handling routing table invalidation on channel {}", invalidationChannel, throwable))
+                .subscribe());
+            invalidationSubscriber = Optional.of(subscriber);
+        });
+    }
+
+    void stop() {
+        invalidationSubscriber.ifPresent(subscriber -> subscriber.unsubscribe(invalidationChannel)
+            .timeout(redisEventBusConfiguration.durationTimeout())
+            .onErrorResume(REDIS_ERROR_PREDICATE.and(e -> redisEventBusConfiguration.failureIgnore()), e -> {
+                LOGGER.warn("Error while unsubscribing from routing table invalidation channel", e);
+                return Mono.empty();
+            })
+            .block());
+        invalidationSubscription.filter(Predicate.not(Disposable::isDisposed))
+            .ifPresent(Disposable::dispose);
+        cache.ifPresent(Cache::invalidateAll);
+    }
+
+    Flux<String> targetChannels(RoutingKey routingKey) {
+        return cache.map(presentCache -> cachedTargetChannels(presentCache, routingKey.asString()))
+            .orElseGet(() -> redisSetReactiveCommands.smembers(routingKey.asString()));
+    }
+
+    private Flux<String> cachedTargetChannels(Cache<String, Set<String>> presentCache, String routingKey) {
+        Set<String> cachedChannels = presentCache.getIfPresent(routingKey);
+        if (cachedChannels != null) {
+            hitMetric.increment();
+            return Flux.fromIterable(cachedChannels);
+        }
+
+        missMetric.increment();
+        long generation = invalidationGeneration.get();
+        return redisSetReactiveCommands.smembers(routingKey)
+            .collect(ImmutableSet.toImmutableSet())
+            .doOnNext(channels -> {
+                if (generation == invalidationGeneration.get()) {
+                    presentCache.put(routingKey, channels);
+                }
+            })
+            .flatMapIterable(channels -> channels);
+    }
+
+    Mono<Void> publishInvalidation(RoutingKey routingKey) {
+        if (cache.isEmpty()) {
+            return Mono.empty();
+        }
+        // Local changes are visible right away, the invalidation round trip only matters for the other nodes
+        return Mono.fromRunnable(() -> invalidateLocally(routingKey.asString()))
+            .then(redisPublisher.publish(invalidationChannel, routingKey.asString().getBytes(StandardCharsets.UTF_8)))
+            .then();
+    }
+
+    @VisibleForTesting
+    void invalidateLocally(String routingKey) {
+        cache.ifPresent(presentCache -> {
+            invalidationGeneration.incrementAndGet();
+            presentCache.invalidate(routingKey);
+            invalidationMetric.increment();
+        });
+    }
+}
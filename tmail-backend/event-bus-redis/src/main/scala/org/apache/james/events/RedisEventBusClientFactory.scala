@@ -22,7 +22,7 @@ import io.lettuce.core.api.StatefulRedisConnection
 import io.lettuce.core.api.reactive.{RedisKeyReactiveCommands, RedisSetReactiveCommands}
 import io.lettuce.core.cluster.RedisClusterClient
 import io.lettuce.core.cluster.api.StatefulRedisClusterConnection
-import io.lettuce.core.codec.StringCodec
+import io.lettuce.core.codec.{ByteArrayCodec, RedisCodec, StringCodec}
 import io.lettuce.core.masterreplica.{MasterReplica, StatefulRedisMasterReplicaConnection}
 import io.lettuce.core.pubsub.StatefulRedisPubSubConnection
 import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands
@@ -35,12 +35,18 @@ import scala.jdk.CollectionConverters._
 class RedisEventBusClientFactory @Singleton() @Inject()
 (redisConfiguration: RedisConfiguration, redisClientFactory: RedisClientFactory) {
   private val rawRedisClient: AbstractRedisClient = redisClientFactory.rawRedisClient
+  private val binaryCodec: RedisCodec[String, Array[Byte]] = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE)
 
   def createRedisPubSubCommand(): RedisPubSubReactiveCommands[String, String] = rawRedisClient match {
     case client: RedisClient => getRedisPubSubConnection(client).reactive()
     case clusterClient: RedisClusterClient => clusterClient.connectPubSub().reactive()
   }
 
+  def createBinaryRedisPubSubCommand(): RedisPubSubReactiveCommands[String, Array[Byte]] = rawRedisClient match {
+    case client: RedisClient => getBinaryRedisPubSubConnection(client).reactive()
+    case clusterClient: RedisClusterClient => clusterClient.connectPubSub(binaryCodec).reactive()
+  }
+
   def createRedisSetCommand(): RedisSetReactiveCommands[String, String] = rawRedisClient match {
     case client: RedisClient => getRedisConnection(client).reactive()
     case clusterClient: RedisClusterClient => getRedisClusterConnection(clusterClient).reactive()
@@ -76,4 +82,10 @@ class RedisEventBusClientFactory @Singleton() @Inject()
     case masterReplicaRedisConfiguration: MasterReplicaRedisConfiguration => redisClient.connectPubSub(masterReplicaRedisConfiguration.redisURI.value.head)
     case sentinelRedisConfiguration: SentinelRedisConfiguration => redisClient.connectPubSub(sentinelRedisConfiguration.redisURI)
   }
+
+  private def getBinaryRedisPubSubConnection(redisClient: RedisClient): StatefulRedisPubSubConnection[String, Array[Byte]] = redisConfiguration match {
+    case _: StandaloneRedisConfiguration => redisClient.connectPubSub(binaryCodec)
+    case masterReplicaRedisConfiguration: MasterReplicaRedisConfiguration => redisClient.connectPubSub(binaryCodec, masterReplicaRedisConfiguration.redisURI.value.head)
+    case sentinelRedisConfiguration: SentinelRedisConfiguration => redisClient.connectPubSub(binaryCodec, sentinelRedisConfiguration.redisURI)
+  }
 }
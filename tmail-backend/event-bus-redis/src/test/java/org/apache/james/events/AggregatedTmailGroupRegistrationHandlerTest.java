@@ -22,15 +22,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
-import org.apache.james.backends.rabbitmq.RabbitMQConfiguration;
 import org.junit.jupiter.api.Test;
 
 import reactor.core.publisher.Mono;
@@ -158,31 +155,6 @@ public class AggregatedTmailGroupRegistrationHandlerTest {
         assertThat(first.redeliverCount.get() + second.redeliverCount.get() + third.redeliverCount.get()).isEqualTo(1);
     }
 
-    @Test
-    void splitConcurrencyConfigurationShouldSplitConcurrencyAcrossPartitions() {
-        RabbitMQEventBus.Configurations configurations = new RabbitMQEventBus.Configurations(
-            mock(RabbitMQConfiguration.class),
-            EventBusTestFixture.RETRY_BACKOFF_CONFIGURATION,
-            new EventBus.Configuration(10, Optional.of(Duration.ofMinutes(1))));
-
-        RabbitMQEventBus.Configurations splitConfiguration = AggregatedTmailGroupRegistrationHandler.splitConcurrencyConfiguration(configurations, 3);
-
-        assertThat(splitConfiguration.eventBusConfiguration().maxConcurrency()).isEqualTo(3);
-        assertThat(splitConfiguration.eventBusConfiguration().executionTimeout()).isEqualTo(Optional.of(Duration.ofMinutes(1)));
-    }
-
-    @Test
-    void splitConcurrencyConfigurationShouldKeepAtLeastOneConcurrency() {
-        RabbitMQEventBus.Configurations configurations = new RabbitMQEventBus.Configurations(
-            mock(RabbitMQConfiguration.class),
-            EventBusTestFixture.RETRY_BACKOFF_CONFIGURATION,
-            new EventBus.Configuration(2, Optional.empty()));
-
-        RabbitMQEventBus.Configurations splitConfiguration = AggregatedTmailGroupRegistrationHandler.splitConcurrencyConfiguration(configurations, 3);
-
-        assertThat(splitConfiguration.eventBusConfiguration().maxConcurrency()).isEqualTo(1);
-    }
-
     @Test
     void registerShouldRollbackSuccessfulDelegatesWhenLaterDelegateFails() {
         TestingTmailGroupRegistrationHandler first = new TestingTmailGroupRegistrationHandler();
@@ -201,16 +173,4 @@ public class AggregatedTmailGroupRegistrationHandlerTest {
         assertThat(third.unregisterCount).hasValue(0);
     }
 
-    @Test
-    void splitConcurrencyConfigurationShouldRejectNonPositivePartitionCount() {
-        RabbitMQEventBus.Configurations configurations = new RabbitMQEventBus.Configurations(
-            mock(RabbitMQConfiguration.class),
-            EventBusTestFixture.RETRY_BACKOFF_CONFIGURATION,
-            new EventBus.Configuration(2, Optional.empty()));
-
-        assertThatThrownBy(() -> AggregatedTmailGroupRegistrationHandler.splitConcurrencyConfiguration(configurations, 0))
-            .isInstanceOf(IllegalArgumentException.class)
-            .hasMessage("Partition count should be strictly positive");
-    }
-
 }
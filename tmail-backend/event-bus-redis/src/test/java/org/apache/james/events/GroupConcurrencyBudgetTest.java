@@ -0,0 +1,153 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package org.apache.james.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class GroupConcurrencyBudgetTest {
+    private RecordingMetricFactory metricFactory;
+
+    @BeforeEach
+    void setUp() {
+        metricFactory = new RecordingMetricFactory();
+    }
+
+    private Sinks.Empty<Void> runPending(GroupConcurrencyBudget.Partition partition, AtomicBoolean started) {
+        Sinks.Empty<Void> completion = Sinks.empty();
+        partition.withPermit(Mono.fromRunnable(() -> started.set(true)).then(completion.asMono()))
+            .subscribe();
+        return completion;
+    }
+
+    @Test
+    void hotPartitionShouldUseTheSharedPermits() {
+        GroupConcurrencyBudget testee = new GroupConcurrencyBudget(4, 2, metricFactory);
+        GroupConcurrencyBudget.Partition hot = testee.newPartition("hot");
+        testee.newPartition("idle");
+
+        AtomicBoolean first = new AtomicBoolean();
+        AtomicBoolean second = new AtomicBoolean();
+        AtomicBoolean third = new AtomicBoolean();
+        runPending(hot, first);
+        runPending(hot, second);
+        runPending(hot, third);
+
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isTrue();
+        assertThat(metricFactory.countFor("event-bus-group-partition-in-flight-hot")).isEqualTo(3);
+        assertThat(testee.availableSharedPermits()).isZero();
+    }
+
+    @Test
+    void hotPartitionShouldNotConsumeTheReservedPermitOfOtherPartitions() {
+        GroupConcurrencyBudget testee = new GroupConcurrencyBudget(4, 2, metricFactory);
+        GroupConcurrencyBudget.Partition hot = testee.newPartition("hot");
+        GroupConcurrencyBudget.Partition cold = testee.newPartition("cold");
+
+        runPending(hot, new AtomicBoolean());
+        runPending(hot, new AtomicBoolean());
+        runPending(hot, new AtomicBoolean());
+        AtomicBoolean queued = new AtomicBoolean();
+        runPending(hot, queued);
+        AtomicBoolean coldStarted = new AtomicBoolean();
+        runPending(cold, coldStarted);
+
+        assertThat(queued).isFalse();
+        assertThat(coldStarted).isTrue();
+        assertThat(metricFactory.countFor("event-bus-group-partition-queue-depth-hot")).isEqualTo(1);
+    }
+
+    @Test
+    void releasingAPermitShouldStartAQueuedTask() {
+        GroupConcurrencyBudget testee = new GroupConcurrencyBudget(1, 1, metricFactory);
+        GroupConcurrencyBudget.Partition partition = testee.newPartition("partition");
+
+        Sinks.Empty<Void> running = runPending(partition, new AtomicBoolean());
+        AtomicBoolean queued = new AtomicBoolean();
+        runPending(partition, queued);
+        assertThat(queued).isFalse();
+
+        running.tryEmitEmpty();
+
+        assertThat(queued).isTrue();
+        assertThat(metricFactory.countFor("event-bus-group-partition-queue-depth-partition")).isZero();
+        assertThat(metricFactory.countFor("event-bus-group-partition-in-flight-partition")).isEqualTo(1);
+    }
+
+    @Test
+    void releasedSharedPermitsShouldBeHandedOverToOtherPartitions() {
+        GroupConcurrencyBudget testee = new GroupConcurrencyBudget(3, 2, metricFactory);
+        GroupConcurrencyBudget.Partition first = testee.newPartition("first");
+        GroupConcurrencyBudget.Partition second = testee.newPartition("second");
+
+        runPending(first, new AtomicBoolean());
+        Sinks.Empty<Void> usingSharedPermit = runPending(first, new AtomicBoolean());
+        runPending(second, new AtomicBoolean());
+        AtomicBoolean queued = new AtomicBoolean();
+        runPending(second, queued);
+        assertThat(queued).isFalse();
+
+        usingSharedPermit.tryEmitEmpty();
+
+        assertThat(queued).isTrue();
+    }
+
+    @Test
+    void cancellingAQueuedTaskShouldNotLeakPermits() {
+        GroupConcurrencyBudget testee = new GroupConcurrencyBudget(2, 1, metricFactory);
+        GroupConcurrencyBudget.Partition partition = testee.newPartition("partition");
+
+        runPending(partition, new AtomicBoolean());
+        Sinks.Empty<Void> running = runPending(partition, new AtomicBoolean());
+        Disposable cancelled = partition.withPermit(Mono.never()).subscribe();
+        cancelled.dispose();
+        running.tryEmitEmpty();
+
+        assertThat(testee.availableSharedPermits()).isEqualTo(1);
+        assertThat(metricFactory.countFor("event-bus-group-partition-queue-depth-partition")).isZero();
+    }
+
+    @Test
+    void newPartitionShouldRejectMorePartitionsThanDeclared() {
+        GroupConcurrencyBudget testee = new GroupConcurrencyBudget(2, 1, metricFactory);
+        testee.newPartition("first");
+
+        assertThatThrownBy(() -> testee.newPartition("second"))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void constructorShouldRejectNonPositivePartitionCount() {
+        assertThatThrownBy(() -> new GroupConcurrencyBudget(2, 0, metricFactory))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Partition count should be strictly positive");
+    }
+}
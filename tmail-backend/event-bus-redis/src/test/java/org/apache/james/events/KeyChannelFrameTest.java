@@ -0,0 +1,87 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package org.apache.james.events;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+class KeyChannelFrameTest {
+    private static final EventBusId EVENT_BUS_ID = EventBusId.of(UUID.fromString("6e0dd59d-660e-4d9b-b22f-0354479f47b4"));
+    private static final String ROUTING_KEY_1 = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("a")).asString();
+    private static final String ROUTING_KEY_2 = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("b")).asString();
+    private static final byte[] EVENT_PAYLOAD = """
+        {"eventId": "123"}""".getBytes(UTF_8);
+
+    @Test
+    void decodeHeaderShouldReturnEncodedHeader() {
+        byte[] frame = KeyChannelFrame.encode(EVENT_BUS_ID, ImmutableList.of(ROUTING_KEY_1, ROUTING_KEY_2), EVENT_PAYLOAD);
+
+        KeyChannelFrame keyChannelFrame = KeyChannelFrame.decodeHeader(frame);
+
+        assertThat(keyChannelFrame.eventBusId()).isEqualTo(EVENT_BUS_ID);
+        assertThat(keyChannelFrame.routingKeys()).containsExactly(ROUTING_KEY_1, ROUTING_KEY_2);
+    }
+
+    @Test
+    void eventPayloadShouldReturnEncodedPayload() {
+        byte[] frame = KeyChannelFrame.encode(EVENT_BUS_ID, ImmutableList.of(ROUTING_KEY_1), EVENT_PAYLOAD);
+
+        assertThat(KeyChannelFrame.decodeHeader(frame).eventPayload()).isEqualTo(EVENT_PAYLOAD);
+    }
+
+    @Test
+    void encodedFrameShouldBeRecognizedAsBinary() {
+        byte[] frame = KeyChannelFrame.encode(EVENT_BUS_ID, ImmutableList.of(ROUTING_KEY_1), EVENT_PAYLOAD);
+
+        assertThat(KeyChannelFrame.isBinaryFrame(frame)).isTrue();
+    }
+
+    @Test
+    void legacyMessageShouldNotBeRecognizedAsBinary() {
+        byte[] legacyMessage = KeyChannelMessage.from(EVENT_BUS_ID, RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("a")), "{}")
+            .serialize()
+            .getBytes(UTF_8);
+
+        assertThat(KeyChannelFrame.isBinaryFrame(legacyMessage)).isFalse();
+    }
+
+    @Test
+    void decodeHeaderShouldFailWhenUnknownVersion() {
+        byte[] frame = KeyChannelFrame.encode(EVENT_BUS_ID, ImmutableList.of(ROUTING_KEY_1), EVENT_PAYLOAD);
+        frame[1] = 0x7F;
+
+        assertThatThrownBy(() -> KeyChannelFrame.decodeHeader(frame))
+            .hasMessage("Can not parse the Redis event bus keys channel binary frame");
+    }
+
+    @Test
+    void decodeHeaderShouldFailWhenTruncated() {
+        byte[] frame = {KeyChannelFrame.MAGIC, KeyChannelFrame.VERSION_1, 0x00};
+
+        assertThatThrownBy(() -> KeyChannelFrame.decodeHeader(frame))
+            .hasMessage("Can not parse the Redis event bus keys channel binary frame");
+    }
+}
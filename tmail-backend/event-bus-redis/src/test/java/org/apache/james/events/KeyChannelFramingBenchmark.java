@@ -0,0 +1,93 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package org.apache.james.events;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+public class KeyChannelFramingBenchmark {
+    private static final EventBusId EVENT_BUS_ID = EventBusId.of(UUID.fromString("6e0dd59d-660e-4d9b-b22f-0354479f47b4"));
+    private static final RoutingKeyConverter.RoutingKey ROUTING_KEY = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("a"));
+
+    @State(Scope.Benchmark)
+    public static class Messages {
+        public final String eventAsJson = "{\"eventId\":\"123\",\"padding\":\"" + Strings.repeat("a", 4096) + "\"}";
+        public final byte[] eventAsBytes = eventAsJson.getBytes(UTF_8);
+        public final List<String> routingKeys = ImmutableList.of(ROUTING_KEY.asString());
+        public final byte[] stringFraming = KeyChannelMessage.from(EVENT_BUS_ID, ROUTING_KEY, eventAsJson).serialize().getBytes(UTF_8);
+        public final byte[] binaryFraming = KeyChannelFrame.encode(EVENT_BUS_ID, routingKeys, eventAsBytes);
+    }
+
+    @Test
+    public void launchBenchmark() throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(this.getClass().getName() + ".*")
+            .mode(Mode.AverageTime)
+            .timeUnit(TimeUnit.NANOSECONDS)
+            .warmupTime(TimeValue.seconds(2))
+            .warmupIterations(2)
+            .measurementTime(TimeValue.seconds(2))
+            .measurementIterations(3)
+            .threads(1)
+            .forks(1)
+            .shouldFailOnError(true)
+            .shouldDoGC(true)
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    @Benchmark
+    public void encodeStringFraming(Messages messages, Blackhole blackhole) {
+        blackhole.consume(KeyChannelMessage.from(EVENT_BUS_ID, ROUTING_KEY, messages.eventAsJson).serialize().getBytes(UTF_8));
+    }
+
+    @Benchmark
+    public void encodeBinaryFraming(Messages messages, Blackhole blackhole) {
+        blackhole.consume(KeyChannelFrame.encode(EVENT_BUS_ID, messages.routingKeys, messages.eventAsBytes));
+    }
+
+    // Receivers without local listener for the routing key only need the header
+    @Benchmark
+    public void decodeHeaderStringFraming(Messages messages, Blackhole blackhole) {
+        blackhole.consume(KeyChannelMessage.parse(new String(messages.stringFraming, UTF_8)).routingKeys());
+    }
+
+    @Benchmark
+    public void decodeHeaderBinaryFraming(Messages messages, Blackhole blackhole) {
+        blackhole.consume(KeyChannelFrame.decodeHeader(messages.binaryFraming).routingKeys());
+    }
+}
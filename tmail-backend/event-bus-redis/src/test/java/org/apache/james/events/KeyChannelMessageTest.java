@@ -26,10 +26,13 @@ import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 
+import com.google.common.collect.ImmutableList;
+
 class KeyChannelMessageTest {
     private static final UUID UUID_1 = UUID.fromString("6e0dd59d-660e-4d9b-b22f-0354479f47b4");
     private static final EventBusId EVENT_BUS_ID = EventBusId.of(UUID_1);
     private static final RoutingKeyConverter.RoutingKey ROUTING_KEY = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("a"));
+    private static final RoutingKeyConverter.RoutingKey ROUTING_KEY_2 = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("b"));
     private static final String EVENT_AS_JSON = """
         {"eventId": "123"}""";
     private static final String VALID_CHANNEL_MESSAGE = EVENT_BUS_ID.asString() + REDIS_CHANNEL_MESSAGE_DELIMITER + ROUTING_KEY.asString() + REDIS_CHANNEL_MESSAGE_DELIMITER + EVENT_AS_JSON;
@@ -47,10 +50,37 @@ class KeyChannelMessageTest {
         KeyChannelMessage keyChannelMessage = KeyChannelMessage.parse(VALID_CHANNEL_MESSAGE);
 
         assertThat(keyChannelMessage.eventBusId()).isEqualTo(EVENT_BUS_ID);
-        assertThat(keyChannelMessage.routingKey()).isEqualTo(ROUTING_KEY.asString());
+        assertThat(keyChannelMessage.routingKeys()).containsExactly(ROUTING_KEY.asString());
         assertThat(keyChannelMessage.eventAsJson()).isEqualTo(EVENT_AS_JSON);
     }
 
+    @Test
+    void serializeShouldUseSingleKeyFormatWhenOneRoutingKey() {
+        assertThat(KeyChannelMessage.from(EVENT_BUS_ID, ImmutableList.of(ROUTING_KEY), EVENT_AS_JSON)
+            .serialize())
+            .isEqualTo(VALID_CHANNEL_MESSAGE);
+    }
+
+    @Test
+    void coalescedMessageShouldBeDeserializable() {
+        String serialized = KeyChannelMessage.from(EVENT_BUS_ID, ImmutableList.of(ROUTING_KEY, ROUTING_KEY_2), EVENT_AS_JSON)
+            .serialize();
+
+        KeyChannelMessage keyChannelMessage = KeyChannelMessage.parse(serialized);
+
+        assertThat(keyChannelMessage.eventBusId()).isEqualTo(EVENT_BUS_ID);
+        assertThat(keyChannelMessage.routingKeys()).containsExactly(ROUTING_KEY.asString(), ROUTING_KEY_2.asString());
+        assertThat(keyChannelMessage.eventAsJson()).isEqualTo(EVENT_AS_JSON);
+    }
+
+    @Test
+    void coalescedMessageShouldCarryTheEventOnce() {
+        String serialized = KeyChannelMessage.from(EVENT_BUS_ID, ImmutableList.of(ROUTING_KEY, ROUTING_KEY_2), EVENT_AS_JSON)
+            .serialize();
+
+        assertThat(serialized).containsOnlyOnce(EVENT_AS_JSON);
+    }
+
     @Test
     void deserializeFailWhenInvalidMessage() {
         assertThatThrownBy(() -> KeyChannelMessage.parse(INVALID_CHANNEL_MESSAGE))
@@ -145,6 +145,10 @@ abstract class RabbitMQAndRedisEventBusContractTest implements GroupContract.Sin
         return List.of(new DefaultNamingStrategy(new EventBusName("mailboxEvent")));
     }
 
+    RedisEventBusConfiguration redisEventBusConfiguration() {
+        return new RedisEventBusConfiguration(FAILURE_IGNORE_DEFAULT, Duration.ofSeconds(2));
+    }
+
     List<String> expectedGroupQueuesNames() {
         // to detect breaking change on Group queues name
         return List.of("mailboxEvent-workQueue-org.apache.james.events.TmailGroupRegistrationHandler$GroupRegistrationHandlerGroup");
@@ -216,7 +220,7 @@ abstract class RabbitMQAndRedisEventBusContractTest implements GroupContract.Sin
             rabbitMQExtension.getRabbitChannelPool(), EventBusId.random(),
             new RabbitMQEventBus.Configurations(rabbitMQExtension.getRabbitMQ().getConfiguration(), EventBusTestFixture.RETRY_BACKOFF_CONFIGURATION),
             redisEventBusClientFactory,
-            new RedisEventBusConfiguration(FAILURE_IGNORE_DEFAULT, Duration.ofSeconds(2)));
+            redisEventBusConfiguration());
     }
 
     @Override
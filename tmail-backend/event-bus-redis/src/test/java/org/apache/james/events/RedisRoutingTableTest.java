@@ -0,0 +1,135 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package org.apache.james.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.apache.james.events.RedisEventBusConfiguration.RoutingTableCacheConfiguration;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.api.reactive.RedisSetReactiveCommands;
+import io.lettuce.core.pubsub.api.reactive.RedisPubSubReactiveCommands;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class RedisRoutingTableTest {
+    private static final EventBusName EVENT_BUS_NAME = new EventBusName("mailboxEvent");
+    private static final RoutingKeyConverter.RoutingKey ROUTING_KEY = RoutingKeyConverter.RoutingKey.of(new EventBusTestFixture.TestRegistrationKey("a"));
+    private static final String CHANNEL = "mailboxEvent-eventbus-6e0dd59d-660e-4d9b-b22f-0354479f47b4";
+    private static final RedisEventBusConfiguration CACHE_ENABLED = new RedisEventBusConfiguration(false, Duration.ofSeconds(3),
+        new RoutingTableCacheConfiguration(true, 100, Duration.ofMinutes(1)));
+
+    private RedisSetReactiveCommands<String, String> redisSetReactiveCommands;
+    private RedisPubSubReactiveCommands<String, byte[]> redisPublisher;
+    private RecordingMetricFactory metricFactory;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisSetReactiveCommands = mock(RedisSetReactiveCommands.class);
+        redisPublisher = mock(RedisPubSubReactiveCommands.class);
+        metricFactory = new RecordingMetricFactory();
+
+        when(redisSetReactiveCommands.smembers(anyString())).thenAnswer(any -> Flux.just(CHANNEL));
+        when(redisPublisher.publish(anyString(), any(byte[].class))).thenReturn(Mono.just(1L));
+    }
+
+    private RedisRoutingTable testee(RedisEventBusConfiguration configuration) {
+        return new RedisRoutingTable(EVENT_BUS_NAME, redisSetReactiveCommands, redisPublisher, mock(RedisEventBusClientFactory.class),
+            configuration, metricFactory);
+    }
+
+    @Test
+    void targetChannelsShouldQueryRedisEachTimeWhenCacheDisabled() {
+        RedisRoutingTable testee = testee(RedisEventBusConfiguration.DEFAULT);
+
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+
+        verify(redisSetReactiveCommands, times(2)).smembers(ROUTING_KEY.asString());
+    }
+
+    @Test
+    void targetChannelsShouldBeServedFromCacheWhenEnabled() {
+        RedisRoutingTable testee = testee(CACHE_ENABLED);
+
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+
+        assertThat(testee.targetChannels(ROUTING_KEY).collectList().block()).containsExactly(CHANNEL);
+        verify(redisSetReactiveCommands, times(1)).smembers(ROUTING_KEY.asString());
+        assertThat(metricFactory.countFor("redis-routing-table-cache-hit")).isEqualTo(1);
+        assertThat(metricFactory.countFor("redis-routing-table-cache-miss")).isEqualTo(1);
+    }
+
+    @Test
+    void invalidationShouldForceReloadingTheRoutingKey() {
+        RedisRoutingTable testee = testee(CACHE_ENABLED);
+
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+        testee.invalidateLocally(ROUTING_KEY.asString());
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+
+        verify(redisSetReactiveCommands, times(2)).smembers(ROUTING_KEY.asString());
+        assertThat(metricFactory.countFor("redis-routing-table-cache-invalidation")).isEqualTo(1);
+    }
+
+    @Test
+    void publishInvalidationShouldNotifyOtherNodesAndInvalidateLocally() {
+        RedisRoutingTable testee = testee(CACHE_ENABLED);
+
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+        testee.publishInvalidation(ROUTING_KEY).block();
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+
+        verify(redisPublisher).publish(RedisRoutingTable.invalidationChannel(EVENT_BUS_NAME), ROUTING_KEY.asString().getBytes(StandardCharsets.UTF_8));
+        verify(redisSetReactiveCommands, times(2)).smembers(ROUTING_KEY.asString());
+    }
+
+    @Test
+    void publishInvalidationShouldNotInvalidateLocallyUntilSubscribed() {
+        RedisRoutingTable testee = testee(CACHE_ENABLED);
+
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+        testee.publishInvalidation(ROUTING_KEY);
+        testee.targetChannels(ROUTING_KEY).collectList().block();
+
+        verify(redisSetReactiveCommands, times(1)).smembers(ROUTING_KEY.asString());
+        assertThat(metricFactory.countFor("redis-routing-table-cache-invalidation")).isZero();
+    }
+
+    @Test
+    void publishInvalidationShouldBeNoopWhenCacheDisabled() {
+        RedisRoutingTable testee = testee(RedisEventBusConfiguration.DEFAULT);
+
+        testee.publishInvalidation(ROUTING_KEY).block();
+
+        verify(redisPublisher, times(0)).publish(anyString(), any(byte[].class));
+    }
+}
@@ -19,6 +19,7 @@
 package com.linagora.tmail.blob.guice;
 
 import java.io.FileNotFoundException;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -31,11 +32,14 @@ import org.apache.james.blob.zstd.CompressionConfiguration;
 import org.apache.james.modules.mailbox.ConfigurationComponent;
 import org.apache.james.server.blob.deduplication.StorageStrategy;
 import org.apache.james.server.core.filesystem.FileSystemImpl;
+import org.apache.james.util.DurationParser;
 import org.apache.james.util.Size;
 import org.apache.james.utils.PropertiesProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linagora.tmail.blob.blobid.list.BlobIdListCacheConfiguration;
+
 import io.vavr.control.Try;
 
 public record BlobStoreConfiguration(BlobStoreImplName implementation,
@@ -195,6 +199,9 @@ public record BlobStoreConfiguration(BlobStoreImplName implementation,
     static final boolean CACHE_ENABLED = true;
     static final String DEDUPLICATION_ENABLE_PROPERTY = "deduplication.enable";
     static final String SINGLE_SAVE_ENABLE_PROPERTY = "single.save.enable";
+    static final String SINGLE_SAVE_CACHE_ENABLE_PROPERTY = "single.save.cache.enable";
+    static final String SINGLE_SAVE_CACHE_MAXIMUM_SIZE_PROPERTY = "single.save.cache.maximumSize";
+    static final String SINGLE_SAVE_CACHE_TTL_PROPERTY = "single.save.cache.ttl";
     private static final String OBJECT_STORAGE_S3_SECONDARY_ENABLED = "objectstorage.s3.secondary.enabled";
 
     public static BlobStoreConfiguration parse(org.apache.james.server.core.configuration.Configuration configuration) throws ConfigurationException {
@@ -261,6 +268,15 @@ public record BlobStoreConfiguration(BlobStoreImplName implementation,
         }
     }
 
+    static BlobIdListCacheConfiguration parseSingleSaveCacheConfiguration(Configuration configuration) {
+        return new BlobIdListCacheConfiguration(
+            configuration.getBoolean(SINGLE_SAVE_CACHE_ENABLE_PROPERTY, true),
+            configuration.getLong(SINGLE_SAVE_CACHE_MAXIMUM_SIZE_PROPERTY, BlobIdListCacheConfiguration.DEFAULT_MAXIMUM_SIZE()),
+            Optional.ofNullable(configuration.getString(SINGLE_SAVE_CACHE_TTL_PROPERTY, null))
+                .map(s -> DurationParser.parse(s, ChronoUnit.SECONDS))
+                .orElse(BlobIdListCacheConfiguration.DEFAULT_TTL()));
+    }
+
     private static Optional<CryptoConfig> parseCryptoConfig(Configuration configuration) {
         final boolean enabled = configuration.getBoolean(ENCRYPTION_ENABLE_PROPERTY, false);
         if (enabled) {
@@ -18,11 +18,13 @@
 
 package com.linagora.tmail.blob.guice;
 
+import java.io.FileNotFoundException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.util.List;
 import java.util.Optional;
 
+import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.blob.aes.AESBlobStoreDAO;
 import org.apache.james.blob.aes.CryptoConfig;
 import org.apache.james.blob.api.BlobId;
@@ -42,7 +44,9 @@ import org.apache.james.blob.postgres.PostgresBlobStoreDAO;
 import org.apache.james.blob.zstd.CompressionConfiguration;
 import org.apache.james.blob.zstd.ZstdBlobStoreDAO;
 import org.apache.james.events.EventBus;
+import org.apache.james.events.EventDeadLetters;
 import org.apache.james.events.EventListener;
+import org.apache.james.events.RetryBackoffConfiguration;
 import org.apache.james.eventsourcing.Event;
 import org.apache.james.eventsourcing.eventstore.dto.EventDTO;
 import org.apache.james.eventsourcing.eventstore.dto.EventDTOModule;
@@ -53,6 +57,7 @@ import org.apache.james.modules.blobstore.BlobDeduplicationGCModule;
 import org.apache.james.modules.blobstore.validation.EventsourcingStorageStrategy;
 import org.apache.james.modules.blobstore.validation.StorageStrategyModule;
 import org.apache.james.modules.mailbox.BlobStoreAPIModule;
+import org.apache.james.modules.mailbox.ConfigurationComponent;
 import org.apache.james.modules.mailbox.DefaultBucketModule;
 import org.apache.james.modules.objectstorage.S3BlobStoreModule;
 import org.apache.james.modules.objectstorage.S3BucketModule;
@@ -60,6 +65,7 @@ import org.apache.james.server.blob.deduplication.DeDuplicationBlobStore;
 import org.apache.james.server.blob.deduplication.PassThroughBlobStore;
 import org.apache.james.server.blob.deduplication.StorageStrategy;
 import org.apache.james.server.core.MissingArgumentException;
+import org.apache.james.utils.PropertiesProvider;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
@@ -74,6 +80,8 @@ import com.google.inject.multibindings.ProvidesIntoSet;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.linagora.tmail.blob.blobid.list.BlobIdList;
+import com.linagora.tmail.blob.blobid.list.BlobIdListCacheConfiguration;
+import com.linagora.tmail.blob.blobid.list.CachingBlobIdList;
 import com.linagora.tmail.blob.blobid.list.CassandraSingleSaveBlobStoreModule;
 import com.linagora.tmail.blob.blobid.list.SingleSaveBlobStoreDAO;
 import com.linagora.tmail.blob.blobid.list.postgres.PostgresSingleSaveBlobStoreModule;
@@ -186,8 +194,11 @@ public class BlobStoreModulesChooser {
         @ProvidesIntoSet
         @Named(TMAIL_EVENT_BUS_INJECT_NAME)
         EventListener.ReactiveGroupEventListener provideFailedBlobOperationListener(@Named(INITIAL_BLOBSTORE_DAO) BlobStoreDAO firstBlobStoreDAO,
-                                                                                    @Named(SECOND_BLOB_STORE_DAO) BlobStoreDAO secondBlobStoreDAO) {
-            return new FailedBlobOperationListener(firstBlobStoreDAO, secondBlobStoreDAO, secondaryS3BlobStoreConfiguration.secondaryBucketSuffix());
+                                                                                    @Named(SECOND_BLOB_STORE_DAO) BlobStoreDAO secondBlobStoreDAO,
+                                                                                    EventDeadLetters eventDeadLetters,
+                                                                                    MetricFactory metricFactory) {
+            return new FailedBlobOperationListener(firstBlobStoreDAO, secondBlobStoreDAO, secondaryS3BlobStoreConfiguration.secondaryBucketSuffix(),
+                eventDeadLetters, RetryBackoffConfiguration.DEFAULT, metricFactory);
         }
 
         @Provides
@@ -195,8 +206,10 @@ public class BlobStoreModulesChooser {
         @Named(MAYBE_SECONDARY_BLOBSTORE)
         BlobStoreDAO provideSecondaryBlobStoreDAO(@Named(INITIAL_BLOBSTORE_DAO) BlobStoreDAO firstBlobStoreDAO,
                                                   @Named(SECOND_BLOB_STORE_DAO) BlobStoreDAO secondBlobStoreDAO,
-                                                  @Named(TMAIL_EVENT_BUS_INJECT_NAME) EventBus eventBus) {
-            return new SecondaryBlobStoreDAO(firstBlobStoreDAO, secondBlobStoreDAO, secondaryS3BlobStoreConfiguration.secondaryBucketSuffix(), eventBus);
+                                                  @Named(TMAIL_EVENT_BUS_INJECT_NAME) EventBus eventBus,
+                                                  MetricFactory metricFactory) {
+            return new SecondaryBlobStoreDAO(firstBlobStoreDAO, secondBlobStoreDAO, secondaryS3BlobStoreConfiguration.secondaryBucketSuffix(), eventBus,
+                secondaryS3BlobStoreConfiguration.hedgedReadConfiguration(), secondaryS3BlobStoreConfiguration.replicationMode(), metricFactory);
         }
     }
 
@@ -285,9 +298,24 @@ public class BlobStoreModulesChooser {
         @Named(MAYBE_SINGLE_SAVE_BLOBSTORE)
         BlobStoreDAO provideSingleSaveBlobStoreDAO(@Named(MAYBE_COMPRESSION_BLOBSTORE) BlobStoreDAO blobStoreDAO,
                                                    BlobIdList blobIdList,
-                                                   BucketName defaultBucketName) {
+                                                   BucketName defaultBucketName,
+                                                   BlobIdListCacheConfiguration cacheConfiguration,
+                                                   MetricFactory metricFactory) {
+            if (cacheConfiguration.enabled()) {
+                return new SingleSaveBlobStoreDAO(blobStoreDAO, new CachingBlobIdList(blobIdList, metricFactory, cacheConfiguration), defaultBucketName);
+            }
             return new SingleSaveBlobStoreDAO(blobStoreDAO, blobIdList, defaultBucketName);
         }
+
+        @Provides
+        @Singleton
+        BlobIdListCacheConfiguration provideBlobIdListCacheConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+            try {
+                return BlobStoreConfiguration.parseSingleSaveCacheConfiguration(propertiesProvider.getConfigurations(ConfigurationComponent.NAMES));
+            } catch (FileNotFoundException e) {
+                return BlobIdListCacheConfiguration.DEFAULT();
+            }
+        }
     }
 
     static class MultiSaveDeclarationModule extends AbstractModule {
@@ -20,5 +20,17 @@ package com.linagora.tmail.blob.guice;
 
 import org.apache.james.blob.objectstorage.aws.S3BlobStoreConfiguration;
 
-public record SecondaryS3BlobStoreConfiguration(S3BlobStoreConfiguration s3BlobStoreConfiguration, String secondaryBucketSuffix) {
+import com.linagora.tmail.blob.secondaryblobstore.HedgedReadConfiguration;
+import com.linagora.tmail.blob.secondaryblobstore.SecondaryBlobStoreDAO.ReplicationMode;
+
+public record SecondaryS3BlobStoreConfiguration(S3BlobStoreConfiguration s3BlobStoreConfiguration, String secondaryBucketSuffix,
+                                                HedgedReadConfiguration hedgedReadConfiguration, ReplicationMode replicationMode) {
+    public SecondaryS3BlobStoreConfiguration(S3BlobStoreConfiguration s3BlobStoreConfiguration, String secondaryBucketSuffix) {
+        this(s3BlobStoreConfiguration, secondaryBucketSuffix, HedgedReadConfiguration.DISABLED);
+    }
+
+    public SecondaryS3BlobStoreConfiguration(S3BlobStoreConfiguration s3BlobStoreConfiguration, String secondaryBucketSuffix,
+                                             HedgedReadConfiguration hedgedReadConfiguration) {
+        this(s3BlobStoreConfiguration, secondaryBucketSuffix, hedgedReadConfiguration, ReplicationMode.SYNCHRONOUS);
+    }
 }
@@ -23,6 +23,7 @@ import static org.apache.james.blob.objectstorage.aws.S3BlobStoreConfiguration.U
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Locale;
 import java.util.Optional;
 
 import org.apache.commons.configuration2.Configuration;
@@ -33,6 +34,9 @@ import org.apache.james.blob.objectstorage.aws.S3BlobStoreConfiguration;
 import org.apache.james.util.DurationParser;
 import org.apache.james.util.Size;
 
+import com.linagora.tmail.blob.secondaryblobstore.HedgedReadConfiguration;
+import com.linagora.tmail.blob.secondaryblobstore.SecondaryBlobStoreDAO.ReplicationMode;
+
 import reactor.util.retry.Retry;
 import software.amazon.awssdk.core.exception.SdkException;
 
@@ -48,6 +52,11 @@ public class SecondaryS3BlobStoreConfigurationReader {
     private static final String OBJECTSTORAGE_S3_IN_MEMORY_READ_LIMIT = "objectstorage.s3.in.read.limit";
     private static final String OBJECTSTORAGE_S3_UPLOAD_RETRY_MAX_ATTEMPTS = "objectstorage.s3.upload.retry.maxAttempts";
     private static final String OBJECTSTORAGE_S3_UPLOAD_RETRY_BACKOFF_DURATION_MILLIS = "objectstorage.s3.upload.retry.backoffDurationMillis";
+    private static final String OBJECTSTORAGE_S3_HEDGING_ENABLED = "objectstorage.s3.secondary.hedging.enabled";
+    private static final String OBJECTSTORAGE_S3_HEDGING_PERCENTILE = "objectstorage.s3.secondary.hedging.percentile";
+    private static final String OBJECTSTORAGE_S3_HEDGING_MINIMUM_DELAY = "objectstorage.s3.secondary.hedging.minimumDelay";
+    private static final String OBJECTSTORAGE_S3_HEDGING_BUDGET_RATIO = "objectstorage.s3.secondary.hedging.budgetRatio";
+    private static final String OBJECTSTORAGE_S3_REPLICATION_MODE = "objectstorage.s3.secondary.replication.mode";
 
     public static SecondaryS3BlobStoreConfiguration from(Configuration configuration) throws ConfigurationException {
         Optional<Integer> httpConcurrency = Optional.ofNullable(configuration.getInteger(OBJECTSTORAGE_S3_HTTP_CONCURRENCY, null));
@@ -88,7 +97,30 @@ public class SecondaryS3BlobStoreConfigurationReader {
             .connectionTimeout(connectionTimeout)
             .uploadRetrySpec(uploadRetrySpec)
             .build(),
-            secondaryBucketSuffix);
+            secondaryBucketSuffix,
+            readHedgedReadConfiguration(configuration),
+            readReplicationMode(configuration));
+    }
+
+    private static ReplicationMode readReplicationMode(Configuration configuration) throws ConfigurationException {
+        String replicationMode = configuration.getString(OBJECTSTORAGE_S3_REPLICATION_MODE, "sync");
+        return switch (replicationMode.trim().toLowerCase(Locale.US)) {
+            case "sync" -> ReplicationMode.SYNCHRONOUS;
+            case "async" -> ReplicationMode.ASYNCHRONOUS;
+            default -> throw new ConfigurationException("Invalid " + OBJECTSTORAGE_S3_REPLICATION_MODE + " '" + replicationMode + "', expecting 'sync' or 'async'");
+        };
+    }
+
+    private static HedgedReadConfiguration readHedgedReadConfiguration(Configuration configuration) {
+        if (!configuration.getBoolean(OBJECTSTORAGE_S3_HEDGING_ENABLED, false)) {
+            return HedgedReadConfiguration.DISABLED;
+        }
+        return HedgedReadConfiguration.enabled(
+            configuration.getDouble(OBJECTSTORAGE_S3_HEDGING_PERCENTILE, HedgedReadConfiguration.DEFAULT_PERCENTILE),
+            Optional.ofNullable(configuration.getString(OBJECTSTORAGE_S3_HEDGING_MINIMUM_DELAY, null))
+                .map(s -> DurationParser.parse(s, ChronoUnit.MILLIS))
+                .orElse(HedgedReadConfiguration.DEFAULT_MINIMUM_DELAY),
+            configuration.getDouble(OBJECTSTORAGE_S3_HEDGING_BUDGET_RATIO, HedgedReadConfiguration.DEFAULT_BUDGET_RATIO));
     }
 
 }
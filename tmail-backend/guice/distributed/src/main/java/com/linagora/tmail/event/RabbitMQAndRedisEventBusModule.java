@@ -83,6 +83,10 @@ import com.google.inject.Scopes;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.google.inject.name.Names;
+import com.linagora.tmail.cache.CacheInvalidationRegistration;
+import com.linagora.tmail.cache.CacheInvalidationRegistrationKey;
+import com.linagora.tmail.cache.CacheInvalidationRequestedEventSerializer;
+import com.linagora.tmail.cache.CacheInvalidationSubscriber;
 import com.linagora.tmail.disconnector.DisconnectionRequestedEventSerializer;
 import com.linagora.tmail.disconnector.DisconnectorNotificationRegistration;
 import com.linagora.tmail.disconnector.DisconnectorRegistrationKey;
@@ -124,6 +128,10 @@ public class RabbitMQAndRedisEventBusModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), EventSerializer.class)
             .addBinding()
             .to(DisconnectionRequestedEventSerializer.class);
+        Multibinder.newSetBinder(binder(), EventSerializer.class)
+            .addBinding()
+            .to(CacheInvalidationRequestedEventSerializer.class);
+        Multibinder.newSetBinder(binder(), CacheInvalidationSubscriber.class);
         Multibinder<EventListener.ReactiveGroupEventListener> tmailListenerBinder =
             Multibinder.newSetBinder(binder(), EventListener.ReactiveGroupEventListener.class, Names.named(TMAIL_EVENT_BUS_INJECT_NAME));
         tmailListenerBinder.addBinding().to(EmailAddressContactListener.class);
@@ -276,13 +284,15 @@ public class RabbitMQAndRedisEventBusModule extends AbstractModule {
     @ProvidesIntoSet
     InitializationOperation tmailWorkQueue(@Named(TMAIL_EVENT_BUS_INJECT_NAME) RabbitMQAndRedisEventBus instance,
                                            @Named(TMAIL_EVENT_BUS_INJECT_NAME) Set<EventListener.ReactiveGroupEventListener> tmailReactiveGroupEventListeners,
-                                           DisconnectorNotificationRegistration disconnectorNotificationRegistration) {
+                                           DisconnectorNotificationRegistration disconnectorNotificationRegistration,
+                                           CacheInvalidationRegistration cacheInvalidationRegistration) {
         return InitilizationOperationBuilder
             .forClass(RabbitMQAndRedisEventBus.class)
             .init(() -> {
                 instance.start();
                 tmailReactiveGroupEventListeners.forEach(instance::register);
                 disconnectorNotificationRegistration.register();
+                cacheInvalidationRegistration.register();
             });
     }
 
@@ -302,7 +312,7 @@ public class RabbitMQAndRedisEventBusModule extends AbstractModule {
                                                   RabbitMQEventBus.Configurations configurations,
                                                   @Named(TMAIL_EVENT_BUS_INJECT_NAME) List<NamingStrategy> namingStrategies) {
         return eventBusFactory.create(eventBusId, namingStrategies,
-            new RoutingKeyConverter(ImmutableSet.of(new Factory(), new DisconnectorRegistrationKey.Factory())),
+            new RoutingKeyConverter(ImmutableSet.of(new Factory(), new DisconnectorRegistrationKey.Factory(), new CacheInvalidationRegistrationKey.Factory())),
             eventSerializersAggregator,
             configurations);
     }
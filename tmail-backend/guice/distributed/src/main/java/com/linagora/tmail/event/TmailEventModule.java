@@ -46,6 +46,10 @@ import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.google.inject.name.Names;
+import com.linagora.tmail.cache.CacheInvalidationRegistration;
+import com.linagora.tmail.cache.CacheInvalidationRegistrationKey;
+import com.linagora.tmail.cache.CacheInvalidationRequestedEventSerializer;
+import com.linagora.tmail.cache.CacheInvalidationSubscriber;
 import com.linagora.tmail.disconnector.DisconnectionRequestedEventSerializer;
 import com.linagora.tmail.disconnector.DisconnectorNotificationRegistration;
 import com.linagora.tmail.disconnector.DisconnectorRegistrationKey;
@@ -68,6 +72,10 @@ public class TmailEventModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), EventSerializer.class)
             .addBinding()
             .to(DisconnectionRequestedEventSerializer.class);
+        Multibinder.newSetBinder(binder(), EventSerializer.class)
+            .addBinding()
+            .to(CacheInvalidationRequestedEventSerializer.class);
+        Multibinder.newSetBinder(binder(), CacheInvalidationSubscriber.class);
         Multibinder<EventListener.ReactiveGroupEventListener> tmailListenerBinder =
             Multibinder.newSetBinder(binder(), EventListener.ReactiveGroupEventListener.class, Names.named(TMAIL_EVENT_BUS_INJECT_NAME));
         tmailListenerBinder.addBinding().to(EmailAddressContactListener.class);
@@ -86,13 +94,15 @@ public class TmailEventModule extends AbstractModule {
     @ProvidesIntoSet
     InitializationOperation workQueue(@Named(TMAIL_EVENT_BUS_INJECT_NAME) RabbitMQEventBus instance,
                                       @Named(TMAIL_EVENT_BUS_INJECT_NAME) Set<EventListener.ReactiveGroupEventListener> tmailReactiveGroupEventListeners,
-                                      DisconnectorNotificationRegistration disconnectorNotificationRegistration) {
+                                      DisconnectorNotificationRegistration disconnectorNotificationRegistration,
+                                      CacheInvalidationRegistration cacheInvalidationRegistration) {
         return InitilizationOperationBuilder
             .forClass(RabbitMQEventBus.class)
             .init(() -> {
                 instance.start();
                 tmailReactiveGroupEventListeners.forEach(instance::register);
                 disconnectorNotificationRegistration.register();
+                cacheInvalidationRegistration.register();
             });
     }
 
@@ -106,7 +116,7 @@ public class TmailEventModule extends AbstractModule {
                                           EventSerializersAggregator eventSerializersAggregator,
                                           EventBus.Configuration eventBusConfiguration) {
         return eventBusFactory.create(eventBusId, TMAIL_NAMING_STRATEGY,
-            new RoutingKeyConverter(ImmutableSet.of(new Factory(), new DisconnectorRegistrationKey.Factory())),
+            new RoutingKeyConverter(ImmutableSet.of(new Factory(), new DisconnectorRegistrationKey.Factory(), new CacheInvalidationRegistrationKey.Factory())),
             eventSerializersAggregator,
             new RabbitMQEventBus.Configurations(configuration, retryBackoffConfiguration, eventBusConfiguration));
     }
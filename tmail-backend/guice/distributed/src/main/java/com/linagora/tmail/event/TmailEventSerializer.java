@@ -19,6 +19,7 @@
 package com.linagora.tmail.event;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import jakarta.inject.Inject;
@@ -33,11 +34,16 @@ import org.apache.james.events.Event;
 import org.apache.james.events.EventSerializer;
 import org.apache.james.events.SerializationResult;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.github.fge.lambdas.Throwing;
+import com.google.common.collect.ImmutableList;
 import com.linagora.tmail.blob.secondaryblobstore.FailedBlobEvents;
 import com.linagora.tmail.blob.secondaryblobstore.ObjectStorageIdentity;
 import com.linagora.tmail.james.jmap.contact.ContactFields;
@@ -69,13 +75,17 @@ public class TmailEventSerializer implements EventSerializer {
     interface EventDTO {
     }
 
-    record BlobAdditionDTO(String eventId, String username, String bucketName, String blobId, String failedObjectStorage) implements EventDTO {
+    // 'deferred' is only serialized when set, keeping the format of the failed blob events unchanged
+    record BlobAdditionDTO(String eventId, String username, String bucketName, String blobId, String failedObjectStorage,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) Boolean deferred) implements EventDTO {
     }
 
-    record BlobsDeletionDTO(String eventId, String username, String bucketName, Collection<String> blobIds, String failedObjectStorage) implements EventDTO {
+    record BlobsDeletionDTO(String eventId, String username, String bucketName, Collection<String> blobIds, String failedObjectStorage,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Boolean deferred) implements EventDTO {
     }
 
-    record BucketDeletionDTO(String eventId, String username, String bucketName, String failedObjectStorage) implements EventDTO {
+    record BucketDeletionDTO(String eventId, String username, String bucketName, String failedObjectStorage,
+                             @JsonInclude(JsonInclude.Include.NON_NULL) Boolean deferred) implements EventDTO {
     }
 
     record TmailContactUserAddedEventDTO(String eventId, String username, String contactAddress, String contactFirstname, String contactSurname) implements EventDTO {
@@ -90,7 +100,14 @@ public class TmailEventSerializer implements EventSerializer {
     record LabelDestroyedDTO(String eventId, String username, String keyword) implements EventDTO {
     }
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    // Writers and readers are bound to the EventDTO base type once, sparing the per call root type resolution
+    private static final ObjectWriter EVENT_WRITER = OBJECT_MAPPER.writerFor(EventDTO.class);
+    private static final ObjectWriter EVENTS_WRITER = OBJECT_MAPPER.writerFor(new TypeReference<List<EventDTO>>() {
+    });
+    private static final ObjectReader EVENT_READER = OBJECT_MAPPER.readerFor(EventDTO.class);
+    private static final ObjectReader EVENTS_READER = OBJECT_MAPPER.readerForListOf(EventDTO.class);
+
     private final BlobId.Factory blobIdFactory;
 
     @Inject
@@ -103,7 +120,7 @@ public class TmailEventSerializer implements EventSerializer {
 
         try {
             Optional<String> maybeEventDTO = toDTO(event)
-                .map(Throwing.function(objectMapper::writeValueAsString).sneakyThrow());
+                .map(Throwing.function(EVENT_WRITER::writeValueAsString).sneakyThrow());
             return SerializationResult.of(maybeEventDTO, "Unexpected value: " + event);
         } catch (Exception e) {
             return new SerializationResult.Failure(e.getMessage());
@@ -111,17 +128,34 @@ public class TmailEventSerializer implements EventSerializer {
     }
 
     @Override
-    public SerializationResult toJson(Collection<Event> event) {
-        if (event.size() != 1) {
-            return new SerializationResult.Failure("Not supported for multiple events, please serialize separately");
+    public SerializationResult toJson(Collection<Event> events) {
+        if (events.isEmpty()) {
+            return new SerializationResult.Failure("Can not serialize an empty collection of events");
+        }
+        if (events.size() == 1) {
+            // Single events keep being serialized as a JSON object for compatibility with former readers
+            return toJson(events.iterator().next());
+        }
+
+        ImmutableList.Builder<EventDTO> dtos = ImmutableList.builderWithExpectedSize(events.size());
+        for (Event event : events) {
+            Optional<EventDTO> maybeDTO = toDTO(event);
+            if (maybeDTO.isEmpty()) {
+                return new SerializationResult.Failure("Unexpected value: " + event);
+            }
+            dtos.add(maybeDTO.get());
+        }
+        try {
+            return new SerializationResult.Success(EVENTS_WRITER.writeValueAsString(dtos.build()));
+        } catch (JsonProcessingException e) {
+            return new SerializationResult.Failure(e.getMessage());
         }
-        return toJson(event.iterator().next());
     }
 
     @Override
     public DeserializationResult asEvent(String serialized) {
         try {
-            EventDTO eventDTO = objectMapper.readValue(serialized, EventDTO.class);
+            EventDTO eventDTO = EVENT_READER.readValue(serialized);
             return DeserializationResult.of(fromDTO(eventDTO), "Unexpected value: " + eventDTO);
         } catch (JsonProcessingException | AddressException e) {
             return new DeserializationResult.Failure(e.getMessage());
@@ -130,7 +164,34 @@ public class TmailEventSerializer implements EventSerializer {
 
     @Override
     public DeserializationResult asEvents(String serialized) {
-        return asEvent(serialized);
+        if (!isJsonArray(serialized)) {
+            return asEvent(serialized);
+        }
+
+        try {
+            List<EventDTO> eventDTOs = EVENTS_READER.readValue(serialized);
+            ImmutableList.Builder<Event> events = ImmutableList.builderWithExpectedSize(eventDTOs.size());
+            for (EventDTO eventDTO : eventDTOs) {
+                Optional<Event> maybeEvent = fromDTO(eventDTO);
+                if (maybeEvent.isEmpty()) {
+                    return new DeserializationResult.Failure("Unexpected value: " + eventDTO);
+                }
+                events.add(maybeEvent.get());
+            }
+            return new DeserializationResult.Success(events.build());
+        } catch (JsonProcessingException | AddressException e) {
+            return new DeserializationResult.Failure(e.getMessage());
+        }
+    }
+
+    private boolean isJsonArray(String serialized) {
+        for (int i = 0; i < serialized.length(); i++) {
+            char character = serialized.charAt(i);
+            if (!Character.isWhitespace(character)) {
+                return character == '[';
+            }
+        }
+        return false;
     }
 
     private Label dtoToLabel(String keyword, String displayName, String color, String description, Boolean readOnly) {
@@ -143,15 +204,22 @@ public class TmailEventSerializer implements EventSerializer {
             Boolean.TRUE.equals(readOnly));
     }
 
+    private Boolean deferredToDTO(FailedBlobEvents.BlobEvent event) {
+        if (event.isDeferred()) {
+            return true;
+        }
+        return null;
+    }
+
     private Optional<EventDTO> toDTO(Event event) {
         return Optional.ofNullable(switch (event) {
             case FailedBlobEvents.BlobAddition e -> new BlobAdditionDTO(e.getEventId().getId().toString(), FailedBlobEvents.BlobEvent.USERNAME.asString(),
-                e.bucketName().asString(), e.blobId().asString(), e.getFailedObjectStorage().name());
+                e.bucketName().asString(), e.blobId().asString(), e.getFailedObjectStorage().name(), deferredToDTO(e));
             case FailedBlobEvents.BlobsDeletion e -> new BlobsDeletionDTO(e.getEventId().getId().toString(), FailedBlobEvents.BlobEvent.USERNAME.asString(),
                 e.bucketName().asString(), e.blobIds().stream().map(BlobId::asString).toList(),
-                e.getFailedObjectStorage().name());
+                e.getFailedObjectStorage().name(), deferredToDTO(e));
             case FailedBlobEvents.BucketDeletion e -> new BucketDeletionDTO(e.getEventId().getId().toString(), FailedBlobEvents.BlobEvent.USERNAME.asString(),
-                e.bucketName().asString(), e.getFailedObjectStorage().name());
+                e.bucketName().asString(), e.getFailedObjectStorage().name(), deferredToDTO(e));
             case TmailContactUserAddedEvent e -> new TmailContactUserAddedEventDTO(e.getEventId().getId().toString(), e.username().asString(),
                 e.contact().address().asString(), e.contact().firstname(), e.contact().surname());
             case LabelCreated e -> new LabelCreatedDTO(e.getEventId().getId().toString(), e.username().asString(),
@@ -173,12 +241,13 @@ public class TmailEventSerializer implements EventSerializer {
     private Optional<Event> fromDTO(EventDTO eventDTO) throws AddressException {
         return Optional.ofNullable(switch (eventDTO) {
             case BlobAdditionDTO dto -> new FailedBlobEvents.BlobAddition(Event.EventId.of(dto.eventId()),
-                BucketName.of(dto.bucketName()), blobIdFactory.parse(dto.blobId()), ObjectStorageIdentity.valueOf(dto.failedObjectStorage()));
+                BucketName.of(dto.bucketName()), blobIdFactory.parse(dto.blobId()), ObjectStorageIdentity.valueOf(dto.failedObjectStorage()),
+                Boolean.TRUE.equals(dto.deferred()));
             case BlobsDeletionDTO dto -> new FailedBlobEvents.BlobsDeletion(Event.EventId.of(dto.eventId()),
                 BucketName.of(dto.bucketName()), dto.blobIds().stream().map(blobId -> blobIdFactory.parse(blobId)).toList(),
-                ObjectStorageIdentity.valueOf(dto.failedObjectStorage()));
+                ObjectStorageIdentity.valueOf(dto.failedObjectStorage()), Boolean.TRUE.equals(dto.deferred()));
             case BucketDeletionDTO dto -> new FailedBlobEvents.BucketDeletion(Event.EventId.of(dto.eventId()),
-                BucketName.of(dto.bucketName()), ObjectStorageIdentity.valueOf(dto.failedObjectStorage()));
+                BucketName.of(dto.bucketName()), ObjectStorageIdentity.valueOf(dto.failedObjectStorage()), Boolean.TRUE.equals(dto.deferred()));
             case TmailContactUserAddedEventDTO dto -> new TmailContactUserAddedEvent(Event.EventId.of(dto.eventId()),
                 Username.of(dto.username()), new ContactFields(new MailAddress(dto.contactAddress()), dto.contactFirstname(), dto.contactSurname()));
             case LabelCreatedDTO dto -> new LabelCreated(Event.EventId.of(dto.eventId()),
@@ -43,6 +43,7 @@ public class BlobEventSerializationTest {
     static final BucketName BUCKET_NAME = BucketName.of("bucket-1");
     static final BlobId BLOB_ID = BLOB_ID_FACTORY.of("blob-id-1");
     static final Event BLOB_ADDTITION_EVENT = new FailedBlobEvents.BlobAddition(EVENT_ID, BUCKET_NAME, BLOB_ID, ObjectStorageIdentity.PRIMARY);
+    static final Event DEFERRED_BLOB_ADDITION_EVENT = new FailedBlobEvents.BlobAddition(EVENT_ID, BUCKET_NAME, BLOB_ID, ObjectStorageIdentity.SECONDARY, true);
     static final Event BLOBS_DELETION_EVENT = new FailedBlobEvents.BlobsDeletion(EVENT_ID, BUCKET_NAME, ImmutableList.of(BLOB_ID), ObjectStorageIdentity.PRIMARY);
     static final Event BUCKET_DELETION_EVENT = new FailedBlobEvents.BucketDeletion(EVENT_ID, BUCKET_NAME, ObjectStorageIdentity.PRIMARY);
     static final String BlOB_ADDITION_JSON = "{" +
@@ -53,6 +54,15 @@ public class BlobEventSerializationTest {
         "\"blobId\":\"1_628_blob-id-1\"," +
         "\"failedObjectStorage\":\"PRIMARY\"" +
         "}";
+    static final String DEFERRED_BLOB_ADDITION_JSON = "{" +
+        "\"type\":\"TmailEventSerializer$BlobAdditionDTO\"," +
+        "\"eventId\":\"6e0dd59d-660e-4d9b-b22f-0354479f47b4\"," +
+        "\"username\":\"secondaryblobstore\"," +
+        "\"bucketName\":\"bucket-1\"," +
+        "\"blobId\":\"1_628_blob-id-1\"," +
+        "\"failedObjectStorage\":\"SECONDARY\"," +
+        "\"deferred\":true" +
+        "}";
     static final String BlOBS_DELETION_JSON = "{" +
         "\"type\":\"TmailEventSerializer$BlobsDeletionDTO\"," +
         "\"eventId\":\"6e0dd59d-660e-4d9b-b22f-0354479f47b4\"," +
@@ -83,6 +93,18 @@ public class BlobEventSerializationTest {
         assertThat(event).isEqualTo(BLOB_ADDTITION_EVENT);
     }
 
+    @Test
+    void deferredBlobAdditionEventShouldBeWellSerialized() {
+        String json = tmailEventSerializer.toJson(DEFERRED_BLOB_ADDITION_EVENT).json();
+        assertThat(json).isEqualTo(DEFERRED_BLOB_ADDITION_JSON);
+    }
+
+    @Test
+    void deferredBlobAdditionEventShouldBeWellDeserialized() {
+        Event event = tmailEventSerializer.asEvent(DEFERRED_BLOB_ADDITION_JSON).event();
+        assertThat(event).isEqualTo(DEFERRED_BLOB_ADDITION_EVENT);
+    }
+
     @Test
     void blobsDeletionEventShouldBeWellSerialized() {
         String json = tmailEventSerializer.toJson(BLOBS_DELETION_EVENT).json();
@@ -106,4 +128,28 @@ public class BlobEventSerializationTest {
         Event event = tmailEventSerializer.asEvent(BUCKET_DELETION_JSON).event();
         assertThat(event).isEqualTo(BUCKET_DELETION_EVENT);
     }
+
+    @Test
+    void severalEventsShouldBeSerializedAsAJsonArray() {
+        String json = tmailEventSerializer.toJson(ImmutableList.of(BLOB_ADDTITION_EVENT, BUCKET_DELETION_EVENT)).json();
+        assertThat(json).isEqualTo("[" + BlOB_ADDITION_JSON + "," + BUCKET_DELETION_JSON + "]");
+    }
+
+    @Test
+    void singleEventCollectionShouldBeSerializedAsAJsonObject() {
+        String json = tmailEventSerializer.toJson(ImmutableList.of(BLOB_ADDTITION_EVENT)).json();
+        assertThat(json).isEqualTo(BlOB_ADDITION_JSON);
+    }
+
+    @Test
+    void severalEventsShouldBeWellDeserialized() {
+        assertThat(tmailEventSerializer.asEvents("[" + BlOB_ADDITION_JSON + "," + BlOBS_DELETION_JSON + "," + BUCKET_DELETION_JSON + "]").events())
+            .containsExactly(BLOB_ADDTITION_EVENT, BLOBS_DELETION_EVENT, BUCKET_DELETION_EVENT);
+    }
+
+    @Test
+    void asEventsShouldAcceptASingleJsonObject() {
+        assertThat(tmailEventSerializer.asEvents(BlOB_ADDITION_JSON).events())
+            .containsExactly(BLOB_ADDTITION_EVENT);
+    }
 }
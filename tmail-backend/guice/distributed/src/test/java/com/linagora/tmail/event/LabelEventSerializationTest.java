@@ -29,6 +29,7 @@ import org.apache.james.server.blob.deduplication.GenerationAwareBlobId;
 import org.apache.james.utils.UpdatableTickingClock;
 import org.junit.jupiter.api.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.linagora.tmail.james.jmap.label.LabelCreated;
 import com.linagora.tmail.james.jmap.label.LabelDestroyed;
 import com.linagora.tmail.james.jmap.label.LabelUpdated;
@@ -246,4 +247,17 @@ class LabelEventSerializationTest {
         assertThat(SERIALIZER.asEvent(legacyJson).event())
             .isEqualTo(new LabelCreated(EVENT_ID, ALICE, LABEL_WITH_COLOR));
     }
+
+    @Test
+    void severalLabelEventsShouldRoundTrip() {
+        ImmutableList<Event> events = ImmutableList.of(
+            new LabelCreated(EVENT_ID, ALICE, LABEL_WITH_COLOR),
+            new LabelUpdated(EVENT_ID, ALICE, LABEL_WITH_COLOR_READONLY),
+            new LabelDestroyed(EVENT_ID, ALICE, LABEL_ID));
+
+        String json = SERIALIZER.toJson(events).json();
+
+        assertThat(json).isEqualTo("[" + LABEL_CREATED_JSON + "," + LABEL_UPDATED_READONLY_JSON + "," + LABEL_DESTROYED_JSON + "]");
+        assertThat(SERIALIZER.asEvents(json).events()).containsExactlyElementsOf(events);
+    }
 }
@@ -27,6 +27,7 @@ import org.apache.james.rrt.api.CanSendFrom;
 import com.google.inject.AbstractModule;
 import com.google.inject.Scopes;
 import com.google.inject.multibindings.Multibinder;
+import com.linagora.tmail.cache.CacheInvalidationSubscriber;
 import com.linagora.tmail.mailet.TmailLocalResourcesModule;
 
 public class TeamMailboxModule extends AbstractModule {
@@ -35,6 +36,7 @@ public class TeamMailboxModule extends AbstractModule {
         bind(TeamMailboxRepositoryImpl.class).in(Scopes.SINGLETON);
         bind(TMailCanSendFrom.class).in(Scopes.SINGLETON);
         bind(TMailQuotaRootResolver.class).in(Scopes.SINGLETON);
+        bind(TeamMailboxExistenceCache.class).in(Scopes.SINGLETON);
 
         bind(TeamMailboxRepository.class).to(TeamMailboxRepositoryImpl.class);
         bind(CanSendFrom.class).to(TMailCanSendFrom.class);
@@ -45,6 +47,14 @@ public class TeamMailboxModule extends AbstractModule {
             .addBinding()
             .to(TeamMailboxUserEntityValidator.class);
 
+        Multibinder.newSetBinder(binder(), TeamMailboxCallback.class)
+            .addBinding()
+            .to(TeamMailboxExistenceCache.class);
+
+        Multibinder.newSetBinder(binder(), CacheInvalidationSubscriber.class)
+            .addBinding()
+            .to(TeamMailboxExistenceCache.class);
+
         Multibinder.newSetBinder(binder(), EventListener.ReactiveGroupEventListener.class)
             .addBinding()
             .to(PropagateDeleteRightTeamMailboxListener.class);
@@ -18,8 +18,17 @@
 
 package com.linagora.tmail.james.jmap.projections;
 
+import static org.apache.james.util.ReactorUtils.DEFAULT_CONCURRENCY;
+
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 import org.apache.james.core.Username;
 import org.apache.james.jmap.mail.Keyword;
@@ -27,18 +36,146 @@ import org.apache.james.mailbox.model.MessageId;
 import org.apache.james.mailbox.model.ThreadId;
 import org.apache.james.util.streams.Limit;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface KeywordEmailQueryView {
-    record Options(Optional<Instant> before, Optional<Instant> after, Limit limit, boolean collapseThread) {
+    /**
+     * Position of a message within a keyword listing, allowing to resume the listing right after it.
+     *
+     * Listings are sorted by receivedAt descending then by message id, so that resuming reads the messages sharing the
+     * anchor receivedAt with a greater message id, then the older ones.
+     */
+    record Anchor(Instant receivedAt, MessageId messageId) {
+    }
+
+    /**
+     * Projection entry of a message for a given keyword.
+     */
+    record Entry(Keyword keyword, Instant receivedAt, MessageId messageId, ThreadId threadId) {
+        public EntryKey key() {
+            return new EntryKey(keyword, receivedAt, messageId);
+        }
+    }
+
+    record EntryKey(Keyword keyword, Instant receivedAt, MessageId messageId) {
+    }
+
+    record Options(Optional<Instant> before, Optional<Instant> after, Limit limit, boolean collapseThread, Optional<Anchor> resumeAfter) {
+        public Options {
+            Preconditions.checkArgument(resumeAfter.isEmpty() || !collapseThread, "Resuming a listing is not supported when collapsing threads");
+        }
+
+        public Options(Optional<Instant> before, Optional<Instant> after, Limit limit, boolean collapseThread) {
+            this(before, after, limit, collapseThread, Optional.empty());
+        }
+
+        public Options withAnchor(Anchor anchor) {
+            return new Options(before, after, limit, collapseThread, Optional.of(anchor));
+        }
+
+        /**
+         * Options of the messages strictly older than the anchor: the before bound is tightened to the anchor receivedAt.
+         */
+        public Options olderThan(Anchor anchor) {
+            Instant upperBound = before.filter(value -> value.isBefore(anchor.receivedAt()))
+                .orElse(anchor.receivedAt());
+            return new Options(Optional.of(upperBound), after, limit, collapseThread);
+        }
+
+        public boolean includes(Instant receivedAt) {
+            return before.map(receivedAt::isBefore).orElse(true)
+                && after.map(value -> !receivedAt.isBefore(value)).orElse(true);
+        }
+    }
+
+    enum KeywordsOperator {
+        AND,
+        OR;
+
+        private List<MessageId> combine(List<Anchor> sameReceivedAtAnchors, int keywordCount) {
+            Map<MessageId, Integer> occurrences = new LinkedHashMap<>();
+            sameReceivedAtAnchors.forEach(anchor -> occurrences.merge(anchor.messageId(), 1, Integer::sum));
+
+            return switch (this) {
+                case AND -> occurrences.entrySet().stream()
+                    .filter(entry -> entry.getValue() == keywordCount)
+                    .map(Map.Entry::getKey)
+                    .collect(ImmutableList.toImmutableList());
+                case OR -> ImmutableList.copyOf(occurrences.keySet());
+            };
+        }
     }
 
     Mono<Void> save(Username username, Keyword keyword, Instant receivedAt, MessageId messageId, ThreadId threadId);
 
     Mono<Void> delete(Username username, Keyword keyword, Instant receivedAt, MessageId messageId);
 
+    /**
+     * Saves several entries of a user at once. Implementations are expected to group the writes by keyword partition.
+     */
+    default Mono<Void> saveAll(Username username, Collection<Entry> entries) {
+        return Flux.fromIterable(entries)
+            .flatMap(entry -> save(username, entry.keyword(), entry.receivedAt(), entry.messageId(), entry.threadId()), DEFAULT_CONCURRENCY)
+            .then();
+    }
+
+    default Mono<Void> deleteAll(Username username, Collection<EntryKey> entryKeys) {
+        return Flux.fromIterable(entryKeys)
+            .flatMap(entryKey -> delete(username, entryKey.keyword(), entryKey.receivedAt(), entryKey.messageId()), DEFAULT_CONCURRENCY)
+            .then();
+    }
+
     Flux<MessageId> listMessagesByKeyword(Username username, Keyword keyword, Options options);
 
+    /**
+     * Lists the messages sorted by receivedAt descending along with their anchor, so that the caller can resume the
+     * listing from the last returned message. Thread collapsing is not supported.
+     */
+    Flux<Anchor> listAnchorsByKeyword(Username username, Keyword keyword, Options options);
+
+    /**
+     * Whether the message is still projected for that keyword at the anchor receivedAt.
+     */
+    Mono<Boolean> contains(Username username, Keyword keyword, Anchor anchor);
+
+    /**
+     * Lists the messages having all (AND) or any (OR) of the given keywords, sorted by receivedAt descending.
+     *
+     * Each keyword partition is read page after page and the partitions are merged on receivedAt, so that the listing
+     * stops as soon as the limit is reached. Thread collapsing is not supported.
+     */
+    default Flux<MessageId> listMessagesByKeywords(Username username, Set<Keyword> keywords, KeywordsOperator operator, Options options) {
+        Preconditions.checkArgument(!keywords.isEmpty(), "At least one keyword is required");
+        Preconditions.checkArgument(!options.limit().isUnlimited(), "Limit should be defined");
+        Preconditions.checkArgument(!options.collapseThread(), "Listing several keywords is not supported when collapsing threads");
+
+        List<Flux<Anchor>> partitions = keywords.stream()
+            .map(keyword -> readPartition(username, keyword, options))
+            .collect(ImmutableList.toImmutableList());
+
+        return Flux.mergeComparing(Comparator.comparing(Anchor::receivedAt).reversed(), partitions.toArray(Flux[]::new))
+            .windowUntilChanged(Anchor::receivedAt)
+            .concatMap(sameReceivedAt -> sameReceivedAt.collectList()
+                .flatMapIterable(anchors -> operator.combine(anchors, keywords.size())))
+            .take(options.limit().getLimit().get());
+    }
+
+    // A short page does not prove the partition exhausted, eg. when entries are deleted concurrently: only an empty page does
+    private Flux<Anchor> readPartition(Username username, Keyword keyword, Options options) {
+        return listAnchorsByKeyword(username, keyword, options)
+            .collectList()
+            .expand(page -> {
+                if (page.isEmpty()) {
+                    return Mono.empty();
+                }
+                return listAnchorsByKeyword(username, keyword, options.withAnchor(page.get(page.size() - 1))).collectList();
+            })
+            .flatMapIterable(Function.identity());
+    }
+
     Mono<Void> clearAll();
 }
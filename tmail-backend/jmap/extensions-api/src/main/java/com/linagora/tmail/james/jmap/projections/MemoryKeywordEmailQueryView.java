@@ -21,6 +21,7 @@ package com.linagora.tmail.james.jmap.projections;
 import java.time.Instant;
 import java.util.Comparator;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -44,6 +45,10 @@ public class MemoryKeywordEmailQueryView implements KeywordEmailQueryView {
     private record Entry(Instant receivedAt, MessageId messageId, ThreadId threadId) {
     }
 
+    // Ties on receivedAt are ordered by message id so that anchored listings are stable
+    private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator.comparing(Entry::receivedAt).reversed()
+        .thenComparing(entry -> entry.messageId().serialize());
+
     private final Map<Username, Table<Keyword, MessageId, Entry>> entriesByUser;
 
     @Inject
@@ -76,22 +81,54 @@ public class MemoryKeywordEmailQueryView implements KeywordEmailQueryView {
     public Flux<MessageId> listMessagesByKeyword(Username username, Keyword keyword, Options options) {
         Preconditions.checkArgument(!options.limit().isUnlimited(), "Limit should be defined");
 
+        if (!options.collapseThread()) {
+            return listAnchorsByKeyword(username, keyword, options)
+                .map(Anchor::messageId);
+        }
+
         Flux<Entry> baseEntries = Flux.fromIterable(userEntries(username).row(keyword).values())
             .filter(beforeFiltering(options))
             .filter(afterFiltering(options));
 
         return maybeCollapseThreads(options.collapseThread()).apply(baseEntries)
-            .sort(Comparator.comparing(Entry::receivedAt).reversed())
+            .sort(ENTRY_COMPARATOR)
             .map(Entry::messageId)
             .take(options.limit().getLimit().get());
     }
 
+    @Override
+    public Flux<Anchor> listAnchorsByKeyword(Username username, Keyword keyword, Options options) {
+        Preconditions.checkArgument(!options.limit().isUnlimited(), "Limit should be defined");
+        Preconditions.checkArgument(!options.collapseThread(), "Listing anchors is not supported when collapsing threads");
+
+        return Flux.fromIterable(userEntries(username).row(keyword).values())
+            .filter(beforeFiltering(options))
+            .filter(afterFiltering(options))
+            .filter(anchorFiltering(options))
+            .sort(ENTRY_COMPARATOR)
+            .map(entry -> new Anchor(entry.receivedAt(), entry.messageId()))
+            .take(options.limit().getLimit().get());
+    }
+
+    @Override
+    public Mono<Boolean> contains(Username username, Keyword keyword, Anchor anchor) {
+        return Mono.fromCallable(() -> Optional.ofNullable(userEntries(username).get(keyword, anchor.messageId()))
+            .map(entry -> entry.receivedAt().equals(anchor.receivedAt()))
+            .orElse(false));
+    }
+
     private Predicate<Entry> beforeFiltering(Options options) {
         return entry -> options.before()
             .map(before -> entry.receivedAt().isBefore(before))
             .orElse(true);
     }
 
+    private Predicate<Entry> anchorFiltering(Options options) {
+        return entry -> options.resumeAfter()
+            .map(anchor -> ENTRY_COMPARATOR.compare(entry, new Entry(anchor.receivedAt(), anchor.messageId(), null)) > 0)
+            .orElse(true);
+    }
+
     private Predicate<Entry> afterFiltering(Options options) {
         return entry -> options.after()
             .map(after -> entry.receivedAt().isAfter(after) || entry.receivedAt().equals(after))
@@ -52,8 +52,14 @@ class MemoryLabelRepository @Inject()(@Named("TMAIL_EVENT_BUS") eventBus: EventB
       .`then`()
 
   override def addLabels(username: Username, labelCreationRequests: util.Collection[LabelCreationRequest]): Publisher[Label] =
-    SFlux.fromIterable(labelCreationRequests.asScala)
-      .concatMap(creationRequest => addLabel(username, creationRequest))
+    SMono.fromCallable(() => labelCreationRequests.asScala.toSeq
+        .map(_.toLabel)
+        .map(label => {
+          labelsTable.put(username, label.keyword, label)
+          label
+        }))
+      .flatMapMany(labels => dispatchAll(labels.map(label => LabelCreated(Event.EventId.random(), username, label)))
+        .thenMany(SFlux.fromIterable(labels)))
 
   override def updateLabel(username: Username, labelId: LabelId, newDisplayName: Option[DisplayName] = None, newColor: Option[Color] = None, newDescription: Option[DescriptionUpdate] = None): Publisher[Void] =
     SMono.justOrEmpty(labelsTable.get(username, labelId.toKeyword))
@@ -88,9 +94,10 @@ class MemoryLabelRepository @Inject()(@Named("TMAIL_EVENT_BUS") eventBus: EventB
       .`then`()
 
   override def deleteAllLabels(username: Username): Publisher[Void] =
-    SMono.fromCallable(() => ImmutableList.copyOf(labelsTable.row(username).keySet()))
-      .flatMapMany(keywords => SFlux.fromIterable(keywords.asScala))
-      .concatMap(keyword => deleteLabel(username, LabelId.fromKeyword(keyword)))
+    SMono.fromCallable(() => ImmutableList.copyOf(labelsTable.row(username).keySet()).asScala.toSeq
+        .flatMap(keyword => Option(labelsTable.remove(username, keyword)))
+        .map(label => LabelId.fromKeyword(label.keyword)))
+      .flatMap(labelIds => dispatchAll(labelIds.map(labelId => LabelDestroyed(Event.EventId.random(), username, labelId))))
       .`then`()
 
   override def setLabelReadOnly(username: Username, labelId: LabelId, readOnly: Boolean): Publisher[Void] =
@@ -105,4 +112,12 @@ class MemoryLabelRepository @Inject()(@Named("TMAIL_EVENT_BUS") eventBus: EventB
 
   private def dispatch(event: TmailLabelEvent): SMono[Void] =
     SMono.fromPublisher(eventBus.dispatch(event, NO_REGISTRATION_KEYS))
+
+  // One message for the whole batch rather than one per label
+  private def dispatchAll(events: Seq[TmailLabelEvent]): SMono[Void] =
+    if (events.isEmpty) {
+      SMono.empty
+    } else {
+      SMono.fromPublisher(eventBus.dispatch(events.map(event => new EventBus.EventWithRegistrationKey(event, NO_REGISTRATION_KEYS)).asJava))
+    }
 }
@@ -552,4 +552,21 @@ trait LabelRepositoryContract {
     assertThat(destroyedEvent.getUsername).isEqualTo(ALICE)
     assertThat(destroyedEvent.labelId).isEqualTo(label.id)
   }
+
+  @Test
+  def deleteAllLabelsShouldDispatchOneLabelDestroyedEventPerLabel(): Unit = {
+    val eventCollector = new LabelRepositoryContract.LabelEventCollector()
+    eventBus.register(eventCollector, eventCollector.getDefaultGroup)
+
+    val labels = SFlux.fromPublisher(testee.addLabels(ALICE, java.util.List.of(
+      LabelCreationRequest(DisplayName("Work"), Some(RED), None),
+      LabelCreationRequest(DisplayName("Personal"), Some(BLUE), None)
+    ))).collectSeq().block()
+    eventCollector.events.clear()
+
+    SMono.fromPublisher(testee.deleteAllLabels(ALICE)).block()
+
+    assertThat(eventCollector.events.asScala.map(_.asInstanceOf[LabelDestroyed].labelId).asJava)
+      .containsExactlyInAnyOrderElementsOf(labels.map(_.id).asJava)
+  }
 }
@@ -27,7 +27,7 @@ import org.apache.james.mailbox.model.{MessageId, ThreadId}
 import org.apache.james.util.streams.Limit
 import org.assertj.core.api.Assertions.{assertThat, assertThatCode, assertThatThrownBy}
 import org.junit.jupiter.api.Test
-import reactor.core.scala.publisher.SFlux
+import reactor.core.scala.publisher.{SFlux, SMono}
 
 import scala.jdk.CollectionConverters._
 
@@ -64,6 +64,12 @@ trait KeywordEmailQueryViewContract {
                       after: Optional[Instant] = Optional.empty()): KeywordEmailQueryView.Options =
     new KeywordEmailQueryView.Options(before, after, limit, collapseThreads)
 
+  private def resumeAfter(limit: Limit,
+                          anchor: KeywordEmailQueryView.Anchor,
+                          before: Optional[Instant] = Optional.empty(),
+                          after: Optional[Instant] = Optional.empty()): KeywordEmailQueryView.Options =
+    new KeywordEmailQueryView.Options(before, after, limit, false, Optional.of(anchor))
+
   @Test
   def listShouldReturnEmptyByDefault(): Unit = {
     assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_A, options(Limit.limit(12)))).collectSeq().block().asJava)
@@ -320,4 +326,250 @@ trait KeywordEmailQueryViewContract {
     assertThatThrownBy(() => testee.listMessagesByKeyword(ALICE, KEYWORD_A, options(Limit.unlimited(), before = Optional.of(DATE_3))).blockLast())
       .isInstanceOf(classOf[IllegalArgumentException])
   }
+
+  @Test
+  def listAnchorsShouldReturnReceivedAtAndMessageIds(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_3, messageId2, threadId2).block()
+
+    assertThat(SFlux.fromPublisher(testee.listAnchorsByKeyword(ALICE, KEYWORD_A, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .containsExactly(new KeywordEmailQueryView.Anchor(DATE_3, messageId2), new KeywordEmailQueryView.Anchor(DATE_1, messageId1))
+  }
+
+  @Test
+  def listShouldResumeAfterAnchor(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_A, DATE_3, messageId3, threadId3).block()
+    testee.save(ALICE, KEYWORD_A, DATE_4, messageId4, threadId1).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_A,
+      resumeAfter(Limit.limit(2), new KeywordEmailQueryView.Anchor(DATE_4, messageId4)))).collectSeq().block().asJava)
+      .containsExactly(messageId3, messageId2)
+  }
+
+  @Test
+  def listShouldResumeAfterAnchorWithinRange(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_A, DATE_3, messageId3, threadId3).block()
+    testee.save(ALICE, KEYWORD_A, DATE_4, messageId4, threadId1).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_A,
+      resumeAfter(Limit.limit(12), new KeywordEmailQueryView.Anchor(DATE_3, messageId3),
+        before = Optional.of(DATE_5),
+        after = Optional.of(DATE_2)))).collectSeq().block().asJava)
+      .containsExactly(messageId2)
+  }
+
+  @Test
+  def listShouldResumeAfterAnchorSharingItsReceivedAt(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId3, threadId3).block()
+
+    val firstPage = SFlux.fromPublisher(testee.listAnchorsByKeyword(ALICE, KEYWORD_A, options(Limit.limit(1)))).collectSeq().block()
+    val secondPage = SFlux.fromPublisher(testee.listAnchorsByKeyword(ALICE, KEYWORD_A, resumeAfter(Limit.limit(12), firstPage.last)))
+      .map(_.messageId())
+      .collectSeq().block()
+
+    assertThat((firstPage.map(_.messageId()) ++ secondPage).asJava)
+      .containsExactlyInAnyOrder(messageId1, messageId2, messageId3)
+    assertThat(secondPage.last).isEqualTo(messageId1)
+  }
+
+  @Test
+  def listAnchorsShouldPageThroughMoreMessagesThanTheLimitSharingTheirReceivedAt(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId3, threadId3).block()
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId4, threadId1).block()
+
+    val singlePage = SFlux.fromPublisher(testee.listAnchorsByKeyword(ALICE, KEYWORD_A, options(Limit.limit(12)))).collectSeq().block()
+    val firstPage = SFlux.fromPublisher(testee.listAnchorsByKeyword(ALICE, KEYWORD_A, options(Limit.limit(2)))).collectSeq().block()
+    val pages = Iterator.iterate(firstPage)(page => SFlux.fromPublisher(testee.listAnchorsByKeyword(ALICE, KEYWORD_A,
+        resumeAfter(Limit.limit(2), page.last))).collectSeq().block())
+      .takeWhile(_.nonEmpty)
+      .toSeq
+
+    assertThat(pages.flatten.asJava)
+      .containsExactlyElementsOf(singlePage.asJava)
+    assertThat(pages.flatten.map(_.messageId()).asJava)
+      .containsExactlyInAnyOrder(messageId1, messageId2, messageId3, messageId4)
+  }
+
+  @Test
+  def listShouldKeepTheBeforeBoundWhenResuming(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_A, DATE_4, messageId3, threadId3).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_A,
+      resumeAfter(Limit.limit(12), new KeywordEmailQueryView.Anchor(DATE_5, messageId4),
+        before = Optional.of(DATE_3)))).collectSeq().block().asJava)
+      .containsExactly(messageId2, messageId1)
+  }
+
+  @Test
+  def containsShouldReturnTrueWhenTheAnchoredMessageIsListed(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+
+    assertThat(SMono.fromPublisher(testee.contains(ALICE, KEYWORD_A, new KeywordEmailQueryView.Anchor(DATE_1, messageId1))).block())
+      .isTrue
+  }
+
+  @Test
+  def containsShouldReturnFalseOnceTheAnchoredMessageIsDeleted(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.delete(ALICE, KEYWORD_A, DATE_1, messageId1).block()
+
+    assertThat(SMono.fromPublisher(testee.contains(ALICE, KEYWORD_A, new KeywordEmailQueryView.Anchor(DATE_1, messageId1))).block())
+      .isFalse
+  }
+
+  @Test
+  def containsShouldReturnFalseWhenReceivedAtDiffers(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+
+    assertThat(SMono.fromPublisher(testee.contains(ALICE, KEYWORD_A, new KeywordEmailQueryView.Anchor(DATE_2, messageId1))).block())
+      .isFalse
+  }
+
+  @Test
+  def containsShouldNotMatchOtherKeywords(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+
+    assertThat(SMono.fromPublisher(testee.contains(ALICE, KEYWORD_B, new KeywordEmailQueryView.Anchor(DATE_1, messageId1))).block())
+      .isFalse
+  }
+
+  @Test
+  def listShouldReturnEmptyAfterTheLastAnchor(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_A,
+      resumeAfter(Limit.limit(12), new KeywordEmailQueryView.Anchor(DATE_1, messageId1)))).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def resumingShouldBeRejectedWhenCollapsingThreads(): Unit = {
+    assertThatThrownBy(() => new KeywordEmailQueryView.Options(Optional.empty(), Optional.empty(), Limit.limit(12), true,
+      Optional.of(new KeywordEmailQueryView.Anchor(DATE_1, messageId1))))
+      .isInstanceOf(classOf[IllegalArgumentException])
+  }
+
+  @Test
+  def listByKeywordsWithAndShouldReturnMessagesHavingAllKeywords(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_B, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_B, DATE_3, messageId3, threadId3).block()
+    testee.save(ALICE, KEYWORD_A, DATE_4, messageId4, threadId1).block()
+    testee.save(ALICE, KEYWORD_B, DATE_4, messageId4, threadId1).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeywords(ALICE, Set(KEYWORD_A, KEYWORD_B).asJava,
+      KeywordEmailQueryView.KeywordsOperator.AND, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .containsExactly(messageId4, messageId1)
+  }
+
+  @Test
+  def listByKeywordsWithOrShouldReturnMessagesHavingAnyKeywordOnce(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_B, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_B, DATE_3, messageId3, threadId3).block()
+    testee.save(ALICE, KEYWORD_C, DATE_4, messageId4, threadId1).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeywords(ALICE, Set(KEYWORD_A, KEYWORD_B).asJava,
+      KeywordEmailQueryView.KeywordsOperator.OR, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .containsExactly(messageId3, messageId2, messageId1)
+  }
+
+  @Test
+  def listByKeywordsShouldApplyLimit(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_B, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_A, DATE_3, messageId3, threadId3).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeywords(ALICE, Set(KEYWORD_A, KEYWORD_B).asJava,
+      KeywordEmailQueryView.KeywordsOperator.OR, options(Limit.limit(2)))).collectSeq().block().asJava)
+      .containsExactly(messageId3, messageId2)
+  }
+
+  @Test
+  def listByKeywordsShouldCombineTiesCrossingAPageBoundary(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId3, threadId3).block()
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId4, threadId1).block()
+    testee.save(ALICE, KEYWORD_B, DATE_2, messageId3, threadId3).block()
+    testee.save(ALICE, KEYWORD_B, DATE_1, messageId4, threadId1).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeywords(ALICE, Set(KEYWORD_A, KEYWORD_B).asJava,
+      KeywordEmailQueryView.KeywordsOperator.AND, options(Limit.limit(2)))).collectSeq().block().asJava)
+      .containsExactly(messageId3, messageId4)
+  }
+
+  @Test
+  def listByKeywordsWithAndShouldReadSeveralPagesOfEachKeyword(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_5, messageId4, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_4, messageId3, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_3, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_B, DATE_1, messageId1, threadId1).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeywords(ALICE, Set(KEYWORD_A, KEYWORD_B).asJava,
+      KeywordEmailQueryView.KeywordsOperator.AND, options(Limit.limit(1)))).collectSeq().block().asJava)
+      .containsExactly(messageId1)
+  }
+
+  @Test
+  def saveAllShouldSaveEveryEntry(): Unit = {
+    testee.saveAll(ALICE, Seq(
+      new KeywordEmailQueryView.Entry(KEYWORD_A, DATE_1, messageId1, threadId1),
+      new KeywordEmailQueryView.Entry(KEYWORD_A, DATE_2, messageId2, threadId2),
+      new KeywordEmailQueryView.Entry(KEYWORD_B, DATE_3, messageId3, threadId3)).asJava).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_A, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .containsExactly(messageId2, messageId1)
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_B, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .containsExactly(messageId3)
+  }
+
+  @Test
+  def saveAllShouldBeIdempotent(): Unit = {
+    val entries = Seq(new KeywordEmailQueryView.Entry(KEYWORD_A, DATE_1, messageId1, threadId1)).asJava
+    testee.saveAll(ALICE, entries).block()
+    testee.saveAll(ALICE, entries).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_A, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .containsExactly(messageId1)
+  }
+
+  @Test
+  def saveAllShouldAcceptEmptyEntries(): Unit = {
+    assertThatCode(() => testee.saveAll(ALICE, Seq[KeywordEmailQueryView.Entry]().asJava).block())
+      .doesNotThrowAnyException()
+  }
+
+  @Test
+  def deleteAllShouldRemoveOnlyTargetEntries(): Unit = {
+    testee.save(ALICE, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+    testee.save(ALICE, KEYWORD_A, DATE_2, messageId2, threadId2).block()
+    testee.save(ALICE, KEYWORD_B, DATE_3, messageId3, threadId3).block()
+    testee.save(BOB, KEYWORD_A, DATE_1, messageId1, threadId1).block()
+
+    testee.deleteAll(ALICE, Seq(
+      new KeywordEmailQueryView.EntryKey(KEYWORD_A, DATE_1, messageId1),
+      new KeywordEmailQueryView.EntryKey(KEYWORD_B, DATE_3, messageId3)).asJava).block()
+
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_A, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .containsExactly(messageId2)
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(ALICE, KEYWORD_B, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .isEmpty()
+    assertThat(SFlux.fromPublisher(testee.listMessagesByKeyword(BOB, KEYWORD_A, options(Limit.limit(12)))).collectSeq().block().asJava)
+      .containsExactly(messageId1)
+  }
 }
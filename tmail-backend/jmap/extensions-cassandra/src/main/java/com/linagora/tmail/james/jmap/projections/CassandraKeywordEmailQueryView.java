@@ -29,8 +29,10 @@ import static com.linagora.tmail.james.jmap.projections.table.CassandraKeywordEm
 import static com.linagora.tmail.james.jmap.projections.table.CassandraKeywordEmailQueryViewTable.TABLE_NAME;
 import static com.linagora.tmail.james.jmap.projections.table.CassandraKeywordEmailQueryViewTable.THREAD_ID;
 import static com.linagora.tmail.james.jmap.projections.table.CassandraKeywordEmailQueryViewTable.USERNAME;
+import static org.apache.james.util.ReactorUtils.DEFAULT_CONCURRENCY;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.function.Function;
 
 import jakarta.inject.Inject;
@@ -46,12 +48,17 @@ import org.apache.james.mailbox.model.ThreadId;
 import org.apache.james.util.streams.Limit;
 
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchType;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
 import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Iterables;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -60,12 +67,16 @@ public class CassandraKeywordEmailQueryView implements KeywordEmailQueryView {
     private static final String LIMIT_MARKER = "LIMIT_BIND_MARKER";
     private static final String AFTER_MARKER = "AFTER_BIND_MARKER";
     private static final String BEFORE_MARKER = "BEFORE_BIND_MARKER";
+    // Unlogged batches are only efficient when they target a single partition and stay small
+    private static final int MAX_BATCH_SIZE = 100;
 
     private final CassandraAsyncExecutor executor;
     private final PreparedStatement listByKeyword;
     private final PreparedStatement listByKeywordSinceAfter;
     private final PreparedStatement listByKeywordBefore;
     private final PreparedStatement listByKeywordRange;
+    private final PreparedStatement listByKeywordSameReceivedAtAfterAnchor;
+    private final PreparedStatement selectOne;
     private final PreparedStatement insert;
     private final PreparedStatement delete;
 
@@ -109,6 +120,23 @@ public class CassandraKeywordEmailQueryView implements KeywordEmailQueryView {
             .limit(bindMarker(LIMIT_MARKER))
             .build());
 
+        listByKeywordSameReceivedAtAfterAnchor = session.prepare(selectFrom(TABLE_NAME)
+            .columns(MESSAGE_ID, RECEIVED_AT, THREAD_ID)
+            .whereColumn(USERNAME).isEqualTo(bindMarker(USERNAME))
+            .whereColumn(KEYWORD).isEqualTo(bindMarker(KEYWORD))
+            .whereColumn(RECEIVED_AT).isEqualTo(bindMarker(RECEIVED_AT))
+            .whereColumn(MESSAGE_ID).isGreaterThan(bindMarker(MESSAGE_ID))
+            .limit(bindMarker(LIMIT_MARKER))
+            .build());
+
+        selectOne = session.prepare(selectFrom(TABLE_NAME)
+            .column(MESSAGE_ID)
+            .whereColumn(USERNAME).isEqualTo(bindMarker(USERNAME))
+            .whereColumn(KEYWORD).isEqualTo(bindMarker(KEYWORD))
+            .whereColumn(RECEIVED_AT).isEqualTo(bindMarker(RECEIVED_AT))
+            .whereColumn(MESSAGE_ID).isEqualTo(bindMarker(MESSAGE_ID))
+            .build());
+
         insert = session.prepare(insertInto(TABLE_NAME)
             .value(USERNAME, bindMarker(USERNAME))
             .value(KEYWORD, bindMarker(KEYWORD))
@@ -127,25 +155,55 @@ public class CassandraKeywordEmailQueryView implements KeywordEmailQueryView {
 
     @Override
     public Mono<Void> save(Username username, Keyword keyword, Instant receivedAt, MessageId messageId, ThreadId threadId) {
-        CassandraMessageId cassandraMessageId = (CassandraMessageId) messageId;
+        return executor.executeVoid(bindInsert(username, keyword, receivedAt, messageId, threadId));
+    }
+
+    @Override
+    public Mono<Void> delete(Username username, Keyword keyword, Instant receivedAt, MessageId messageId) {
+        return executor.executeVoid(bindDelete(username, keyword, receivedAt, messageId));
+    }
+
+    @Override
+    public Mono<Void> saveAll(Username username, Collection<Entry> entries) {
+        return executeBatchesPerPartition(entries.stream()
+            .collect(ImmutableListMultimap.toImmutableListMultimap(Entry::keyword,
+                entry -> bindInsert(username, entry.keyword(), entry.receivedAt(), entry.messageId(), entry.threadId()))));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Username username, Collection<EntryKey> entryKeys) {
+        return executeBatchesPerPartition(entryKeys.stream()
+            .collect(ImmutableListMultimap.toImmutableListMultimap(EntryKey::keyword,
+                entryKey -> bindDelete(username, entryKey.keyword(), entryKey.receivedAt(), entryKey.messageId()))));
+    }
 
-        return executor.executeVoid(insert.bind()
+    private Mono<Void> executeBatchesPerPartition(ImmutableListMultimap<Keyword, BoundStatement> statementsByKeyword) {
+        return Flux.fromIterable(statementsByKeyword.asMap().values())
+            .flatMapIterable(partitionStatements -> Iterables.partition(partitionStatements, MAX_BATCH_SIZE))
+            .flatMap(batch -> {
+                if (batch.size() == 1) {
+                    return executor.executeVoid(batch.get(0));
+                }
+                return executor.executeVoid(BatchStatement.newInstance(BatchType.UNLOGGED, batch.toArray(BoundStatement[]::new)));
+            }, DEFAULT_CONCURRENCY)
+            .then();
+    }
+
+    private BoundStatement bindInsert(Username username, Keyword keyword, Instant receivedAt, MessageId messageId, ThreadId threadId) {
+        return insert.bind()
             .set(USERNAME, username.asString(), TypeCodecs.TEXT)
             .set(KEYWORD, keyword.flagName(), TypeCodecs.TEXT)
             .setInstant(RECEIVED_AT, receivedAt)
-            .setUuid(MESSAGE_ID, cassandraMessageId.get())
-            .setUuid(THREAD_ID, ((CassandraMessageId) threadId.getBaseMessageId()).get()));
+            .setUuid(MESSAGE_ID, ((CassandraMessageId) messageId).get())
+            .setUuid(THREAD_ID, ((CassandraMessageId) threadId.getBaseMessageId()).get());
     }
 
-    @Override
-    public Mono<Void> delete(Username username, Keyword keyword, Instant receivedAt, MessageId messageId) {
-        CassandraMessageId cassandraMessageId = (CassandraMessageId) messageId;
-
-        return executor.executeVoid(delete.bind()
+    private BoundStatement bindDelete(Username username, Keyword keyword, Instant receivedAt, MessageId messageId) {
+        return delete.bind()
             .set(USERNAME, username.asString(), TypeCodecs.TEXT)
             .set(KEYWORD, keyword.flagName(), TypeCodecs.TEXT)
             .setInstant(RECEIVED_AT, receivedAt)
-            .setUuid(MESSAGE_ID, cassandraMessageId.get()));
+            .setUuid(MESSAGE_ID, ((CassandraMessageId) messageId).get());
     }
 
     @Override
@@ -156,11 +214,53 @@ public class CassandraKeywordEmailQueryView implements KeywordEmailQueryView {
 
     @Override
     public Flux<MessageId> listMessagesByKeyword(Username username, Keyword keyword, Options options) {
+        if (options.resumeAfter().isPresent()) {
+            return listAnchorsByKeyword(username, keyword, options)
+                .map(Anchor::messageId);
+        }
         return EmailQueryViewUtils.QueryViewExtender.of(options.limit(), options.collapseThread())
             .resolve(backendFetchLimit -> executor.executeRows(buildSelectStatement(username, keyword, options, backendFetchLimit))
                 .map(asEmailEntry()));
     }
 
+    @Override
+    public Flux<Anchor> listAnchorsByKeyword(Username username, Keyword keyword, Options options) {
+        Preconditions.checkArgument(!options.limit().isUnlimited(), "Limit should be defined");
+        Preconditions.checkArgument(!options.collapseThread(), "Listing anchors is not supported when collapsing threads");
+
+        int limit = options.limit().getLimit().get();
+        return options.resumeAfter()
+            // Keyset on the (received_at, message_id) clustering: the rows sharing the anchor receivedAt with a greater
+            // message id first, then the older ones. The second query is only issued if the first one falls short.
+            .map(anchor -> Flux.concat(listSameReceivedAtAfterAnchor(username, keyword, options, anchor, limit),
+                executor.executeRows(buildSelectStatement(username, keyword, options.olderThan(anchor), Limit.from(limit)))
+                    .map(asAnchor())))
+            .orElseGet(() -> executor.executeRows(buildSelectStatement(username, keyword, options, Limit.from(limit)))
+                .map(asAnchor()))
+            .take(limit);
+    }
+
+    @Override
+    public Mono<Boolean> contains(Username username, Keyword keyword, Anchor anchor) {
+        return executor.executeReturnExists(selectOne.bind()
+            .set(USERNAME, username.asString(), TypeCodecs.TEXT)
+            .set(KEYWORD, keyword.flagName(), TypeCodecs.TEXT)
+            .setInstant(RECEIVED_AT, anchor.receivedAt())
+            .setUuid(MESSAGE_ID, ((CassandraMessageId) anchor.messageId()).get()));
+    }
+
+    private Flux<Anchor> listSameReceivedAtAfterAnchor(Username username, Keyword keyword, Options options, Anchor anchor, int limit) {
+        if (!options.includes(anchor.receivedAt())) {
+            return Flux.empty();
+        }
+        return executor.executeRows(buildAnchoredSelectStatement(username, keyword, anchor, limit))
+            .map(asAnchor());
+    }
+
+    private Function<Row, Anchor> asAnchor() {
+        return row -> new Anchor(row.getInstant(RECEIVED_AT), CassandraMessageId.Factory.of(row.getUuid(MESSAGE_ID)));
+    }
+
     private Function<Row, EmailEntry> asEmailEntry() {
         return row -> {
             CassandraMessageId messageId = CassandraMessageId.Factory.of(row.getUuid(MESSAGE_ID));
@@ -186,6 +286,15 @@ public class CassandraKeywordEmailQueryView implements KeywordEmailQueryView {
         return boundStatementBuilder.build();
     }
 
+    private BoundStatement buildAnchoredSelectStatement(Username username, Keyword keyword, Anchor anchor, int backendFetchLimit) {
+        return listByKeywordSameReceivedAtAfterAnchor.bind()
+            .set(USERNAME, username.asString(), TypeCodecs.TEXT)
+            .set(KEYWORD, keyword.flagName(), TypeCodecs.TEXT)
+            .setInstant(RECEIVED_AT, anchor.receivedAt())
+            .setUuid(MESSAGE_ID, ((CassandraMessageId) anchor.messageId()).get())
+            .setInt(LIMIT_MARKER, backendFetchLimit);
+    }
+
     private PreparedStatement selectStatement(Options options) {
         boolean hasAfter = options.after().isPresent();
         boolean hasBefore = options.before().isPresent();
@@ -36,7 +36,7 @@ import org.apache.james.utils.PropertiesProvider
 import org.reactivestreams.Publisher
 import reactor.core.scala.publisher.{SFlux, SMono}
 
-import scala.jdk.CollectionConverters.CollectionHasAsScala
+import scala.jdk.CollectionConverters._
 
 class CassandraLabelRepository @Inject()(dao: CassandraLabelDAO, @Named("TMAIL_EVENT_BUS") eventBus: EventBus) extends LabelRepository {
   private val NO_REGISTRATION_KEYS: util.Set[RegistrationKey] = ImmutableSet.of
@@ -54,7 +54,10 @@ class CassandraLabelRepository @Inject()(dao: CassandraLabelDAO, @Named("TMAIL_E
 
   override def addLabels(username: Username, labelCreationRequests: java.util.Collection[LabelCreationRequest]): Publisher[Label] =
     SFlux.fromIterable(labelCreationRequests.asScala)
-      .concatMap(addLabel(username, _))
+      .concatMap(labelCreationRequest => dao.insert(username, labelCreationRequest.toLabel))
+      .collectSeq()
+      .flatMapMany(labels => dispatchAll(labels.map(label => LabelCreated(Event.EventId.random(), username, label)))
+        .thenMany(SFlux.fromIterable(labels)))
 
   override def updateLabel(username: Username, labelId: LabelId, newDisplayName: Option[DisplayName], newColor: Option[Color], newDescription: Option[DescriptionUpdate]): Publisher[Void] =
     dao.selectOne(username, labelId.toKeyword)
@@ -92,7 +95,10 @@ class CassandraLabelRepository @Inject()(dao: CassandraLabelDAO, @Named("TMAIL_E
   override def deleteAllLabels(username: Username): Publisher[Void] =
     dao.selectAll(username)
       .map(label => LabelId.fromKeyword(label.keyword))
-      .concatMap(labelId => deleteLabel(username, labelId))
+      .concatMap(labelId => dao.deleteOne(username, labelId.toKeyword)
+        .`then`(SMono.just(labelId)))
+      .collectSeq()
+      .flatMap(labelIds => dispatchAll(labelIds.map(labelId => LabelDestroyed(Event.EventId.random(), username, labelId))))
       .`then`()
 
   override def setLabelReadOnly(username: Username, labelId: LabelId, readOnly: Boolean): Publisher[Void] =
@@ -106,6 +112,14 @@ class CassandraLabelRepository @Inject()(dao: CassandraLabelDAO, @Named("TMAIL_E
 
   private def dispatch(event: TmailLabelEvent): SMono[Void] =
     SMono.fromPublisher(eventBus.dispatch(event, NO_REGISTRATION_KEYS))
+
+  // One message for the whole batch rather than one per label
+  private def dispatchAll(events: Seq[TmailLabelEvent]): SMono[Void] =
+    if (events.isEmpty) {
+      SMono.empty
+    } else {
+      SMono.fromPublisher(eventBus.dispatch(events.map(event => new EventBus.EventWithRegistrationKey(event, NO_REGISTRATION_KEYS)).asJava))
+    }
 }
 
 case class CassandraLabelRepositoryModule() extends AbstractModule {
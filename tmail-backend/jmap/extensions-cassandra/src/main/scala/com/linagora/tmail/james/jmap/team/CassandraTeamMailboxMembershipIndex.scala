@@ -0,0 +1,149 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap.team
+
+import com.datastax.oss.driver.api.core.`type`.DataTypes.TEXT
+import com.datastax.oss.driver.api.core.`type`.codec.TypeCodecs
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile
+import com.datastax.oss.driver.api.core.cql.{PreparedStatement, Row}
+import com.datastax.oss.driver.api.core.{CqlIdentifier, CqlSession}
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder.{bindMarker, deleteFrom, insertInto, selectFrom}
+import com.google.inject.multibindings.Multibinder
+import com.google.inject.{AbstractModule, Scopes}
+import com.linagora.tmail.james.jmap.team.CassandraTeamMailboxMembershipStatusTable.{BACKFILLED, STATUS}
+import com.linagora.tmail.james.jmap.team.CassandraTeamMailboxMembershipTable.{TABLE_NAME, TEAM_MAILBOX, USERNAME}
+import com.linagora.tmail.team.{TeamMailbox, TeamMailboxMembership, TeamMailboxMembershipIndex, TeamMailboxMembershipIndexListener}
+import jakarta.inject.Inject
+import org.apache.james.backends.cassandra.components.CassandraDataDefinition
+import org.apache.james.backends.cassandra.utils.{CassandraAsyncExecutor, ProfileLocator}
+import org.apache.james.core.Username
+import org.apache.james.events.EventListener.ReactiveGroupEventListener
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SFlux
+
+object CassandraTeamMailboxMembershipTable {
+  val TABLE_NAME = "team_mailbox_membership"
+  val USERNAME: CqlIdentifier = CqlIdentifier.fromCql("username")
+  val TEAM_MAILBOX: CqlIdentifier = CqlIdentifier.fromCql("team_mailbox")
+
+  val MODULE: CassandraDataDefinition = CassandraDataDefinition.table(TABLE_NAME)
+    .comment("Projection of the team mailboxes a user is a member of. Source of truth is the team mailbox ACL.")
+    .statement(statement => _ => statement
+      .withPartitionKey(USERNAME, TEXT)
+      .withClusteringColumn(TEAM_MAILBOX, TEXT))
+    .build
+}
+
+object CassandraTeamMailboxMembershipStatusTable {
+  val TABLE_NAME = "team_mailbox_membership_status"
+  val STATUS: CqlIdentifier = CqlIdentifier.fromCql("status")
+  val BACKFILLED = "backfilled"
+
+  val MODULE: CassandraDataDefinition = CassandraDataDefinition.table(TABLE_NAME)
+    .comment("Status of the team mailbox membership projection. Holds a 'backfilled' row once it was rebuilt from the ACLs.")
+    .statement(statement => _ => statement
+      .withPartitionKey(STATUS, TEXT))
+    .build
+}
+
+case class CassandraTeamMailboxMembershipIndexModule() extends AbstractModule {
+  override def configure(): Unit = {
+    bind(classOf[CassandraTeamMailboxMembershipIndex]).in(Scopes.SINGLETON)
+    bind(classOf[TeamMailboxMembershipIndex]).to(classOf[CassandraTeamMailboxMembershipIndex])
+
+    Multibinder.newSetBinder(binder, classOf[CassandraDataDefinition])
+      .addBinding().toInstance(CassandraTeamMailboxMembershipTable.MODULE)
+    Multibinder.newSetBinder(binder, classOf[CassandraDataDefinition])
+      .addBinding().toInstance(CassandraTeamMailboxMembershipStatusTable.MODULE)
+
+    Multibinder.newSetBinder(binder, classOf[ReactiveGroupEventListener])
+      .addBinding().to(classOf[TeamMailboxMembershipIndexListener])
+  }
+}
+
+class CassandraTeamMailboxMembershipIndex @Inject()(session: CqlSession) extends TeamMailboxMembershipIndex {
+  private val executor: CassandraAsyncExecutor = new CassandraAsyncExecutor(session)
+  private val readProfile: DriverExecutionProfile = ProfileLocator.READ.locateProfile(session, "TEAM_MAILBOX")
+  private val writeProfile: DriverExecutionProfile = ProfileLocator.WRITE.locateProfile(session, "TEAM_MAILBOX")
+
+  private val insert: PreparedStatement = session.prepare(insertInto(TABLE_NAME)
+    .value(USERNAME, bindMarker(USERNAME))
+    .value(TEAM_MAILBOX, bindMarker(TEAM_MAILBOX))
+    .build())
+
+  private val delete: PreparedStatement = session.prepare(deleteFrom(TABLE_NAME)
+    .whereColumn(USERNAME).isEqualTo(bindMarker(USERNAME))
+    .whereColumn(TEAM_MAILBOX).isEqualTo(bindMarker(TEAM_MAILBOX))
+    .build())
+
+  private val selectByUser: PreparedStatement = session.prepare(selectFrom(TABLE_NAME)
+    .column(TEAM_MAILBOX)
+    .whereColumn(USERNAME).isEqualTo(bindMarker(USERNAME))
+    .build())
+
+  private val selectAll: PreparedStatement = session.prepare(selectFrom(TABLE_NAME)
+    .columns(USERNAME, TEAM_MAILBOX)
+    .build())
+
+  private val insertStatus: PreparedStatement = session.prepare(insertInto(CassandraTeamMailboxMembershipStatusTable.TABLE_NAME)
+    .value(STATUS, bindMarker(STATUS))
+    .build())
+
+  private val selectStatus: PreparedStatement = session.prepare(selectFrom(CassandraTeamMailboxMembershipStatusTable.TABLE_NAME)
+    .column(STATUS)
+    .whereColumn(STATUS).isEqualTo(bindMarker(STATUS))
+    .build())
+
+  override def add(username: Username, teamMailbox: TeamMailbox): Publisher[Void] =
+    executor.executeVoid(insert.bind()
+      .set(USERNAME, username.asString, TypeCodecs.TEXT)
+      .set(TEAM_MAILBOX, teamMailbox.asString(), TypeCodecs.TEXT)
+      .setExecutionProfile(writeProfile))
+
+  override def remove(username: Username, teamMailbox: TeamMailbox): Publisher[Void] =
+    executor.executeVoid(delete.bind()
+      .set(USERNAME, username.asString, TypeCodecs.TEXT)
+      .set(TEAM_MAILBOX, teamMailbox.asString(), TypeCodecs.TEXT)
+      .setExecutionProfile(writeProfile))
+
+  override def listTeamMailboxes(username: Username): Publisher[TeamMailbox] =
+    SFlux(executor.executeRows(selectByUser.bind()
+        .set(USERNAME, username.asString, TypeCodecs.TEXT)
+        .setExecutionProfile(readProfile)))
+      .map(toTeamMailbox)
+
+  override def listAll(): Publisher[TeamMailboxMembership] =
+    SFlux(executor.executeRows(selectAll.bind()
+        .setExecutionProfile(readProfile)))
+      .map(row => TeamMailboxMembership(Username.of(row.get(USERNAME, TypeCodecs.TEXT)), toTeamMailbox(row)))
+
+  override def markBackfilled(): Publisher[Void] =
+    executor.executeVoid(insertStatus.bind()
+      .set(STATUS, BACKFILLED, TypeCodecs.TEXT)
+      .setExecutionProfile(writeProfile))
+
+  override def isBackfilled(): Publisher[java.lang.Boolean] =
+    executor.executeReturnExists(selectStatus.bind()
+      .set(STATUS, BACKFILLED, TypeCodecs.TEXT)
+      .setExecutionProfile(readProfile))
+
+  private def toTeamMailbox(row: Row): TeamMailbox =
+    TeamMailbox.fromString(row.get(TEAM_MAILBOX, TypeCodecs.TEXT))
+      .fold(e => throw e, teamMailbox => teamMailbox)
+}
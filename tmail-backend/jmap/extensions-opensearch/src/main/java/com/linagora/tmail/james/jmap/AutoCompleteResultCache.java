@@ -0,0 +1,197 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration.AutoCompleteCache;
+import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
+
+/**
+ * Keeps, per account, the complete autocomplete result sets of the recently typed prefixes, so that the next keystrokes
+ * ("j", "jo", "joh") are answered by filtering a cached superset locally instead of querying OpenSearch.
+ *
+ * The local filtering mimics the contact analyzers: the input is looked up as a substring of the email address, and
+ * otherwise as a prefix of the firstname and surname words. Only single word inputs made of letters and digits, or of
+ * usual address characters when containing '@', are served from the cache: the results of such inputs only narrow down
+ * as the user types, while adding a word to a multi word input can match other contacts.
+ *
+ * Entries expire after a short TTL. Contacts of an account indexed or removed on this node invalidate its entries, and
+ * domain contact changes invalidate all the entries. Changes made on other nodes are only picked up upon expiry.
+ *
+ * Changes only become searchable once OpenSearch refreshed the index, thus results of searches started less than a
+ * refresh interval after an invalidation, or racing with one, are not stored.
+ */
+class AutoCompleteResultCache {
+    private static final long MAXIMUM_ACCOUNT_COUNT = 10_000;
+    // Default refresh interval of the OpenSearch indices
+    private static final Duration INDEX_REFRESH_INTERVAL = Duration.ofSeconds(1);
+    private static final Pattern CACHEABLE_NAME_INPUT = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern CACHEABLE_ADDRESS_INPUT = Pattern.compile("[\\p{L}\\p{N}@._+-]+");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Cache<AccountId, Map<String, List<EmailAddressContact>>> cache;
+    private final Cache<AccountId, Instant> lastInvalidations;
+    private final AtomicReference<Instant> lastGlobalInvalidation;
+    private final Clock clock;
+    private final int resultSize;
+    private final int minNgram;
+    private final int maxNgram;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+
+    AutoCompleteResultCache(AutoCompleteCache configuration, OpenSearchContactConfiguration contactConfiguration, MetricFactory metricFactory) {
+        this(configuration, contactConfiguration, metricFactory, Clock.systemUTC());
+    }
+
+    @VisibleForTesting
+    AutoCompleteResultCache(AutoCompleteCache configuration, OpenSearchContactConfiguration contactConfiguration, MetricFactory metricFactory, Clock clock) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_ACCOUNT_COUNT)
+            .expireAfterWrite(configuration.ttl())
+            .build();
+        this.lastInvalidations = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_ACCOUNT_COUNT)
+            .expireAfterWrite(configuration.ttl().plus(INDEX_REFRESH_INTERVAL))
+            .build();
+        this.lastGlobalInvalidation = new AtomicReference<>(Instant.MIN);
+        this.clock = clock;
+        this.resultSize = configuration.resultSize();
+        this.minNgram = contactConfiguration.getMinNgram();
+        this.maxNgram = contactConfiguration.getMinNgram() + contactConfiguration.getMaxNgramDiff();
+        this.hitMetric = metricFactory.generate("contact-autocomplete-cache-hit");
+        this.missMetric = metricFactory.generate("contact-autocomplete-cache-miss");
+    }
+
+    int resultSize() {
+        return resultSize;
+    }
+
+    Optional<List<EmailAddressContact>> lookup(AccountId accountId, String part) {
+        String normalizedPart = normalize(part);
+        Optional<List<EmailAddressContact>> result = Optional.ofNullable(cache.getIfPresent(accountId))
+            .filter(any -> isCacheable(normalizedPart))
+            .flatMap(prefixes -> cachedSuperset(prefixes, normalizedPart))
+            .map(superset -> superset.stream()
+                .filter(contact -> matches(contact, normalizedPart))
+                .collect(ImmutableList.toImmutableList()));
+
+        if (result.isPresent()) {
+            hitMetric.increment();
+        } else {
+            missMetric.increment();
+        }
+        return result;
+    }
+
+    // To be called before searching the results to store
+    Instant searchStart() {
+        return clock.instant();
+    }
+
+    // Only complete result sets can be filtered locally for longer inputs
+    void store(AccountId accountId, String part, List<EmailAddressContact> results, boolean complete, Instant searchStart) {
+        String normalizedPart = normalize(part);
+        if (complete && isCacheable(normalizedPart) && seesAllChanges(accountId, searchStart)) {
+            Map<String, List<EmailAddressContact>> prefixes = cache.asMap().computeIfAbsent(accountId, any -> new ConcurrentHashMap<>());
+            prefixes.put(normalizedPart, ImmutableList.copyOf(results));
+            // An invalidation can happen between the check and the put
+            if (!seesAllChanges(accountId, searchStart)) {
+                prefixes.remove(normalizedPart);
+            }
+        }
+    }
+
+    void invalidate(AccountId accountId) {
+        lastInvalidations.put(accountId, clock.instant());
+        cache.invalidate(accountId);
+    }
+
+    void invalidateAll() {
+        lastGlobalInvalidation.set(clock.instant());
+        cache.invalidateAll();
+    }
+
+    private boolean seesAllChanges(AccountId accountId, Instant searchStart) {
+        Instant refreshedChanges = searchStart.minus(INDEX_REFRESH_INTERVAL);
+        return Optional.ofNullable(lastInvalidations.getIfPresent(accountId))
+            .map(lastInvalidation -> lastInvalidation.isBefore(refreshedChanges))
+            .orElse(true)
+            && lastGlobalInvalidation.get().isBefore(refreshedChanges);
+    }
+
+    private Optional<List<EmailAddressContact>> cachedSuperset(Map<String, List<EmailAddressContact>> prefixes, String part) {
+        boolean addressInput = part.contains("@");
+        for (int length = part.length(); length > 0; length--) {
+            String prefix = part.substring(0, length);
+            List<EmailAddressContact> superset = prefixes.get(prefix);
+            // An input containing '@' only searches addresses, thus the superset needs to come from the same kind of input
+            if (superset != null && prefix.contains("@") == addressInput) {
+                return Optional.of(superset);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean isCacheable(String part) {
+        if (part.length() < minNgram || part.length() > maxNgram) {
+            return false;
+        }
+        if (part.contains("@")) {
+            return CACHEABLE_ADDRESS_INPUT.matcher(part).matches();
+        }
+        return CACHEABLE_NAME_INPUT.matcher(part).matches();
+    }
+
+    private boolean matches(EmailAddressContact contact, String part) {
+        if (normalize(contact.fields().address().asString()).contains(part)) {
+            return true;
+        }
+        if (part.contains("@")) {
+            return false;
+        }
+        // Names are indexed both with and without accents
+        return WORD_SEPARATOR.splitAsStream(normalize(contact.fields().firstname() + " " + contact.fields().surname()))
+            .flatMap(word -> Stream.of(word, StringUtils.stripAccents(word)))
+            .anyMatch(word -> word.startsWith(part));
+    }
+
+    private String normalize(String value) {
+        return value.toLowerCase(Locale.US);
+    }
+}
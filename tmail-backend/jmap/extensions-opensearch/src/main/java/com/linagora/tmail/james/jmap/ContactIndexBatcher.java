@@ -0,0 +1,219 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.james.backends.opensearch.DocumentId;
+import org.apache.james.backends.opensearch.ReactorOpenSearchClient;
+import org.apache.james.backends.opensearch.RoutingKey;
+import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.opensearch.client.opensearch._types.aggregations.Aggregation;
+import org.opensearch.client.opensearch._types.aggregations.Buckets;
+import org.opensearch.client.opensearch._types.aggregations.FiltersAggregation;
+import org.opensearch.client.opensearch._types.aggregations.FiltersBucket;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch._types.query_dsl.QueryBuilders;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.SearchRequest;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.opensearch.client.opensearch.core.search.TotalHits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.lambdas.Throwing;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimaps;
+import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration.IndexBatching;
+import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
+import com.linagora.tmail.james.jmap.dto.UserContactDocument;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Groups the user contact indexations issued on this node within a short window.
+ *
+ * Each flush checks all the contacts against the domain contacts with a single search, only matching the domain contacts
+ * duplicating one of them, and relying on a filters aggregation to count the matches of each contact. It then indexes the
+ * remaining contacts with a single bulk request. Indexations of
+ * the same contact document within a window are deduplicated, the last one wins.
+ */
+class ContactIndexBatcher {
+    record PendingIndexation(AccountId accountId, EmailAddressContact contact, Optional<String> addressBookId,
+                             DocumentId documentId, RoutingKey routingKey, Query duplicateCheckQuery, MonoSink<EmailAddressContact> sink) {
+        String key() {
+            return documentId.asString();
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContactIndexBatcher.class);
+    private static final String DUPLICATE_CHECK_AGGREGATION = "duplicated_domain_contacts";
+    private static final int FLUSH_CONCURRENCY = 4;
+
+    private final ReactorOpenSearchClient client;
+    private final OpenSearchContactConfiguration configuration;
+    private final ObjectMapper mapper;
+    private final MetricFactory metricFactory;
+    private final Metric batchCountMetric;
+    private final Metric batchedIndexationCountMetric;
+    private final Metric duplicateCandidateCountMetric;
+    private final Sinks.Many<PendingIndexation> pendingIndexations;
+
+    ContactIndexBatcher(ReactorOpenSearchClient client, OpenSearchContactConfiguration configuration, IndexBatching indexBatching,
+                        ObjectMapper mapper, MetricFactory metricFactory) {
+        this.client = client;
+        this.configuration = configuration;
+        this.mapper = mapper;
+        this.metricFactory = metricFactory;
+        this.batchCountMetric = metricFactory.generate("contact-index-batch-count");
+        this.batchedIndexationCountMetric = metricFactory.generate("contact-index-batch-indexation-count");
+        this.duplicateCandidateCountMetric = metricFactory.generate("contact-index-batch-duplicate-candidate-count");
+        this.pendingIndexations = Sinks.many().unicast().onBackpressureBuffer();
+
+        pendingIndexations.asFlux()
+            .bufferTimeout(indexBatching.maxSize(), indexBatching.window())
+            .flatMap(this::flush, FLUSH_CONCURRENCY)
+            .doOnError(throwable -> LOGGER.error("Contact indexation batching stopped", throwable))
+            .subscribe();
+    }
+
+    Mono<EmailAddressContact> index(AccountId accountId, EmailAddressContact contact, Optional<String> addressBookId,
+                                    DocumentId documentId, RoutingKey routingKey, Query duplicateCheckQuery) {
+        return Mono.create(sink -> {
+            Sinks.EmitResult emitResult;
+            synchronized (pendingIndexations) {
+                emitResult = pendingIndexations.tryEmitNext(new PendingIndexation(accountId, contact, addressBookId, documentId, routingKey, duplicateCheckQuery, sink));
+            }
+            if (emitResult.isFailure()) {
+                sink.error(new IllegalStateException("Could not enqueue contact indexation: " + emitResult));
+            }
+        });
+    }
+
+    // Failures are reported to the indexations of the batch: they must not reach the batching pipeline, that would stop
+    private Mono<Void> flush(List<PendingIndexation> batch) {
+        return Mono.defer(() -> indexBatch(batch))
+            .doOnNext(failedDocuments -> batch.forEach(indexation -> {
+                if (failedDocuments.containsKey(indexation.key())) {
+                    indexation.sink().error(new RuntimeException("Failed indexing contact " + indexation.key() + ": " + failedDocuments.get(indexation.key())));
+                } else {
+                    indexation.sink().success(indexation.contact());
+                }
+            }))
+            .onErrorResume(e -> {
+                LOGGER.warn("Failed flushing a batch of {} contact indexations", batch.size(), e);
+                batch.forEach(indexation -> indexation.sink().error(e));
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<Map<String, String>> indexBatch(List<PendingIndexation> batch) {
+        ImmutableListMultimap<String, PendingIndexation> indexationsByDocument = Multimaps.index(batch, PendingIndexation::key);
+        Map<String, PendingIndexation> lastIndexationByDocument = indexationsByDocument.asMap().entrySet().stream()
+            .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, entry -> Iterables.getLast(entry.getValue())));
+
+        batchCountMetric.increment();
+        batchedIndexationCountMetric.add(lastIndexationByDocument.size());
+
+        return Mono.from(metricFactory.decoratePublisherWithTimerMetric("contact-index-batch-flush",
+            Mono.defer(() -> notDuplicatedDocuments(lastIndexationByDocument))
+                .flatMap(documentsToIndex -> bulkIndex(documentsToIndex.stream().map(lastIndexationByDocument::get).collect(ImmutableList.toImmutableList())))));
+    }
+
+    private Mono<ImmutableSet<String>> notDuplicatedDocuments(Map<String, PendingIndexation> indexations) {
+        SearchRequest duplicateCheckRequest = new SearchRequest.Builder()
+            .index(configuration.getDomainContactReadAliasName().getValue())
+            .size(0)
+            .query(QueryBuilders.bool()
+                .should(indexations.values().stream()
+                    .map(PendingIndexation::duplicateCheckQuery)
+                    .collect(ImmutableList.toImmutableList()))
+                .minimumShouldMatch("1")
+                .build()
+                .toQuery())
+            .aggregations(DUPLICATE_CHECK_AGGREGATION, new Aggregation.Builder()
+                .filters(new FiltersAggregation.Builder()
+                    .filters(new Buckets.Builder<Query>()
+                        .keyed(indexations.values().stream()
+                            .collect(ImmutableMap.toImmutableMap(PendingIndexation::key, PendingIndexation::duplicateCheckQuery)))
+                        .build())
+                    .build())
+                .build())
+            .build();
+
+        return Throwing.supplier(() -> client.search(duplicateCheckRequest)).sneakyThrow()
+            .get()
+            .map(searchResponse -> {
+                duplicateCandidateCountMetric.add(Optional.ofNullable(searchResponse.hits().total()).map(TotalHits::value).orElse(0L).intValue());
+                Map<String, FiltersBucket> buckets = searchResponse.aggregations().get(DUPLICATE_CHECK_AGGREGATION).filters().buckets().keyed();
+                return indexations.keySet().stream()
+                    .filter(key -> Optional.ofNullable(buckets.get(key)).map(FiltersBucket::docCount).orElse(0L) == 0L)
+                    .collect(ImmutableSet.toImmutableSet());
+            });
+    }
+
+    // Returns the failure reason of the documents the bulk request could not index
+    private Mono<Map<String, String>> bulkIndex(List<PendingIndexation> indexations) {
+        if (indexations.isEmpty()) {
+            return Mono.just(ImmutableMap.of());
+        }
+
+        List<BulkOperation> operations = indexations.stream()
+            .map(indexation -> BulkOperation.of(operation -> operation.index(index -> index
+                .index(configuration.getUserContactWriteAliasName().getValue())
+                .id(indexation.key())
+                .routing(indexation.routingKey().asString())
+                .document(asDocument(indexation)))))
+            .collect(ImmutableList.toImmutableList());
+
+        return Throwing.supplier(() -> client.bulk(new BulkRequest.Builder().operations(operations).build())).sneakyThrow()
+            .get()
+            .map(this::failedDocuments);
+    }
+
+    private JsonNode asDocument(PendingIndexation indexation) {
+        return mapper.valueToTree(new UserContactDocument(indexation.accountId(), indexation.contact(), indexation.addressBookId().orElse(null)));
+    }
+
+    private Map<String, String> failedDocuments(BulkResponse bulkResponse) {
+        if (!bulkResponse.errors()) {
+            return ImmutableMap.of();
+        }
+        return bulkResponse.items().stream()
+            .filter(item -> item.error() != null)
+            .collect(ImmutableMap.toImmutableMap(BulkResponseItem::id, item -> Optional.ofNullable(item.error().reason()).orElse(item.error().type()),
+                (first, second) -> first));
+    }
+}
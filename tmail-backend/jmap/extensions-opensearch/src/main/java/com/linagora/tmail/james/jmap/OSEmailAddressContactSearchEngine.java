@@ -26,10 +26,12 @@ import static com.linagora.tmail.james.jmap.ContactMappingFactory.EMAIL;
 import static com.linagora.tmail.james.jmap.ContactMappingFactory.FIRSTNAME;
 import static com.linagora.tmail.james.jmap.ContactMappingFactory.SURNAME;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import jakarta.inject.Inject;
 import jakarta.mail.internet.AddressException;
@@ -44,6 +46,8 @@ import org.apache.james.core.Domain;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.Username;
 import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.apache.james.util.FunctionalUtils;
 import org.opensearch.client.opensearch._types.FieldValue;
 import org.opensearch.client.opensearch._types.Time;
@@ -71,6 +75,7 @@ import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.dto.DomainContactDocument;
 import com.linagora.tmail.james.jmap.dto.UserContactDocument;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class OSEmailAddressContactSearchEngine implements EmailAddressContactSearchEngine {
@@ -83,14 +88,24 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
     private final ReactorOpenSearchClient client;
     private final OpenSearchContactConfiguration configuration;
     private final ObjectMapper mapper;
+    private final Optional<ContactIndexBatcher> indexBatcher;
+    private final Optional<AutoCompleteResultCache> autoCompleteCache;
 
-    @Inject
     public OSEmailAddressContactSearchEngine(ReactorOpenSearchClient client, OpenSearchContactConfiguration contactConfiguration) {
+        this(client, contactConfiguration, new NoopMetricFactory());
+    }
+
+    @Inject
+    public OSEmailAddressContactSearchEngine(ReactorOpenSearchClient client, OpenSearchContactConfiguration contactConfiguration, MetricFactory metricFactory) {
         this.client = client;
         this.userContactIndexer = new OpenSearchIndexer(client, contactConfiguration.getUserContactWriteAliasName());
         this.domainContactIndexer = new OpenSearchIndexer(client, contactConfiguration.getDomainContactWriteAliasName());
         this.configuration = contactConfiguration;
         this.mapper = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new Jdk8Module());
+        this.indexBatcher = contactConfiguration.getIndexBatching()
+            .map(indexBatching -> new ContactIndexBatcher(client, contactConfiguration, indexBatching, mapper, metricFactory));
+        this.autoCompleteCache = contactConfiguration.getAutoCompleteCache()
+            .map(cacheConfiguration -> new AutoCompleteResultCache(cacheConfiguration, contactConfiguration, metricFactory));
     }
 
     @Override
@@ -110,15 +125,17 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
         DocumentId documentId = addressBookId.map(addressBookIdValue -> computeUserContactDocumentId(accountId, fields.address(), addressBookIdValue))
             .orElseGet(() -> computeUserContactDocumentId(accountId, fields.address()));
 
+        RoutingKey routingKey = userContactRoutingKey(accountId, fields.address());
+        Query duplicatedDomainContactQuery = duplicatedDomainContactQuery(accountId, fields.address());
+
+        if (indexBatcher.isPresent()) {
+            return indexBatcher.get().index(accountId, emailAddressContact, addressBookId, documentId, routingKey, duplicatedDomainContactQuery)
+                .doFinally(any -> invalidateAutoCompleteCache(accountId));
+        }
+
         SearchRequest checkDuplicatedContactOnDomainIndexRequest = new SearchRequest.Builder()
             .index(configuration.getDomainContactReadAliasName().getValue())
-            .query(QueryBuilders.bool()
-                .must(QueryBuilders.multiMatch().fields(EMAIL).query(fields.address().asString()).build().toQuery())
-                .should(QueryBuilders.term().field(DOMAIN).value(new FieldValue.Builder().stringValue(Username.of(accountId.getIdentifier()).getDomainPart()
-                    .map(Domain::asString)
-                    .orElse("")).build()).build().toQuery())
-                .minimumShouldMatch("1")
-                .build().toQuery())
+            .query(duplicatedDomainContactQuery)
             .build();
 
         return Throwing.supplier(() -> client.search(checkDuplicatedContactOnDomainIndexRequest)).sneakyThrow()
@@ -126,9 +143,35 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
             .map(searchResponse -> searchResponse.hits().total().value())
             .filter(hits -> hits == 0)
             .flatMap(any -> Mono.fromCallable(() -> mapper.writeValueAsString(new UserContactDocument(accountId, emailAddressContact, addressBookId.orElse(null))))
-                .flatMap(content -> userContactIndexer.index(documentId, content,
-                    RoutingKey.fromString(fields.address().asString()))))
-            .thenReturn(emailAddressContact);
+                .flatMap(content -> userContactIndexer.index(documentId, content, routingKey)))
+            .thenReturn(emailAddressContact)
+            .doFinally(any -> invalidateAutoCompleteCache(accountId));
+    }
+
+    private RoutingKey userContactRoutingKey(AccountId accountId, MailAddress address) {
+        return switch (configuration.getUserContactRouting()) {
+            case ACCOUNT -> RoutingKey.fromString(accountId.getIdentifier());
+            case ADDRESS -> RoutingKey.fromString(address.asString());
+        };
+    }
+
+    private void invalidateAutoCompleteCache(AccountId accountId) {
+        autoCompleteCache.ifPresent(cache -> cache.invalidate(accountId));
+    }
+
+    // Domain contacts are visible to all the accounts of the domain, and rarely change
+    private void invalidateAllAutoCompleteCache() {
+        autoCompleteCache.ifPresent(AutoCompleteResultCache::invalidateAll);
+    }
+
+    private Query duplicatedDomainContactQuery(AccountId accountId, MailAddress address) {
+        return QueryBuilders.bool()
+            .must(QueryBuilders.multiMatch().fields(EMAIL).query(address.asString()).build().toQuery())
+            .should(QueryBuilders.term().field(DOMAIN).value(new FieldValue.Builder().stringValue(Username.of(accountId.getIdentifier()).getDomainPart()
+                .map(Domain::asString)
+                .orElse("")).build()).build().toQuery())
+            .minimumShouldMatch("1")
+            .build().toQuery();
     }
 
     @Override
@@ -137,7 +180,8 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
         return Mono.fromCallable(() -> mapper.writeValueAsString(new DomainContactDocument(domain, emailAddressContact)))
             .flatMap(content -> domainContactIndexer.index(computeDomainContactDocumentId(domain, fields.address()), content,
                 RoutingKey.fromString(fields.address().asString())))
-            .thenReturn(emailAddressContact);
+            .thenReturn(emailAddressContact)
+            .doFinally(any -> invalidateAllAutoCompleteCache());
     }
 
     @Override
@@ -166,16 +210,18 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
                 .value(new FieldValue.Builder().stringValue(accountId.getIdentifier()).build())).toQuery())).toQuery();
 
         return userContactIndexer.deleteAllMatchingQuery(combinedQuery,
-                RoutingKey.fromString(address.asString()))
-            .then();
+                userContactRoutingKey(accountId, address))
+            .then()
+            .doFinally(any -> invalidateAutoCompleteCache(accountId));
     }
 
     @Override
     public Publisher<Void> delete(AccountId accountId, MailAddress address, String addressBookId) {
         return userContactIndexer.delete(
                 List.of(computeUserContactDocumentId(accountId, address, addressBookId)),
-                RoutingKey.fromString(address.asString()))
-            .then();
+                userContactRoutingKey(accountId, address))
+            .then()
+            .doFinally(any -> invalidateAutoCompleteCache(accountId));
     }
 
     @Override
@@ -183,22 +229,77 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
         return domainContactIndexer.delete(
                 List.of(computeDomainContactDocumentId(domain, address)),
                 RoutingKey.fromString(address.asString()))
-            .then();
+            .then()
+            .doFinally(any -> invalidateAllAutoCompleteCache());
     }
 
     @Override
     public Publisher<EmailAddressContact> autoComplete(AccountId accountId, String part, int limit) {
-        SearchRequest request = new SearchRequest.Builder()
-            .index(configuration.getUserContactReadAliasName().getValue(), configuration.getDomainContactReadAliasName().getValue())
-            .size(limit)
-            .query(buildAutoCompleteQuery(accountId, part))
-            .build();
+        return autoCompleteCache.map(cache -> cachedAutoComplete(cache, accountId, part, limit))
+            .orElseGet(() -> searchAutoComplete(accountId, part, limit)
+                .flatMapIterable(AutoCompleteHits::hits)
+                .map(Throwing.function(this::extractContentFromHit).sneakyThrow())
+                .distinct(emailAddressContact -> emailAddressContact.fields().identifier()));
+    }
+
+    private Flux<EmailAddressContact> cachedAutoComplete(AutoCompleteResultCache cache, AccountId accountId, String part, int limit) {
+        Optional<List<EmailAddressContact>> cachedContacts = cache.lookup(accountId, part);
+        if (cachedContacts.isPresent()) {
+            return Flux.fromIterable(cachedContacts.get())
+                .take(limit);
+        }
+
+        return Mono.fromCallable(cache::searchStart)
+            .flatMap(searchStart -> searchAutoComplete(accountId, part, Math.max(limit, cache.resultSize()))
+                .flatMap(autoCompleteHits -> Flux.fromIterable(autoCompleteHits.hits())
+                    .map(Throwing.function(this::extractContentFromHit).sneakyThrow())
+                    .distinct(emailAddressContact -> emailAddressContact.fields().identifier())
+                    .collectList()
+                    .doOnNext(contacts -> cache.store(accountId, part, contacts, autoCompleteHits.complete(), searchStart))))
+            .flatMapIterable(contacts -> contacts)
+            .take(limit);
+    }
+
+    // complete tells whether all the matching contacts were returned
+    private record AutoCompleteHits(List<Hit<ObjectNode>> hits, boolean complete) {
+    }
+
+    private Mono<AutoCompleteHits> searchAutoComplete(AccountId accountId, String part, int size) {
+        Query query = buildAutoCompleteQuery(accountId, part);
+
+        return switch (configuration.getUserContactRouting()) {
+            case ADDRESS -> searchHits(new SearchRequest.Builder()
+                    .index(configuration.getUserContactReadAliasName().getValue(), configuration.getDomainContactReadAliasName().getValue())
+                    .size(size)
+                    .query(query)
+                    .build())
+                .map(hits -> new AutoCompleteHits(hits, hits.size() < size));
+            // User contacts of the account all live on the shard of its routing key, unlike domain contacts
+            case ACCOUNT -> Mono.zip(
+                    searchHits(new SearchRequest.Builder()
+                        .index(configuration.getUserContactReadAliasName().getValue())
+                        .routing(accountId.getIdentifier())
+                        .size(size)
+                        .query(query)
+                        .build()),
+                    searchHits(new SearchRequest.Builder()
+                        .index(configuration.getDomainContactReadAliasName().getValue())
+                        .size(size)
+                        .query(query)
+                        .build()))
+                .map(userAndDomainHits -> new AutoCompleteHits(
+                    Stream.concat(userAndDomainHits.getT1().stream(), userAndDomainHits.getT2().stream())
+                        .sorted(Comparator.comparing((Hit<ObjectNode> hit) -> Optional.ofNullable(hit.score()).orElse(0.0)).reversed())
+                        .limit(size)
+                        .collect(ImmutableList.toImmutableList()),
+                    userAndDomainHits.getT1().size() < size && userAndDomainHits.getT2().size() < size));
+        };
+    }
 
+    private Mono<List<Hit<ObjectNode>>> searchHits(SearchRequest request) {
         return Throwing.supplier(() -> client.search(request)).sneakyThrow()
             .get()
-            .flatMapIterable(searchResponse -> ImmutableList.copyOf(searchResponse.hits().hits()))
-            .map(Throwing.function(this::extractContentFromHit).sneakyThrow())
-            .distinct(emailAddressContact -> emailAddressContact.fields().identifier());
+            .map(searchResponse -> ImmutableList.copyOf(searchResponse.hits().hits()));
     }
 
     private Query buildAutoCompleteQuery(AccountId accountId, String part) {
@@ -298,7 +399,7 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
         return Throwing.supplier(() -> client.get(new GetRequest.Builder()
                 .index(configuration.getUserContactReadAliasName().getValue())
                 .id(computeUserContactDocumentId(accountId, mailAddress).asString())
-                .routing(mailAddress.asString())
+                .routing(userContactRoutingKey(accountId, mailAddress).asString())
                 .build()))
             .get()
             .filter(GetResponse::found)
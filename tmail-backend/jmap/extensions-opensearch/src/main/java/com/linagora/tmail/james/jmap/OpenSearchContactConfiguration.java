@@ -18,6 +18,9 @@
 
 package com.linagora.tmail.james.jmap;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -25,9 +28,67 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.james.backends.opensearch.IndexName;
 import org.apache.james.backends.opensearch.ReadAliasName;
 import org.apache.james.backends.opensearch.WriteAliasName;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
 
 public class OpenSearchContactConfiguration {
 
+    /**
+     * How user contact documents are spread across shards. ADDRESS routes them by contact address, so that an
+     * autocomplete search hits all the shards. ACCOUNT routes them by owner, so that the user contacts of an account
+     * live on a single shard. Changing it requires to recreate and re-populate the user contact index.
+     */
+    public enum UserContactRouting {
+        ADDRESS("address"),
+        ACCOUNT("account");
+
+        public static UserContactRouting parse(String value) {
+            return Arrays.stream(values())
+                .filter(routing -> routing.value.equalsIgnoreCase(value.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown user contact routing '" + value + "'. Supported values are 'address' and 'account'"));
+        }
+
+        private final String value;
+
+        UserContactRouting(String value) {
+            this.value = value;
+        }
+
+        public String asString() {
+            return value;
+        }
+    }
+
+    /**
+     * When present, autocomplete results are kept per account for ttl. Up to resultSize results are fetched for a prefix
+     * and, when this is the full result set, the following keystrokes are answered by filtering it locally.
+     */
+    public record AutoCompleteCache(Duration ttl, int resultSize) {
+        public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+        public static final int DEFAULT_RESULT_SIZE = 100;
+
+        public AutoCompleteCache {
+            Preconditions.checkArgument(resultSize > 0, "'resultSize' should be strictly positive");
+            Preconditions.checkArgument(!ttl.isNegative() && !ttl.isZero(), "'ttl' should be strictly positive");
+        }
+    }
+
+    /**
+     * When present, user contact indexations are grouped node-locally: each flush does one duplicate check search and
+     * one bulk request for up to maxSize indexations, collected for at most window.
+     */
+    public record IndexBatching(int maxSize, Duration window) {
+        public static final int DEFAULT_MAX_SIZE = 100;
+        public static final Duration DEFAULT_WINDOW = Duration.ofMillis(50);
+
+        public IndexBatching {
+            Preconditions.checkArgument(maxSize > 0, "'maxSize' should be strictly positive");
+            Preconditions.checkArgument(!window.isNegative() && !window.isZero(), "'window' should be strictly positive");
+        }
+    }
+
     public static class Builder {
         private Optional<IndexName> userContactIndexName;
         private Optional<IndexName> domainContactIndexName;
@@ -37,6 +98,9 @@ public class OpenSearchContactConfiguration {
         private Optional<WriteAliasName> domainContactWriteAliasName;
         private Optional<Integer> maxNgramDiff;
         private Optional<Integer> minNgram;
+        private Optional<IndexBatching> indexBatching;
+        private Optional<UserContactRouting> userContactRouting;
+        private Optional<AutoCompleteCache> autoCompleteCache;
 
         Builder() {
             userContactIndexName = Optional.empty();
@@ -47,6 +111,9 @@ public class OpenSearchContactConfiguration {
             domainContactWriteAliasName = Optional.empty();
             maxNgramDiff = Optional.empty();
             minNgram = Optional.empty();
+            indexBatching = Optional.empty();
+            userContactRouting = Optional.empty();
+            autoCompleteCache = Optional.empty();
         }
 
         Builder userContactIndexName(Optional<IndexName> userContactIndexName) {
@@ -89,6 +156,21 @@ public class OpenSearchContactConfiguration {
             return this;
         }
 
+        public Builder indexBatching(Optional<IndexBatching> indexBatching) {
+            this.indexBatching = indexBatching;
+            return this;
+        }
+
+        public Builder userContactRouting(Optional<UserContactRouting> userContactRouting) {
+            this.userContactRouting = userContactRouting;
+            return this;
+        }
+
+        public Builder autoCompleteCache(Optional<AutoCompleteCache> autoCompleteCache) {
+            this.autoCompleteCache = autoCompleteCache;
+            return this;
+        }
+
         public OpenSearchContactConfiguration build() {
             return new OpenSearchContactConfiguration(
                 userContactIndexName.orElse(DEFAULT_INDEX_USER_CONTACT_NAME),
@@ -98,7 +180,10 @@ public class OpenSearchContactConfiguration {
                 domainContactReadAliasName.orElse(DEFAULT_ALIAS_READ_DOMAIN_CONTACT_NAME),
                 domainContactWriteAliasName.orElse(DEFAULT_ALIAS_WRITE_DOMAIN_CONTACT_NAME),
                 maxNgramDiff.orElse(DEFAULT_MAX_NGRAM_DIFF),
-                minNgram.orElse(DEFAULT_MIN_NGRAM));
+                minNgram.orElse(DEFAULT_MIN_NGRAM),
+                indexBatching,
+                userContactRouting.orElse(DEFAULT_USER_CONTACT_ROUTING),
+                autoCompleteCache);
         }
     }
 
@@ -114,6 +199,13 @@ public class OpenSearchContactConfiguration {
     private static final String OPENSEARCH_ALIAS_WRITE_DOMAIN_CONTACT_NAME = "opensearch.alias.write.contact.domain.name";
     private static final String OPENSEARCH_INDEX_CONTACT_MAX_NGRAM_DIFF = "opensearch.index.contact.max.ngram.diff";
     private static final String OPENSEARCH_INDEX_CONTACT_MIN_NGRAM = "opensearch.index.contact.min.ngram";
+    private static final String OPENSEARCH_INDEX_CONTACT_BATCH_ENABLED = "opensearch.index.contact.batch.enabled";
+    private static final String OPENSEARCH_INDEX_CONTACT_BATCH_SIZE = "opensearch.index.contact.batch.size";
+    private static final String OPENSEARCH_INDEX_CONTACT_BATCH_WINDOW = "opensearch.index.contact.batch.window";
+    private static final String OPENSEARCH_INDEX_CONTACT_USER_ROUTING = "opensearch.index.contact.user.routing";
+    private static final String OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_ENABLED = "opensearch.contact.autocomplete.cache.enabled";
+    private static final String OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_TTL = "opensearch.contact.autocomplete.cache.ttl";
+    private static final String OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_RESULT_SIZE = "opensearch.contact.autocomplete.cache.result.size";
 
     public static final IndexName DEFAULT_INDEX_USER_CONTACT_NAME = new IndexName("user_contact");
     public static final IndexName DEFAULT_INDEX_DOMAIN_CONTACT_NAME = new IndexName("domain_contact");
@@ -123,6 +215,7 @@ public class OpenSearchContactConfiguration {
     public static final ReadAliasName DEFAULT_ALIAS_READ_DOMAIN_CONTACT_NAME = new ReadAliasName("domain_contact_read_alias");
     public static final Integer DEFAULT_MAX_NGRAM_DIFF = 27;
     public static final Integer DEFAULT_MIN_NGRAM = 2;
+    public static final UserContactRouting DEFAULT_USER_CONTACT_ROUTING = UserContactRouting.ADDRESS;
 
     public static final OpenSearchContactConfiguration DEFAULT_CONFIGURATION = builder().build();
 
@@ -136,6 +229,9 @@ public class OpenSearchContactConfiguration {
             .domainContactWriteAliasName(computeDomainContactWriteAlias(configuration))
             .maxNgramDiff(computeMaxNgramDiff(configuration))
             .minNgram(computeMinNgram(configuration))
+            .indexBatching(computeIndexBatching(configuration))
+            .userContactRouting(computeUserContactRouting(configuration))
+            .autoCompleteCache(computeAutoCompleteCache(configuration))
             .build();
     }
 
@@ -177,6 +273,33 @@ public class OpenSearchContactConfiguration {
         return Optional.ofNullable(configuration.getInteger(OPENSEARCH_INDEX_CONTACT_MIN_NGRAM, null));
     }
 
+    static Optional<IndexBatching> computeIndexBatching(Configuration configuration) {
+        if (!configuration.getBoolean(OPENSEARCH_INDEX_CONTACT_BATCH_ENABLED, false)) {
+            return Optional.empty();
+        }
+        return Optional.of(new IndexBatching(
+            configuration.getInt(OPENSEARCH_INDEX_CONTACT_BATCH_SIZE, IndexBatching.DEFAULT_MAX_SIZE),
+            Optional.ofNullable(configuration.getString(OPENSEARCH_INDEX_CONTACT_BATCH_WINDOW, null))
+                .map(value -> DurationParser.parse(value, ChronoUnit.MILLIS))
+                .orElse(IndexBatching.DEFAULT_WINDOW)));
+    }
+
+    static Optional<UserContactRouting> computeUserContactRouting(Configuration configuration) {
+        return Optional.ofNullable(configuration.getString(OPENSEARCH_INDEX_CONTACT_USER_ROUTING, null))
+            .map(UserContactRouting::parse);
+    }
+
+    static Optional<AutoCompleteCache> computeAutoCompleteCache(Configuration configuration) {
+        if (!configuration.getBoolean(OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_ENABLED, false)) {
+            return Optional.empty();
+        }
+        return Optional.of(new AutoCompleteCache(
+            Optional.ofNullable(configuration.getString(OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_TTL, null))
+                .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+                .orElse(AutoCompleteCache.DEFAULT_TTL),
+            configuration.getInt(OPENSEARCH_CONTACT_AUTOCOMPLETE_CACHE_RESULT_SIZE, AutoCompleteCache.DEFAULT_RESULT_SIZE)));
+    }
+
     private final IndexName userContactIndexName;
     private final IndexName domainContactIndexName;
     private final ReadAliasName userContactReadAliasName;
@@ -185,10 +308,14 @@ public class OpenSearchContactConfiguration {
     private final WriteAliasName domainContactWriteAliasName;
     private final int maxNgramDiff;
     private final int minNgram;
+    private final Optional<IndexBatching> indexBatching;
+    private final UserContactRouting userContactRouting;
+    private final Optional<AutoCompleteCache> autoCompleteCache;
 
     private OpenSearchContactConfiguration(IndexName userContactIndexName, IndexName domainContactIndexName, ReadAliasName userContactReadAliasName,
                                            WriteAliasName userContactWriteAliasName, ReadAliasName domainContactReadAliasName, WriteAliasName domainContactWriteAliasName,
-                                           int maxNgramDiff, int minNgram) {
+                                           int maxNgramDiff, int minNgram, Optional<IndexBatching> indexBatching,
+                                           UserContactRouting userContactRouting, Optional<AutoCompleteCache> autoCompleteCache) {
         this.userContactIndexName = userContactIndexName;
         this.domainContactIndexName = domainContactIndexName;
         this.userContactReadAliasName = userContactReadAliasName;
@@ -197,6 +324,9 @@ public class OpenSearchContactConfiguration {
         this.domainContactWriteAliasName = domainContactWriteAliasName;
         this.maxNgramDiff = maxNgramDiff;
         this.minNgram = minNgram;
+        this.indexBatching = indexBatching;
+        this.userContactRouting = userContactRouting;
+        this.autoCompleteCache = autoCompleteCache;
     }
 
     public IndexName getUserContactIndexName() {
@@ -231,6 +361,18 @@ public class OpenSearchContactConfiguration {
         return minNgram;
     }
 
+    public Optional<IndexBatching> getIndexBatching() {
+        return indexBatching;
+    }
+
+    public UserContactRouting getUserContactRouting() {
+        return userContactRouting;
+    }
+
+    public Optional<AutoCompleteCache> getAutoCompleteCache() {
+        return autoCompleteCache;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (o instanceof OpenSearchContactConfiguration that) {
@@ -241,7 +383,10 @@ public class OpenSearchContactConfiguration {
                 && Objects.equals(this.domainContactReadAliasName, that.domainContactReadAliasName)
                 && Objects.equals(this.domainContactWriteAliasName, that.domainContactWriteAliasName)
                 && Objects.equals(this.maxNgramDiff, that.maxNgramDiff)
-                && Objects.equals(this.minNgram, that.minNgram);
+                && Objects.equals(this.minNgram, that.minNgram)
+                && Objects.equals(this.indexBatching, that.indexBatching)
+                && Objects.equals(this.userContactRouting, that.userContactRouting)
+                && Objects.equals(this.autoCompleteCache, that.autoCompleteCache);
         }
         return false;
     }
@@ -249,6 +394,7 @@ public class OpenSearchContactConfiguration {
     @Override
     public final int hashCode() {
         return Objects.hash(userContactIndexName, domainContactIndexName, userContactReadAliasName, userContactWriteAliasName,
-            domainContactReadAliasName, domainContactWriteAliasName, maxNgramDiff, minNgram);
+            domainContactReadAliasName, domainContactWriteAliasName, maxNgramDiff, minNgram, indexBatching,
+            userContactRouting, autoCompleteCache);
     }
 }
@@ -65,7 +65,11 @@ public class OSEmailAddressContactSearchTest implements EmailAddressContactSearc
         createUserContactIndex(client, contactMappingFactory);
         createDomainContactIndex(client, contactMappingFactory);
 
-        searchEngine = new OSEmailAddressContactSearchEngine(client, DEFAULT_CONFIGURATION);
+        searchEngine = createSearchEngine(client);
+    }
+
+    OSEmailAddressContactSearchEngine createSearchEngine(ReactorOpenSearchClient client) {
+        return new OSEmailAddressContactSearchEngine(client, DEFAULT_CONFIGURATION);
     }
 
     @Override
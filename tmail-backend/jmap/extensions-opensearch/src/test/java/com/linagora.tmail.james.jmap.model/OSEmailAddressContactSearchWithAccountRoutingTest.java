@@ -0,0 +1,106 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.apache.james.backends.opensearch.ReactorOpenSearchClient;
+import org.apache.james.core.MailAddress;
+import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.awaitility.Awaitility;
+import org.awaitility.Durations;
+import org.junit.jupiter.api.Test;
+
+import com.linagora.tmail.james.jmap.OSEmailAddressContactSearchEngine;
+import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration;
+import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration.AutoCompleteCache;
+import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration.UserContactRouting;
+import com.linagora.tmail.james.jmap.contact.ContactFields;
+import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
+import com.linagora.tmail.james.jmap.contact.MatchAllQuery;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class OSEmailAddressContactSearchWithAccountRoutingTest extends OSEmailAddressContactSearchTest {
+    private static final OpenSearchContactConfiguration ACCOUNT_ROUTING_CONFIGURATION = OpenSearchContactConfiguration.builder()
+        .userContactRouting(Optional.of(UserContactRouting.ACCOUNT))
+        .autoCompleteCache(Optional.of(new AutoCompleteCache(Duration.ofSeconds(30), 100)))
+        .build();
+    private static final AccountId BOB_ACCOUNT_ID = AccountId.fromString("bob@linagora.com");
+
+    private RecordingMetricFactory metricFactory;
+
+    @Override
+    OSEmailAddressContactSearchEngine createSearchEngine(ReactorOpenSearchClient client) {
+        metricFactory = new RecordingMetricFactory();
+        return new OSEmailAddressContactSearchEngine(client, ACCOUNT_ROUTING_CONFIGURATION, metricFactory);
+    }
+
+    @Test
+    void successiveKeystrokesShouldBeServedFromTheCache() throws Exception {
+        Mono.from(testee().index(BOB_ACCOUNT_ID, ContactFields.of(new MailAddress("john.doe@linagora.com"), "John", "Doe"))).block();
+        Mono.from(testee().index(BOB_ACCOUNT_ID, ContactFields.of(new MailAddress("joseph@linagora.com"), "Joseph", "Smith"))).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 2);
+
+        // Results are only stored once the index refreshed the changes
+        Awaitility.await().atMost(Durations.TEN_SECONDS)
+            .untilAsserted(() -> {
+                Flux.from(testee().autoComplete(BOB_ACCOUNT_ID, "jo", 10)).collectList().block();
+
+                assertThat(Flux.from(testee().autoComplete(BOB_ACCOUNT_ID, "joh", 10))
+                        .map(contact -> contact.fields().address().asString())
+                        .collectList()
+                        .block())
+                    .containsExactly("john.doe@linagora.com");
+                assertThat(metricFactory.countFor("contact-autocomplete-cache-hit")).isEqualTo(1);
+            });
+    }
+
+    @Test
+    void resultsFetchedRightAfterAChangeShouldNotBeCached() throws Exception {
+        Mono.from(testee().index(BOB_ACCOUNT_ID, ContactFields.of(new MailAddress("john.doe@linagora.com"), "John", "Doe"))).block();
+
+        Flux.from(testee().autoComplete(BOB_ACCOUNT_ID, "jo", 10)).collectList().block();
+        Flux.from(testee().autoComplete(BOB_ACCOUNT_ID, "joh", 10)).collectList().block();
+
+        assertThat(metricFactory.countFor("contact-autocomplete-cache-hit")).isZero();
+    }
+
+    @Test
+    void indexingAContactShouldInvalidateTheCacheOfTheAccount() throws Exception {
+        Mono.from(testee().index(BOB_ACCOUNT_ID, ContactFields.of(new MailAddress("john.doe@linagora.com"), "John", "Doe"))).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 1);
+        Flux.from(testee().autoComplete(BOB_ACCOUNT_ID, "jo", 10)).collectList().block();
+
+        Mono.from(testee().index(BOB_ACCOUNT_ID, ContactFields.of(new MailAddress("joseph@linagora.com"), "Joseph", "Smith"))).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 2);
+
+        assertThat(Flux.from(testee().autoComplete(BOB_ACCOUNT_ID, "jos", 10))
+                .map(EmailAddressContact::fields)
+                .map(fields -> fields.address().asString())
+                .collectList()
+                .block())
+            .containsExactly("joseph@linagora.com");
+    }
+}
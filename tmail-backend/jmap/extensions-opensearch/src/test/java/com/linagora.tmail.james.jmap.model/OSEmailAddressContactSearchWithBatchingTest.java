@@ -0,0 +1,101 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.apache.james.backends.opensearch.ReactorOpenSearchClient;
+import org.apache.james.core.Domain;
+import org.apache.james.core.MailAddress;
+import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.Test;
+
+import com.github.fge.lambdas.Throwing;
+import com.linagora.tmail.james.jmap.OSEmailAddressContactSearchEngine;
+import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration;
+import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration.IndexBatching;
+import com.linagora.tmail.james.jmap.contact.ContactFields;
+import com.linagora.tmail.james.jmap.contact.MatchAllQuery;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class OSEmailAddressContactSearchWithBatchingTest extends OSEmailAddressContactSearchTest {
+    private static final OpenSearchContactConfiguration BATCHING_CONFIGURATION = OpenSearchContactConfiguration.builder()
+        .indexBatching(Optional.of(new IndexBatching(100, Duration.ofMillis(50))))
+        .build();
+
+    private RecordingMetricFactory metricFactory;
+
+    @Override
+    OSEmailAddressContactSearchEngine createSearchEngine(ReactorOpenSearchClient client) {
+        metricFactory = new RecordingMetricFactory();
+        return new OSEmailAddressContactSearchEngine(client, BATCHING_CONFIGURATION, metricFactory);
+    }
+
+    @Test
+    void concurrentIndexationsShouldBeBatched() {
+        AccountId accountId = AccountId.fromString("bob@linagora.com");
+
+        Flux.range(0, 10)
+            .flatMap(i -> Mono.from(testee().index(accountId, ContactFields.of(Throwing.supplier(() -> new MailAddress("contact" + i + "@linagora.com")).get(), "", ""))), 10)
+            .then()
+            .block();
+
+        awaitDocumentsIndexed(new MatchAllQuery(), 10);
+        assertThat(metricFactory.countFor("contact-index-batch-count")).isLessThan(10);
+    }
+
+    @Test
+    void indexationsOfTheSameContactShouldBeDeduplicatedWithinABatch() {
+        AccountId accountId = AccountId.fromString("bob@linagora.com");
+
+        Flux.range(0, 5)
+            .flatMap(i -> Mono.from(testee().index(accountId, ContactFields.of(Throwing.supplier(() -> new MailAddress("contact@linagora.com")).get(), "", ""))), 5)
+            .then()
+            .block();
+
+        assertThat(metricFactory.countFor("contact-index-batch-indexation-count"))
+            .isEqualTo(metricFactory.countFor("contact-index-batch-count"));
+    }
+
+    @Test
+    void duplicateCheckShouldOnlyMatchTheDuplicatedDomainContacts() {
+        AccountId accountId = AccountId.fromString("bob@linagora.com");
+        Domain domain = Domain.of("linagora.com");
+        Flux.range(0, 5)
+            .concatMap(i -> Mono.from(testee().index(domain, ContactFields.of(Throwing.supplier(() -> new MailAddress("other" + i + "@linagora.com")).get(), "", ""))))
+            .then()
+            .block();
+        Mono.from(testee().index(domain, ContactFields.of(Throwing.supplier(() -> new MailAddress("contact0@linagora.com")).get(), "", ""))).block();
+        awaitDocumentsIndexed(new MatchAllQuery(), 6);
+
+        Flux.range(0, 3)
+            .flatMap(i -> Mono.from(testee().index(accountId, ContactFields.of(Throwing.supplier(() -> new MailAddress("contact" + i + "@linagora.com")).get(), "", ""))), 3)
+            .then()
+            .block();
+
+        awaitDocumentsIndexed(new MatchAllQuery(), 8);
+        assertThat(metricFactory.countFor("contact-index-batch-duplicate-candidate-count")).isEqualTo(1);
+    }
+}
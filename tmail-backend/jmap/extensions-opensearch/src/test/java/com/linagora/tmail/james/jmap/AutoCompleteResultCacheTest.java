@@ -0,0 +1,112 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.jmap.api.model.AccountId;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration.AutoCompleteCache;
+import com.linagora.tmail.james.jmap.contact.ContactFields;
+import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
+
+class AutoCompleteResultCacheTest {
+    private static final AccountId BOB = AccountId.fromString("bob@linagora.com");
+    private static final AccountId ALICE = AccountId.fromString("alice@linagora.com");
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private UpdatableTickingClock clock;
+    private AutoCompleteResultCache testee;
+    private List<EmailAddressContact> contacts;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clock = new UpdatableTickingClock(NOW);
+        testee = new AutoCompleteResultCache(new AutoCompleteCache(Duration.ofSeconds(30), 100),
+            OpenSearchContactConfiguration.builder().build(), new RecordingMetricFactory(), clock);
+        contacts = List.of(EmailAddressContact.of(ContactFields.of(new MailAddress("john.doe@linagora.com"), "John", "Doe")));
+    }
+
+    @Test
+    void storedResultsShouldServeLongerInputs() {
+        testee.store(BOB, "jo", contacts, true, testee.searchStart());
+
+        assertThat(testee.lookup(BOB, "joh")).contains(contacts);
+    }
+
+    @Test
+    void storeShouldBeIgnoredWhenTheAccountIsInvalidatedDuringTheSearch() {
+        Instant searchStart = testee.searchStart();
+        testee.invalidate(BOB);
+        clock.setInstant(NOW.plusSeconds(5));
+
+        testee.store(BOB, "jo", contacts, true, searchStart);
+
+        assertThat(testee.lookup(BOB, "joh")).isEmpty();
+    }
+
+    @Test
+    void storeShouldBeIgnoredWhenTheSearchStartedBeforeTheIndexRefresh() {
+        testee.invalidate(BOB);
+        clock.setInstant(NOW.plusMillis(500));
+
+        testee.store(BOB, "jo", contacts, true, testee.searchStart());
+
+        assertThat(testee.lookup(BOB, "joh")).isEmpty();
+    }
+
+    @Test
+    void storeShouldSucceedWhenTheSearchStartedAfterTheIndexRefresh() {
+        testee.invalidate(BOB);
+        clock.setInstant(NOW.plusSeconds(2));
+
+        testee.store(BOB, "jo", contacts, true, testee.searchStart());
+
+        assertThat(testee.lookup(BOB, "joh")).contains(contacts);
+    }
+
+    @Test
+    void invalidatingAnotherAccountShouldNotPreventStoring() {
+        Instant searchStart = testee.searchStart();
+        testee.invalidate(ALICE);
+
+        testee.store(BOB, "jo", contacts, true, searchStart);
+
+        assertThat(testee.lookup(BOB, "joh")).contains(contacts);
+    }
+
+    @Test
+    void storeShouldBeIgnoredWhenAllAccountsAreInvalidatedDuringTheSearch() {
+        Instant searchStart = testee.searchStart();
+        testee.invalidateAll();
+
+        testee.store(BOB, "jo", contacts, true, searchStart);
+
+        assertThat(testee.lookup(BOB, "joh")).isEmpty();
+    }
+}
@@ -76,9 +76,15 @@ public class PostgresLabelRepository implements LabelRepository {
 
     @Override
     public Publisher<Label> addLabels(Username username, Collection<LabelCreationRequest> labelCreationRequests) {
+        PostgresLabelDAO dao = labelDAO(username);
 
         return Flux.fromIterable(labelCreationRequests)
-            .concatMap(labelCreationRequest -> Mono.from(addLabel(username, labelCreationRequest)));
+            .concatMap(labelCreationRequest -> dao.insert(username, labelCreationRequest.toLabel()))
+            .collectList()
+            .flatMapMany(labels -> dispatchAll(labels.stream()
+                    .map(label -> (TmailLabelEvent) new LabelCreated(Event.EventId.random(), username, label))
+                    .toList())
+                .thenMany(Flux.fromIterable(labels)));
     }
 
     @Override
@@ -117,10 +123,16 @@ public class PostgresLabelRepository implements LabelRepository {
 
     @Override
     public Publisher<Void> deleteAllLabels(Username username) {
-        return Flux.from(listLabels(username))
+        PostgresLabelDAO dao = labelDAO(username);
+
+        return dao.selectAll(username)
             .map(label -> LabelId.fromKeyword(label.keyword()))
-            .concatMap(labelId -> Mono.from(deleteLabel(username, labelId)))
-            .then();
+            .concatMap(labelId -> dao.deleteOne(username, labelId.toKeyword())
+                .thenReturn(labelId))
+            .collectList()
+            .flatMap(labelIds -> dispatchAll(labelIds.stream()
+                .map(labelId -> (TmailLabelEvent) new LabelDestroyed(Event.EventId.random(), username, labelId))
+                .toList()));
     }
 
     @Override
@@ -138,6 +150,16 @@ public class PostgresLabelRepository implements LabelRepository {
         return Mono.from(eventBus.dispatch(event, NO_REGISTRATION_KEYS));
     }
 
+    // One message for the whole batch rather than one per label
+    private Mono<Void> dispatchAll(List<TmailLabelEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.from(eventBus.dispatch(events.stream()
+            .map(event -> new EventBus.EventWithRegistrationKey(event, NO_REGISTRATION_KEYS))
+            .toList()));
+    }
+
     private PostgresLabelDAO labelDAO(Username username) {
         return new PostgresLabelDAO(executorFactory.create(username.getDomainPart()));
     }
@@ -29,7 +29,9 @@ import static com.linagora.tmail.james.jmap.projections.table.PostgresKeywordEma
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
 import jakarta.inject.Inject;
@@ -44,14 +46,22 @@ import org.apache.james.mailbox.model.ThreadId;
 import org.apache.james.mailbox.postgres.PostgresMessageId;
 import org.apache.james.util.streams.Limit;
 import org.jooq.DSLContext;
+import org.jooq.InsertValuesStep5;
 import org.jooq.Record;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectLimitPercentStep;
+import org.jooq.impl.DSL;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class PostgresKeywordEmailQueryView implements KeywordEmailQueryView {
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
     private final PostgresExecutor.Factory executorFactory;
 
     @Inject
@@ -80,14 +90,75 @@ public class PostgresKeywordEmailQueryView implements KeywordEmailQueryView {
             .and(MESSAGE_ID.eq(((PostgresMessageId) messageId).asUuid()))));
     }
 
+    @Override
+    public Mono<Void> saveAll(Username username, Collection<Entry> entries) {
+        PostgresExecutor executor = executorFactory.create(username.getDomainPart());
+        return Flux.fromIterable(Iterables.partition(entries, MAX_ROWS_PER_STATEMENT))
+            .concatMap(chunk -> executor.executeVoid(dslContext -> {
+                InsertValuesStep5<Record, String, String, OffsetDateTime, UUID, UUID> insert = dslContext.insertInto(TABLE_NAME,
+                    USERNAME, KEYWORD, RECEIVED_AT, MESSAGE_ID, THREAD_ID);
+                for (Entry entry : chunk) {
+                    insert = insert.values(username.asString(),
+                        entry.keyword().flagName(),
+                        OffsetDateTime.ofInstant(entry.receivedAt(), ZoneOffset.UTC),
+                        ((PostgresMessageId) entry.messageId()).asUuid(),
+                        ((PostgresMessageId) entry.threadId().getBaseMessageId()).asUuid());
+                }
+                return Mono.from(insert.onConflictOnConstraint(KEYWORD_VIEW_PK_CONSTRAINT_NAME)
+                    .doNothing());
+            }))
+            .then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Username username, Collection<EntryKey> entryKeys) {
+        PostgresExecutor executor = executorFactory.create(username.getDomainPart());
+        return Flux.fromIterable(Iterables.partition(entryKeys, MAX_ROWS_PER_STATEMENT))
+            .concatMap(chunk -> executor.executeVoid(dslContext -> Mono.from(dslContext.deleteFrom(TABLE_NAME)
+                .where(USERNAME.eq(username.asString()))
+                .and(DSL.row(KEYWORD, RECEIVED_AT, MESSAGE_ID).in(chunk.stream()
+                    .map(entryKey -> DSL.row(entryKey.keyword().flagName(),
+                        OffsetDateTime.ofInstant(entryKey.receivedAt(), ZoneOffset.UTC),
+                        ((PostgresMessageId) entryKey.messageId()).asUuid()))
+                    .collect(ImmutableList.toImmutableList()))))))
+            .then();
+    }
+
     @Override
     public Flux<MessageId> listMessagesByKeyword(Username username, Keyword keyword, Options options) {
+        if (options.resumeAfter().isPresent()) {
+            return listAnchorsByKeyword(username, keyword, options)
+                .map(Anchor::messageId);
+        }
         PostgresExecutor executor = executorFactory.create(username.getDomainPart());
         return EmailQueryViewUtils.QueryViewExtender.of(options.limit(), options.collapseThread())
             .resolve(backendFetchLimit -> executor.executeRows(dslContext -> Flux.from(buildSelectStatement(dslContext, username, keyword, options, backendFetchLimit)))
                 .map(asEmailEntry()));
     }
 
+    @Override
+    public Flux<Anchor> listAnchorsByKeyword(Username username, Keyword keyword, Options options) {
+        Preconditions.checkArgument(!options.limit().isUnlimited(), "Limit should be defined");
+        Preconditions.checkArgument(!options.collapseThread(), "Listing anchors is not supported when collapsing threads");
+
+        PostgresExecutor executor = executorFactory.create(username.getDomainPart());
+        int limit = options.limit().getLimit().get();
+        return options.resumeAfter()
+            .map(anchor -> executor.executeRows(dslContext -> Flux.from(buildAnchoredSelectStatement(dslContext, username, keyword, options, anchor, limit))))
+            .orElseGet(() -> executor.executeRows(dslContext -> Flux.from(buildSelectStatement(dslContext, username, keyword, options, Limit.from(limit)))))
+            .map(asAnchor());
+    }
+
+    @Override
+    public Mono<Boolean> contains(Username username, Keyword keyword, Anchor anchor) {
+        return executorFactory.create(username.getDomainPart()).executeExists(dslContext -> dslContext.selectOne()
+            .from(TABLE_NAME)
+            .where(USERNAME.eq(username.asString()))
+            .and(KEYWORD.eq(keyword.flagName()))
+            .and(RECEIVED_AT.eq(OffsetDateTime.ofInstant(anchor.receivedAt(), ZoneOffset.UTC)))
+            .and(MESSAGE_ID.eq(((PostgresMessageId) anchor.messageId()).asUuid())));
+    }
+
     @Override
     public Mono<Void> clearAll() {
         return executorFactory.create().executeVoid(dslContext -> Mono.from(dslContext.truncate(TABLE_NAME)));
@@ -105,10 +176,36 @@ public class PostgresKeywordEmailQueryView implements KeywordEmailQueryView {
         options.before()
             .ifPresent(before -> selectStep.and(RECEIVED_AT.lessThan(OffsetDateTime.ofInstant(before, ZoneOffset.UTC))));
 
-        return selectStep.orderBy(RECEIVED_AT.desc())
+        return selectStep.orderBy(RECEIVED_AT.desc(), MESSAGE_ID.asc())
             .limit(backendFetchLimit.getLimit().get());
     }
 
+    private SelectLimitPercentStep buildAnchoredSelectStatement(DSLContext dslContext, Username username, Keyword keyword, Options options,
+                                                                Anchor anchor, int backendFetchLimit) {
+        OffsetDateTime anchorReceivedAt = OffsetDateTime.ofInstant(anchor.receivedAt(), ZoneOffset.UTC);
+        SelectConditionStep selectStep = dslContext.select(MESSAGE_ID, RECEIVED_AT, THREAD_ID)
+            .from(TABLE_NAME)
+            .where(USERNAME.eq(username.asString()))
+            .and(KEYWORD.eq(keyword.flagName()))
+            // Keyset matching the (received_at desc, message_id asc) ordering: resumes right after the anchor
+            .and(RECEIVED_AT.lessThan(anchorReceivedAt)
+                .or(RECEIVED_AT.eq(anchorReceivedAt)
+                    .and(MESSAGE_ID.greaterThan(((PostgresMessageId) anchor.messageId()).asUuid()))));
+
+        options.after()
+            .ifPresent(after -> selectStep.and(RECEIVED_AT.greaterOrEqual(OffsetDateTime.ofInstant(after, ZoneOffset.UTC))));
+
+        options.before()
+            .ifPresent(before -> selectStep.and(RECEIVED_AT.lessThan(OffsetDateTime.ofInstant(before, ZoneOffset.UTC))));
+
+        return selectStep.orderBy(RECEIVED_AT.desc(), MESSAGE_ID.asc())
+            .limit(backendFetchLimit);
+    }
+
+    private Function<Record, Anchor> asAnchor() {
+        return (Record record) -> new Anchor(record.get(RECEIVED_AT).toInstant(), PostgresMessageId.Factory.of(record.get(MESSAGE_ID)));
+    }
+
     private Function<Record, EmailEntry> asEmailEntry() {
         return (Record record) -> {
             PostgresMessageId messageId = PostgresMessageId.Factory.of(record.get(MESSAGE_ID));
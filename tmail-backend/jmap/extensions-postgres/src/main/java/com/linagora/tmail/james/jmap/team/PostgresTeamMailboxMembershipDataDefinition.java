@@ -0,0 +1,67 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap.team;
+
+import org.apache.james.backends.postgres.PostgresDataDefinition;
+import org.apache.james.backends.postgres.PostgresTable;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+public interface PostgresTeamMailboxMembershipDataDefinition {
+    interface TeamMailboxMembershipTable {
+        Table<Record> TABLE_NAME = DSL.table("team_mailbox_membership");
+        String PRIMARY_KEY_CONSTRAINT = "team_mailbox_membership_primary_key_constraint";
+
+        Field<String> USERNAME = DSL.field("username", SQLDataType.VARCHAR.notNull());
+        Field<String> TEAM_MAILBOX = DSL.field("team_mailbox", SQLDataType.VARCHAR.notNull());
+
+        PostgresTable TABLE = PostgresTable.name(TABLE_NAME.getName())
+            .createTableStep(((dsl, tableName) -> dsl.createTableIfNotExists(tableName)
+                .column(USERNAME)
+                .column(TEAM_MAILBOX)
+                .constraint(DSL.constraint(PRIMARY_KEY_CONSTRAINT)
+                    .primaryKey(USERNAME, TEAM_MAILBOX))
+                .comment("Projection of the team mailboxes a user is a member of. Source of truth is the team mailbox ACL.")))
+            .disableRowLevelSecurity()
+            .build();
+    }
+
+    interface TeamMailboxMembershipStatusTable {
+        Table<Record> TABLE_NAME = DSL.table("team_mailbox_membership_status");
+        String BACKFILLED = "backfilled";
+
+        Field<String> STATUS = DSL.field("status", SQLDataType.VARCHAR.notNull());
+
+        PostgresTable TABLE = PostgresTable.name(TABLE_NAME.getName())
+            .createTableStep(((dsl, tableName) -> dsl.createTableIfNotExists(tableName)
+                .column(STATUS)
+                .primaryKey(STATUS)
+                .comment("Status of the team mailbox membership projection. Holds a 'backfilled' row once it was rebuilt from the ACLs.")))
+            .disableRowLevelSecurity()
+            .build();
+    }
+
+    PostgresDataDefinition MODULE = PostgresDataDefinition.builder()
+        .addTable(TeamMailboxMembershipTable.TABLE)
+        .addTable(TeamMailboxMembershipStatusTable.TABLE)
+        .build();
+}
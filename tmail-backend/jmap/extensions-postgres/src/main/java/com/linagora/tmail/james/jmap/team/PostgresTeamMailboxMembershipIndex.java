@@ -0,0 +1,102 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap.team;
+
+import static com.linagora.tmail.james.jmap.team.PostgresTeamMailboxMembershipDataDefinition.TeamMailboxMembershipTable.PRIMARY_KEY_CONSTRAINT;
+import static com.linagora.tmail.james.jmap.team.PostgresTeamMailboxMembershipDataDefinition.TeamMailboxMembershipTable.TABLE_NAME;
+import static com.linagora.tmail.james.jmap.team.PostgresTeamMailboxMembershipDataDefinition.TeamMailboxMembershipTable.TEAM_MAILBOX;
+import static com.linagora.tmail.james.jmap.team.PostgresTeamMailboxMembershipDataDefinition.TeamMailboxMembershipTable.USERNAME;
+import static org.apache.james.backends.postgres.utils.PostgresExecutor.DEFAULT_INJECT;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+import org.apache.james.backends.postgres.utils.PostgresExecutor;
+import org.apache.james.core.Username;
+import org.jooq.Record;
+
+import com.linagora.tmail.james.jmap.team.PostgresTeamMailboxMembershipDataDefinition.TeamMailboxMembershipStatusTable;
+import com.linagora.tmail.team.TeamMailbox;
+import com.linagora.tmail.team.TeamMailboxMembership;
+import com.linagora.tmail.team.TeamMailboxMembershipIndex;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class PostgresTeamMailboxMembershipIndex implements TeamMailboxMembershipIndex {
+    private final PostgresExecutor postgresExecutor;
+
+    @Inject
+    public PostgresTeamMailboxMembershipIndex(@Named(DEFAULT_INJECT) PostgresExecutor postgresExecutor) {
+        this.postgresExecutor = postgresExecutor;
+    }
+
+    @Override
+    public Mono<Void> add(Username username, TeamMailbox teamMailbox) {
+        return postgresExecutor.executeVoid(dsl -> Mono.from(dsl.insertInto(TABLE_NAME)
+            .set(USERNAME, username.asString())
+            .set(TEAM_MAILBOX, teamMailbox.asString())
+            .onConflictOnConstraint(PRIMARY_KEY_CONSTRAINT)
+            .doNothing()));
+    }
+
+    @Override
+    public Mono<Void> remove(Username username, TeamMailbox teamMailbox) {
+        return postgresExecutor.executeVoid(dsl -> Mono.from(dsl.deleteFrom(TABLE_NAME)
+            .where(USERNAME.eq(username.asString()),
+                TEAM_MAILBOX.eq(teamMailbox.asString()))));
+    }
+
+    @Override
+    public Flux<TeamMailbox> listTeamMailboxes(Username username) {
+        return postgresExecutor.executeRows(dsl -> Flux.from(dsl.select(TEAM_MAILBOX)
+                .from(TABLE_NAME)
+                .where(USERNAME.eq(username.asString()))))
+            .map(this::toTeamMailbox);
+    }
+
+    @Override
+    public Flux<TeamMailboxMembership> listAll() {
+        return postgresExecutor.executeRows(dsl -> Flux.from(dsl.select(USERNAME, TEAM_MAILBOX)
+                .from(TABLE_NAME)))
+            .map(record -> new TeamMailboxMembership(Username.of(record.get(USERNAME)), toTeamMailbox(record)));
+    }
+
+    @Override
+    public Mono<Void> markBackfilled() {
+        return postgresExecutor.executeVoid(dsl -> Mono.from(dsl.insertInto(TeamMailboxMembershipStatusTable.TABLE_NAME)
+            .set(TeamMailboxMembershipStatusTable.STATUS, TeamMailboxMembershipStatusTable.BACKFILLED)
+            .onConflict(TeamMailboxMembershipStatusTable.STATUS)
+            .doNothing()));
+    }
+
+    @Override
+    public Mono<Boolean> isBackfilled() {
+        return postgresExecutor.executeExists(dsl -> dsl.selectOne()
+            .from(TeamMailboxMembershipStatusTable.TABLE_NAME)
+            .where(TeamMailboxMembershipStatusTable.STATUS.eq(TeamMailboxMembershipStatusTable.BACKFILLED)));
+    }
+
+    private TeamMailbox toTeamMailbox(Record record) {
+        return TeamMailbox.fromString(record.get(TEAM_MAILBOX))
+            .fold(e -> {
+                throw e;
+            }, teamMailbox -> teamMailbox);
+    }
+}
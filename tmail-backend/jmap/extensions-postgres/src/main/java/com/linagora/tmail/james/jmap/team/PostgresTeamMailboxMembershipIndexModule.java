@@ -0,0 +1,43 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap.team;
+
+import org.apache.james.backends.postgres.PostgresDataDefinition;
+import org.apache.james.events.EventListener;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Scopes;
+import com.google.inject.multibindings.Multibinder;
+import com.linagora.tmail.team.TeamMailboxMembershipIndex;
+import com.linagora.tmail.team.TeamMailboxMembershipIndexListener;
+
+public class PostgresTeamMailboxMembershipIndexModule extends AbstractModule {
+    @Override
+    protected void configure() {
+        Multibinder.newSetBinder(binder(), PostgresDataDefinition.class)
+            .addBinding().toInstance(PostgresTeamMailboxMembershipDataDefinition.MODULE);
+
+        bind(TeamMailboxMembershipIndex.class).to(PostgresTeamMailboxMembershipIndex.class);
+        bind(PostgresTeamMailboxMembershipIndex.class).in(Scopes.SINGLETON);
+
+        Multibinder.newSetBinder(binder(), EventListener.ReactiveGroupEventListener.class)
+            .addBinding()
+            .to(TeamMailboxMembershipIndexListener.class);
+    }
+}
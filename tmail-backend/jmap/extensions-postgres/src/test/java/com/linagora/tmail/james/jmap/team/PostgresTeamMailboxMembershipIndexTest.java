@@ -0,0 +1,45 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap.team;
+
+import org.apache.james.backends.postgres.PostgresDataDefinition;
+import org.apache.james.backends.postgres.PostgresExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linagora.tmail.team.TeamMailboxMembershipIndex;
+import com.linagora.tmail.team.TeamMailboxMembershipIndexContract;
+
+class PostgresTeamMailboxMembershipIndexTest implements TeamMailboxMembershipIndexContract {
+    @RegisterExtension
+    static PostgresExtension postgresExtension = PostgresExtension.withoutRowLevelSecurity(
+        PostgresDataDefinition.aggregateModules(PostgresTeamMailboxMembershipDataDefinition.MODULE));
+
+    private PostgresTeamMailboxMembershipIndex membershipIndex;
+
+    @BeforeEach
+    void setUp() {
+        membershipIndex = new PostgresTeamMailboxMembershipIndex(postgresExtension.getDefaultPostgresExecutor());
+    }
+
+    @Override
+    public TeamMailboxMembershipIndex testee() {
+        return membershipIndex;
+    }
+}
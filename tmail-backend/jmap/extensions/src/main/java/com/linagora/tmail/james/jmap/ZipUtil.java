@@ -18,65 +18,201 @@
 
 package com.linagora.tmail.james.jmap;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.SynchronousSink;
 
 public class ZipUtil {
-    public record ZipEntryStreamSource(InputStream inputStream, String entryName) {}
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZipUtil.class);
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final Set<String> COMPRESSED_MEDIA_TYPE_PREFIXES = ImmutableSet.of("image/", "video/", "audio/");
+    private static final Set<String> COMPRESSED_MEDIA_TYPES = ImmutableSet.of(
+        "application/pdf",
+        "application/zip",
+        "application/gzip",
+        "application/x-gzip",
+        "application/x-bzip2",
+        "application/x-xz",
+        "application/x-7z-compressed",
+        "application/x-rar-compressed",
+        "application/vnd.rar",
+        "application/epub+zip",
+        "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+        "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+        "application/vnd.oasis.opendocument.text",
+        "application/vnd.oasis.opendocument.spreadsheet",
+        "application/vnd.oasis.opendocument.presentation");
+    private static final Set<String> UNCOMPRESSED_IMAGE_TYPES = ImmutableSet.of("image/bmp", "image/svg+xml", "image/tiff", "image/x-ms-bmp");
 
-    public record ZipEntryData(String fileName, String content) {}
-
-    public static class ReactorNettyOutputStream extends OutputStream {
-        private final FluxSink<byte[]> sink;
-
-        public ReactorNettyOutputStream(FluxSink<byte[]> sink) {
-            this.sink = sink;
+    /**
+     * The content is only opened when the archive reaches this entry, so that a single attachment stream is held at a time.
+     */
+    public record ZipEntryStreamSource(Supplier<InputStream> content, String entryName, Optional<String> contentType) {
+        public ZipEntryStreamSource(InputStream inputStream, String entryName) {
+            this(() -> inputStream, entryName, Optional.empty());
         }
 
-        @Override
-        public void write(int b) {
-            sink.next(new byte[]{(byte) b});
+        public ZipEntryStreamSource withEntryName(String newEntryName) {
+            return new ZipEntryStreamSource(content, newEntryName, contentType);
         }
 
-        @Override
-        public void write(byte[] b, int off, int len) {
-            sink.next(java.util.Arrays.copyOfRange(b, off, off + len));
+        boolean isAlreadyCompressed() {
+            return contentType.map(ZipUtil::isAlreadyCompressed)
+                .orElse(false);
         }
     }
 
-    public static Flux<byte[]> createZipStream(Collection<ZipEntryStreamSource> streamSources) {
-        return Flux.create(sink -> {
-            Collection<ZipEntryStreamSource> updatedStreamSources = updateEntryName(streamSources);      // to handle the case of duplicated entry names,
-            try (ZipOutputStream zipOutputStream = new ZipOutputStream(new ReactorNettyOutputStream(sink))) {
-                for (ZipEntryStreamSource streamSource: updatedStreamSources) {
-                    zipOutputStream.putNextEntry(new ZipEntry(streamSource.entryName()));
-                    try (InputStream source = streamSource.inputStream()) {
-                        source.transferTo(zipOutputStream);
-                        zipOutputStream.closeEntry();
-                    }
+    public record ZipEntryData(String fileName, String content) {}
+
+    /**
+     * Writes the archive into a pooled {@link ByteBuf}, whose ownership is handed over to the subscriber once emitted.
+     */
+    private static class ZipGenerationState {
+        private final Iterator<ZipEntryStreamSource> sources;
+        private final ByteBufAllocator allocator;
+        private final byte[] readBuffer;
+        private ByteBuf buffer;
+        private final ZipOutputStream zipOutputStream;
+        private Optional<InputStream> currentEntry;
+        private boolean finished;
+
+        ZipGenerationState(Collection<ZipEntryStreamSource> sources, ByteBufAllocator allocator) {
+            this.sources = sources.iterator();
+            this.allocator = allocator;
+            this.readBuffer = new byte[CHUNK_SIZE];
+            this.buffer = allocator.buffer(CHUNK_SIZE);
+            this.zipOutputStream = new ZipOutputStream(new OutputStream() {
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    buffer.writeBytes(b, off, len);
+                }
+
+                @Override
+                public void write(int b) {
+                    buffer.writeByte(b);
+                }
+            });
+            this.currentEntry = Optional.empty();
+            this.finished = false;
+        }
+
+        ZipGenerationState generate(SynchronousSink<ByteBuf> sink) {
+            try {
+                while (buffer.readableBytes() < CHUNK_SIZE && !finished) {
+                    step();
+                }
+                if (buffer.isReadable()) {
+                    ByteBuf chunk = buffer;
+                    buffer = allocator.buffer(CHUNK_SIZE);
+                    sink.next(chunk);
+                } else {
+                    sink.complete();
                 }
-                zipOutputStream.finish();
-                sink.complete();
             } catch (Exception e) {
                 sink.error(e);
             }
-        });
+            return this;
+        }
+
+        private void step() throws IOException {
+            if (currentEntry.isPresent()) {
+                copyChunk(currentEntry.get());
+            } else if (sources.hasNext()) {
+                openEntry(sources.next());
+            } else {
+                zipOutputStream.finish();
+                finished = true;
+            }
+        }
+
+        private void openEntry(ZipEntryStreamSource source) throws IOException {
+            // Stored deflate blocks: no CPU spent re-compressing media, and no need to know the CRC before writing the data
+            zipOutputStream.setLevel(source.isAlreadyCompressed() ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            zipOutputStream.putNextEntry(new ZipEntry(source.entryName()));
+            currentEntry = Optional.of(source.content().get());
+        }
+
+        private void copyChunk(InputStream inputStream) throws IOException {
+            int read = inputStream.read(readBuffer);
+            if (read == -1) {
+                inputStream.close();
+                currentEntry = Optional.empty();
+                zipOutputStream.closeEntry();
+            } else {
+                zipOutputStream.write(readBuffer, 0, read);
+            }
+        }
+
+        void release() {
+            currentEntry.ifPresent(inputStream -> {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed closing zip entry content", e);
+                }
+            });
+            currentEntry = Optional.empty();
+            try {
+                // Ends the Deflater, whose native memory would otherwise wait for the garbage collector
+                zipOutputStream.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed closing zip output stream", e);
+            }
+            buffer.release();
+        }
+    }
+
+    public static Flux<ByteBuf> createZipStream(Collection<ZipEntryStreamSource> streamSources) {
+        return createZipStream(streamSources, ByteBufAllocator.DEFAULT);
+    }
+
+    /**
+     * Pull based: one chunk of the archive is produced per request, hence a slow client only holds about one chunk
+     * and one opened attachment in memory.
+     */
+    public static Flux<ByteBuf> createZipStream(Collection<ZipEntryStreamSource> streamSources, ByteBufAllocator allocator) {
+        return Flux.generate(
+            () -> new ZipGenerationState(updateEntryName(streamSources), allocator),  // to handle the case of duplicated entry names
+            ZipGenerationState::generate,
+            ZipGenerationState::release);
+    }
+
+    @VisibleForTesting
+    static boolean isAlreadyCompressed(String contentType) {
+        String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.US);
+        if (COMPRESSED_MEDIA_TYPES.contains(mediaType)) {
+            return true;
+        }
+        return COMPRESSED_MEDIA_TYPE_PREFIXES.stream().anyMatch(mediaType::startsWith)
+            && !UNCOMPRESSED_IMAGE_TYPES.contains(mediaType);
     }
 
     public static List<ZipEntryData> readZipData(InputStream inputStream) {
@@ -108,7 +244,7 @@ public class ZipUtil {
 
             if (!nameCount.containsKey(entryName)) {
                 nameCount.put(entryName, 0);
-                result.add(new ZipEntryStreamSource(streamSource.inputStream(), entryName));
+                result.add(streamSource);
             } else {
                 String baseName = "";
                 String extension = "";
@@ -129,7 +265,7 @@ public class ZipUtil {
 
                 nameCount.put(entryName, count - 1);
                 nameCount.put(newEntryName, 0);
-                result.add(new ZipEntryStreamSource(streamSource.inputStream(), newEntryName));
+                result.add(streamSource.withEntryName(newEntryName));
             }
         }
         return result.build();
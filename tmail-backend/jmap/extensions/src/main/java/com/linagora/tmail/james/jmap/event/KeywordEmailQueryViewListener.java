@@ -18,13 +18,13 @@
 
 package com.linagora.tmail.james.jmap.event;
 
-import static org.apache.james.util.ReactorUtils.DEFAULT_CONCURRENCY;
 import static org.apache.james.util.ReactorUtils.LOW_CONCURRENCY;
 
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import jakarta.inject.Inject;
 import jakarta.mail.Flags;
@@ -55,9 +55,12 @@ import org.apache.james.mailbox.model.UpdatedFlags;
 import org.apache.james.util.FunctionalUtils;
 import org.reactivestreams.Publisher;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.linagora.tmail.james.jmap.projections.ConcernedKeywordsExtractor;
 import com.linagora.tmail.james.jmap.projections.KeywordEmailQueryView;
+import com.linagora.tmail.james.jmap.projections.KeywordEmailQueryView.Entry;
+import com.linagora.tmail.james.jmap.projections.KeywordEmailQueryView.EntryKey;
 import com.linagora.tmail.james.jmap.projections.MailboxReadRightsResolver;
 
 import reactor.core.publisher.Flux;
@@ -74,6 +77,12 @@ public class KeywordEmailQueryViewListener implements ReactiveGroupEventListener
     private record KeywordDeleteContext(MessageId messageId, Instant receivedAt) {
     }
 
+    private record KeywordChanges(List<Entry> entriesToSave, List<EntryKey> entriesToDelete) {
+        boolean isEmpty() {
+            return entriesToSave.isEmpty() && entriesToDelete.isEmpty();
+        }
+    }
+
     private static final Group GROUP = new KeywordEmailQueryViewListenerGroup();
     private static final int MESSAGES_BATCH_SIZE = 32;
 
@@ -149,9 +158,12 @@ public class KeywordEmailQueryViewListener implements ReactiveGroupEventListener
                 MailboxSession sourceOwnerSession = mailboxManager.createSystemSession(sourceMailboxOwner);
 
                 return Mono.from(mailboxManager.getMailboxReactive(movedFromMailboxId, sourceOwnerSession))
-                    .flatMap(mailbox -> mailboxReadRightsResolver.usersHavingReadRight(sourceMailboxOwner, mailbox, sourceOwnerSession)
+                    .flatMap(mailbox -> readRightHolders(sourceMailboxOwner, mailbox, sourceOwnerSession)
+                        .flatMapMany(Flux::fromIterable)
                         .concatMap(username -> resolveInaccessibleMessages(added.getAdded().values(), username)
-                            .flatMap(messageMetaData -> deleteKeywords(username, messageMetaData.getFlags(), messageMetaData.getInternalDate().toInstant(), messageMetaData.getMessageId()), LOW_CONCURRENCY))
+                            .flatMapIterable(messageMetaData -> entryKeys(messageMetaData.getFlags(), messageMetaData.getInternalDate().toInstant(), messageMetaData.getMessageId()))
+                            .collectList()
+                            .flatMap(entryKeys -> keywordEmailQueryView.deleteAll(username, entryKeys)))
                         .then());
             });
     }
@@ -160,10 +172,15 @@ public class KeywordEmailQueryViewListener implements ReactiveGroupEventListener
         Username mailboxOwner = added.getMailboxPath().getUser();
         MailboxSession ownerSession = mailboxManager.createSystemSession(mailboxOwner);
 
+        List<Entry> entries = added.getAdded().values()
+            .stream()
+            .flatMap(this::entries)
+            .collect(ImmutableList.toImmutableList());
+
         return Mono.from(mailboxManager.getMailboxReactive(added.getMailboxId(), ownerSession))
-            .flatMap(mailbox -> mailboxReadRightsResolver.usersHavingReadRight(mailboxOwner, mailbox, ownerSession)
-                .concatMap(username -> Flux.fromIterable(added.getAdded().values())
-                    .flatMap(messageMetaData -> saveKeywords(username, messageMetaData), LOW_CONCURRENCY))
+            .flatMap(mailbox -> readRightHolders(mailboxOwner, mailbox, ownerSession)
+                .flatMapMany(Flux::fromIterable)
+                .flatMap(username -> keywordEmailQueryView.saveAll(username, entries), LOW_CONCURRENCY)
                 .then());
     }
 
@@ -175,11 +192,33 @@ public class KeywordEmailQueryViewListener implements ReactiveGroupEventListener
         Username mailboxOwner = flagsUpdated.getMailboxPath().getUser();
         MailboxSession ownerSession = mailboxManager.createSystemSession(mailboxOwner);
 
+        // The keyword changes do not depend on the reader: resolve them once, then write them for every reader
         return Mono.from(mailboxManager.getMailboxReactive(flagsUpdated.getMailboxId(), ownerSession))
-            .flatMap(mailbox -> mailboxReadRightsResolver.usersHavingReadRight(mailboxOwner, mailbox, ownerSession)
-                .concatMap(username -> Flux.fromIterable(flagsUpdated.getUpdatedFlags())
-                    .flatMap(updatedFlags -> applyUpdatedFlags(username, mailbox, ownerSession, updatedFlags), LOW_CONCURRENCY))
-                .then());
+            .flatMap(mailbox -> resolveKeywordChanges(flagsUpdated, mailbox, ownerSession)
+                .filter(keywordChanges -> !keywordChanges.isEmpty())
+                .flatMap(keywordChanges -> readRightHolders(mailboxOwner, mailbox, ownerSession)
+                    .flatMapMany(Flux::fromIterable)
+                    .flatMap(username -> Mono.when(
+                        keywordEmailQueryView.saveAll(username, keywordChanges.entriesToSave()),
+                        keywordEmailQueryView.deleteAll(username, keywordChanges.entriesToDelete())), LOW_CONCURRENCY)
+                    .then()));
+    }
+
+    private Mono<KeywordChanges> resolveKeywordChanges(FlagsUpdated flagsUpdated, MessageManager messageManager, MailboxSession session) {
+        Mono<List<Entry>> entriesToSave = Flux.fromIterable(flagsUpdated.getUpdatedFlags())
+            .flatMap(updatedFlags -> resolveEntriesToSave(messageManager, session, updatedFlags), LOW_CONCURRENCY)
+            .collect(ImmutableList.toImmutableList());
+        Mono<List<EntryKey>> entriesToDelete = Flux.fromIterable(flagsUpdated.getUpdatedFlags())
+            .flatMap(updatedFlags -> resolveEntriesToDelete(messageManager, session, updatedFlags), LOW_CONCURRENCY)
+            .collect(ImmutableList.toImmutableList());
+
+        return Mono.zip(entriesToSave, entriesToDelete)
+            .map(tuple -> new KeywordChanges(tuple.getT1(), tuple.getT2()));
+    }
+
+    private Mono<List<Username>> readRightHolders(Username mailboxOwner, MessageManager mailbox, MailboxSession ownerSession) {
+        return mailboxReadRightsResolver.usersHavingReadRight(mailboxOwner, mailbox, ownerSession)
+            .collect(ImmutableList.toImmutableList());
     }
 
     private Mono<Void> handleMailboxACLUpdated(MailboxACLUpdated mailboxACLUpdated) {
@@ -199,35 +238,30 @@ public class KeywordEmailQueryViewListener implements ReactiveGroupEventListener
             .then();
     }
 
-    private Mono<Void> applyUpdatedFlags(Username username, MessageManager messageManager, MailboxSession session, UpdatedFlags updatedFlags) {
-        Set<Keyword> oldKeywords = concernedKeywordsExtractor.extract(updatedFlags.getOldFlags());
-        Set<Keyword> newKeywords = concernedKeywordsExtractor.extract(updatedFlags.getNewFlags());
-        Set<Keyword> keywordsToDelete = subtract(oldKeywords, newKeywords);
-        Set<Keyword> keywordsToAdd = subtract(newKeywords, oldKeywords);
+    private Flux<Entry> resolveEntriesToSave(MessageManager messageManager, MailboxSession session, UpdatedFlags updatedFlags) {
+        Set<Keyword> keywordsToAdd = subtract(concernedKeywordsExtractor.extract(updatedFlags.getNewFlags()),
+            concernedKeywordsExtractor.extract(updatedFlags.getOldFlags()));
+        if (keywordsToAdd.isEmpty()) {
+            return Flux.empty();
+        }
 
-        return Mono.when(resolveKeywordsAdditionOperation(username, messageManager, session, updatedFlags, keywordsToAdd),
-                resolveKeywordsRemovalOperation(username, messageManager, session, updatedFlags, keywordsToDelete))
-            .then();
+        return resolveKeywordSaveContext(updatedFlags, messageManager, session)
+            .flatMapIterable(keywordSaveContext -> keywordsToAdd.stream()
+                .map(keyword -> new Entry(keyword, keywordSaveContext.receivedAt(), keywordSaveContext.messageId(), keywordSaveContext.threadId()))
+                .collect(ImmutableList.toImmutableList()));
     }
 
-    private Mono<Void> resolveKeywordsRemovalOperation(Username username, MessageManager messageManager, MailboxSession session,
-                                                       UpdatedFlags updatedFlags, Set<Keyword> keywordsToDelete) {
+    private Flux<EntryKey> resolveEntriesToDelete(MessageManager messageManager, MailboxSession session, UpdatedFlags updatedFlags) {
+        Set<Keyword> keywordsToDelete = subtract(concernedKeywordsExtractor.extract(updatedFlags.getOldFlags()),
+            concernedKeywordsExtractor.extract(updatedFlags.getNewFlags()));
         if (keywordsToDelete.isEmpty()) {
-            return Mono.empty();
+            return Flux.empty();
         }
 
         return resolveKeywordDeleteContext(updatedFlags, messageManager, session)
-            .flatMap(keywordDeleteContext -> deleteKeywords(username, keywordsToDelete, keywordDeleteContext.receivedAt(), keywordDeleteContext.messageId()));
-    }
-
-    private Mono<Void> resolveKeywordsAdditionOperation(Username username, MessageManager messageManager, MailboxSession session,
-                                                        UpdatedFlags updatedFlags, Set<Keyword> keywordsToAdd) {
-        if (keywordsToAdd.isEmpty()) {
-            return Mono.empty();
-        }
-
-        return resolveKeywordSaveContext(updatedFlags, messageManager, session)
-            .flatMap(keywordSaveContext -> saveKeywords(username, keywordsToAdd, keywordSaveContext));
+            .flatMapIterable(keywordDeleteContext -> keywordsToDelete.stream()
+                .map(keyword -> new EntryKey(keyword, keywordDeleteContext.receivedAt(), keywordDeleteContext.messageId()))
+                .collect(ImmutableList.toImmutableList()));
     }
 
     private Mono<KeywordDeleteContext> resolveKeywordDeleteContext(UpdatedFlags updatedFlags, MessageManager messageManager, MailboxSession session) {
@@ -247,33 +281,36 @@ public class KeywordEmailQueryViewListener implements ReactiveGroupEventListener
             .map(this::toSaveContext);
     }
 
-    private Mono<Void> saveKeywords(Username username, MessageMetaData messageMetaData) {
-        return saveKeywords(username,
-            concernedKeywordsExtractor.extract(messageMetaData.getFlags()),
+    private Stream<Entry> entries(MessageMetaData messageMetaData) {
+        return entries(concernedKeywordsExtractor.extract(messageMetaData.getFlags()),
             new KeywordSaveContext(messageMetaData.getMessageId(), messageMetaData.getThreadId(), messageMetaData.getInternalDate().toInstant()));
     }
 
-    private Mono<Void> saveKeywords(Username username, Set<Keyword> keywords, KeywordSaveContext messageContext) {
-        return Flux.fromIterable(keywords)
-            .flatMap(keyword -> keywordEmailQueryView.save(username, keyword, messageContext.receivedAt(), messageContext.messageId(), messageContext.threadId()), DEFAULT_CONCURRENCY)
-            .then();
+    private Stream<Entry> entries(Set<Keyword> keywords, KeywordSaveContext messageContext) {
+        return keywords.stream()
+            .map(keyword -> new Entry(keyword, messageContext.receivedAt(), messageContext.messageId(), messageContext.threadId()));
     }
 
-    private Mono<Void> deleteKeywords(Username username, Flags flags, Instant receivedAt, MessageId messageId) {
-        return deleteKeywords(username, concernedKeywordsExtractor.extract(flags), receivedAt, messageId);
+    private List<EntryKey> entryKeys(Flags flags, Instant receivedAt, MessageId messageId) {
+        return concernedKeywordsExtractor.extract(flags)
+            .stream()
+            .map(keyword -> new EntryKey(keyword, receivedAt, messageId))
+            .collect(ImmutableList.toImmutableList());
     }
 
-    private Mono<Void> deleteKeywords(Username username, Set<Keyword> keywords, Instant receivedAt, MessageId messageId) {
-        return Flux.fromIterable(keywords)
-            .flatMap(keyword -> keywordEmailQueryView.delete(username, keyword, receivedAt, messageId), DEFAULT_CONCURRENCY)
-            .then();
+    private Mono<Void> deleteKeywords(Username username, Flags flags, Instant receivedAt, MessageId messageId) {
+        return keywordEmailQueryView.deleteAll(username, entryKeys(flags, receivedAt, messageId));
     }
 
     private Mono<Void> indexKeywordViewForMailbox(MailboxId mailboxId, Username sharee) {
         MailboxSession shareeSession = mailboxManager.createSystemSession(sharee);
 
         return getMessagesInSharedMailbox(mailboxId, shareeSession)
-            .flatMap(messageResult -> saveKeywords(sharee, concernedKeywordsExtractor.extract(messageResult.getFlags()), toSaveContext(messageResult)), LOW_CONCURRENCY)
+            .window(MESSAGES_BATCH_SIZE)
+            .concatMap(window -> window.flatMapIterable(messageResult -> entries(concernedKeywordsExtractor.extract(messageResult.getFlags()), toSaveContext(messageResult))
+                    .collect(ImmutableList.toImmutableList()))
+                .collectList()
+                .flatMap(entries -> keywordEmailQueryView.saveAll(sharee, entries)))
             .then();
     }
 
@@ -285,7 +322,9 @@ public class KeywordEmailQueryViewListener implements ReactiveGroupEventListener
             .window(MESSAGES_BATCH_SIZE)
             .concatMap(window -> window.collectList()
                 .flatMapMany(messageResults -> resolveInaccessibleMessages(messageResults, shareeSession))
-                .flatMap(messageResult -> deleteKeywords(sharee, messageResult.getFlags(), messageResult.getInternalDate().toInstant(), messageResult.getMessageId()), LOW_CONCURRENCY))
+                .flatMapIterable(messageResult -> entryKeys(messageResult.getFlags(), messageResult.getInternalDate().toInstant(), messageResult.getMessageId()))
+                .collectList()
+                .flatMap(entryKeys -> keywordEmailQueryView.deleteAll(sharee, entryKeys)))
             .then();
     }
 
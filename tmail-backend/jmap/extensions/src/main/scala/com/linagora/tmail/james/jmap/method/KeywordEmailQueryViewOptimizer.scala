@@ -18,39 +18,83 @@
 
 package com.linagora.tmail.james.jmap.method
 
-import java.time.Instant
+import java.time.{Duration, Instant}
 import java.util.Optional
 
+import com.google.common.cache.{Cache, CacheBuilder}
 import com.linagora.tmail.james.jmap.JMAPExtensionConfiguration
-import com.linagora.tmail.james.jmap.method.KeywordEmailQueryViewOptimizer.FORBIDDEN_SYSTEM_FLAGS
+import com.linagora.tmail.james.jmap.method.KeywordEmailQueryViewOptimizer.{ANCHOR_CACHE_MAX_SIZE, ANCHOR_CACHE_TTL, AnchorKey, CachedAnchor, FORBIDDEN_SYSTEM_FLAGS}
 import com.linagora.tmail.james.jmap.projections.KeywordEmailQueryView
-import com.linagora.tmail.james.jmap.projections.KeywordEmailQueryView.Options
+import com.linagora.tmail.james.jmap.projections.KeywordEmailQueryView.{Anchor, KeywordsOperator, Options}
 import jakarta.inject.Inject
+import org.apache.james.core.Username
 import org.apache.james.jmap.core.Limit.Limit
 import org.apache.james.jmap.core.Position.Position
-import org.apache.james.jmap.mail.{CollapseThreads, Comparator, EmailQueryRequest, FilterCondition, FilterQuery, Keyword}
+import org.apache.james.jmap.mail.{And, CollapseThreads, Comparator, EmailQueryRequest, FilterCondition, FilterOperator, FilterQuery, Keyword, Or}
 import org.apache.james.jmap.method.EmailQueryOptimizer
 import org.apache.james.mailbox.MailboxSession
 import org.apache.james.mailbox.model.MultimailboxesSearchQuery.Namespace
 import org.apache.james.mailbox.model.{MessageId, MultimailboxesSearchQuery}
 import org.apache.james.util.streams.{Limit => JavaLimit}
-import reactor.core.scala.publisher.SFlux
+import reactor.core.scala.publisher.{SFlux, SMono}
 
+import scala.jdk.CollectionConverters._
 import scala.jdk.OptionConverters._
 
 object KeywordEmailQueryViewOptimizer {
   val FORBIDDEN_SYSTEM_FLAGS = List(Keyword.RECENT, Keyword.DELETED, Keyword.DRAFT, Keyword.ANSWERED, Keyword.FORWARDED, Keyword.SEEN)
+  val ANCHOR_CACHE_MAX_SIZE: Long = 10000L
+  val ANCHOR_CACHE_TTL: Duration = Duration.ofMinutes(5)
+
+  // Identifies the position of a page within a given keyword listing
+  case class AnchorKey(username: Username, keyword: Keyword, before: Optional[Instant], after: Optional[Instant], position: Int)
+
+  // Last message of a served page, along with the first message of the listing when it was served
+  case class CachedAnchor(head: Anchor, anchor: Anchor)
 }
 
 class KeywordEmailQueryViewOptimizer @Inject() (val configuration: JMAPExtensionConfiguration,
                                                 val keywordEmailQueryView: KeywordEmailQueryView) extends EmailQueryOptimizer {
+  // Remembers where the pages served so far ended, so that the next page can be resumed from an anchor instead of
+  // reading and discarding `position` rows. Entries are checked against the projection before being used.
+  private val anchorCache: Cache[AnchorKey, CachedAnchor] = CacheBuilder.newBuilder()
+    .maximumSize(ANCHOR_CACHE_MAX_SIZE)
+    .expireAfterWrite(ANCHOR_CACHE_TTL)
+    .build[AnchorKey, CachedAnchor]()
+
   override def apply(request: EmailQueryRequest, session: MailboxSession, searchQuery: MultimailboxesSearchQuery, position: Position, limit: Limit): Option[SFlux[MessageId]] =
     request match {
       case request: EmailQueryRequest if matchesInKeywordSortedByReceivedAt(request) =>
         Some(keywordQueryViewForListingSortedByReceivedAt(session, position, limit, request, searchQuery.getNamespace))
+      case request: EmailQueryRequest if matchesKeywordsCombinationSortedByReceivedAt(request) =>
+        Some(keywordQueryViewForCombinationSortedByReceivedAt(session, position, limit, request))
+      case _ => None
+    }
+
+  private def matchesKeywordsCombinationSortedByReceivedAt(request: EmailQueryRequest): Boolean =
+    configuration.viewKeywordQueryEnabled &&
+      !request.collapseThreads.exists(_.value) &&
+      request.filter.flatMap(keywordsCombination).nonEmpty &&
+      request.sort.contains(Set(Comparator.RECEIVED_AT_DESC))
+
+  private def keywordsCombination(filterQuery: FilterQuery): Option[(KeywordsOperator, Set[Keyword])] =
+    filterQuery match {
+      case FilterOperator(operator, conditions) if conditions.nonEmpty && conditions.forall(isCombinableKeywordCondition) =>
+        val keywords: Set[Keyword] = conditions.flatMap(_.asInstanceOf[FilterCondition].hasKeyword).toSet
+        operator match {
+          case And => Some((KeywordsOperator.AND, keywords))
+          case Or => Some((KeywordsOperator.OR, keywords))
+          case _ => None
+        }
       case _ => None
     }
 
+  private def isCombinableKeywordCondition(filterQuery: FilterQuery): Boolean =
+    keywordOnlyFilter(filterQuery) &&
+      isAllowedKeyword(filterQuery) &&
+      filterQuery.asInstanceOf[FilterCondition].before.isEmpty &&
+      filterQuery.asInstanceOf[FilterCondition].after.isEmpty
+
   private def matchesInKeywordSortedByReceivedAt(request: EmailQueryRequest): Boolean =
     configuration.viewKeywordQueryEnabled &&
       request.filter.nonEmpty &&
@@ -103,10 +147,69 @@ class KeywordEmailQueryViewOptimizer @Inject() (val configuration: JMAPExtension
     val before: Optional[Instant] = condition.before.map(_.asUTC.toInstant).toJava
     val after: Optional[Instant] = condition.after.map(_.asUTC.toInstant).toJava
 
-    val options: Options = new Options(before, after, JavaLimit.from(limitToUse.value + position.value), collapseThreads)
+    if (collapseThreads) {
+      val options: Options = new Options(before, after, JavaLimit.from(limitToUse.value + position.value), collapseThreads)
+
+      SFlux.fromPublisher(keywordEmailQueryView
+          .listMessagesByKeyword(mailboxSession.getUser, keyword, options))
+        .drop(position.value)
+        .take(limitToUse.value)
+    } else {
+      anchoredListing(mailboxSession.getUser, keyword, before, after, position, limitToUse)
+    }
+  }
+
+  private def anchoredListing(username: Username, keyword: Keyword, before: Optional[Instant], after: Optional[Instant], position: Position, limitToUse: Limit): SFlux[MessageId] = {
+    val pageKey: AnchorKey = AnchorKey(username, keyword, before, after, position.value)
+    val pageOptions: Options = new Options(before, after, JavaLimit.from(limitToUse.value), false)
+
+    val page: SMono[(Option[Anchor], Seq[Anchor])] = Option.when(position.value > 0)(pageKey)
+      .flatMap(key => Option(anchorCache.getIfPresent(key))) match {
+      case Some(cachedAnchor) => isValid(username, keyword, pageOptions, cachedAnchor)
+        .flatMap(valid => if (valid) {
+          SFlux.fromPublisher(keywordEmailQueryView.listAnchorsByKeyword(username, keyword, pageOptions.withAnchor(cachedAnchor.anchor)))
+            .collectSeq()
+            .map(anchors => (Some(cachedAnchor.head), anchors))
+        } else {
+          readAndDrop(username, keyword, before, after, position, limitToUse)
+        })
+      case None => readAndDrop(username, keyword, before, after, position, limitToUse)
+    }
+
+    page.doOnNext {
+        case (head, anchors) => head.zip(anchors.lastOption)
+          .foreach { case (firstAnchor, lastAnchor) => anchorCache.put(pageKey.copy(position = position.value + anchors.size), CachedAnchor(firstAnchor, lastAnchor)) }
+      }
+      .flatMapMany { case (_, anchors) => SFlux.fromIterable(anchors.map(_.messageId())) }
+  }
+
+  // Resuming from the anchor matches the requested position as long as the anchored message is still listed and no
+  // message was added on top of the listing, which is where new mails land
+  private def isValid(username: Username, keyword: Keyword, pageOptions: Options, cachedAnchor: CachedAnchor): SMono[Boolean] =
+    SMono.fromPublisher(keywordEmailQueryView.contains(username, keyword, cachedAnchor.anchor))
+      .map(_.booleanValue())
+      .zip(SFlux.fromPublisher(keywordEmailQueryView.listAnchorsByKeyword(username, keyword,
+          new Options(pageOptions.before(), pageOptions.after(), JavaLimit.from(1), false)))
+        .next()
+        .map(head => head.equals(cachedAnchor.head))
+        .defaultIfEmpty(false))
+      .map { case (anchorStillListed, headUnchanged) => anchorStillListed && headUnchanged }
+
+  private def readAndDrop(username: Username, keyword: Keyword, before: Optional[Instant], after: Optional[Instant], position: Position, limitToUse: Limit): SMono[(Option[Anchor], Seq[Anchor])] =
+    SFlux.fromPublisher(keywordEmailQueryView.listAnchorsByKeyword(username, keyword,
+        new Options(before, after, JavaLimit.from(limitToUse.value + position.value), false)))
+      .index()
+      .filter { case (index, _) => index == 0 || index >= position.value }
+      .collectSeq()
+      .map(indexedAnchors => (indexedAnchors.headOption.map(_._2),
+        indexedAnchors.filter { case (index, _) => index >= position.value }.map(_._2)))
+
+  private def keywordQueryViewForCombinationSortedByReceivedAt(mailboxSession: MailboxSession, position: Position, limitToUse: Limit, request: EmailQueryRequest): SFlux[MessageId] = {
+    val (operator, keywords) = keywordsCombination(request.filter.get).get
+    val options: Options = new Options(Optional.empty(), Optional.empty(), JavaLimit.from(limitToUse.value + position.value), false)
 
     SFlux.fromPublisher(keywordEmailQueryView
-        .listMessagesByKeyword(mailboxSession.getUser, keyword, options))
+        .listMessagesByKeywords(mailboxSession.getUser, keywords.asJava, operator, options))
       .drop(position.value)
       .take(limitToUse.value)
   }
@@ -18,7 +18,7 @@
 
 package com.linagora.tmail.james.jmap.routes
 
-import java.util.stream
+import java.util.{Optional, stream}
 import java.util.stream.Stream
 
 import com.google.common.base.CharMatcher
@@ -29,7 +29,6 @@ import com.linagora.tmail.james.jmap.ZipUtil
 import com.linagora.tmail.james.jmap.ZipUtil.ZipEntryStreamSource
 import com.linagora.tmail.james.jmap.method.CapabilityIdentifier.LINAGORA_DOWNLOAD_ALL
 import com.linagora.tmail.james.jmap.routes.DownloadAllRoutes.{DEFAULT_FILE_NAME, ZIP_CONTENT_TYPE, respondDetails}
-import io.netty.buffer.Unpooled
 import io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE
 import io.netty.handler.codec.http.HttpResponseStatus.{FORBIDDEN, INTERNAL_SERVER_ERROR, NOT_FOUND, OK, UNAUTHORIZED}
 import io.netty.handler.codec.http.{HttpHeaderNames, HttpMethod, QueryStringDecoder}
@@ -43,10 +42,9 @@ import org.apache.james.jmap.http.Authenticator
 import org.apache.james.jmap.http.rfc8621.InjectionKeys
 import org.apache.james.jmap.method.AccountNotFoundException
 import org.apache.james.jmap.routes.DownloadRoutes.LOGGER
-import org.apache.james.jmap.routes.{AttachmentBlob, Blob, ForbiddenException}
+import org.apache.james.jmap.routes.ForbiddenException
 import org.apache.james.jmap.{Endpoint, JMAPRoute, JMAPRoutes}
-import org.apache.james.mailbox.model.{AttachmentId, AttachmentMetadata, FetchGroup, MessageId, MessageResult, ParsedAttachment}
-import org.apache.james.mailbox.store.mail.AttachmentIdAssignationStrategy
+import org.apache.james.mailbox.model.{AttachmentMetadata, FetchGroup, MessageId, MessageResult, ParsedAttachment}
 import org.apache.james.mailbox.store.mail.model.impl.MessageParser
 import org.apache.james.mailbox.store.mail.model.impl.MessageParser.ParsingResult
 import org.apache.james.mailbox.{AttachmentManager, MailboxSession, MessageIdManager}
@@ -71,8 +69,6 @@ object DownloadAllRoutes {
     DownloadResponseUtils.respondDetails(httpServerResponse, details)
 }
 
-case class BlobWithName(blob: Blob, name: String)
-
 case class MessageNotFoundException(id: String, cause: Throwable = null) extends RuntimeException(cause)
 
 case class DownloadAllCapabilityProperties(endpoint: URL) extends CapabilityProperties {
@@ -107,7 +103,6 @@ class DownloadAllRoutes @Inject()(@Named(InjectionKeys.RFC_8621) val authenticat
                                   val messageIdManager: MessageIdManager,
                                   val messageIdFactory: MessageId.Factory,
                                   val attachmentManager: AttachmentManager,
-                                  val attachmentIdAssignationStrategy: AttachmentIdAssignationStrategy,
                                   val messageParser: MessageParser,
                                   val metricFactory: MetricFactory) extends JMAPRoutes {
 
@@ -162,66 +157,69 @@ class DownloadAllRoutes @Inject()(@Named(InjectionKeys.RFC_8621) val authenticat
     val id: String = request.param(emailIdParam)
     SMono.fromCallable(() => messageIdFactory.fromString(id: String))
       .onErrorResume(e => SMono.error(MessageNotFoundException(id, e)))
-      .flatMap(messageId => SFlux(messageIdManager.getMessagesReactive(ImmutableList.of(messageId), FetchGroup.FULL_CONTENT, mailboxSession))
-        .next()
-        .switchIfEmpty(SMono.error(MessageNotFoundException(id)))
+      // Stored attachments are known from the message metadata: the raw message is only read for the parsing fallback
+      .flatMap(messageId => getMessage(messageId, FetchGroup.HEADERS_WITH_ATTACHMENTS_METADATA, mailboxSession)
         .flatMap(messageResult => handleMessageResult(request, response, messageResult, mailboxSession)))
   }
 
+  private def getMessage(messageId: MessageId, fetchGroup: FetchGroup, mailboxSession: MailboxSession): SMono[MessageResult] =
+    SFlux(messageIdManager.getMessagesReactive(ImmutableList.of(messageId), fetchGroup, mailboxSession))
+      .next()
+      .switchIfEmpty(SMono.error(MessageNotFoundException(messageId.serialize())))
+
   private def handleMessageResult(request: HttpServerRequest, response: HttpServerResponse, messageResult: MessageResult, mailboxSession: MailboxSession) = {
     SFlux.fromIterable(messageResult.getLoadedAttachments.asScala)
       .filter(attachment => !attachment.isInline)
-      .flatMap(attachment => getBlob(attachment.getAttachmentId, mailboxSession)
-        .map(blob => BlobWithName(blob, attachment.getName.orElse(DEFAULT_FILE_NAME))))
+      .flatMap(attachment => SMono(attachmentManager.getAttachmentReactive(attachment.getAttachmentId, mailboxSession))
+        .map(attachmentMetadata => zipEntry(attachmentMetadata, attachment.getName.orElse(DEFAULT_FILE_NAME), mailboxSession)))
       .collectSeq()
-      .flatMap(blobs => downloadBlobsWithFallback(request, response, blobs, messageResult))
+      .flatMap(entries => downloadEntriesWithFallback(request, response, entries, messageResult.getMessageId, mailboxSession))
   }
 
-  private def downloadBlobsWithFallback(request: HttpServerRequest, response: HttpServerResponse, blobs: Seq[BlobWithName], messageResult: MessageResult): SMono[Unit] =
-    if (blobs.isEmpty) {
-      SMono.fromPublisher(Mono.usingWhen(getAttachments(messageResult),
-        (parsingResult: ParsingResult) => parsingFallback(request, response, parsingResult, messageResult.getMessageId),
+  private def downloadEntriesWithFallback(request: HttpServerRequest, response: HttpServerResponse, entries: Seq[ZipEntryStreamSource],
+                                          messageId: MessageId, mailboxSession: MailboxSession): SMono[Unit] =
+    if (entries.isEmpty) {
+      SMono.fromPublisher(Mono.usingWhen(getMessage(messageId, FetchGroup.FULL_CONTENT, mailboxSession).flatMap(getAttachments),
+        (parsingResult: ParsingResult) => parsingFallback(request, response, parsingResult),
         (parsingResult: ParsingResult) => Mono.fromRunnable(() => parsingResult.dispose())))
     } else {
-      downloadBlobs(optionalName = queryParam(request, nameParam), response = response, blobs)
+      downloadEntries(optionalName = queryParam(request, nameParam), response = response, entries)
         .`then`()
     }
 
-  private def parsingFallback(request: HttpServerRequest, response: HttpServerResponse, parsingResult: ParsingResult, messageId: MessageId) =
-    Mono.from(SFlux.fromIterable(parsingResult.getAttachments.asScala)
-      .filter(attachment => !attachment.isInline)
-      .flatMap(attachment => getBlob(attachment, messageId)
-        .map(blob => BlobWithName(blob, attachment.getName.orElse(DEFAULT_FILE_NAME))))
-      .collectSeq()
-      .flatMap(parsedBlobs => downloadBlobs(optionalName = queryParam(request, nameParam), response = response, parsedBlobs))
+  private def parsingFallback(request: HttpServerRequest, response: HttpServerResponse, parsingResult: ParsingResult) =
+    Mono.from(downloadEntries(optionalName = queryParam(request, nameParam), response = response,
+      parsingResult.getAttachments.asScala.toSeq
+        .filter(attachment => !attachment.isInline)
+        .map(zipEntry))
       .`then`())
 
   private def getAttachments(messageResult: MessageResult): SMono[MessageParser.ParsingResult] =
     SMono.fromCallable(() => messageParser.retrieveAttachments(messageResult.getFullContent.getInputStream))
 
-  private def getBlob(attachmentId: AttachmentId, mailboxSession: MailboxSession): SMono[Blob] =
-    SMono(attachmentManager.getAttachmentReactive(attachmentId, mailboxSession))
-      .flatMap(attachmentMetadata => SMono(attachmentManager.loadReactive(attachmentMetadata, mailboxSession))
-        .map(content => AttachmentBlob(attachmentMetadata, content)))
-
-  private def getBlob(attachment: ParsedAttachment, messageId: MessageId): SMono[Blob] =
-    SMono.just(AttachmentBlob(AttachmentMetadata.builder
-        .attachmentId(attachmentIdAssignationStrategy.assign(attachment, messageId))
-        .`type`(attachment.getContentType)
-        .size(attachment.getContent.size)
-        .messageId(messageId)
-      .build, attachment.getContent.openStream()))
-
-  private def downloadBlobs(optionalName: Option[String],
-                           response: HttpServerResponse,
-                           blobs: Seq[BlobWithName]): SMono[Unit] = {
+  // Attachment content is only loaded once the archive reaches its entry, the archive is generated on a bounded elastic thread.
+  // This spares holding every attachment while answering, at a price: the 200 status and the headers are already sent by
+  // then, so a missing or unreadable blob truncates the archive instead of leading to a 404 or a 500.
+  private def zipEntry(attachmentMetadata: AttachmentMetadata, name: String, mailboxSession: MailboxSession): ZipEntryStreamSource =
+    new ZipEntryStreamSource(() => SMono(attachmentManager.loadReactive(attachmentMetadata, mailboxSession))
+        .doOnError(e => LOGGER.error("Failed loading attachment {} while streaming an archive, the archive is truncated",
+          attachmentMetadata.getAttachmentId.getId, e))
+        .block(),
+      name, Optional.of(attachmentMetadata.getType.asString()))
+
+  private def zipEntry(attachment: ParsedAttachment): ZipEntryStreamSource =
+    new ZipEntryStreamSource(() => attachment.getContent.openStream(),
+      attachment.getName.orElse(DEFAULT_FILE_NAME), Optional.of(attachment.getContentType.asString()))
+
+  private def downloadEntries(optionalName: Option[String],
+                              response: HttpServerResponse,
+                              entries: Seq[ZipEntryStreamSource]): SMono[Unit] = {
     SMono(addContentDispositionHeader(optionalName)
       .compose(addCacheControlHeader())
       .apply(response)
       .header(CONTENT_TYPE, ZIP_CONTENT_TYPE)
       .status(OK)
-      .send(ZipUtil.createZipStream(blobs.map(blobWithName => new ZipEntryStreamSource(blobWithName.blob.content, blobWithName.name)).asJavaCollection)
-        .map(Unpooled.wrappedBuffer(_))
+      .send(ZipUtil.createZipStream(entries.asJavaCollection, response.alloc())
         .subscribeOn(Schedulers.boundedElastic()))
       .`then`())
       .`then`()
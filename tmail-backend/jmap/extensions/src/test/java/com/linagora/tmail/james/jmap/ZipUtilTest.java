@@ -0,0 +1,127 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.james.jmap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+import io.netty.buffer.ByteBuf;
+import reactor.core.publisher.Flux;
+
+class ZipUtilTest {
+    private static byte[] toBytes(Flux<ByteBuf> chunks) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        chunks.doOnNext(chunk -> {
+                byte[] bytes = new byte[chunk.readableBytes()];
+                chunk.readBytes(bytes);
+                outputStream.writeBytes(bytes);
+                chunk.release();
+            })
+            .blockLast();
+        return outputStream.toByteArray();
+    }
+
+    private static ZipUtil.ZipEntryStreamSource entry(String name, String contentType, String content, AtomicInteger openedCount) {
+        return new ZipUtil.ZipEntryStreamSource(() -> {
+            openedCount.incrementAndGet();
+            return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }, name, Optional.of(contentType));
+    }
+
+    @Test
+    void createZipStreamShouldRoundTrip() {
+        AtomicInteger openedCount = new AtomicInteger();
+        String bigContent = Strings.repeat("0123456789", 100_000);
+
+        byte[] zip = toBytes(ZipUtil.createZipStream(ImmutableList.of(
+            entry("text.txt", "text/plain", bigContent, openedCount),
+            entry("image.jpg", "image/jpeg; name=image.jpg", "jpeg content", openedCount),
+            entry("text.txt", "text/plain", "duplicated name", openedCount))));
+
+        assertThat(ZipUtil.readZipData(new ByteArrayInputStream(zip)))
+            .containsExactly(new ZipUtil.ZipEntryData("text.txt", bigContent),
+                new ZipUtil.ZipEntryData("image.jpg", "jpeg content"),
+                new ZipUtil.ZipEntryData("text_1.txt", "duplicated name"));
+    }
+
+    @Test
+    void createZipStreamShouldOpenEntriesOnDemand() {
+        AtomicInteger openedCount = new AtomicInteger();
+        byte[] incompressibleContent = new byte[1024 * 1024];
+        new Random().nextBytes(incompressibleContent);
+        List<ZipUtil.ZipEntryStreamSource> sources = ImmutableList.of(
+            new ZipUtil.ZipEntryStreamSource(() -> {
+                openedCount.incrementAndGet();
+                return new ByteArrayInputStream(incompressibleContent);
+            }, "a.jpg", Optional.of("image/jpeg")),
+            entry("b.txt", "text/plain", "b", openedCount));
+
+        ByteBuf firstChunk = ZipUtil.createZipStream(sources).blockFirst();
+        firstChunk.release();
+
+        assertThat(openedCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void createZipStreamShouldCloseTheCurrentEntryUponCancellation() {
+        AtomicInteger closedCount = new AtomicInteger();
+        byte[] incompressibleContent = new byte[1024 * 1024];
+        new Random().nextBytes(incompressibleContent);
+        InputStream content = new ByteArrayInputStream(incompressibleContent) {
+            @Override
+            public void close() {
+                closedCount.incrementAndGet();
+            }
+        };
+
+        ZipUtil.createZipStream(ImmutableList.of(new ZipUtil.ZipEntryStreamSource(() -> content, "a.jpg", Optional.of("image/jpeg"))))
+            .take(1)
+            .doOnNext(ByteBuf::release)
+            .blockLast();
+
+        assertThat(closedCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void mediaAlreadyCompressedShouldBeDetected() {
+        assertThat(ZipUtil.isAlreadyCompressed("image/jpeg")).isTrue();
+        assertThat(ZipUtil.isAlreadyCompressed("APPLICATION/PDF; name=doc.pdf")).isTrue();
+        assertThat(ZipUtil.isAlreadyCompressed("application/zip")).isTrue();
+    }
+
+    @Test
+    void compressibleMediaShouldNotBeConsideredAsCompressed() {
+        assertThat(ZipUtil.isAlreadyCompressed("text/plain")).isFalse();
+        assertThat(ZipUtil.isAlreadyCompressed("image/bmp")).isFalse();
+        assertThat(ZipUtil.isAlreadyCompressed("application/octet-stream")).isFalse();
+    }
+}
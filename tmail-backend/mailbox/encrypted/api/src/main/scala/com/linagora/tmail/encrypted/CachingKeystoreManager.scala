@@ -0,0 +1,103 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.encrypted
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicLong
+
+import com.google.common.annotations.VisibleForTesting
+import com.google.common.cache.{Cache, CacheBuilder}
+import org.apache.james.core.Username
+import org.apache.james.metrics.api.{Metric, MetricFactory}
+import org.bouncycastle.openpgp.PGPPublicKey
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+object CachingKeystoreManager {
+  val DEFAULT_TTL: Duration = Duration.ofMinutes(1)
+  val DEFAULT_MAXIMUM_SIZE: Long = 10000
+}
+
+/**
+ * Keeps the parsed encryption keys of each user node-locally, so that appending into an encrypted mailbox neither
+ * hits the keystore nor re-parses the armored keys.
+ *
+ * Writes going through this keystore invalidate the cached keys of the user right away. As writes issued on other
+ * nodes are not propagated, entries expire after a short TTL.
+ */
+class CachingKeystoreManager(underlying: KeystoreManager,
+                             metricFactory: MetricFactory,
+                             ttl: Duration,
+                             maximumSize: Long) extends KeystoreManager {
+
+  def this(underlying: KeystoreManager, metricFactory: MetricFactory) =
+    this(underlying, metricFactory, CachingKeystoreManager.DEFAULT_TTL, CachingKeystoreManager.DEFAULT_MAXIMUM_SIZE)
+
+  private val cache: Cache[Username, Seq[PGPPublicKey]] = CacheBuilder.newBuilder()
+    .maximumSize(maximumSize)
+    .expireAfterWrite(ttl)
+    .build()
+  // Bumped on every invalidation so that a load racing with a write do not populate the cache with stale keys
+  private val invalidationGeneration: AtomicLong = new AtomicLong()
+  private val hitMetric: Metric = metricFactory.generate("keystore-encryption-keys-cache-hit")
+  private val missMetric: Metric = metricFactory.generate("keystore-encryption-keys-cache-miss")
+
+  override def save(username: Username, payload: Array[Byte]): Publisher[KeyId] =
+    SMono.fromPublisher(underlying.save(username, payload))
+      .doFinally(_ => invalidate(username))
+
+  override def listPublicKeys(username: Username): Publisher[PublicKey] = underlying.listPublicKeys(username)
+
+  override def retrieveKey(username: Username, id: KeyId): Publisher[PublicKey] = underlying.retrieveKey(username, id)
+
+  override def delete(username: Username, id: KeyId): Publisher[Void] =
+    SMono.fromPublisher(underlying.delete(username, id))
+      .doFinally(_ => invalidate(username))
+
+  override def deleteAll(username: Username): Publisher[Void] =
+    SMono.fromPublisher(underlying.deleteAll(username))
+      .doFinally(_ => invalidate(username))
+
+  override def listEncryptionKeys(username: Username): Publisher[PGPPublicKey] =
+    Option(cache.getIfPresent(username))
+      .map(keys => {
+        hitMetric.increment()
+        SFlux.fromIterable(keys)
+      })
+      .getOrElse(loadEncryptionKeys(username))
+
+  private def loadEncryptionKeys(username: Username): SFlux[PGPPublicKey] = {
+    missMetric.increment()
+    val generation: Long = invalidationGeneration.get()
+    SFlux.fromPublisher(underlying.listEncryptionKeys(username))
+      .collectSeq()
+      .doOnNext(keys => {
+        if (generation == invalidationGeneration.get()) {
+          cache.put(username, keys)
+        }
+      })
+      .flatMapMany(keys => SFlux.fromIterable(keys))
+  }
+
+  @VisibleForTesting
+  def invalidate(username: Username): Unit = {
+    invalidationGeneration.incrementAndGet()
+    cache.invalidate(username)
+  }
+}
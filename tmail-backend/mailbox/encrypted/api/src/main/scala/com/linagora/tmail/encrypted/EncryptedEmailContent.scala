@@ -64,7 +64,7 @@ class EncryptedEmailContentFactory(encrypter: Encrypter) {
   private def encrypt(byteSource: ByteSource): String = {
     val stream: ByteArrayOutputStream = new ByteArrayOutputStream
     encrypter.encrypt(byteSource, stream)
-    new String(stream.toByteArray, StandardCharsets.UTF_8)
+    stream.toString(StandardCharsets.UTF_8)
   }
 
   private def encrypt(value: String): String =
@@ -22,6 +22,7 @@ import java.io.InputStream
 import java.util
 import java.util.Date
 
+import com.linagora.tmail.encrypted.EncryptedMessageManager.EncryptedAppend
 import com.linagora.tmail.pgp.Encrypter
 import jakarta.inject.Inject
 import jakarta.mail.Flags
@@ -33,10 +34,23 @@ import org.apache.james.mime4j.dom.Message
 import org.apache.james.mime4j.dom.field.ContentTypeField
 import org.apache.james.mime4j.message.DefaultMessageBuilder
 import org.apache.james.mime4j.stream.MimeConfig
+import org.apache.james.util.ReactorUtils
+import org.bouncycastle.openpgp.PGPPublicKey
 import org.reactivestreams.Publisher
 import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.{Scheduler, Schedulers}
 
 import scala.jdk.CollectionConverters._
+import scala.util.Using
+
+object EncryptedMessageManager {
+  // Encryption is CPU bound and holds a copy of the message being appended: bounding its concurrency bounds the memory
+  // it consumes, and keeps it away from the threads serving the protocols.
+  private val CRYPTO_SCHEDULER: Scheduler = Schedulers.newBoundedElastic(Runtime.getRuntime.availableProcessors(),
+    ReactorUtils.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "encrypted-mailbox-crypto")
+
+  private[encrypted] case class EncryptedAppend(encrypter: Encrypter, encryptedMessage: Message, clearContent: ClearEmailContent)
+}
 
 class EncryptedMessageManager @Inject()(messageManager: MessageManager,
                                         keystoreManager: KeystoreManager,
@@ -88,46 +102,51 @@ class EncryptedMessageManager @Inject()(messageManager: MessageManager,
   override def getResolvedAcl(mailboxSession: MailboxSession): MailboxACL = messageManager.getResolvedAcl(mailboxSession)
 
   private def append(appendCommand: AppendCommand, session: MailboxSession): SMono[AppendResult] =
-    SFlux.fromPublisher(keystoreManager.listPublicKeys(session.getUser))
+    SFlux.fromPublisher(keystoreManager.listEncryptionKeys(session.getUser))
       .collectSeq()
       .flatMap(keys => {
         if (keys.isEmpty || !getMailboxPath.getNamespace.equals(MailboxConstants.USER_NAMESPACE)) {
           SMono.fromPublisher(messageManager.appendMessageReactive(appendCommand, session))
         } else {
-          val messageBuilder: DefaultMessageBuilder = new DefaultMessageBuilder()
-          messageBuilder.setMimeEntityConfig(MimeConfig.PERMISSIVE)
-          messageBuilder.setDecodeMonitor(DecodeMonitor.SILENT)
-          val clearMessage: Message = messageBuilder.parseMessage(appendCommand.getMsgIn.getInputStream)
-          if (isMessageEncrypted(clearMessage)) {
-            SMono.fromPublisher(messageManager.appendMessageReactive(appendCommand, session))
-          } else {
-            clearEmailContentFactory.from(clearMessage)
-              .fold(e => SMono.error(e),
-                clearContent => storeEncryptedMessage(session, keys, clearMessage, clearContent))
-          }
+          SMono.fromCallable(() => encrypt(appendCommand, keys))
+            .subscribeOn(EncryptedMessageManager.CRYPTO_SCHEDULER)
+            .flatMap {
+              case None => SMono.fromPublisher(messageManager.appendMessageReactive(appendCommand, session))
+              case Some(encryptedAppend) => storeEncryptedMessage(session, encryptedAppend)
+            }
         }
       })
 
+  private def encrypt(appendCommand: AppendCommand, keys: Seq[PGPPublicKey]): Option[EncryptedAppend] = {
+    val messageBuilder: DefaultMessageBuilder = new DefaultMessageBuilder()
+    messageBuilder.setMimeEntityConfig(MimeConfig.PERMISSIVE)
+    messageBuilder.setDecodeMonitor(DecodeMonitor.SILENT)
+    val clearMessage: Message = messageBuilder.parseMessage(appendCommand.getMsgIn.getInputStream)
+    if (isMessageEncrypted(clearMessage)) {
+      None
+    } else {
+      val clearContent: ClearEmailContent = clearEmailContentFactory.from(clearMessage).get
+      val encrypter: Encrypter = Encrypter.forPublicKeys(keys.asJava)
+      // The raw content is encrypted as it is read, rather than serializing back the parsed message into a clear copy
+      val encryptedMessage: Message = Using.resource(appendCommand.getMsgIn.getInputStream)(rawMessage =>
+        encrypter.encrypt(clearMessage.getHeader, rawMessage))
+      Some(EncryptedAppend(encrypter, encryptedMessage, clearContent))
+    }
+  }
+
   private def isMessageEncrypted(message: Message): Boolean =
     Option(message.getHeader.getField("Content-Type").asInstanceOf[ContentTypeField])
       .exists(field => field.getMediaType.equals("multipart") && field.getSubType.equals("encrypted"))
 
-  private def storeEncryptedMessage(session: MailboxSession,
-                                    keys: Seq[PublicKey],
-                                    clearMessage: Message,
-                                    clearContent: ClearEmailContent): SMono[AppendResult] = {
-    val encrypter = Encrypter.forKeys(keys.map(key => key.key).asJava)
-    val encryptedMessage: Message = encrypter
-      .encrypt(clearMessage)
-
-    SMono.fromPublisher(messageManager.appendMessageReactive(AppendCommand.from(encryptedMessage), session))
+  private def storeEncryptedMessage(session: MailboxSession, encryptedAppend: EncryptedAppend): SMono[AppendResult] =
+    SMono.fromPublisher(messageManager.appendMessageReactive(AppendCommand.from(encryptedAppend.encryptedMessage), session))
       .flatMap(appendResult => {
         val messageId = appendResult.getId.getMessageId
-        val encryptedEmailContent = new EncryptedEmailContentFactory(encrypter).encrypt(clearContent, messageId)
-        SMono(encryptedEmailContentStore.store(messageId, encryptedEmailContent))
+        SMono.fromCallable(() => new EncryptedEmailContentFactory(encryptedAppend.encrypter).encrypt(encryptedAppend.clearContent, messageId))
+          .subscribeOn(EncryptedMessageManager.CRYPTO_SCHEDULER)
+          .flatMap(encryptedEmailContent => SMono(encryptedEmailContentStore.store(messageId, encryptedEmailContent)))
           .`then`(SMono.just(appendResult))
       })
-  }
 
   override def getMailboxCountersReactive(mailboxSession: MailboxSession): Publisher[MailboxCounters] = messageManager.getMailboxCountersReactive(mailboxSession)
 
@@ -18,9 +18,14 @@
 
 package com.linagora.tmail.encrypted
 
+import java.io.ByteArrayInputStream
+
 import com.google.common.io.BaseEncoding
+import com.linagora.tmail.pgp.Encrypter
 import org.apache.james.core.Username
+import org.bouncycastle.openpgp.PGPPublicKey
 import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SFlux
 
 object KeyId {
   def fromPayload(payload: Array[Byte]): KeyId = KeyId(BaseEncoding.base16().encode(payload))
@@ -44,4 +49,11 @@ trait KeystoreManager {
   def delete(username: Username, id: KeyId): Publisher[Void]
 
   def deleteAll(username: Username): Publisher[Void]
+
+  /**
+   * Parsed form of the keys of a user, ready to be fed to an encrypter.
+   */
+  def listEncryptionKeys(username: Username): Publisher[PGPPublicKey] =
+    SFlux.fromPublisher(listPublicKeys(username))
+      .map(publicKey => Encrypter.readPublicKey(new ByteArrayInputStream(publicKey.key)))
 }
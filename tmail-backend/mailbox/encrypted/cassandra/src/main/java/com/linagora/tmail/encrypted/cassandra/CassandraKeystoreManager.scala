@@ -22,13 +22,14 @@ import java.io.ByteArrayInputStream
 
 import com.google.common.io.BaseEncoding
 import com.google.inject.multibindings.Multibinder
-import com.google.inject.{AbstractModule, Scopes}
+import com.google.inject.{AbstractModule, Provides, Scopes, Singleton}
 import com.linagora.tmail.encrypted.cassandra.table.CassandraKeystoreModule
-import com.linagora.tmail.encrypted.{KeyId, KeystoreManager, PGPKeysUserDeletionTaskStep, PGPKeysUsernameChangeTaskStep, PublicKey}
+import com.linagora.tmail.encrypted.{CachingKeystoreManager, KeyId, KeystoreManager, PGPKeysUserDeletionTaskStep, PGPKeysUsernameChangeTaskStep, PublicKey}
 import com.linagora.tmail.pgp.Encrypter
 import jakarta.inject.Inject
 import org.apache.james.backends.cassandra.components.CassandraDataDefinition
 import org.apache.james.core.Username
+import org.apache.james.metrics.api.MetricFactory
 import org.apache.james.user.api.{DeleteUserDataTaskStep, UsernameChangeTaskStep}
 import org.reactivestreams.Publisher
 import reactor.core.scala.publisher.SMono
@@ -40,8 +41,6 @@ case class KeystoreCassandraModule() extends AbstractModule {
     bind(classOf[CassandraKeystoreManager]).in(Scopes.SINGLETON)
     bind(classOf[CassandraKeystoreDAO]).in(Scopes.SINGLETON)
 
-    bind(classOf[KeystoreManager]).to(classOf[CassandraKeystoreManager])
-
     Multibinder.newSetBinder(binder, classOf[CassandraDataDefinition])
       .addBinding()
       .toInstance(CassandraKeystoreModule.MODULE)
@@ -54,6 +53,11 @@ case class KeystoreCassandraModule() extends AbstractModule {
       .addBinding()
       .to(classOf[PGPKeysUserDeletionTaskStep])
   }
+
+  @Provides
+  @Singleton
+  def provideKeystoreManager(keystoreManager: CassandraKeystoreManager, metricFactory: MetricFactory): KeystoreManager =
+    new CachingKeystoreManager(keystoreManager, metricFactory)
 }
 
 class CassandraKeystoreManager @Inject()(cassandraKeystoreDAO: CassandraKeystoreDAO) extends KeystoreManager {
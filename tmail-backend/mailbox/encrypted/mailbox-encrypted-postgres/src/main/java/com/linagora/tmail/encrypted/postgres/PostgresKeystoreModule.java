@@ -19,12 +19,16 @@
 package com.linagora.tmail.encrypted.postgres;
 
 import org.apache.james.backends.postgres.PostgresDataDefinition;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.user.api.DeleteUserDataTaskStep;
 import org.apache.james.user.api.UsernameChangeTaskStep;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.linagora.tmail.encrypted.CachingKeystoreManager;
 import com.linagora.tmail.encrypted.KeystoreManager;
 import com.linagora.tmail.encrypted.PGPKeysUserDeletionTaskStep;
 import com.linagora.tmail.encrypted.PGPKeysUsernameChangeTaskStep;
@@ -32,7 +36,6 @@ import com.linagora.tmail.encrypted.PGPKeysUsernameChangeTaskStep;
 public class PostgresKeystoreModule extends AbstractModule {
     @Override
     protected void configure() {
-        bind(KeystoreManager.class).to(PostgresKeystoreManager.class);
         bind(PostgresKeystoreManager.class).in(Scopes.SINGLETON);
 
         Multibinder<PostgresDataDefinition> postgresDataDefinitions = Multibinder.newSetBinder(binder(), PostgresDataDefinition.class);
@@ -41,4 +44,10 @@ public class PostgresKeystoreModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), UsernameChangeTaskStep.class).addBinding().to(PGPKeysUsernameChangeTaskStep.class);
         Multibinder.newSetBinder(binder(), DeleteUserDataTaskStep.class).addBinding().to(PGPKeysUserDeletionTaskStep.class);
     }
+
+    @Provides
+    @Singleton
+    KeystoreManager provideKeystoreManager(PostgresKeystoreManager keystoreManager, MetricFactory metricFactory) {
+        return new CachingKeystoreManager(keystoreManager, metricFactory);
+    }
 }
@@ -22,9 +22,10 @@ import java.io.ByteArrayInputStream
 
 import com.google.common.io.BaseEncoding
 import com.google.inject.multibindings.Multibinder
-import com.google.inject.{AbstractModule, Scopes}
+import com.google.inject.{AbstractModule, Provides, Scopes, Singleton}
 import com.linagora.tmail.pgp.Encrypter
 import org.apache.james.core.Username
+import org.apache.james.metrics.api.MetricFactory
 import org.apache.james.user.api.{DeleteUserDataTaskStep, UsernameChangeTaskStep}
 import org.reactivestreams.Publisher
 import reactor.core.scala.publisher.{SFlux, SMono}
@@ -35,7 +36,6 @@ case class KeystoreMemoryModule() extends AbstractModule {
   override def configure(): Unit = {
     bind(classOf[InMemoryKeystoreManager]).in(Scopes.SINGLETON)
 
-    bind(classOf[KeystoreManager]).to(classOf[InMemoryKeystoreManager])
     Multibinder.newSetBinder(binder(), classOf[UsernameChangeTaskStep])
       .addBinding()
       .to(classOf[PGPKeysUsernameChangeTaskStep])
@@ -44,6 +44,11 @@ case class KeystoreMemoryModule() extends AbstractModule {
       .addBinding()
       .to(classOf[PGPKeysUserDeletionTaskStep])
   }
+
+  @Provides
+  @Singleton
+  def provideKeystoreManager(keystoreManager: InMemoryKeystoreManager, metricFactory: MetricFactory): KeystoreManager =
+    new CachingKeystoreManager(keystoreManager, metricFactory)
 }
 
 class InMemoryKeystoreManager (keystore: scala.collection.concurrent.Map[Username, Set[PublicKey]]) extends KeystoreManager {
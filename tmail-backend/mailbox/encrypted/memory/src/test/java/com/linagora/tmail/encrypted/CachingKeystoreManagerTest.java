@@ -0,0 +1,111 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.encrypted;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.james.core.Username;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class CachingKeystoreManagerTest implements KeystoreManagerContract {
+    private static final Username BOB = Username.of("bob@domain.tld");
+
+    private InMemoryKeystoreManager underlying;
+    private RecordingMetricFactory metricFactory;
+    private CachingKeystoreManager store;
+
+    @BeforeEach
+    void setUp() {
+        underlying = new InMemoryKeystoreManager();
+        metricFactory = new RecordingMetricFactory();
+        store = new CachingKeystoreManager(underlying, metricFactory);
+    }
+
+    @Override
+    public KeystoreManager keyStoreManager() {
+        return store;
+    }
+
+    private byte[] payload(String resource) throws Exception {
+        return ClassLoader.getSystemClassLoader().getResourceAsStream(resource).readAllBytes();
+    }
+
+    @Test
+    void listEncryptionKeysShouldBeServedFromCache() throws Exception {
+        Mono.from(store.save(BOB, payload("gpg.pub"))).block();
+
+        Flux.from(store.listEncryptionKeys(BOB)).collectList().block();
+
+        assertThat(Flux.from(store.listEncryptionKeys(BOB)).collectList().block()).hasSize(1);
+        assertThat(metricFactory.countFor("keystore-encryption-keys-cache-miss")).isEqualTo(1);
+        assertThat(metricFactory.countFor("keystore-encryption-keys-cache-hit")).isEqualTo(1);
+    }
+
+    @Test
+    void listEncryptionKeysShouldCacheUsersWithoutKeys() {
+        Flux.from(store.listEncryptionKeys(BOB)).collectList().block();
+
+        assertThat(Flux.from(store.listEncryptionKeys(BOB)).collectList().block()).isEmpty();
+        assertThat(metricFactory.countFor("keystore-encryption-keys-cache-hit")).isEqualTo(1);
+    }
+
+    @Test
+    void saveShouldInvalidateCachedKeys() throws Exception {
+        Flux.from(store.listEncryptionKeys(BOB)).collectList().block();
+
+        Mono.from(store.save(BOB, payload("gpg.pub"))).block();
+
+        assertThat(Flux.from(store.listEncryptionKeys(BOB)).collectList().block()).hasSize(1);
+    }
+
+    @Test
+    void deleteShouldInvalidateCachedKeys() throws Exception {
+        KeyId keyId = Mono.from(store.save(BOB, payload("gpg.pub"))).block();
+        Flux.from(store.listEncryptionKeys(BOB)).collectList().block();
+
+        Mono.from(store.delete(BOB, keyId)).block();
+
+        assertThat(Flux.from(store.listEncryptionKeys(BOB)).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void deleteAllShouldInvalidateCachedKeys() throws Exception {
+        Mono.from(store.save(BOB, payload("gpg.pub"))).block();
+        Flux.from(store.listEncryptionKeys(BOB)).collectList().block();
+
+        Mono.from(store.deleteAll(BOB)).block();
+
+        assertThat(Flux.from(store.listEncryptionKeys(BOB)).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void writesBypassingTheCacheShouldBeVisibleAfterInvalidation() throws Exception {
+        Flux.from(store.listEncryptionKeys(BOB)).collectList().block();
+        Mono.from(underlying.save(BOB, payload("gpg.pub"))).block();
+
+        store.invalidate(BOB);
+
+        assertThat(Flux.from(store.listEncryptionKeys(BOB)).collectList().block()).hasSize(1);
+    }
+}
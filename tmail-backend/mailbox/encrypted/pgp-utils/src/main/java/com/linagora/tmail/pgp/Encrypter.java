@@ -20,6 +20,7 @@ package com.linagora.tmail.pgp;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
@@ -56,7 +57,19 @@ import com.google.common.io.ByteSource;
 import com.google.common.io.FileBackedOutputStream;
 
 public class Encrypter {
+    @FunctionalInterface
+    private interface LiteralDataOpener {
+        OutputStream open(OutputStream compressedOutStream) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        void write(OutputStream literalDataOutStream) throws Exception;
+    }
+
     private static final int FILE_THRESHOLD = 100 * 1024;
+    private static final int BUFFER_SIZE = 100 * 1024;
+    private static final String LITERAL_DATA_FILE_NAME = "encrypted.pgp";
 
     public static Encrypter forKeys(Collection<byte[]> armoredKeys) {
         return new Encrypter(createEncryptor(armoredKeys));
@@ -66,15 +79,29 @@ public class Encrypter {
         return forKeys(ImmutableList.copyOf(armoredKeys));
     }
 
+    /**
+     * Builds an encrypter out of already parsed keys, sparing the armored key parsing when the caller holds them.
+     *
+     * {@link PGPPublicKey} are immutable and can be shared, however the resulting encrypter is not thread safe.
+     */
+    public static Encrypter forPublicKeys(Collection<PGPPublicKey> publicKeys) {
+        return new Encrypter(createEncryptorForPublicKeys(publicKeys));
+    }
+
     private static PGPEncryptedDataGenerator createEncryptor(Collection<byte[]> armoredKeys) {
+        return createEncryptorForPublicKeys(armoredKeys.stream()
+            .map(ByteArrayInputStream::new)
+            .map(Throwing.function(Encrypter::readPublicKey))
+            .collect(ImmutableList.toImmutableList()));
+    }
+
+    private static PGPEncryptedDataGenerator createEncryptorForPublicKeys(Collection<PGPPublicKey> publicKeys) {
         PGPEncryptedDataGenerator pgpEncryptedDataGenerator = new PGPEncryptedDataGenerator(new JcePGPDataEncryptorBuilder(PGPEncryptedData.AES_128)
             .setSecureRandom(new SecureRandom())
             .setProvider("BC")
             .setWithIntegrityPacket(true));
 
-        armoredKeys.stream()
-            .map(ByteArrayInputStream::new)
-            .map(Throwing.function(Encrypter::readPublicKey))
+        publicKeys.stream()
             .map(JcePublicKeyKeyEncryptionMethodGenerator::new)
             .forEach(pgpEncryptedDataGenerator::addMethod);
         return pgpEncryptedDataGenerator;
@@ -99,56 +126,82 @@ public class Encrypter {
     }
 
     public void encrypt(ByteSource byteSource, OutputStream output) throws Exception {
+        try (InputStream input = byteSource.openBufferedStream()) {
+            encryptLiteralData(output, compressedOutStream -> new PGPLiteralDataGenerator().open(compressedOutStream, PGPLiteralData.BINARY,
+                LITERAL_DATA_FILE_NAME, byteSource.size(), new Date()), input::transferTo);
+        }
+    }
+
+    // Partial length packets let the clear content be streamed without knowing its size upfront
+    private OutputStream openPartialLiteralData(OutputStream compressedOutStream) throws IOException {
+        return new PGPLiteralDataGenerator().open(compressedOutStream, PGPLiteralData.BINARY,
+            LITERAL_DATA_FILE_NAME, new Date(), new byte[BUFFER_SIZE]);
+    }
+
+    private void encryptLiteralData(OutputStream output,
+                                    LiteralDataOpener literalDataOpener,
+                                    ContentWriter clearContentWriter) throws Exception {
         PGPCompressedDataGenerator compressor = new PGPCompressedDataGenerator(PGPCompressedData.ZIP);
-        PGPLiteralDataGenerator literalDataGenerator = new PGPLiteralDataGenerator();
 
         try (ArmoredOutputStream armoredOutputStream = new ArmoredOutputStream(output);
-            OutputStream encryptedOutStream = pgpEncryptedDataGenerator.open(armoredOutputStream, new byte[100 * 1024]);
+            OutputStream encryptedOutStream = pgpEncryptedDataGenerator.open(armoredOutputStream, new byte[BUFFER_SIZE]);
             OutputStream compressedOutStream = compressor.open(encryptedOutStream);
-            OutputStream literalDataOutStream = literalDataGenerator.open(compressedOutStream, PGPLiteralData.BINARY,
-                "encrypted.pgp", byteSource.size(), new Date())) {
-            byteSource.openBufferedStream().transferTo(literalDataOutStream);
+            OutputStream literalDataOutStream = literalDataOpener.open(compressedOutStream)) {
+            clearContentWriter.write(literalDataOutStream);
         }
     }
 
     public Message encrypt(Message clearMessage) throws Exception {
+        DefaultMessageWriter defaultMessageWriter = new DefaultMessageWriter();
+        return encryptMessage(clearMessage.getHeader(), literalDataOutStream -> defaultMessageWriter.writeMessage(clearMessage, literalDataOutStream));
+    }
+
+    /**
+     * Encrypts the raw bytes of a message as they are streamed, sparing the serialization of a parsed message into a
+     * temporary clear copy.
+     *
+     * @param clearHeader the header of the clear message, copied as is apart from its Content-Type
+     * @param rawMessage the full clear message, headers included
+     */
+    public Message encrypt(Header clearHeader, InputStream rawMessage) throws Exception {
+        return encryptMessage(clearHeader, rawMessage::transferTo);
+    }
+
+    private Message encryptMessage(Header clearHeader, ContentWriter clearMessageWriter) throws Exception {
         DefaultMessageBuilder messageBuilder = new DefaultMessageBuilder();
         BasicBodyFactory basicBodyFactory = new BasicBodyFactory();
-        DefaultMessageWriter defaultMessageWriter = new DefaultMessageWriter();
-        FileBackedOutputStream clearOutputStream = new FileBackedOutputStream(FILE_THRESHOLD);
         FileBackedOutputStream encryptedOutputStream = new FileBackedOutputStream(FILE_THRESHOLD);
-        BufferedOutputStream bufferedEncryptedOutputStream = new BufferedOutputStream(encryptedOutputStream);
-        BufferedOutputStream bufferedClearOutputStream = new BufferedOutputStream(clearOutputStream);
 
         try {
-            defaultMessageWriter.writeMessage(clearMessage, bufferedClearOutputStream);
-            bufferedClearOutputStream.close();
-            encrypt(clearOutputStream.asByteSource(), bufferedEncryptedOutputStream);
-            bufferedEncryptedOutputStream.close();
-
-            Message encryptedMessage = messageBuilder.newMessage();
-            Header header = messageBuilder.newHeader(clearMessage.getHeader());
+            try (BufferedOutputStream bufferedEncryptedOutputStream = new BufferedOutputStream(encryptedOutputStream)) {
+                encryptLiteralData(bufferedEncryptedOutputStream, this::openPartialLiteralData,
+                    literalDataOutStream -> {
+                        BufferedOutputStream bufferedLiteralDataOutStream = new BufferedOutputStream(literalDataOutStream);
+                        clearMessageWriter.write(bufferedLiteralDataOutStream);
+                        bufferedLiteralDataOutStream.flush();
+                    });
+            }
+
+            Header header = messageBuilder.newHeader(clearHeader);
             header.removeFields("Content-Type");
-            encryptedMessage.setHeader(header);
 
             Multipart multipart = messageBuilder.newMultipart("encrypted", new NameValuePair("protocol", "application/pgp-encrypted"));
             multipart.addBodyPart(new BodyPartBuilder()
                 .setBody(basicBodyFactory.binaryBody("Version: 1".getBytes(StandardCharsets.UTF_8)))
                 .setContentType("application/pgp-encrypted")
                 .build());
-            multipart.addBodyPart(new BodyPartBuilder()
-                .setContentType("application/octet-stream")
-                .setBody(basicBodyFactory.binaryBody(encryptedOutputStream.asByteSource().openStream()))
-                .build());
+            try (InputStream encryptedContent = encryptedOutputStream.asByteSource().openStream()) {
+                multipart.addBodyPart(new BodyPartBuilder()
+                    .setContentType("application/octet-stream")
+                    .setBody(basicBodyFactory.binaryBody(encryptedContent))
+                    .build());
+            }
+
+            Message.Builder encryptedMessage = Message.Builder.of();
+            header.getFields().forEach(encryptedMessage::addField);
             encryptedMessage.setBody(multipart);
-
-
-            final Message.Builder of = Message.Builder.of();
-            header.getFields().forEach(of::addField);
-            of.setBody(multipart);
-            return of.build();
+            return encryptedMessage.build();
         } finally {
-            clearOutputStream.reset();
             encryptedOutputStream.reset();
         }
     }
@@ -0,0 +1,108 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.pgp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.security.Provider;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.message.DefaultMessageBuilder;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import com.google.common.base.Strings;
+
+/**
+ * Compares encrypting a 20 MB message by serializing back its parsed form against streaming its raw bytes.
+ *
+ * The GC profiler reports the bytes allocated per append (gc.alloc.rate.norm), as the memory cost of each path.
+ */
+public class EncrypterBenchmark {
+    private static final int MESSAGE_SIZE = 20 * 1024 * 1024;
+
+    @State(Scope.Benchmark)
+    public static class Messages {
+        public byte[] rawMessage;
+        public Message parsedMessage;
+        public Encrypter encrypter;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            String bouncyCastleProviderClassName = "org.bouncycastle.jce.provider.BouncyCastleProvider";
+            Security.addProvider((Provider) Class.forName(bouncyCastleProviderClassName).getDeclaredConstructor().newInstance());
+
+            String line = Strings.repeat("a", 998) + "\r\n";
+            rawMessage = ("Subject: big message\r\n" +
+                "Content-Type: text/plain; charset=UTF-8\r\n" +
+                "\r\n" +
+                Strings.repeat(line, MESSAGE_SIZE / line.length()))
+                .getBytes(UTF_8);
+            parsedMessage = new DefaultMessageBuilder().parseMessage(new ByteArrayInputStream(rawMessage));
+            encrypter = Encrypter.forKeys(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes());
+        }
+    }
+
+    @Disabled("Benchmark, excluded from the build. Run it with: mvn test -Dtest=EncrypterBenchmark "
+        + "-Djunit.jupiter.conditions.deactivate=org.junit.*DisabledCondition")
+    @Test
+    public void launchBenchmark() throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(this.getClass().getName() + ".*")
+            .mode(Mode.AverageTime)
+            .timeUnit(TimeUnit.MILLISECONDS)
+            .warmupTime(TimeValue.seconds(5))
+            .warmupIterations(2)
+            .measurementTime(TimeValue.seconds(5))
+            .measurementIterations(3)
+            .threads(1)
+            .forks(1)
+            .shouldFailOnError(true)
+            .shouldDoGC(true)
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    @Benchmark
+    public void encryptParsedMessage(Messages messages, Blackhole blackhole) throws Exception {
+        blackhole.consume(messages.encrypter.encrypt(messages.parsedMessage));
+    }
+
+    @Benchmark
+    public void encryptRawMessage(Messages messages, Blackhole blackhole) throws Exception {
+        blackhole.consume(messages.encrypter.encrypt(messages.parsedMessage.getHeader(), new ByteArrayInputStream(messages.rawMessage)));
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.james.mime4j.dom.Message;
 import org.apache.james.mime4j.dom.Multipart;
 import org.apache.james.mime4j.field.Fields;
 import org.apache.james.mime4j.message.BodyPartBuilder;
+import org.apache.james.mime4j.message.DefaultMessageBuilder;
 import org.apache.james.mime4j.message.DefaultMessageWriter;
 import org.apache.james.mime4j.message.MultipartBuilder;
 import org.apache.james.mime4j.message.SingleBodyBuilder;
@@ -202,4 +203,31 @@ class EncrypterTest {
                 ---=Part.0.9726a619aa3f23a9.178aa7b7a6b.e3060dccb56a8d65=---\r
                 """);
     }
-}
\ No newline at end of file
+
+    @Test
+    void encryptRawMessageShouldPreserveTheRawBytes() throws Exception {
+        String rawMessage = "Subject: small message\r\n" +
+            "Content-Type: text/plain;  charset=UTF-8\r\n" +
+            "\r\n" +
+            "not normalized    \r\n";
+        Message clearMessage = new DefaultMessageBuilder()
+            .parseMessage(new ByteArrayInputStream(rawMessage.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] keyBytes1 = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+
+        Message encryptedMessage = Encrypter.forKeys(keyBytes1)
+            .encrypt(clearMessage.getHeader(), new ByteArrayInputStream(rawMessage.getBytes(StandardCharsets.UTF_8)));
+
+        Multipart encryptedMultiPart = (Multipart) encryptedMessage.getBody();
+        ByteArrayOutputStream encryptedBodyBytes = new ByteArrayOutputStream();
+        new DefaultMessageWriter().writeBody(encryptedMultiPart.getBodyParts().get(1).getBody(), encryptedBodyBytes);
+
+        byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+            .decrypt(new ByteArrayInputStream(encryptedBodyBytes.toByteArray()))
+            .readAllBytes();
+
+        assertThat(encryptedMessage.getSubject()).isEqualTo("small message");
+        assertThat(encryptedMessage.getMimeType()).isEqualTo("multipart/encrypted");
+        assertThat(new String(decryptedPayload, StandardCharsets.UTF_8)).isEqualTo(rawMessage);
+    }
+}
@@ -24,7 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.stream.Stream;
@@ -48,17 +48,25 @@ import org.apache.james.mailbox.model.MessageId;
 import org.apache.james.mailbox.model.MessageMetaData;
 import org.apache.james.mailbox.model.MessageResult;
 import org.apache.james.mailbox.model.UpdatedFlags;
+import org.apache.james.mime4j.MimeException;
 import org.apache.james.mime4j.codec.DecodeMonitor;
-import org.apache.james.mime4j.dom.Message;
 import org.apache.james.mime4j.dom.address.AddressList;
 import org.apache.james.mime4j.dom.address.Mailbox;
-import org.apache.james.mime4j.message.DefaultMessageBuilder;
+import org.apache.james.mime4j.dom.field.AddressListField;
+import org.apache.james.mime4j.dom.field.MailboxListField;
+import org.apache.james.mime4j.dom.field.ParsedField;
+import org.apache.james.mime4j.field.LenientFieldParser;
+import org.apache.james.mime4j.parser.AbstractContentHandler;
+import org.apache.james.mime4j.parser.MimeStreamParser;
+import org.apache.james.mime4j.stream.Field;
 import org.apache.james.mime4j.stream.MimeConfig;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.linagora.tmail.james.jmap.contact.ContactAddIndexingProcessor;
 import com.linagora.tmail.james.jmap.contact.ContactFields;
 
@@ -80,6 +88,7 @@ public class CollectTrustedContactsListener implements EventListener.ReactiveGro
         .findFirst();
     private static final Group GROUP = new CollectTrustedContactsListenerGroup();
     private static final Logger LOGGER = LoggerFactory.getLogger(CollectTrustedContactsListener.class);
+    private static final ImmutableSet<String> ADDRESS_FIELDS = ImmutableSet.of("from", "to", "cc");
 
     private final MailboxManager mailboxManager;
     private final MessageIdManager messageIdManager;
@@ -140,7 +149,8 @@ public class CollectTrustedContactsListener implements EventListener.ReactiveGro
         MailboxSession mailboxSession = mailboxManager.createSystemSession(username);
 
         Flux<ContactFields> contacts = Flux.from(messageIdManager.getMessagesReactive(messageIds, FetchGroup.HEADERS, mailboxSession))
-            .flatMap(messageResult -> extractContacts(messageResult, username));
+            .flatMap(messageResult -> extractContacts(messageResult, username))
+            .distinct(ContactFields::address);
 
         return applyCollectLimit(contacts)
             .flatMap(contact -> Mono.from(contactAddIndexingProcessor.process(username, contact)), LOW_CONCURRENCY)
@@ -151,8 +161,6 @@ public class CollectTrustedContactsListener implements EventListener.ReactiveGro
         return COLLECT_LIMIT.isPresent() ? flux.take(COLLECT_LIMIT.getAsLong()) : flux;
     }
 
-
-
     private boolean hasTrustedFlag(MailboxEvents.Added addedEvent) {
         return addedEvent.getAdded()
             .values()
@@ -177,36 +185,53 @@ public class CollectTrustedContactsListener implements EventListener.ReactiveGro
     }
 
     private Flux<ContactFields> extractContacts(MessageResult messageResult, Username username) {
-        return parseMessage(messageResult)
-            .flatMapMany(parsedMessage -> Flux.fromStream(allMailboxes(parsedMessage))
+        return parseAddressFields(messageResult)
+            .flatMapMany(addressFields -> Flux.fromStream(addressFields.stream().flatMap(this::mailboxes))
                 .flatMap(mailbox -> Mono.justOrEmpty(asContact(mailbox, username)), LOW_CONCURRENCY))
             .filter(contact -> !isEventUser(contact, username));
     }
 
-    private Mono<Message> parseMessage(MessageResult messageResult) {
+    // Streams the header block only: parsing stops at its end, and address fields are parsed lazily once collected
+    private Mono<List<Field>> parseAddressFields(MessageResult messageResult) {
         return Mono.fromCallable(() -> {
-            try (InputStream inputStream = messageResult.getFullContent().getInputStream()) {
-                DefaultMessageBuilder messageBuilder = new DefaultMessageBuilder();
-                messageBuilder.setMimeEntityConfig(MimeConfig.PERMISSIVE);
-                messageBuilder.setDecodeMonitor(DecodeMonitor.SILENT);
-                return messageBuilder.parseMessage(inputStream);
-            } catch (IOException | MailboxException e) {
+            try (InputStream inputStream = messageResult.getHeaders().getInputStream()) {
+                ImmutableList.Builder<Field> addressFields = ImmutableList.builder();
+                MimeStreamParser parser = new MimeStreamParser(MimeConfig.PERMISSIVE);
+                parser.setContentHandler(new AbstractContentHandler() {
+                    @Override
+                    public void field(Field field) {
+                        if (ADDRESS_FIELDS.contains(field.getName().toLowerCase(Locale.US))) {
+                            addressFields.add(field);
+                        }
+                    }
+
+                    @Override
+                    public void endHeader() {
+                        parser.stop();
+                    }
+                });
+                parser.parse(inputStream);
+                return addressFields.build();
+            } catch (IOException | MimeException | MailboxException e) {
                 throw new RuntimeException(e);
             }
         });
     }
 
-    private Stream<Mailbox> allMailboxes(Message message) {
-        Stream<Mailbox> from = Optional.ofNullable(message.getFrom())
-            .stream()
-            .flatMap(Collection::stream);
-
-        Stream<Mailbox> recipients = Stream.of(message.getTo(), message.getCc())
-            .filter(Objects::nonNull)
-            .map(AddressList::flatten)
-            .flatMap(Collection::stream);
-
-        return Stream.concat(from, recipients);
+    private Stream<Mailbox> mailboxes(Field field) {
+        ParsedField parsedField = LenientFieldParser.getParser().parse(field, DecodeMonitor.SILENT);
+        if (parsedField instanceof MailboxListField mailboxListField) {
+            return Optional.ofNullable(mailboxListField.getMailboxList())
+                .stream()
+                .flatMap(Collection::stream);
+        }
+        if (parsedField instanceof AddressListField addressListField) {
+            return Optional.ofNullable(addressListField.getAddressList())
+                .map(AddressList::flatten)
+                .stream()
+                .flatMap(Collection::stream);
+        }
+        return Stream.empty();
     }
 
     private Optional<ContactFields> asContact(Mailbox mailbox, Username username) {
@@ -286,6 +286,39 @@ class CollectTrustedContactsListenerTest {
             .containsExactlyInAnyOrder(ALICE_ADDRESS, CAROL_ADDRESS);
     }
 
+    @Test
+    void reactiveEventShouldOnlyCollectContactsFromTheHeaders() throws Exception {
+        appendMessage(bobInboxId, new Flags(TO_BE_COLLECTED_FLAG),
+            "From: =?UTF-8?Q?Alice_=C3=A9?= <alice@domain.tld>\r\n"
+                + "To: " + BOB.asString() + ",\r\n"
+                + " Carol <carol@domain.tld>\r\n"
+                + "Subject: trusted contacts\r\n"
+                + "\r\n"
+                + "Cc: David <david@domain.tld>\r\n");
+
+        assertThat(capturingContactAddIndexingProcessor.indexedAddresses())
+            .containsExactlyInAnyOrder(ALICE_ADDRESS, CAROL_ADDRESS);
+        assertThat(capturingContactAddIndexingProcessor.indexedFirstnames())
+            .containsExactlyInAnyOrder("Alice é", "Carol");
+    }
+
+    @Test
+    void flaggingSeveralMessagesShouldIndexEachContactOnce() throws Exception {
+        Message message = Message.Builder.of()
+            .setFrom("Alice <alice@domain.tld>")
+            .setTo(BOB.asString(), "Carol <carol@domain.tld>")
+            .setBody("Body", StandardCharsets.UTF_8)
+            .build();
+        appendMessage(bobInboxId, message, new Flags());
+        appendMessage(bobInboxId, message, new Flags());
+
+        mailboxManager.getMailbox(bobInboxId, bobMailboxSession)
+            .setFlags(new Flags(FLAGGED), MessageManager.FlagsUpdateMode.ADD, MessageRange.all(), bobMailboxSession);
+
+        assertThat(capturingContactAddIndexingProcessor.indexedAddresses())
+            .containsExactlyInAnyOrder(ALICE_ADDRESS, CAROL_ADDRESS);
+    }
+
     private ComposedMessageId appendMessage(MailboxId mailboxId, Message message, Flags flags) throws Exception {
         return mailboxManager.getMailbox(mailboxId, bobMailboxSession)
             .appendMessage(MessageManager.AppendCommand.builder()
@@ -0,0 +1,125 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.team
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicLong
+
+import com.google.common.annotations.VisibleForTesting
+import com.google.common.cache.{Cache, CacheBuilder}
+import com.linagora.tmail.cache.{CacheInvalidationPublisher, CacheInvalidationSubscriber}
+import com.linagora.tmail.team.TeamMailboxExistenceCache.{CACHE_NAME, DEFAULT_MAXIMUM_SIZE, DEFAULT_NEGATIVE_TTL, DEFAULT_POSITIVE_TTL}
+import jakarta.inject.Inject
+import org.apache.james.metrics.api.{Metric, MetricFactory}
+import org.reactivestreams.Publisher
+import org.slf4j.LoggerFactory
+import reactor.core.scala.publisher.SMono
+
+object TeamMailboxExistenceCache {
+  val CACHE_NAME: String = "team-mailbox-existence"
+  val DEFAULT_POSITIVE_TTL: Duration = Duration.ofMinutes(1)
+  val DEFAULT_NEGATIVE_TTL: Duration = Duration.ofSeconds(10)
+  val DEFAULT_MAXIMUM_SIZE: Long = 10_000
+}
+
+/**
+ * Remembers node-locally whether a team mailbox exists, so that deliveries to a shared address do not need a mailbox
+ * lookup each.
+ *
+ * Team mailboxes created or deleted invalidate their entry through the TeamMailboxCallback hooks: right away on this
+ * node, and on the other nodes through the TMail event bus. The TTLs only bound staleness when such a notification is
+ * lost. The negative TTL is kept short as it impacts deliveries.
+ */
+class TeamMailboxExistenceCache(metricFactory: MetricFactory,
+                                invalidationPublisher: CacheInvalidationPublisher,
+                                positiveTtl: Duration,
+                                negativeTtl: Duration,
+                                maximumSize: Long) extends TeamMailboxCallback with CacheInvalidationSubscriber {
+
+  @Inject
+  def this(metricFactory: MetricFactory, invalidationPublisher: CacheInvalidationPublisher) =
+    this(metricFactory, invalidationPublisher, DEFAULT_POSITIVE_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAXIMUM_SIZE)
+
+  private val logger = LoggerFactory.getLogger(classOf[TeamMailboxExistenceCache])
+  private val existingTeamMailboxes: Cache[TeamMailbox, java.lang.Boolean] = buildCache(positiveTtl)
+  private val missingTeamMailboxes: Cache[TeamMailbox, java.lang.Boolean] = buildCache(negativeTtl)
+  // Bumped on every invalidation so that a lookup racing with a creation or a deletion do not populate the cache with a stale value
+  private val invalidationGeneration: AtomicLong = new AtomicLong()
+  private val hitMetric: Metric = metricFactory.generate("team-mailbox-existence-cache-hit")
+  private val missMetric: Metric = metricFactory.generate("team-mailbox-existence-cache-miss")
+
+  private def buildCache(ttl: Duration): Cache[TeamMailbox, java.lang.Boolean] =
+    CacheBuilder.newBuilder()
+      .maximumSize(maximumSize)
+      .expireAfterWrite(ttl)
+      .build()
+
+  def exists(teamMailbox: TeamMailbox, loader: TeamMailbox => Publisher[Boolean]): SMono[Boolean] =
+    if (existingTeamMailboxes.getIfPresent(teamMailbox) != null) {
+      hitMetric.increment()
+      SMono.just(true)
+    } else if (missingTeamMailboxes.getIfPresent(teamMailbox) != null) {
+      hitMetric.increment()
+      SMono.just(false)
+    } else {
+      missMetric.increment()
+      val generation = invalidationGeneration.get()
+      SMono.fromPublisher(loader.apply(teamMailbox))
+        .doOnNext(exists => if (generation == invalidationGeneration.get()) {
+          if (exists) {
+            existingTeamMailboxes.put(teamMailbox, true)
+          } else {
+            missingTeamMailboxes.put(teamMailbox, true)
+          }
+        })
+    }
+
+  override def teamMailboxAdded(teamMailbox: TeamMailbox): Publisher[Void] =
+    invalidateEverywhere(teamMailbox)
+
+  override def teamMailboxRemoved(teamMailbox: TeamMailbox): Publisher[Void] =
+    invalidateEverywhere(teamMailbox)
+
+  private def invalidateEverywhere(teamMailbox: TeamMailbox): SMono[Void] =
+    SMono.fromCallable(() => invalidate(teamMailbox))
+      .`then`(SMono(invalidationPublisher.invalidate(CACHE_NAME, teamMailbox.asString())))
+      .onErrorResume(e => {
+        logger.warn("Failed to notify other nodes of a change of team mailbox {}, they may see it stale for up to {}",
+          teamMailbox.asString(), positiveTtl, e)
+        SMono.empty
+      })
+
+  override def cacheName(): String = CACHE_NAME
+
+  override def invalidate(entry: String): Unit =
+    TeamMailbox.fromString(entry).foreach(teamMailbox => invalidate(teamMailbox))
+
+  def invalidate(teamMailbox: TeamMailbox): Unit = {
+    invalidationGeneration.incrementAndGet()
+    existingTeamMailboxes.invalidate(teamMailbox)
+    missingTeamMailboxes.invalidate(teamMailbox)
+  }
+
+  @VisibleForTesting
+  def invalidateAll(): Unit = {
+    invalidationGeneration.incrementAndGet()
+    existingTeamMailboxes.invalidateAll()
+    missingTeamMailboxes.invalidateAll()
+  }
+}
@@ -0,0 +1,79 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.team
+
+import java.util.concurrent.atomic.AtomicBoolean
+import com.google.common.collect.{HashMultimap, Multimaps, SetMultimap}
+import org.apache.james.core.Username
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+
+case class TeamMailboxMembership(username: Username, teamMailbox: TeamMailbox)
+
+/**
+ * Projection of the team mailboxes a user is a member of, ie. whose root mailbox ACL grants the user all the
+ * basic team mailbox rights.
+ *
+ * The source of truth remains the mailbox ACLs: the index is maintained by the team mailbox repository and by
+ * ACL events, and can be rebuilt from the ACLs should it drift.
+ */
+trait TeamMailboxMembershipIndex {
+  def add(username: Username, teamMailbox: TeamMailbox): Publisher[Void]
+
+  def remove(username: Username, teamMailbox: TeamMailbox): Publisher[Void]
+
+  def listTeamMailboxes(username: Username): Publisher[TeamMailbox]
+
+  def listAll(): Publisher[TeamMailboxMembership]
+
+  /**
+   * Memberships granted before the index was deployed are only indexed by a rebuild: until one completed, the index
+   * can miss memberships and should not be read.
+   */
+  def markBackfilled(): Publisher[Void]
+
+  def isBackfilled(): Publisher[java.lang.Boolean]
+}
+
+class MemoryTeamMailboxMembershipIndex extends TeamMailboxMembershipIndex {
+  private val memberships: SetMultimap[Username, TeamMailbox] = Multimaps.synchronizedSetMultimap(HashMultimap.create())
+  private val backfilled: AtomicBoolean = new AtomicBoolean(false)
+
+  override def add(username: Username, teamMailbox: TeamMailbox): Publisher[Void] =
+    SMono.fromCallable(() => memberships.put(username, teamMailbox)).`then`()
+
+  override def remove(username: Username, teamMailbox: TeamMailbox): Publisher[Void] =
+    SMono.fromCallable(() => memberships.remove(username, teamMailbox)).`then`()
+
+  override def listTeamMailboxes(username: Username): Publisher[TeamMailbox] =
+    SFlux.fromIterable(memberships.synchronized(memberships.get(username).asScala.toSeq))
+
+  override def listAll(): Publisher[TeamMailboxMembership] =
+    SFlux.fromIterable(memberships.synchronized(memberships.entries().asScala
+      .map(entry => TeamMailboxMembership(entry.getKey, entry.getValue))
+      .toSeq))
+
+  override def markBackfilled(): Publisher[Void] =
+    SMono.fromCallable(() => backfilled.set(true)).`then`()
+
+  override def isBackfilled(): Publisher[java.lang.Boolean] =
+    SMono.fromCallable(() => java.lang.Boolean.valueOf(backfilled.get()))
+}
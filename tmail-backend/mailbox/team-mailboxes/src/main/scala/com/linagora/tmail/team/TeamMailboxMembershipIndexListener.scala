@@ -0,0 +1,98 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.team
+
+import com.linagora.tmail.team.TeamMailboxMembershipIndexListener.GROUP
+import com.linagora.tmail.team.TeamMailboxNameSpace.TEAM_MAILBOX_NAMESPACE
+import com.linagora.tmail.team.TeamMailboxRepositoryImpl.teamMailboxMembers
+import jakarta.inject.Inject
+import org.apache.james.core.Username
+import org.apache.james.events.EventListener.ReactiveGroupEventListener
+import org.apache.james.events.{Event, Group}
+import org.apache.james.mailbox.MailboxManager
+import org.apache.james.mailbox.events.MailboxEvents.{MailboxACLUpdated, MailboxDeletion}
+import org.apache.james.mailbox.exception.MailboxNotFoundException
+import org.apache.james.mailbox.model.MailboxPath
+import org.apache.james.util.ReactorUtils
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+case class TeamMailboxMembershipIndexListenerGroup() extends Group {}
+
+object TeamMailboxMembershipIndexListener {
+  val GROUP: TeamMailboxMembershipIndexListenerGroup = TeamMailboxMembershipIndexListenerGroup()
+}
+
+/**
+ * Keeps the {@link TeamMailboxMembershipIndex} in sync with ACL changes made outside of the team mailbox repository,
+ * eg. through IMAP SETACL, JMAP sharing or username changes.
+ *
+ * ACL events of a mailbox can be handled concurrently or out of order, eg. upon retries. Rather than replaying the ACL
+ * diff, the memberships of the users it mentions are thus reconciled with the current root mailbox ACL.
+ */
+class TeamMailboxMembershipIndexListener @Inject()(membershipIndex: TeamMailboxMembershipIndex,
+                                                   mailboxManager: MailboxManager) extends ReactiveGroupEventListener {
+
+  override def getDefaultGroup: Group = GROUP
+
+  override def isHandling(event: Event): Boolean = event.isInstanceOf[MailboxACLUpdated] || event.isInstanceOf[MailboxDeletion]
+
+  override def reactiveEvent(event: Event): Publisher[Void] =
+    event match {
+      case mailboxACLUpdated: MailboxACLUpdated => rootTeamMailbox(mailboxACLUpdated.getMailboxPath) match {
+        case Some(teamMailbox) => reconcile(teamMailboxMembers(mailboxACLUpdated.getAclDiff.getOldACL)
+          ++ teamMailboxMembers(mailboxACLUpdated.getAclDiff.getNewACL), teamMailbox)
+        case None => SMono.empty
+      }
+      case mailboxDeletion: MailboxDeletion => rootTeamMailbox(mailboxDeletion.getMailboxPath) match {
+        case Some(teamMailbox) => reconcile(teamMailboxMembers(mailboxDeletion.getMailboxACL), teamMailbox)
+        case None => SMono.empty
+      }
+      case _ => SMono.empty
+    }
+
+  private def rootTeamMailbox(mailboxPath: MailboxPath): Option[TeamMailbox] =
+    Some(mailboxPath)
+      .filter(path => TEAM_MAILBOX_NAMESPACE.equals(path.getNamespace))
+      .flatMap(TeamMailbox.from)
+      .filter(teamMailbox => teamMailbox.mailboxPath.equals(mailboxPath))
+
+  private def reconcile(users: Set[Username], teamMailbox: TeamMailbox): SMono[Unit] =
+    currentMembers(teamMailbox)
+      .flatMap(members => add(users.intersect(members), teamMailbox)
+        .`then`(remove(users -- members, teamMailbox)))
+
+  private def currentMembers(teamMailbox: TeamMailbox): SMono[Set[Username]] =
+    SMono(mailboxManager.listRightsReactive(teamMailbox.mailboxPath, mailboxManager.createSystemSession(teamMailbox.owner)))
+      .map(acl => teamMailboxMembers(acl))
+      .onErrorResume {
+        case _: MailboxNotFoundException => SMono.just(Set.empty[Username])
+        case e => SMono.error(e)
+      }
+
+  private def add(members: Set[Username], teamMailbox: TeamMailbox): SMono[Unit] =
+    SFlux.fromIterable(members)
+      .flatMap(member => membershipIndex.add(member, teamMailbox), ReactorUtils.DEFAULT_CONCURRENCY)
+      .`then`()
+
+  private def remove(members: Set[Username], teamMailbox: TeamMailbox): SMono[Unit] =
+    SFlux.fromIterable(members)
+      .flatMap(member => membershipIndex.remove(member, teamMailbox), ReactorUtils.DEFAULT_CONCURRENCY)
+      .`then`()
+}
@@ -23,7 +23,7 @@ import java.util.{Set => JavaSet}
 import com.google.common.collect.ImmutableSet
 import com.linagora.tmail.team.TeamMailbox.TEAM_MAILBOX_ADMIN_LOCAL_PART
 import com.linagora.tmail.team.TeamMailboxNameSpace.TEAM_MAILBOX_NAMESPACE
-import com.linagora.tmail.team.TeamMailboxRepositoryImpl.{BASIC_TEAM_MAILBOX_RIGHTS, TEAM_MAILBOX_MANAGER_RIGHTS, TEAM_MAILBOX_MEMBER_RIGHTS, TEAM_MAILBOX_MEMBER_RIGHTS_DELETE, TEAM_MAILBOX_QUERY}
+import com.linagora.tmail.team.TeamMailboxRepositoryImpl.{BASIC_TEAM_MAILBOX_RIGHTS, TEAM_MAILBOX_MANAGER_RIGHTS, TEAM_MAILBOX_MEMBER_RIGHTS, TEAM_MAILBOX_MEMBER_RIGHTS_DELETE, TEAM_MAILBOX_QUERY, teamMailboxMembers}
 import com.linagora.tmail.team.TeamMailboxUserEntityValidator.TEAM_MAILBOX
 import com.linagora.tmail.team.TeamMemberRole.{ManagerRole, MemberRole}
 import jakarta.inject.Inject
@@ -89,20 +89,57 @@ object TeamMailboxRepositoryImpl {
 
   val TEAM_MAILBOX_MEMBER_RIGHTS_DELETE: MailboxACL.Rfc4314Rights =
     TEAM_MAILBOX_MANAGER_RIGHTS.union(new MailboxACL.Rfc4314Rights(Right.DeleteMailbox))
+
+  def teamMailboxMembers(acl: MailboxACL): Set[Username] =
+    acl.getEntries.asScala
+      .filter {
+        case (entryKey, rights) => NameType.user.equals(entryKey.getNameType) &&
+          !entryKey.isNegative &&
+          rights.list().containsAll(BASIC_TEAM_MAILBOX_RIGHTS)
+      }
+      .keySet
+      .map(entryKey => Username.of(entryKey.getName))
+      .toSet
 }
 
-class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
-                                          subscriptionManager: SubscriptionManager,
-                                          mailboxSessionMapperFactory: MailboxSessionMapperFactory,
-                                          teamMailboxCallbackSetJava: JavaSet[TeamMailboxCallback]) extends TeamMailboxRepository {
+class TeamMailboxRepositoryImpl(mailboxManager: MailboxManager,
+                                subscriptionManager: SubscriptionManager,
+                                mailboxSessionMapperFactory: MailboxSessionMapperFactory,
+                                teamMailboxCallbackSetJava: JavaSet[TeamMailboxCallback],
+                                membershipIndex: Option[TeamMailboxMembershipIndex]) extends TeamMailboxRepository {
+
+  @Inject
+  def this(mailboxManager: MailboxManager,
+           subscriptionManager: SubscriptionManager,
+           mailboxSessionMapperFactory: MailboxSessionMapperFactory,
+           teamMailboxCallbackSetJava: JavaSet[TeamMailboxCallback],
+           membershipIndex: TeamMailboxMembershipIndex) =
+    this(mailboxManager, subscriptionManager, mailboxSessionMapperFactory, teamMailboxCallbackSetJava, Some(membershipIndex))
+
+  // Without membership index, the team mailboxes of a user are resolved by checking the ACL of every team mailbox
+  def this(mailboxManager: MailboxManager,
+           subscriptionManager: SubscriptionManager,
+           mailboxSessionMapperFactory: MailboxSessionMapperFactory,
+           teamMailboxCallbackSetJava: JavaSet[TeamMailboxCallback]) =
+    this(mailboxManager, subscriptionManager, mailboxSessionMapperFactory, teamMailboxCallbackSetJava, None)
+
   private val teamMailboxCallbackSetScala: Set[TeamMailboxCallback] = teamMailboxCallbackSetJava.asScala.toSet
 
   private var teamMailboxEntityValidator: UserEntityValidator = new TeamMailboxUserEntityValidator(this)
 
+  private var existenceCache: Option[TeamMailboxExistenceCache] = None
+
+  // Once backfilled, the index stays so: spares reading the marker on each listing
+  @volatile private var membershipIndexBackfilled: Boolean = false
+
   @Inject
   def setValidator(teamMailboxEntityValidator: UserEntityValidator): Unit =
     this.teamMailboxEntityValidator = teamMailboxEntityValidator
 
+  @Inject
+  def setExistenceCache(existenceCache: TeamMailboxExistenceCache): Unit =
+    this.existenceCache = Some(existenceCache)
+
   override def createTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] = {
     val session: MailboxSession = createSession(teamMailbox)
     val username = Username.fromMailAddress(teamMailbox.asMailAddress)
@@ -113,6 +150,7 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
         case Some(validationFailure) => SMono.error(TeamMailboxNameConflictException(validationFailure.errorMessage))
         case None => createDefaultMailboxReliably(teamMailbox, session)
       })
+      .`then`(indexMembers(Set(teamMailbox.admin, teamMailbox.self), teamMailbox))
       .`then`(SFlux.fromIterable(teamMailboxCallbackSetScala)
         .flatMap(_.teamMailboxAdded(teamMailbox), ReactorUtils.DEFAULT_CONCURRENCY)
         .collectSeq()
@@ -134,7 +172,9 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
       .`then`(SMono(mailboxManager.applyRightsCommandReactive(path, MailboxACL.command.key(EntryKey.createUserEntryKey(teamMailbox.self, false)).rights(MailboxACL.FULL_RIGHTS).asAddition(), session)))
 
   override def deleteTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] =
-    deleteTeamMailboxFoldersReliably(teamMailbox, createSession(teamMailbox))
+    indexedMembers(teamMailbox)
+      .flatMap(members => deleteTeamMailboxFoldersReliably(teamMailbox, createSession(teamMailbox))
+        .`then`(unindexMembers(members, teamMailbox)))
       .`then`(SFlux.fromIterable(teamMailboxCallbackSetScala)
         .flatMap(_.teamMailboxRemoved(teamMailbox), ReactorUtils.DEFAULT_CONCURRENCY)
         .collectSeq()
@@ -155,6 +195,33 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
   private def createSession(teamMailbox: TeamMailbox): MailboxSession =
     mailboxManager.createSystemSession(teamMailbox.owner)
 
+  private def indexedMembers(teamMailbox: TeamMailbox): SMono[Set[Username]] =
+    membershipIndex match {
+      case Some(_) => SMono(mailboxManager.listRightsReactive(teamMailbox.mailboxPath, createSession(teamMailbox)))
+        .map(acl => teamMailboxMembers(acl))
+        .onErrorResume {
+          case _: MailboxNotFoundException => SMono.just(Set.empty[Username])
+          case e => SMono.error(e)
+        }
+      case None => SMono.just(Set.empty)
+    }
+
+  private def indexMembers(members: Set[Username], teamMailbox: TeamMailbox): SMono[Unit] =
+    membershipIndex match {
+      case Some(index) => SFlux.fromIterable(members)
+        .flatMap(member => index.add(member, teamMailbox), ReactorUtils.DEFAULT_CONCURRENCY)
+        .`then`()
+      case None => SMono.empty
+    }
+
+  private def unindexMembers(members: Set[Username], teamMailbox: TeamMailbox): SMono[Unit] =
+    membershipIndex match {
+      case Some(index) => SFlux.fromIterable(members)
+        .flatMap(member => index.remove(member, teamMailbox), ReactorUtils.DEFAULT_CONCURRENCY)
+        .`then`()
+      case None => SMono.empty
+    }
+
   override def listTeamMailboxes(domain: Domain): Publisher[TeamMailbox] = {
     val session = mailboxManager.createSystemSession(Username.fromLocalPartWithDomain(TEAM_MAILBOX_ADMIN_LOCAL_PART, domain))
     SFlux.fromPublisher(mailboxManager.search(TEAM_MAILBOX_QUERY, session))
@@ -162,7 +229,27 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
       .distinct()
   }
 
-  override def listTeamMailboxes(username: Username): Publisher[TeamMailbox] = {
+  override def listTeamMailboxes(username: Username): Publisher[TeamMailbox] =
+    membershipIndex match {
+      case Some(index) => isBackfilled(index)
+        .flatMapMany(backfilled => if (backfilled) {
+          SFlux(index.listTeamMailboxes(username))
+        } else {
+          listTeamMailboxesByScanning(username)
+        })
+      case None => listTeamMailboxesByScanning(username)
+    }
+
+  private def isBackfilled(index: TeamMailboxMembershipIndex): SMono[Boolean] =
+    if (membershipIndexBackfilled) {
+      SMono.just(true)
+    } else {
+      SMono(index.isBackfilled())
+        .map(backfilled => backfilled.booleanValue())
+        .doOnNext(backfilled => if (backfilled) membershipIndexBackfilled = true)
+    }
+
+  private def listTeamMailboxesByScanning(username: Username): SFlux[TeamMailbox] = {
     val userKey = EntryKey.createUserEntryKey(username)
     SFlux.fromPublisher(mailboxManager.search(TEAM_MAILBOX_QUERY, mailboxManager.createSystemSession(username)))
       .flatMapIterable(mailboxMetaData => TeamMailbox.from(mailboxMetaData.getPath))
@@ -181,7 +268,7 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
       .flatMapMany(_ => listMailboxPaths(teamMailbox))
       .flatMap(mailboxPath => addRightForMember(mailboxPath, teamMailboxMember.username, session, teamMailboxMember.role)
         .`then`(subscribeForMember(mailboxPath, memberSession)), ReactorUtils.DEFAULT_CONCURRENCY)
-      .`then`()
+      .`then`(indexMembers(Set(teamMailboxMember.username), teamMailbox))
   }
 
   private def listMailboxPaths(teamMailbox: TeamMailbox): SFlux[MailboxPath] =
@@ -233,17 +320,17 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
         .flatMapMany(_ => listMailboxPaths(teamMailbox))
         .flatMap(mailboxPath => removeRightForMember(mailboxPath, user, session)
           .`then`(unSubscribeForMember(mailboxPath, memberSession)))
-        .`then`())
+        .`then`(unindexMembers(Set(user), teamMailbox)))
       .`then`()
   }
 
   override def listTeamMailboxes(): SFlux[TeamMailbox] = {
     val session = mailboxManager.createSystemSession(Username.of("team-mailboxes"))
-    SFlux.fromIterable(mailboxManager.list(session)
-      .asScala
-      .flatMap(TeamMailbox.from)
-      .distinct
-      .toSeq)
+    SFlux(mailboxSessionMapperFactory.getMailboxMapper(session).list())
+      .map(mailbox => mailbox.generateAssociatedPath())
+      .filter(path => TEAM_MAILBOX_NAMESPACE.equals(path.getNamespace))
+      .flatMapIterable(path => TeamMailbox.from(path))
+      .distinct()
   }
 
   override def listMembers(teamMailbox: TeamMailbox): Publisher[TeamMailboxMember] = {
@@ -270,11 +357,16 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
     }
 
   private def isUserInTeamMailbox(teamMailbox: TeamMailbox, checkUser: Username): SMono[Boolean] =
-    SFlux.fromPublisher(listTeamMailboxes(checkUser))
-      .filter(teamMailbox1 => teamMailbox1.equals(teamMailbox))
-      .hasElements
+    SMono(mailboxManager.listRightsReactive(teamMailbox.mailboxPath, createSession(teamMailbox)))
+      .map(acl => teamMailboxMembers(acl).contains(checkUser))
 
   def exists(teamMailbox: TeamMailbox): SMono[Boolean] =
+    existenceCache match {
+      case Some(cache) => cache.exists(teamMailbox, mailboxExists)
+      case None => mailboxExists(teamMailbox)
+    }
+
+  private def mailboxExists(teamMailbox: TeamMailbox): SMono[Boolean] =
     SMono.fromPublisher(mailboxManager.mailboxExists(teamMailbox.mailboxPath, createSession(teamMailbox)))
       .map(b => b)
 }
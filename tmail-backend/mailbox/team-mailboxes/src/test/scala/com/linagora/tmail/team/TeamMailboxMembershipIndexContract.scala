@@ -0,0 +1,133 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.team
+
+import com.linagora.tmail.team.TeamMailboxRepositoryContract.{ANDRE, BOB, TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES}
+import org.assertj.core.api.Assertions.{assertThat, assertThatCode}
+import org.junit.jupiter.api.{BeforeEach, Test}
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+
+trait TeamMailboxMembershipIndexContract {
+
+  def testee: TeamMailboxMembershipIndex
+
+  @Test
+  def listTeamMailboxesShouldReturnEmptyByDefault(): Unit =
+    assertThat(SFlux(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+
+  @Test
+  def listTeamMailboxesShouldReturnAddedTeamMailboxes(): Unit = {
+    SMono(testee.add(BOB, TEAM_MAILBOX_MARKETING)).block()
+    SMono(testee.add(BOB, TEAM_MAILBOX_SALES)).block()
+
+    assertThat(SFlux(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES)
+  }
+
+  @Test
+  def listTeamMailboxesShouldNotReturnTeamMailboxesOfOtherUsers(): Unit = {
+    SMono(testee.add(ANDRE, TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def addShouldBeIdempotent(): Unit = {
+    SMono(testee.add(BOB, TEAM_MAILBOX_MARKETING)).block()
+    SMono(testee.add(BOB, TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def removeShouldRemoveTheMembership(): Unit = {
+    SMono(testee.add(BOB, TEAM_MAILBOX_MARKETING)).block()
+    SMono(testee.add(BOB, TEAM_MAILBOX_SALES)).block()
+
+    SMono(testee.remove(BOB, TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_SALES)
+  }
+
+  @Test
+  def removeShouldNotAffectOtherUsers(): Unit = {
+    SMono(testee.add(BOB, TEAM_MAILBOX_MARKETING)).block()
+    SMono(testee.add(ANDRE, TEAM_MAILBOX_MARKETING)).block()
+
+    SMono(testee.remove(BOB, TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux(testee.listTeamMailboxes(ANDRE)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def removeShouldBeNoopWhenNotIndexed(): Unit =
+    assertThatCode(() => SMono(testee.remove(BOB, TEAM_MAILBOX_MARKETING)).block())
+      .doesNotThrowAnyException()
+
+  @Test
+  def listAllShouldReturnAllMemberships(): Unit = {
+    SMono(testee.add(BOB, TEAM_MAILBOX_MARKETING)).block()
+    SMono(testee.add(ANDRE, TEAM_MAILBOX_MARKETING)).block()
+    SMono(testee.add(BOB, TEAM_MAILBOX_SALES)).block()
+
+    assertThat(SFlux(testee.listAll()).collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(TeamMailboxMembership(BOB, TEAM_MAILBOX_MARKETING),
+        TeamMailboxMembership(ANDRE, TEAM_MAILBOX_MARKETING),
+        TeamMailboxMembership(BOB, TEAM_MAILBOX_SALES))
+  }
+
+  @Test
+  def isBackfilledShouldReturnFalseByDefault(): Unit =
+    assertThat(SMono(testee.isBackfilled()).block())
+      .isFalse
+
+  @Test
+  def isBackfilledShouldReturnTrueOnceMarked(): Unit = {
+    SMono(testee.markBackfilled()).block()
+
+    assertThat(SMono(testee.isBackfilled()).block())
+      .isTrue
+  }
+
+  @Test
+  def markBackfilledShouldBeIdempotent(): Unit = {
+    SMono(testee.markBackfilled()).block()
+    SMono(testee.markBackfilled()).block()
+
+    assertThat(SMono(testee.isBackfilled()).block())
+      .isTrue
+  }
+}
+
+class MemoryTeamMailboxMembershipIndexTest extends TeamMailboxMembershipIndexContract {
+  var memoryTeamMailboxMembershipIndex: MemoryTeamMailboxMembershipIndex = _
+
+  override def testee: TeamMailboxMembershipIndex = memoryTeamMailboxMembershipIndex
+
+  @BeforeEach
+  def setUp(): Unit =
+    memoryTeamMailboxMembershipIndex = new MemoryTeamMailboxMembershipIndex()
+}
@@ -20,11 +20,14 @@ package com.linagora.tmail.team
 
 import java.util.{Map => JavaMap, Set => JavaSet}
 
+import com.linagora.tmail.cache.{CacheInvalidationPublisher, CacheInvalidationRegistration, CacheInvalidationSubscriber}
 import com.linagora.tmail.team.TeamMailboxNameSpace.TEAM_MAILBOX_NAMESPACE
 import com.linagora.tmail.team.TeamMailboxRepositoryContract.{ANDRE, BOB, DOMAIN_1, DOMAIN_2, TEAM_MAILBOX_DOMAIN_1, TEAM_MAILBOX_DOMAIN_2, TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES}
 import eu.timepit.refined.auto._
 import org.apache.james.adapter.mailbox.{ACLUsernameChangeTaskStep, MailboxUsernameChangeTaskStep}
 import org.apache.james.core.{Domain, Username}
+import org.apache.james.events.delivery.InVmEventDelivery
+import org.apache.james.events.{InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
 import org.apache.james.mailbox.inmemory.InMemoryMailboxManager
 import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources
 import org.apache.james.mailbox.model.MailboxACL.EntryKey
@@ -32,6 +35,7 @@ import org.apache.james.mailbox.model.search.MailboxQuery
 import org.apache.james.mailbox.model.{MailboxACL, MailboxPath}
 import org.apache.james.mailbox.store.StoreSubscriptionManager
 import org.apache.james.mailbox.{MailboxManager, MailboxSession, SubscriptionManager}
+import org.apache.james.metrics.tests.RecordingMetricFactory
 import org.assertj.core.api.Assertions.{assertThat, assertThatCode, assertThatThrownBy}
 import org.assertj.core.api.SoftAssertions
 import org.junit.jupiter.api.{BeforeEach, Test}
@@ -852,3 +856,212 @@ class TeamMailboxRepositoryTest extends TeamMailboxRepositoryContract {
     })
   }
 }
+
+class TeamMailboxRepositoryWithMembershipIndexTest extends TeamMailboxRepositoryContract {
+  override def testee: TeamMailboxRepository = teamMailboxRepositoryImpl
+
+  override def mailboxManager: MailboxManager = inMemoryMailboxManager
+
+  var teamMailboxRepositoryImpl: TeamMailboxRepositoryImpl = _
+  var inMemoryMailboxManager: InMemoryMailboxManager = _
+  var subscriptionManager: SubscriptionManager = _
+  var membershipIndex: MemoryTeamMailboxMembershipIndex = _
+  var resource: InMemoryIntegrationResources = _
+
+  @BeforeEach
+  def setUp(): Unit = {
+    resource = InMemoryIntegrationResources.defaultResources()
+    inMemoryMailboxManager = resource.getMailboxManager
+    subscriptionManager = new StoreSubscriptionManager(resource.getMailboxManager.getMapperFactory, resource.getMailboxManager.getMapperFactory, resource.getMailboxManager.getEventBus)
+    membershipIndex = new MemoryTeamMailboxMembershipIndex()
+    SMono(membershipIndex.markBackfilled()).block()
+    teamMailboxRepositoryImpl = new TeamMailboxRepositoryImpl(inMemoryMailboxManager, subscriptionManager, resource.getMailboxManager.getMapperFactory, TeamMailboxCallbackNoop.asSet, membershipIndex)
+    resource.getEventBus.register(new TeamMailboxMembershipIndexListener(membershipIndex, inMemoryMailboxManager))
+  }
+
+  @Test
+  def listTeamMailboxesShouldScanTheACLsUntilTheIndexIsBackfilled(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, TeamMailboxMember.asMember(BOB))).block()
+
+    val notBackfilledIndex = new MemoryTeamMailboxMembershipIndex()
+    val repository = new TeamMailboxRepositoryImpl(inMemoryMailboxManager, subscriptionManager, resource.getMailboxManager.getMapperFactory, TeamMailboxCallbackNoop.asSet, notBackfilledIndex)
+
+    assertThat(SFlux.fromPublisher(repository.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def listTeamMailboxesShouldRelyOnTheIndexOnceBackfilled(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, TeamMailboxMember.asMember(BOB))).block()
+
+    val backfilledIndex = new MemoryTeamMailboxMembershipIndex()
+    SMono(backfilledIndex.markBackfilled()).block()
+    val repository = new TeamMailboxRepositoryImpl(inMemoryMailboxManager, subscriptionManager, resource.getMailboxManager.getMapperFactory, TeamMailboxCallbackNoop.asSet, backfilledIndex)
+
+    assertThat(SFlux.fromPublisher(repository.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def aclChangesShouldReconcileTheIndexWithTheCurrentACL(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, TeamMailboxMember.asMember(BOB))).block()
+    // Simulates an index entry lost, eg. by a previous event delivered out of order
+    SMono(membershipIndex.remove(BOB, TEAM_MAILBOX_MARKETING)).block()
+
+    mailboxManager.applyRightsCommand(TEAM_MAILBOX_MARKETING.mailboxPath,
+      MailboxACL.command().forUser(BOB).rights(MailboxACL.Right.Administer).asAddition(),
+      mailboxManager.createSystemSession(TEAM_MAILBOX_MARKETING.owner))
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def createTeamMailboxShouldIndexSystemUsers(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux(membershipIndex.listAll()).collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(TeamMailboxMembership(TEAM_MAILBOX_MARKETING.admin, TEAM_MAILBOX_MARKETING),
+        TeamMailboxMembership(TEAM_MAILBOX_MARKETING.self, TEAM_MAILBOX_MARKETING))
+  }
+
+  @Test
+  def deleteTeamMailboxShouldRemoveItsMemberships(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, TeamMailboxMember.asMember(BOB))).block()
+
+    SMono.fromPublisher(testee.deleteTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux(membershipIndex.listAll()).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def aclChangesOutsideOfTheRepositoryShouldUpdateTheIndex(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    mailboxManager.applyRightsCommand(TEAM_MAILBOX_MARKETING.mailboxPath,
+      MailboxACL.command().forUser(BOB).rights(TeamMailboxRepositoryImpl.TEAM_MAILBOX_MEMBER_RIGHTS).asAddition(),
+      mailboxManager.createSystemSession(TEAM_MAILBOX_MARKETING.owner))
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def teamMailboxMigrationShouldUpdateTheIndex(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, TeamMailboxMember.asMember(BOB))).block()
+
+    SMono.fromPublisher(new ACLUsernameChangeTaskStep(inMemoryMailboxManager, subscriptionManager).changeUsername(BOB, ANDRE)).block()
+
+    SoftAssertions.assertSoftly(softly => {
+      softly.assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava).isEmpty()
+      softly.assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(ANDRE)).collectSeq().block().asJava).containsExactly(TEAM_MAILBOX_MARKETING)
+    })
+  }
+}
+
+class TeamMailboxRepositoryWithExistenceCacheTest extends TeamMailboxRepositoryContract {
+  override def testee: TeamMailboxRepository = teamMailboxRepositoryImpl
+
+  override def mailboxManager: MailboxManager = inMemoryMailboxManager
+
+  var teamMailboxRepositoryImpl: TeamMailboxRepositoryImpl = _
+  var inMemoryMailboxManager: InMemoryMailboxManager = _
+  var subscriptionManager: SubscriptionManager = _
+  var metricFactory: RecordingMetricFactory = _
+  var resource: InMemoryIntegrationResources = _
+  var tmailEventBus: InVMEventBus = _
+
+  @BeforeEach
+  def setUp(): Unit = {
+    resource = InMemoryIntegrationResources.defaultResources()
+    inMemoryMailboxManager = resource.getMailboxManager
+    subscriptionManager = new StoreSubscriptionManager(resource.getMailboxManager.getMapperFactory, resource.getMailboxManager.getMapperFactory, resource.getMailboxManager.getEventBus)
+    metricFactory = new RecordingMetricFactory()
+    tmailEventBus = new InVMEventBus(new InVmEventDelivery(metricFactory), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters())
+    teamMailboxRepositoryImpl = node(metricFactory)
+  }
+
+  private def node(metricFactory: RecordingMetricFactory): TeamMailboxRepositoryImpl = {
+    val existenceCache = new TeamMailboxExistenceCache(metricFactory, new CacheInvalidationPublisher(tmailEventBus))
+    new CacheInvalidationRegistration(tmailEventBus, JavaSet.of[CacheInvalidationSubscriber](existenceCache)).register()
+    val repository = new TeamMailboxRepositoryImpl(inMemoryMailboxManager, subscriptionManager, resource.getMailboxManager.getMapperFactory, JavaSet.of[TeamMailboxCallback](existenceCache))
+    repository.setExistenceCache(existenceCache)
+    repository
+  }
+
+  @Test
+  def existsShouldBeServedFromTheCache(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()
+    val missCount = metricFactory.countFor("team-mailbox-existence-cache-miss")
+    val hitCount = metricFactory.countFor("team-mailbox-existence-cache-hit")
+
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isTrue
+
+    SoftAssertions.assertSoftly(softly => {
+      softly.assertThat(metricFactory.countFor("team-mailbox-existence-cache-miss")).isEqualTo(missCount)
+      softly.assertThat(metricFactory.countFor("team-mailbox-existence-cache-hit")).isEqualTo(hitCount + 1)
+    })
+  }
+
+  @Test
+  def existsShouldServeMissingTeamMailboxesFromTheCache(): Unit = {
+    SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()
+    val missCount = metricFactory.countFor("team-mailbox-existence-cache-miss")
+    val hitCount = metricFactory.countFor("team-mailbox-existence-cache-hit")
+
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isFalse
+
+    SoftAssertions.assertSoftly(softly => {
+      softly.assertThat(metricFactory.countFor("team-mailbox-existence-cache-miss")).isEqualTo(missCount)
+      softly.assertThat(metricFactory.countFor("team-mailbox-existence-cache-hit")).isEqualTo(hitCount + 1)
+    })
+  }
+
+  @Test
+  def existsShouldReturnTrueAfterCreatingAPreviouslyMissingTeamMailbox(): Unit = {
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isFalse
+
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isTrue
+  }
+
+  @Test
+  def existsShouldReturnTrueAfterAnotherNodeCreatedAPreviouslyMissingTeamMailbox(): Unit = {
+    val otherNode = node(new RecordingMetricFactory())
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isFalse
+
+    SMono.fromPublisher(otherNode.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isTrue
+  }
+
+  @Test
+  def existsShouldReturnFalseAfterDeletingACachedTeamMailbox(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isTrue
+
+    SMono.fromPublisher(testee.deleteTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isFalse
+  }
+
+  @Test
+  def existsShouldReturnFalseAfterAnotherNodeDeletedACachedTeamMailbox(): Unit = {
+    val otherNode = node(new RecordingMetricFactory())
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isTrue
+
+    SMono.fromPublisher(otherNode.deleteTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isFalse
+  }
+}
@@ -18,6 +18,8 @@
 
 package com.linagora.tmail.mailet;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Optional;
 
@@ -25,8 +27,11 @@ import jakarta.inject.Inject;
 import jakarta.mail.MessagingException;
 
 import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.user.ldap.LDAPConnectionFactory;
 import org.apache.james.user.ldap.LdapRepositoryConfiguration;
+import org.apache.james.util.DurationParser;
 import org.apache.mailet.Mail;
 import org.apache.mailet.base.GenericMatcher;
 
@@ -49,7 +54,9 @@ import com.unboundid.ldap.sdk.SearchScope;
  * Useful for integrating LDAP lists with Recipient Rewrite Tables: it can be used to re-process lists generated as
  * an output of RRTs.
  *
- * Matcher argument needs to be in the form baseDN#groupObjectClass#mailAttribute
+ * Matcher argument needs to be in the form baseDN#groupObjectClass#mailAttribute, optionally followed by
+ * #snapshotRefreshInterval. When a snapshot refresh interval is specified, all the groups under the baseDN are loaded in
+ * memory and reloaded with this period, so that matching does not hit the LDAP anymore.
  *
  * Sample usage:
  *
@@ -57,24 +64,31 @@ import com.unboundid.ldap.sdk.SearchScope;
  *   <processor>transport</processor>
  * </mailet>
  *
+ * <mailet match="com.linagora.tmail.mailet.IsALDAPMailingList=ou=lists,dc=tmail,dc=com#groupofnames#description#5m" class="ToProcessor">
+ *   <processor>transport</processor>
+ * </mailet>
+ *
  */
 public class IsALDAPMailingList extends GenericMatcher {
     private final LDAPConnectionPool ldapConnectionPool;
     private final Optional<Filter> userExtraFilter;
+    private final GaugeRegistry gaugeRegistry;
     private String baseDN;
     private String groupObjectClass;
     private String mailAttribute;
+    private Optional<LDAPMailingListSnapshot> snapshot = Optional.empty();
 
     @Inject
-    public IsALDAPMailingList(LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration configuration) {
+    public IsALDAPMailingList(LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration configuration, GaugeRegistry gaugeRegistry) {
         this.ldapConnectionPool = ldapConnectionPool;
         this.userExtraFilter = Optional.ofNullable(configuration.getFilter())
             .map(Throwing.function(Filter::create).sneakyThrow());
+        this.gaugeRegistry = gaugeRegistry;
     }
 
     @VisibleForTesting
     public IsALDAPMailingList(LdapRepositoryConfiguration configuration) throws LDAPException {
-        this(new LDAPConnectionFactory(configuration).getLdapConnectionPool(), configuration);
+        this(new LDAPConnectionFactory(configuration).getLdapConnectionPool(), configuration, new NoopGaugeRegistry());
     }
 
     @Override
@@ -95,10 +109,31 @@ public class IsALDAPMailingList extends GenericMatcher {
         Preconditions.checkState(afterBaseDN.contains("#"), "Must match the 'baseDN#groupObjectClass#mailAttribute");
 
         groupObjectClass = afterBaseDN.substring(0, afterBaseDN.indexOf('#'));
-        mailAttribute = afterBaseDN.substring(groupObjectClass.length() + 1);
+        String afterGroupObjectClass = afterBaseDN.substring(groupObjectClass.length() + 1);
+        Optional<Duration> snapshotRefreshInterval = Optional.empty();
+        if (afterGroupObjectClass.contains("#")) {
+            mailAttribute = afterGroupObjectClass.substring(0, afterGroupObjectClass.indexOf('#'));
+            snapshotRefreshInterval = Optional.of(DurationParser.parse(afterGroupObjectClass.substring(mailAttribute.length() + 1)));
+        } else {
+            mailAttribute = afterGroupObjectClass;
+        }
+
+        snapshot = snapshotRefreshInterval
+            .map(refreshInterval -> new LDAPMailingListSnapshot(ldapConnectionPool, baseDN, groupFilter(), mailAttribute,
+                    new String[] {mailAttribute}, Clock.systemUTC())
+                .start(refreshInterval, gaugeRegistry, "ldap-mailing-list-matcher-snapshot"));
+    }
+
+    @Override
+    public void destroy() {
+        snapshot.ifPresent(LDAPMailingListSnapshot::close);
     }
 
     private Optional<SearchResultEntry> resolveListDN(MailAddress rcpt) throws LDAPSearchException {
+        Optional<Optional<SearchResultEntry>> fromSnapshot = snapshot.flatMap(loaded -> loaded.lookup(rcpt));
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
         try {
             SearchResult searchResult = ldapConnectionPool.search(baseDN,
                 SearchScope.SUB,
@@ -113,6 +148,13 @@ public class IsALDAPMailingList extends GenericMatcher {
         }
     }
 
+    private Filter groupFilter() {
+        Filter objectClassFilter = Filter.createEqualityFilter("objectClass", groupObjectClass);
+        return userExtraFilter
+            .map(extraFilter -> Filter.createANDFilter(objectClassFilter, extraFilter))
+            .orElse(objectClassFilter);
+    }
+
     private Filter createFilter(String retrievalName, String ldapUserRetrievalAttribute) {
         Filter specificUserFilter = Filter.createEqualityFilter(ldapUserRetrievalAttribute, retrievalName);
         Filter objectClassFilter = Filter.createEqualityFilter("objectClass", groupObjectClass);
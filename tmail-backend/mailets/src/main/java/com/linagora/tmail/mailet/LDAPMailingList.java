@@ -18,6 +18,7 @@
 
 package com.linagora.tmail.mailet;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
@@ -37,6 +38,8 @@ import org.apache.james.core.Domain;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.lifecycle.api.LifecycleUtil;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.user.api.UsersRepository;
 import org.apache.james.user.ldap.LDAPConnectionFactory;
 import org.apache.james.user.ldap.LdapRepositoryConfiguration;
@@ -88,14 +91,16 @@ import com.unboundid.ldap.sdk.SearchScope;
  *  <li>mailAttributeForGroups: Attribute holding the mail address of a group. For easy testing this can be set to description
  *  but for production use a special LDAP schema needs to be crafted for using the mail attribute.</li>
  *  <li>extraFilter: a LDAP filter to use when looking up the groups. None if not provided. Needs to match LDAP filter syntax.</li>
+ *  <li>snapshotRefreshInterval: optional. When set, all the groups under the baseDN are loaded in memory and reloaded with
+ *  this period, so that list lookups no longer hit the LDAP. Group changes are then visible after at most this duration.</li>
  *  </ul>
  *
  *  <ul>Performance considerations:
  *    <li>Sender validation goes faster if the email local part is also the user uid, as this heuristic saves precious LDAP lookups</li>
  *    <li>All DN lookups for retrieving mail address are cached for efficiency. This implies that email address changes for users
  *    is a rare event, and we accept it to be non-synchronized for the duration of the cache retention when this happens</li>
- *    <li>LDAP groups composition and validation rules are never cached so far: addition of new users into a group will
- *    thus be an instant operation.</li>
+ *    <li>LDAP groups composition and validation rules are never cached unless a snapshotRefreshInterval is configured:
+ *    addition of new users into a group is otherwise an instant operation.</li>
  *  </ul>
  *
  *  <p>Sample structure for LDAP groups:</p>
@@ -203,6 +208,7 @@ public class LDAPMailingList extends GenericMailet {
     private final LDAPConnectionPool ldapConnectionPool;
     private final LdapRepositoryConfiguration configuration;
     private final MailingListConfiguration mailingListConfiguration;
+    private final GaugeRegistry gaugeRegistry;
     private Filter objectClassFilter;
     private String[] listAttributes;
     private LoadingCache<String, List<MailAddress>> userMailCache;
@@ -211,13 +217,15 @@ public class LDAPMailingList extends GenericMailet {
     private MailingListPredicate mailingListPredicate;
     private String mailAttributeForGroups;
     private Optional<Filter> extraFilter = Optional.empty();
+    private Optional<LDAPMailingListSnapshot> snapshot = Optional.empty();
 
     @Inject
     public LDAPMailingList(LDAPConnectionPool ldapConnectionPool, LdapRepositoryConfiguration configuration,
-                           MailingListConfiguration mailingListConfiguration) {
+                           MailingListConfiguration mailingListConfiguration, GaugeRegistry gaugeRegistry) {
         this.configuration = configuration;
         this.ldapConnectionPool = ldapConnectionPool;
         this.mailingListConfiguration = mailingListConfiguration;
+        this.gaugeRegistry = gaugeRegistry;
     }
 
     @VisibleForTesting
@@ -227,7 +235,7 @@ public class LDAPMailingList extends GenericMailet {
 
     @VisibleForTesting
     public LDAPMailingList(LdapRepositoryConfiguration configuration, MailingListConfiguration mailingListConfiguration) throws LDAPException {
-        this(new LDAPConnectionFactory(configuration).getLdapConnectionPool(), configuration, mailingListConfiguration);
+        this(new LDAPConnectionFactory(configuration).getLdapConnectionPool(), configuration, mailingListConfiguration, new NoopGaugeRegistry());
     }
 
     @Override
@@ -296,6 +304,17 @@ public class LDAPMailingList extends GenericMailet {
             .add("owner")
             .add("businessCategory")
             .build().toArray(String[]::new);
+
+        snapshot = Optional.ofNullable(getInitParameter("snapshotRefreshInterval"))
+            .map(DurationParser::parse)
+            .map(refreshInterval -> new LDAPMailingListSnapshot(ldapConnectionPool, baseDN, groupFilter(), mailAttributeForGroups,
+                    listAttributes, Clock.systemUTC())
+                .start(refreshInterval, gaugeRegistry, "ldap-mailing-list-snapshot"));
+    }
+
+    @Override
+    public void destroy() {
+        snapshot.ifPresent(LDAPMailingListSnapshot::close);
     }
 
     @Override
@@ -315,6 +334,10 @@ public class LDAPMailingList extends GenericMailet {
 
     private Optional<SearchResultEntry> resolveListDN(MailAddress rcpt) throws LDAPSearchException {
         MailAddress strippedRcpt = rcpt.stripDetails(UsersRepository.LOCALPART_DETAIL_DELIMITER);
+        Optional<Optional<SearchResultEntry>> fromSnapshot = snapshot.flatMap(loaded -> loaded.lookup(strippedRcpt));
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
         try {
             SearchResult searchResult = ldapConnectionPool.search(baseDN,
                 SearchScope.SUB,
@@ -330,6 +353,12 @@ public class LDAPMailingList extends GenericMailet {
         }
     }
 
+    private Filter groupFilter() {
+        return extraFilter
+            .map(filter -> Filter.createANDFilter(objectClassFilter, filter))
+            .orElse(objectClassFilter);
+    }
+
     private Filter createFilter(String retrievalName, String ldapUserRetrievalAttribute) {
         Filter specificUserFilter = Filter.createEqualityFilter(ldapUserRetrievalAttribute, retrievalName);
         return extraFilter
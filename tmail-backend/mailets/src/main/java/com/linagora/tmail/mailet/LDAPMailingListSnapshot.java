@@ -0,0 +1,189 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.mailet;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ldap.sdk.controls.SimplePagedResultsControl;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Node-local copy of the mailing list groups stored under a base DN, indexed by their mail address.
+ *
+ * The whole subtree is reloaded every refresh interval, so that both list resolution and misses (addresses that are not
+ * lists) are answered without LDAP round trips. Changes to the lists are thus visible after at most one refresh interval.
+ * Until the first successful load, callers are expected to query the LDAP directly.
+ *
+ * The search is paged, as directories usually cap the size of a search result (500 entries by default for OpenLDAP).
+ */
+class LDAPMailingListSnapshot implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LDAPMailingListSnapshot.class);
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
+    private record Snapshot(Map<String, SearchResultEntry> lists, Instant loadedAt) {
+    }
+
+    private final LDAPConnectionPool ldapConnectionPool;
+    private final String baseDN;
+    private final Filter groupFilter;
+    private final String mailAttribute;
+    private final String[] attributes;
+    private final Clock clock;
+    private final int pageSize;
+    private volatile Optional<Snapshot> snapshot;
+    private Disposable refreshes;
+
+    LDAPMailingListSnapshot(LDAPConnectionPool ldapConnectionPool, String baseDN, Filter groupFilter, String mailAttribute,
+                            String[] attributes, Clock clock) {
+        this(ldapConnectionPool, baseDN, groupFilter, mailAttribute, attributes, clock, DEFAULT_PAGE_SIZE);
+    }
+
+    @VisibleForTesting
+    LDAPMailingListSnapshot(LDAPConnectionPool ldapConnectionPool, String baseDN, Filter groupFilter, String mailAttribute,
+                            String[] attributes, Clock clock, int pageSize) {
+        this.ldapConnectionPool = ldapConnectionPool;
+        this.baseDN = baseDN;
+        this.groupFilter = groupFilter;
+        this.mailAttribute = mailAttribute;
+        this.attributes = attributes;
+        this.clock = clock;
+        this.pageSize = pageSize;
+        this.snapshot = Optional.empty();
+    }
+
+    /**
+     * Gauges are named after the metric prefix and the base DN, eg. {@code ldap-mailing-list-snapshot-ou-lists-dc-tmail-dc-com-size},
+     * so that snapshots of distinct base DNs report distinct values.
+     */
+    LDAPMailingListSnapshot start(Duration refreshInterval, GaugeRegistry gaugeRegistry, String metricPrefix) {
+        String metricName = metricName(metricPrefix);
+        gaugeRegistry.register(metricName + "-size", () -> snapshot.map(loaded -> loaded.lists().size()).orElse(0));
+        gaugeRegistry.register(metricName + "-age-ms", () -> snapshot
+            .map(loaded -> Duration.between(loaded.loadedAt(), clock.instant()).toMillis())
+            .orElse(-1L));
+
+        tryRefresh();
+        refreshes = Flux.interval(refreshInterval, refreshInterval, Schedulers.boundedElastic())
+            .concatMap(any -> Mono.fromRunnable(this::tryRefresh))
+            .subscribe();
+        return this;
+    }
+
+    /**
+     * @return empty when the snapshot was not loaded yet, otherwise the list entry registered for this address, if any
+     */
+    Optional<Optional<SearchResultEntry>> lookup(MailAddress mailAddress) {
+        return snapshot.map(loaded -> Optional.ofNullable(loaded.lists().get(asKey(mailAddress.asString()))));
+    }
+
+    private String metricName(String metricPrefix) {
+        return metricPrefix + "-" + baseDN.toLowerCase(Locale.US).replaceAll("[^a-z0-9]+", "-");
+    }
+
+    private void tryRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            if (snapshot.isEmpty()) {
+                LOGGER.error("Failed to load the LDAP mailing list snapshot of {}, lists are resolved against the LDAP until a refresh succeeds", baseDN, e);
+            } else {
+                LOGGER.warn("Failed to refresh the LDAP mailing list snapshot of {}, keeping the previous one", baseDN, e);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void refresh() throws LDAPException {
+        Map<String, SearchResultEntry> lists = searchAllPages()
+            .stream()
+            .filter(entry -> entry.hasAttribute(mailAttribute))
+            .flatMap(entry -> Arrays.stream(entry.getAttributeValues(mailAttribute))
+                .map(address -> Map.entry(asKey(address), entry)))
+            // Mimics the LDAP lookup which picks the first matching entry
+            .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue, (first, second) -> first));
+
+        snapshot = Optional.of(new Snapshot(lists, clock.instant()));
+        LOGGER.debug("Loaded {} mailing list addresses from {}", lists.size(), baseDN);
+    }
+
+    private List<SearchResultEntry> searchAllPages() throws LDAPException {
+        // The paging cookie is only valid on the connection that issued it
+        LDAPConnection connection = ldapConnectionPool.getConnection();
+        try {
+            ImmutableList.Builder<SearchResultEntry> entries = ImmutableList.builder();
+            Optional<ASN1OctetString> cookie = Optional.empty();
+            do {
+                SearchRequest searchRequest = new SearchRequest(baseDN, SearchScope.SUB, groupFilter, attributes);
+                searchRequest.addControl(new SimplePagedResultsControl(pageSize, cookie.orElse(null)));
+                SearchResult searchResult = connection.search(searchRequest);
+                entries.addAll(searchResult.getSearchEntries());
+                cookie = nextPageCookie(searchResult);
+            } while (cookie.isPresent());
+            ldapConnectionPool.releaseConnection(connection);
+            return entries.build();
+        } catch (LDAPException e) {
+            ldapConnectionPool.releaseConnectionAfterException(connection, e);
+            throw e;
+        }
+    }
+
+    private Optional<ASN1OctetString> nextPageCookie(SearchResult searchResult) throws LDAPException {
+        // Absent when the directory does not support paging: the result then holds every entry
+        return Optional.ofNullable(SimplePagedResultsControl.get(searchResult))
+            .filter(SimplePagedResultsControl::moreResultsToReturn)
+            .map(SimplePagedResultsControl::getCookie);
+    }
+
+    private String asKey(String mailAddress) {
+        return mailAddress.toLowerCase(Locale.US);
+    }
+
+    @Override
+    public void close() {
+        Optional.ofNullable(refreshes).ifPresent(Disposable::dispose);
+    }
+}
@@ -22,7 +22,6 @@ import java.time.Duration
 import java.time.temporal.ChronoUnit
 
 import com.google.common.collect.ImmutableList
-import com.linagora.tmail.mailets.TmailMailRateLimiter.createRateLimiter
 import com.linagora.tmail.rate.limiter.api.RateLimitingRepository
 import com.linagora.tmail.rate.limiter.api.model.RateLimitingDefinition
 import com.linagora.tmail.rate.limiter.api.model.RateLimitingDefinition.EMPTY_RATE_LIMIT
@@ -95,6 +94,7 @@ class ReceivedRateLimiting @Inject()(val rateLimitingRepository: RateLimitingRep
   private var mailsPerMinuteDefault: Option[Long] = None
   private var mailsPerHourDefault: Option[Long] = None
   private var mailsPerDayDefault: Option[Long] = None
+  private var rateLimiters: TmailMailRateLimiters = _
 
   override def init(): Unit = {
     exceededProcessor = getInitParameter("exceededProcessor", Mail.ERROR)
@@ -107,6 +107,7 @@ class ReceivedRateLimiting @Inject()(val rateLimitingRepository: RateLimitingRep
     mailsPerMinuteDefault = getMailetConfig.getOptionalLong("mailsPerMinuteDefault")
     mailsPerHourDefault = getMailetConfig.getOptionalLong("mailsPerHourDefault")
     mailsPerDayDefault = getMailetConfig.getOptionalLong("mailsPerDayDefault")
+    rateLimiters = new TmailMailRateLimiters(rateLimiterFactory, precision, keyPrefix)
   }
 
   override def service(mail: Mail): Unit =
@@ -169,9 +170,9 @@ class ReceivedRateLimiting @Inject()(val rateLimitingRepository: RateLimitingRep
         .orElse(mailsPerDayDefault))
 
     Seq(
-      createRateLimiter(rateLimiterFactory, MailsReceivedPerMinuteType, mailsReceivedPerMinuteLimit, precision, keyPrefix),
-      createRateLimiter(rateLimiterFactory, MailsReceivedPerHourType, mailsReceivedPerHourLimit, precision, keyPrefix),
-      createRateLimiter(rateLimiterFactory, MailsReceivedPerDayType, mailsReceivedPerDayLimit, precision, keyPrefix))
+      rateLimiters.rateLimiter(MailsReceivedPerMinuteType, mailsReceivedPerMinuteLimit),
+      rateLimiters.rateLimiter(MailsReceivedPerHourType, mailsReceivedPerHourLimit),
+      rateLimiters.rateLimiter(MailsReceivedPerDayType, mailsReceivedPerDayLimit))
       .flatten
   }
 }
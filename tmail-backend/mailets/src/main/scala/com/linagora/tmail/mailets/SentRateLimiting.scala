@@ -21,7 +21,6 @@ package com.linagora.tmail.mailets
 import java.time.Duration
 import java.time.temporal.ChronoUnit
 
-import com.linagora.tmail.mailets.TmailMailRateLimiter.createRateLimiter
 import com.linagora.tmail.rate.limiter.api.RateLimitingRepository
 import com.linagora.tmail.rate.limiter.api.model.RateLimitingDefinition
 import com.linagora.tmail.rate.limiter.api.model.RateLimitingDefinition.EMPTY_RATE_LIMIT
@@ -91,6 +90,7 @@ class SentRateLimiting @Inject()(rateLimitingRepository: RateLimitingRepository,
   private var mailsPerMinuteDefault: Option[Long] = None
   private var mailsPerHourDefault: Option[Long]  = None
   private var mailsPerDayDefault: Option[Long] = None
+  private var rateLimiters: TmailMailRateLimiters = _
 
   override def init(): Unit = {
     exceededProcessor = getInitParameter("exceededProcessor", Mail.ERROR)
@@ -103,6 +103,7 @@ class SentRateLimiting @Inject()(rateLimitingRepository: RateLimitingRepository,
     mailsPerMinuteDefault = getMailetConfig.getOptionalLong("mailsPerMinuteDefault")
     mailsPerHourDefault = getMailetConfig.getOptionalLong("mailsPerHourDefault")
     mailsPerDayDefault = getMailetConfig.getOptionalLong("mailsPerDayDefault")
+    rateLimiters = new TmailMailRateLimiters(rateLimiterFactory, precision, keyPrefix)
   }
 
   override def service(mail: Mail): Unit =
@@ -149,9 +150,9 @@ class SentRateLimiting @Inject()(rateLimitingRepository: RateLimitingRepository,
         .orElse(mailsPerDayDefault))
 
     Seq(
-      createRateLimiter(rateLimiterFactory, MailsSentPerMinuteType, mailsSentPerMinuteLimit, precision, keyPrefix),
-      createRateLimiter(rateLimiterFactory, MailsSentPerHourType, mailsSentPerHourLimit, precision, keyPrefix),
-      createRateLimiter(rateLimiterFactory, MailsSentPerDayType, mailsSentPerDayLimit, precision, keyPrefix))
+      rateLimiters.rateLimiter(MailsSentPerMinuteType, mailsSentPerMinuteLimit),
+      rateLimiters.rateLimiter(MailsSentPerHourType, mailsSentPerHourLimit),
+      rateLimiters.rateLimiter(MailsSentPerDayType, mailsSentPerDayLimit))
       .flatten
   }
 }
@@ -19,6 +19,7 @@
 package com.linagora.tmail.mailets
 
 import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
 
 import com.linagora.tmail.mailets.MailLimit.UNLIMITED
 import eu.timepit.refined.auto._
@@ -48,6 +49,18 @@ object TmailMailRateLimiter {
     }
 }
 
+/**
+ * Memoizes the rate limiters of a mailet: they only depend on the limit type and on the allowed quantity, which take few
+ * distinct values, so that rate limiting a mail does not build new rate limiters for each user.
+ */
+class TmailMailRateLimiters(rateLimiterFactory: RateLimiterFactory, precision: Option[Duration], keyPrefix: Option[KeyPrefix]) {
+  private val rateLimiters: ConcurrentHashMap[(MailLimitType, Long), Option[TmailMailRateLimiter]] = new ConcurrentHashMap()
+
+  def rateLimiter(mailLimitType: MailLimitType, limit: Option[Long]): Option[TmailMailRateLimiter] =
+    limit.flatMap(value => rateLimiters.computeIfAbsent((mailLimitType, value),
+      _ => TmailMailRateLimiter.createRateLimiter(rateLimiterFactory, mailLimitType, Some(value), precision, keyPrefix)))
+}
+
 case class TmailMailRateLimiter(rateLimiter: RateLimiter,
                                 keyPrefix: Option[KeyPrefix] = None,
                                 mailLimitType: MailLimitType) {
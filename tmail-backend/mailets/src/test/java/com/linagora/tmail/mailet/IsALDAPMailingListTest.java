@@ -21,6 +21,8 @@ package com.linagora.tmail.mailet;
 import static org.apache.james.user.ldap.DockerLdapSingleton.ADMIN;
 import static org.apache.james.user.ldap.DockerLdapSingleton.ADMIN_PASSWORD;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.spy;
 
 import java.util.Optional;
 
@@ -29,7 +31,9 @@ import org.apache.commons.configuration2.plist.PropertyListConfiguration;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.Username;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.user.ldap.DockerLdapSingleton;
+import org.apache.james.user.ldap.LDAPConnectionFactory;
 import org.apache.james.user.ldap.LdapGenericContainer;
 import org.apache.james.user.ldap.LdapRepositoryConfiguration;
 import org.apache.mailet.base.test.FakeMail;
@@ -37,6 +41,9 @@ import org.apache.mailet.base.test.FakeMatcherConfig;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
 
 class IsALDAPMailingListTest {
     static LdapGenericContainer ldapContainer = DockerLdapSingleton.ldapContainer;
@@ -111,6 +118,36 @@ class IsALDAPMailingListTest {
             .isEmpty();
     }
 
+    @Test
+    void shouldMatchGroupsWhenSnapshotEnabled() throws Exception {
+        LdapRepositoryConfiguration configuration = LdapRepositoryConfiguration.from(ldapRepositoryConfigurationWithVirtualHosting(ldapContainer));
+        LDAPConnectionPool ldapConnectionPool = spy(new LDAPConnectionFactory(configuration).getLdapConnectionPool());
+        IsALDAPMailingList testee = new IsALDAPMailingList(ldapConnectionPool, configuration, new NoopGaugeRegistry());
+        testee.init(FakeMatcherConfig.builder()
+            .matcherName("IsALDAPMailingList")
+            .condition("ou=lists,dc=james,dc=org#groupofnames#description#1h")
+            .build());
+        clearInvocations(ldapConnectionPool);
+
+        FakeMail mail = FakeMail.builder()
+            .name("test-mail")
+            .state(FakeMail.DEFAULT)
+            .sender("bob@james.org")
+            .recipient("mygroup@lists.james.org")
+            .recipient("not-found@lists.james.org")
+            .recipient("james-user@james.org")
+            .build();
+
+        try {
+            assertThat(testee.match(mail))
+                .containsOnly(new MailAddress("mygroup@lists.james.org"));
+        } finally {
+            testee.destroy();
+        }
+        assertThat(Mockito.mockingDetails(ldapConnectionPool).getInvocations())
+            .noneMatch(invocation -> invocation.getMethod().getName().equals("search"));
+    }
+
     static HierarchicalConfiguration<ImmutableNode> ldapRepositoryConfigurationWithVirtualHosting(LdapGenericContainer ldapContainer) {
         return ldapRepositoryConfigurationWithVirtualHosting(ldapContainer, Optional.of(ADMIN));
     }
@@ -21,7 +21,10 @@ package com.linagora.tmail.mailet;
 import static org.apache.james.user.ldap.DockerLdapSingleton.ADMIN;
 import static org.apache.james.user.ldap.DockerLdapSingleton.ADMIN_PASSWORD;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.spy;
 
+import java.time.Clock;
 import java.util.Optional;
 
 import org.apache.commons.configuration2.HierarchicalConfiguration;
@@ -30,7 +33,9 @@ import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.Username;
 import org.apache.james.core.builder.MimeMessageBuilder;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.user.ldap.DockerLdapSingleton;
+import org.apache.james.user.ldap.LDAPConnectionFactory;
 import org.apache.james.user.ldap.LdapGenericContainer;
 import org.apache.james.user.ldap.LdapRepositoryConfiguration;
 import org.apache.mailet.LoopPrevention;
@@ -43,8 +48,11 @@ import org.assertj.core.api.SoftAssertions;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
 import com.github.fge.lambdas.Throwing;
+import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
 
 class LDAPMailingListTest {
     private static final String MESSAGE_CONTENT = "any text";
@@ -95,6 +103,74 @@ class LDAPMailingListTest {
         }));
     }
 
+    @Test
+    void shouldResolveGroupWhenSnapshotEnabled() throws Exception {
+        LdapRepositoryConfiguration configuration = LdapRepositoryConfiguration.from(ldapRepositoryConfigurationWithVirtualHosting(ldapContainer));
+        LDAPConnectionPool ldapConnectionPool = spy(new LDAPConnectionFactory(configuration).getLdapConnectionPool());
+        LDAPMailingList testee = new LDAPMailingList(ldapConnectionPool, configuration, MailingListConfiguration.EMPTY, new NoopGaugeRegistry());
+        FakeMailContext mailetContext = FakeMailContext.defaultContext();
+        FakeMailetConfig config = FakeMailetConfig.builder()
+            .mailetName("LDAPMailingList")
+            .setProperty("baseDN", "ou=lists,dc=james,dc=org")
+            .setProperty("rejectedSenderProcessor", "rejectedSender")
+            .setProperty("mailingListPredicate", "lists-prefix")
+            .setProperty("mailAttributeForGroups", "description")
+            .setProperty("snapshotRefreshInterval", "1h")
+            .mailetContext(mailetContext)
+            .build();
+        testee.init(config);
+        clearInvocations(ldapConnectionPool);
+
+        FakeMail mail = FakeMail.builder()
+            .name("test-mail")
+            .state(FakeMail.DEFAULT)
+            .sender("bob@james.org")
+            .recipient("mygroup@lists.james.org")
+            .recipient("not-found@lists.james.org")
+            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder()
+                .setSubject("test")
+                .setText(MESSAGE_CONTENT)
+                .build())
+            .build();
+        try {
+            testee.service(mail);
+        } finally {
+            testee.destroy();
+        }
+
+        SoftAssertions.assertSoftly(Throwing.consumer(softly -> {
+            softly.assertThat(mailetContext.getSentMails()).hasSize(1);
+            softly.assertThat(mailetContext.getSentMails().get(0).getRecipients())
+                .containsOnly(new MailAddress("james-user@james.org"),
+                    new MailAddress("james-user2@james.org"));
+            softly.assertThat(mail.getRecipients()).containsOnly(new MailAddress("not-found@lists.james.org"));
+            softly.assertThat(Mockito.mockingDetails(ldapConnectionPool).getInvocations())
+                .noneMatch(invocation -> invocation.getMethod().getName().equals("search"));
+        }));
+    }
+
+    @Test
+    void snapshotShouldLoadListsSpanningSeveralPages() throws Exception {
+        LdapRepositoryConfiguration configuration = LdapRepositoryConfiguration.from(ldapRepositoryConfigurationWithVirtualHosting(ldapContainer));
+        LDAPConnectionPool ldapConnectionPool = new LDAPConnectionFactory(configuration).getLdapConnectionPool();
+        LDAPMailingListSnapshot testee = new LDAPMailingListSnapshot(ldapConnectionPool, "ou=lists,dc=james,dc=org",
+            Filter.createEqualityFilter("objectClass", "groupofnames"), "description", new String[]{"description"},
+            Clock.systemUTC(), 1);
+
+        try {
+            testee.refresh();
+
+            SoftAssertions.assertSoftly(Throwing.consumer(softly -> {
+                softly.assertThat(testee.lookup(new MailAddress("mygroup@lists.james.org")))
+                    .hasValueSatisfying(entry -> assertThat(entry).isPresent());
+                softly.assertThat(testee.lookup(new MailAddress("group2@lists.james.org")))
+                    .hasValueSatisfying(entry -> assertThat(entry).isPresent());
+            }));
+        } finally {
+            testee.close();
+        }
+    }
+
     @Test
     void shouldResolveGroupWhenSubAddressingAndReAppendDetailToMembers() throws Exception {
         LDAPMailingList testee = new LDAPMailingList(LdapRepositoryConfiguration.from(ldapRepositoryConfigurationWithVirtualHosting(ldapContainer)));
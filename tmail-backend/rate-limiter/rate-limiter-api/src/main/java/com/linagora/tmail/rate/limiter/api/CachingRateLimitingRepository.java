@@ -0,0 +1,133 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.rate.limiter.api;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.james.core.Domain;
+import org.apache.james.core.Username;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.reactivestreams.Publisher;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.linagora.tmail.rate.limiter.api.model.RateLimitingDefinition;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the rate limiting definitions node-locally, so that rate limiting a mail does not need two database reads per
+ * recipient.
+ *
+ * Writes going through this repository, eg. from webadmin or from SaaS subscription updates, invalidate the modified
+ * entry right away. As writes issued on other nodes are not propagated, entries expire after a short TTL.
+ */
+public class CachingRateLimitingRepository implements RateLimitingRepository {
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    private final RateLimitingRepository underlying;
+    private final Cache<Username, RateLimitingDefinition> userCache;
+    private final Cache<Domain, RateLimitingDefinition> domainCache;
+    // Bumped on every invalidation so that a read racing with a write do not populate the cache with a stale value
+    private final AtomicLong invalidationGeneration;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+
+    public CachingRateLimitingRepository(RateLimitingRepository underlying, MetricFactory metricFactory) {
+        this(underlying, metricFactory, DEFAULT_TTL, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public CachingRateLimitingRepository(RateLimitingRepository underlying, MetricFactory metricFactory, Duration ttl, long maximumSize) {
+        this.underlying = underlying;
+        this.userCache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .build();
+        this.domainCache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .build();
+        this.invalidationGeneration = new AtomicLong();
+        this.hitMetric = metricFactory.generate("rate-limiting-definition-cache-hit");
+        this.missMetric = metricFactory.generate("rate-limiting-definition-cache-miss");
+    }
+
+    @Override
+    public Publisher<Void> setRateLimiting(Username username, RateLimitingDefinition rateLimiting) {
+        return Mono.from(underlying.setRateLimiting(username, rateLimiting))
+            .doFinally(any -> invalidate(userCache, username));
+    }
+
+    @Override
+    public Publisher<Void> setRateLimiting(Domain domain, RateLimitingDefinition rateLimiting) {
+        return Mono.from(underlying.setRateLimiting(domain, rateLimiting))
+            .doFinally(any -> invalidate(domainCache, domain));
+    }
+
+    @Override
+    public Publisher<RateLimitingDefinition> getRateLimiting(Username username) {
+        return cachedRateLimiting(userCache, username, underlying::getRateLimiting);
+    }
+
+    @Override
+    public Publisher<RateLimitingDefinition> getRateLimiting(Domain domain) {
+        return cachedRateLimiting(domainCache, domain, underlying::getRateLimiting);
+    }
+
+    @Override
+    public Publisher<Void> revokeRateLimiting(Username username) {
+        return Mono.from(underlying.revokeRateLimiting(username))
+            .doFinally(any -> invalidate(userCache, username));
+    }
+
+    private <T> Mono<RateLimitingDefinition> cachedRateLimiting(Cache<T, RateLimitingDefinition> cache, T key,
+                                                                Function<T, Publisher<RateLimitingDefinition>> loader) {
+        RateLimitingDefinition cachedDefinition = cache.getIfPresent(key);
+        if (cachedDefinition != null) {
+            hitMetric.increment();
+            return Mono.just(cachedDefinition);
+        }
+
+        missMetric.increment();
+        long generation = invalidationGeneration.get();
+        return Mono.from(loader.apply(key))
+            .doOnNext(definition -> {
+                if (generation == invalidationGeneration.get()) {
+                    cache.put(key, definition);
+                }
+            });
+    }
+
+    private <T> void invalidate(Cache<T, RateLimitingDefinition> cache, T key) {
+        invalidationGeneration.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    @VisibleForTesting
+    public void invalidateAll() {
+        invalidationGeneration.incrementAndGet();
+        userCache.invalidateAll();
+        domainCache.invalidateAll();
+    }
+}
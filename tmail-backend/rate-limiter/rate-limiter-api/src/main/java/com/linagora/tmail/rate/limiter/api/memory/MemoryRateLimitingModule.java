@@ -18,11 +18,15 @@
 
 package com.linagora.tmail.rate.limiter.api.memory;
 
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.user.api.UsernameChangeTaskStep;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.linagora.tmail.rate.limiter.api.CachingRateLimitingRepository;
 import com.linagora.tmail.rate.limiter.api.RateLimitingRepository;
 import com.linagora.tmail.rate.limiter.api.RateLimitingUsernameChangeTaskStep;
 
@@ -30,10 +34,15 @@ public class MemoryRateLimitingModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(MemoryRateLimitingRepository.class).in(Scopes.SINGLETON);
-        bind(RateLimitingRepository.class).to(MemoryRateLimitingRepository.class);
 
         Multibinder.newSetBinder(binder(), UsernameChangeTaskStep.class)
             .addBinding()
             .to(RateLimitingUsernameChangeTaskStep.class);
     }
+
+    @Provides
+    @Singleton
+    RateLimitingRepository provideRateLimitingRepository(MemoryRateLimitingRepository memoryRateLimitingRepository, MetricFactory metricFactory) {
+        return new CachingRateLimitingRepository(memoryRateLimitingRepository, metricFactory);
+    }
 }
@@ -0,0 +1,100 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.rate.limiter.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.linagora.tmail.rate.limiter.api.memory.MemoryRateLimitingRepository;
+import com.linagora.tmail.rate.limiter.api.model.RateLimitingDefinition;
+
+import reactor.core.publisher.Mono;
+
+class CachingRateLimitingRepositoryTest implements RateLimitingRepositoryContract {
+    private MemoryRateLimitingRepository underlying;
+    private RecordingMetricFactory metricFactory;
+    private CachingRateLimitingRepository testee;
+
+    @BeforeEach
+    void setUp() {
+        underlying = new MemoryRateLimitingRepository();
+        metricFactory = new RecordingMetricFactory();
+        testee = new CachingRateLimitingRepository(underlying, metricFactory);
+    }
+
+    @Override
+    public RateLimitingRepository testee() {
+        return testee;
+    }
+
+    @Test
+    void getRateLimitingShouldBeServedFromCache() {
+        Mono.from(underlying.setRateLimiting(BOB, RATE_LIMITING_1)).block();
+        Mono.from(testee.getRateLimiting(BOB)).block();
+
+        Mono.from(underlying.revokeRateLimiting(BOB)).block();
+
+        assertThat(Mono.from(testee.getRateLimiting(BOB)).block()).isEqualTo(RATE_LIMITING_1);
+        assertThat(metricFactory.countFor("rate-limiting-definition-cache-hit")).isEqualTo(1);
+        assertThat(metricFactory.countFor("rate-limiting-definition-cache-miss")).isEqualTo(1);
+    }
+
+    @Test
+    void getDomainRateLimitingShouldBeServedFromCache() {
+        Mono.from(underlying.setRateLimiting(DOMAIN_1, RATE_LIMITING_1)).block();
+        Mono.from(testee.getRateLimiting(DOMAIN_1)).block();
+
+        Mono.from(underlying.setRateLimiting(DOMAIN_1, RATE_LIMITING_2)).block();
+
+        assertThat(Mono.from(testee.getRateLimiting(DOMAIN_1)).block()).isEqualTo(RATE_LIMITING_1);
+    }
+
+    @Test
+    void setRateLimitingShouldInvalidateTheCachedDefinition() {
+        Mono.from(testee.setRateLimiting(BOB, RATE_LIMITING_1)).block();
+        Mono.from(testee.getRateLimiting(BOB)).block();
+
+        Mono.from(testee.setRateLimiting(BOB, RATE_LIMITING_2)).block();
+
+        assertThat(Mono.from(testee.getRateLimiting(BOB)).block()).isEqualTo(RATE_LIMITING_2);
+    }
+
+    @Test
+    void setDomainRateLimitingShouldInvalidateTheCachedDefinition() {
+        Mono.from(testee.setRateLimiting(DOMAIN_1, RATE_LIMITING_1)).block();
+        Mono.from(testee.getRateLimiting(DOMAIN_1)).block();
+
+        Mono.from(testee.setRateLimiting(DOMAIN_1, RATE_LIMITING_2)).block();
+
+        assertThat(Mono.from(testee.getRateLimiting(DOMAIN_1)).block()).isEqualTo(RATE_LIMITING_2);
+    }
+
+    @Test
+    void revokeRateLimitingShouldInvalidateTheCachedDefinition() {
+        Mono.from(testee.setRateLimiting(BOB, RATE_LIMITING_1)).block();
+        Mono.from(testee.getRateLimiting(BOB)).block();
+
+        Mono.from(testee.revokeRateLimiting(BOB)).block();
+
+        assertThat(Mono.from(testee.getRateLimiting(BOB)).block()).isEqualTo(RateLimitingDefinition.EMPTY_RATE_LIMIT);
+    }
+}
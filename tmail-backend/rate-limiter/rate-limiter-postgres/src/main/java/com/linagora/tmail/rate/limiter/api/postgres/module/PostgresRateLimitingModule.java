@@ -18,11 +18,15 @@
 
 package com.linagora.tmail.rate.limiter.api.postgres.module;
 
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.user.api.UsernameChangeTaskStep;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.linagora.tmail.rate.limiter.api.CachingRateLimitingRepository;
 import com.linagora.tmail.rate.limiter.api.RateLimitingRepository;
 import com.linagora.tmail.rate.limiter.api.RateLimitingUsernameChangeTaskStep;
 import com.linagora.tmail.rate.limiter.api.postgres.PostgresRateLimitingRepository;
@@ -31,10 +35,15 @@ public class PostgresRateLimitingModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(PostgresRateLimitingRepository.class).in(Scopes.SINGLETON);
-        bind(RateLimitingRepository.class).to(PostgresRateLimitingRepository.class);
 
         Multibinder.newSetBinder(binder(), UsernameChangeTaskStep.class)
             .addBinding()
             .to(RateLimitingUsernameChangeTaskStep.class);
     }
+
+    @Provides
+    @Singleton
+    RateLimitingRepository provideRateLimitingRepository(PostgresRateLimitingRepository postgresRateLimitingRepository, MetricFactory metricFactory) {
+        return new CachingRateLimitingRepository(postgresRateLimitingRepository, metricFactory);
+    }
 }
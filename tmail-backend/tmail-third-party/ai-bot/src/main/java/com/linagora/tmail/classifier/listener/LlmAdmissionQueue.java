@@ -0,0 +1,222 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.classifier.listener;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Node-wide admission control of the LLM calls issued by the classifier.
+ *
+ * At most {@code maxConcurrentCalls} calls are in flight, the other ones wait for a permit. Waiting calls for small
+ * prompts are served first, one waiting large prompt being served every {@link #SMALL_PROMPTS_BURST} small ones so that
+ * large mails are never starved. Once {@code maxPendingCalls} calls are waiting, new calls are shed: they fail with a
+ * {@link AdmissionRejectedException} and the event bus retries them later.
+ */
+class LlmAdmissionQueue {
+    static final String MAX_CONCURRENT_CALLS_PARAM = "admission.maxConcurrentCalls";
+    static final String MAX_PENDING_CALLS_PARAM = "admission.maxPendingCalls";
+    static final String SMALL_PROMPT_LENGTH_PARAM = "admission.smallPromptLength";
+    static final int DEFAULT_MAX_PENDING_CALLS = 1000;
+    static final int DEFAULT_SMALL_PROMPT_LENGTH = 2000;
+    @VisibleForTesting
+    static final int SMALL_PROMPTS_BURST = 4;
+
+    static Optional<LlmAdmissionQueue> from(HierarchicalConfiguration<ImmutableNode> configuration, MetricFactory metricFactory) {
+        return Optional.ofNullable(configuration.getInteger(MAX_CONCURRENT_CALLS_PARAM, null))
+            .map(maxConcurrentCalls -> new LlmAdmissionQueue(maxConcurrentCalls,
+                configuration.getInt(MAX_PENDING_CALLS_PARAM, DEFAULT_MAX_PENDING_CALLS),
+                configuration.getInt(SMALL_PROMPT_LENGTH_PARAM, DEFAULT_SMALL_PROMPT_LENGTH),
+                metricFactory));
+    }
+
+    static class AdmissionRejectedException extends RuntimeException {
+        AdmissionRejectedException(int pendingCalls) {
+            super("LLM classification shed: " + pendingCalls + " calls are already waiting for admission");
+        }
+    }
+
+    private class Permit {
+        private final AtomicBoolean released;
+
+        private Permit() {
+            this.released = new AtomicBoolean(false);
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                LlmAdmissionQueue.this.release();
+            }
+        }
+    }
+
+    private static class Waiter {
+        private final MonoSink<Permit> sink;
+        private final TimeMetric waitTimer;
+        private Optional<Permit> grantedPermit;
+
+        private Waiter(MonoSink<Permit> sink, TimeMetric waitTimer) {
+            this.sink = sink;
+            this.waitTimer = waitTimer;
+            this.grantedPermit = Optional.empty();
+        }
+    }
+
+    private final Object lock;
+    private final MetricFactory metricFactory;
+    private final int maxPendingCalls;
+    private final int smallPromptLength;
+    private final Queue<Waiter> smallPromptWaiters;
+    private final Queue<Waiter> largePromptWaiters;
+    private final Metric inFlightMetric;
+    private final Metric pendingMetric;
+    private final Metric shedMetric;
+    private int availablePermits;
+    private int consecutiveSmallPromptGrants;
+
+    LlmAdmissionQueue(int maxConcurrentCalls, int maxPendingCalls, int smallPromptLength, MetricFactory metricFactory) {
+        Preconditions.checkArgument(maxConcurrentCalls > 0, "'%s' must be strictly positive", MAX_CONCURRENT_CALLS_PARAM);
+        Preconditions.checkArgument(maxPendingCalls >= 0, "'%s' must be positive", MAX_PENDING_CALLS_PARAM);
+
+        this.lock = new Object();
+        this.metricFactory = metricFactory;
+        this.maxPendingCalls = maxPendingCalls;
+        this.smallPromptLength = smallPromptLength;
+        this.smallPromptWaiters = new ArrayDeque<>();
+        this.largePromptWaiters = new ArrayDeque<>();
+        this.inFlightMetric = metricFactory.generate("llm-classifier-admission-in-flight");
+        this.pendingMetric = metricFactory.generate("llm-classifier-admission-pending");
+        this.shedMetric = metricFactory.generate("llm-classifier-admission-shed");
+        this.availablePermits = maxConcurrentCalls;
+        this.consecutiveSmallPromptGrants = 0;
+    }
+
+    <T> Mono<T> admit(int promptLength, Mono<T> call) {
+        return Mono.usingWhen(acquire(promptLength),
+            permit -> call,
+            permit -> Mono.fromRunnable(permit::release));
+    }
+
+    @VisibleForTesting
+    int pendingCalls() {
+        synchronized (lock) {
+            return smallPromptWaiters.size() + largePromptWaiters.size();
+        }
+    }
+
+    private Mono<Permit> acquire(int promptLength) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink, metricFactory.timer("llm-classifier-admission-wait"));
+            Optional<Permit> permit;
+            int pendingCalls;
+            synchronized (lock) {
+                permit = tryAcquire();
+                pendingCalls = smallPromptWaiters.size() + largePromptWaiters.size();
+                if (permit.isEmpty() && pendingCalls < maxPendingCalls) {
+                    waitersFor(promptLength).add(waiter);
+                    pendingMetric.increment();
+                }
+            }
+            if (permit.isPresent()) {
+                sink.success(permit.get());
+            } else if (pendingCalls >= maxPendingCalls) {
+                shedMetric.increment();
+                sink.error(new AdmissionRejectedException(pendingCalls));
+            } else {
+                sink.onCancel(() -> cancel(waiter));
+            }
+        });
+    }
+
+    private Queue<Waiter> waitersFor(int promptLength) {
+        if (promptLength <= smallPromptLength) {
+            return smallPromptWaiters;
+        }
+        return largePromptWaiters;
+    }
+
+    private Optional<Permit> tryAcquire() {
+        if (availablePermits > 0) {
+            availablePermits--;
+            return Optional.of(grant());
+        }
+        return Optional.empty();
+    }
+
+    private void cancel(Waiter waiter) {
+        Optional<Permit> grantedPermit;
+        synchronized (lock) {
+            if (smallPromptWaiters.remove(waiter) || largePromptWaiters.remove(waiter)) {
+                pendingMetric.decrement();
+            }
+            grantedPermit = waiter.grantedPermit;
+        }
+        // The permit might have been handed over concurrently with the cancellation
+        grantedPermit.ifPresent(Permit::release);
+    }
+
+    private void release() {
+        Optional<Waiter> servedWaiter;
+        synchronized (lock) {
+            inFlightMetric.decrement();
+            servedWaiter = nextWaiter();
+            servedWaiter.ifPresentOrElse(waiter -> {
+                pendingMetric.decrement();
+                waiter.grantedPermit = Optional.of(grant());
+            }, () -> availablePermits++);
+        }
+        servedWaiter.ifPresent(waiter -> {
+            waiter.waitTimer.stopAndPublish();
+            waiter.grantedPermit.ifPresent(waiter.sink::success);
+        });
+    }
+
+    private Optional<Waiter> nextWaiter() {
+        boolean largePromptTurn = consecutiveSmallPromptGrants >= SMALL_PROMPTS_BURST;
+        if (!largePromptTurn && !smallPromptWaiters.isEmpty()) {
+            consecutiveSmallPromptGrants++;
+            return Optional.of(smallPromptWaiters.poll());
+        }
+        if (!largePromptWaiters.isEmpty()) {
+            consecutiveSmallPromptGrants = 0;
+            return Optional.of(largePromptWaiters.poll());
+        }
+        consecutiveSmallPromptGrants = 0;
+        return Optional.ofNullable(smallPromptWaiters.poll());
+    }
+
+    private Permit grant() {
+        inFlightMetric.increment();
+        return new Permit();
+    }
+}
@@ -0,0 +1,182 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.classifier.listener;
+
+import static com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.NEEDS_ACTION;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.LlmOutput;
+import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.LlmUserPromptParameters;
+import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.UserContext;
+import com.linagora.tmail.james.jmap.model.Label;
+
+import reactor.core.publisher.Mono;
+import scala.jdk.javaapi.OptionConverters;
+
+/**
+ * Shares LLM classification results between the recipients of the same content.
+ *
+ * Results are keyed by a hash of the normalized content submitted to the LLM (sender, recipients, subject and
+ * truncated body) and by a fingerprint of the labels of the user. As label keywords are generated per user, labels are
+ * identified by their display name and description: a result computed for a user is translated into the keywords of the
+ * other users having the same labels. Concurrent classifications of the same key share a single LLM call.
+ *
+ * The needs-action decision is taken by the LLM for a given recipient. It is only shared between the recipients the
+ * content does not name, eg. the members of a mailing list: the results of a recipient whose address or display name
+ * appears in the recipients, subject or body are keyed by this recipient as well.
+ */
+class LlmClassificationCache {
+    static final String ENABLED_PARAM = "resultCache.enabled";
+    static final String MAX_SIZE_PARAM = "resultCache.maxSize";
+    static final String TTL_PARAM = "resultCache.ttl";
+    static final long DEFAULT_MAX_SIZE = 10_000;
+    static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+    private static final int MIN_NAME_LENGTH = 3;
+    private static final char SEPARATOR = '\u0000';
+
+    static Optional<LlmClassificationCache> from(HierarchicalConfiguration<ImmutableNode> configuration, MetricFactory metricFactory) {
+        if (!configuration.getBoolean(ENABLED_PARAM, false)) {
+            return Optional.empty();
+        }
+        Duration ttl = Optional.ofNullable(configuration.getString(TTL_PARAM, null))
+            .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+            .orElse(DEFAULT_TTL);
+        return Optional.of(new LlmClassificationCache(configuration.getLong(MAX_SIZE_PARAM, DEFAULT_MAX_SIZE), ttl, metricFactory));
+    }
+
+    @VisibleForTesting
+    record Key(String contentHash, String labelsFingerprint, Optional<String> namedRecipient) {
+        static Key of(LlmUserPromptParameters parameters, UserContext userContext) {
+            return new Key(hash(Stream.of(parameters.sender(), parameters.to(), parameters.subject(), parameters.textContent())
+                    .map(LlmClassificationCache::normalize)),
+                hash(userContext.labels().stream()
+                    .map(LlmClassificationCache::signature)
+                    .sorted()),
+                Optional.of(parameters.user()).filter(any -> namesRecipient(parameters)));
+        }
+
+        // Over matching only prevents sharing results
+        private static boolean namesRecipient(LlmUserPromptParameters parameters) {
+            String content = Joiner.on(SEPARATOR).join(parameters.to(), parameters.subject(), parameters.textContent())
+                .toLowerCase(Locale.US);
+            return Stream.concat(Stream.of(parameters.user()), WHITESPACES.splitAsStream(parameters.userDisplayName()))
+                .filter(name -> name.length() >= MIN_NAME_LENGTH)
+                .map(name -> name.toLowerCase(Locale.US))
+                .anyMatch(content::contains);
+        }
+
+        private static String hash(Stream<String> parts) {
+            return Hashing.sha256()
+                .hashString(Joiner.on(SEPARATOR).join(parts.iterator()), StandardCharsets.UTF_8)
+                .toString();
+        }
+    }
+
+    // User independent form of a LLM output
+    private record Classification(ImmutableSet<String> labelSignatures, boolean needsAction) {
+        static Classification from(LlmOutput llmOutput, UserContext userContext) {
+            Set<String> labelIds = llmOutput.validateLabelIds(userContext);
+            return new Classification(userContext.labels().stream()
+                .filter(label -> labelIds.contains(label.keyword()))
+                .map(LlmClassificationCache::signature)
+                .collect(ImmutableSet.toImmutableSet()),
+                labelIds.contains(NEEDS_ACTION));
+        }
+
+        LlmOutput asLlmOutput(UserContext userContext) {
+            Stream<String> labels = userContext.labels().stream()
+                .filter(label -> labelSignatures.contains(signature(label)))
+                .map(Label::keyword);
+            Stream<String> systemLabels = Stream.of(NEEDS_ACTION).filter(any -> needsAction);
+            return new LlmOutput(Stream.concat(systemLabels, labels).collect(ImmutableSet.toImmutableSet()));
+        }
+    }
+
+    private final Cache<Key, Classification> results;
+    private final Map<Key, Mono<Classification>> inFlightClassifications;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+
+    LlmClassificationCache(long maxSize, Duration ttl, MetricFactory metricFactory) {
+        this.results = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .build();
+        this.inFlightClassifications = new ConcurrentHashMap<>();
+        this.hitMetric = metricFactory.generate("llm-classifier-result-cache-hit");
+        this.missMetric = metricFactory.generate("llm-classifier-result-cache-miss");
+    }
+
+    Mono<LlmOutput> classify(LlmUserPromptParameters parameters, UserContext userContext, Mono<LlmOutput> llmCall) {
+        Key key = Key.of(parameters, userContext);
+        Classification cachedClassification = results.getIfPresent(key);
+        if (cachedClassification != null) {
+            hitMetric.increment();
+            return Mono.just(cachedClassification.asLlmOutput(userContext));
+        }
+
+        AtomicBoolean loading = new AtomicBoolean(false);
+        Mono<Classification> classification = inFlightClassifications.computeIfAbsent(key, any -> {
+            loading.set(true);
+            return llmCall.map(llmOutput -> Classification.from(llmOutput, userContext))
+                .doOnNext(result -> results.put(key, result))
+                .doFinally(signal -> inFlightClassifications.remove(key))
+                .cache();
+        });
+        if (loading.get()) {
+            missMetric.increment();
+        } else {
+            hitMetric.increment();
+        }
+        return classification.map(result -> result.asLlmOutput(userContext));
+    }
+
+    private static String normalize(String value) {
+        return WHITESPACES.matcher(value).replaceAll(" ").trim();
+    }
+
+    private static String signature(Label label) {
+        return label.displayName().value() + SEPARATOR + OptionConverters.toJava(label.description()).orElse("");
+    }
+}
@@ -119,6 +119,22 @@ public class LlmMailBackendClassifierListener implements EventListener.ReactiveG
     private final int maxBodyLength;
     private final LabelRepository labelRepository;
     private final boolean reviewModeEnabled;
+    private final Optional<LlmClassificationCache> classificationCache;
+    private final Optional<LlmAdmissionQueue> admissionQueue;
+    private final LlmUserContextCache userContextCache;
+
+    public LlmMailBackendClassifierListener(MailboxManager mailboxManager,
+                                            MessageIdManager messageIdManager,
+                                            StreamingChatLanguageModel chatLanguageModel,
+                                            HtmlTextExtractor htmlTextExtractor,
+                                            IdentityRepository identityRepository,
+                                            MetricFactory metricFactory,
+                                            LabelRepository labelRepository,
+                                            HierarchicalConfiguration<ImmutableNode> configuration,
+                                            PromptRetriever.Factory promptRetrieverFactory) {
+        this(mailboxManager, messageIdManager, chatLanguageModel, htmlTextExtractor, identityRepository, metricFactory,
+            labelRepository, configuration, promptRetrieverFactory, LlmUserContextCache.disabled(metricFactory));
+    }
 
     @Inject
     public LlmMailBackendClassifierListener(MailboxManager mailboxManager,
@@ -129,7 +145,8 @@ public class LlmMailBackendClassifierListener implements EventListener.ReactiveG
                                             MetricFactory metricFactory,
                                             LabelRepository labelRepository,
                                             @Named(LLM_MAIL_CLASSIFIER_CONFIGURATION) HierarchicalConfiguration<ImmutableNode> configuration,
-                                            PromptRetriever.Factory promptRetrieverFactory) {
+                                            PromptRetriever.Factory promptRetrieverFactory,
+                                            LlmUserContextCache userContextCache) {
 
         this.mailboxManager = mailboxManager;
         this.messageIdManager = messageIdManager;
@@ -141,6 +158,9 @@ public class LlmMailBackendClassifierListener implements EventListener.ReactiveG
         this.maxBodyLength = configuration.getInt(MAX_BODY_LENGTH_PARAM, DEFAULT_MAX_BODY_LENGTH);
         Preconditions.checkArgument(maxBodyLength > 0, "'maxBodyLength' must be strictly positive");
         this.reviewModeEnabled = Boolean.parseBoolean(System.getProperty("tmail.ai.needsaction.relevance.review", "false"));
+        this.classificationCache = LlmClassificationCache.from(configuration, metricFactory);
+        this.admissionQueue = LlmAdmissionQueue.from(configuration, metricFactory);
+        this.userContextCache = userContextCache;
         PromptRetriever retriever = promptRetrieverFactory.create(configuration);
         this.prompts = retriever
             .retrievePrompts()
@@ -215,15 +235,25 @@ public class LlmMailBackendClassifierListener implements EventListener.ReactiveG
         }
     }
 
-    record UserContext(String displayName, Set<Label> labels, Label needsActionLabel) {
+    record UserContext(String displayName, Set<Label> labels, Label needsActionLabel, String labelsInfo) {
+        static UserContext of(String displayName, Set<Label> labels, Username username) {
+            Label needsActionLabel = buildNeedsActionLabel(displayName, username.asString());
+            return new UserContext(displayName, labels, needsActionLabel, buildLabelsInfo(needsActionLabel, labels));
+        }
+
+        private static String buildLabelsInfo(Label needsActionLabel, Set<Label> labels) {
+            return Stream.concat(Stream.of(needsActionLabel), labels.stream())
+                .map(label -> "labelId : " + label.keyword() + " - Label name :" + label.displayName() + " - label description :" + OptionConverters.toJava(label.description()).orElse("No description"))
+                .collect(Collectors.joining("\n- ", "- ", ""));
+        }
+
         Set<Label> systemLabels() {
             return ImmutableSet.of(needsActionLabel);
         }
     }
 
     private Mono<Void> classifyMail(LlmMailClassifierListener.ParsedMessage message, MailboxSession session) {
-        return Mono.zip(getUserDisplayName(session.getUser()), getUserLabels(session.getUser()),
-                (displayName, labels) -> new UserContext(displayName, labels, buildNeedsActionLabel(displayName, session.getUser().asString())))
+        return userContextCache.get(session.getUser(), loadUserContext(session.getUser()))
             .flatMap(userContext -> Mono.fromCallable(() -> buildUserPrompt(message, session.getUser(), userContext))
                 .flatMap(userPrompt -> performLlmClassification(message, session, userPrompt, userContext)))
             .doOnError(e -> LOGGER.error("LLM call failed for messageId {} in mailboxId {} of userTemplate {}",
@@ -231,12 +261,22 @@ public class LlmMailBackendClassifierListener implements EventListener.ReactiveG
     }
 
     private Mono<Void> performLlmClassification(LlmMailClassifierListener.ParsedMessage message, MailboxSession session, LlmUserPromptParameters llmUserPromptParameters, UserContext userContext) {
-        return Mono.from(metricFactory.decoratePublisherWithTimerMetric("llm-mail-prioritization-classifier",
-                callLlm(prompts.system(), llmUserPromptParameters.correspondingUserPrompt(prompts.userTemplate()))))
+        return classify(llmUserPromptParameters, userContext)
             .doOnNext(llmOutput -> emitStructureLog(llmUserPromptParameters, llmOutput, userContext))
             .flatMap(llmOutput -> addFlags(message.messageResult(), session, llmOutput.flagsToSet(userContext)));
     }
 
+    private Mono<LlmOutput> classify(LlmUserPromptParameters llmUserPromptParameters, UserContext userContext) {
+        String userPrompt = llmUserPromptParameters.correspondingUserPrompt(prompts.userTemplate());
+        Mono<LlmOutput> llmCall = Mono.from(metricFactory.decoratePublisherWithTimerMetric("llm-mail-prioritization-classifier",
+            callLlm(prompts.system(), userPrompt)));
+        Mono<LlmOutput> admittedLlmCall = admissionQueue.map(queue -> queue.admit(userPrompt.length(), llmCall))
+            .orElse(llmCall);
+
+        return classificationCache.map(cache -> cache.classify(llmUserPromptParameters, userContext, admittedLlmCall))
+            .orElse(admittedLlmCall);
+    }
+
     private void emitStructureLog(LlmUserPromptParameters llmUserPrompt, LlmOutput llmOutput, UserContext userContext) {
             if (reviewModeEnabled) {
                 MDCStructuredLogger.forLogger(LOGGER)
@@ -266,6 +306,11 @@ public class LlmMailBackendClassifierListener implements EventListener.ReactiveG
             .orElseGet(Mono::empty);
     }
 
+    private Mono<UserContext> loadUserContext(Username username) {
+        return Mono.zip(getUserDisplayName(username), getUserLabels(username),
+            (displayName, labels) -> UserContext.of(displayName, labels, username));
+    }
+
     private Mono<Set<Label>> getUserLabels(Username username) {
         return Flux.from(labelRepository.listLabels(username))
             .collect(Collectors.toSet())
@@ -299,17 +344,10 @@ public class LlmMailBackendClassifierListener implements EventListener.ReactiveG
                     .collect(Collectors.joining(", ")))
                 .orElse("");
             String subject = Strings.nullToEmpty(message.parsed().getSubject());
-            String labelsInfo = buildLabelsInfo(userContext);
             MessageContentExtractor.MessageContent messageContent = new MessageContentExtractor().extract(message.parsed());
             Optional<String> maybeBody = messageContent.extractMainTextContent(htmlTextExtractor);
 
-            return new LlmUserPromptParameters(userContext.displayName(), username.asString(), truncateBody(maybeBody.orElse("")), from, to, subject, labelsInfo);
-    }
-
-    private String buildLabelsInfo(UserContext userContext) {
-        return Stream.concat(userContext.systemLabels().stream(), userContext.labels().stream())
-            .map(label -> "labelId : " + label.keyword() + " - Label name :" + label.displayName() + " - label description :" + OptionConverters.toJava(label.description()).orElse("No description"))
-            .collect(Collectors.joining("\n- ", "- ", ""));
+            return new LlmUserPromptParameters(userContext.displayName(), username.asString(), truncateBody(maybeBody.orElse("")), from, to, subject, userContext.labelsInfo());
     }
 
     private Mono<String> getUserDisplayName(Username username) {
@@ -0,0 +1,122 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.classifier.listener;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.core.Username;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.linagora.tmail.cache.CacheInvalidationSubscriber;
+import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.UserContext;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Node-local cache of the classification context of the users: their display name, their labels and the labels block
+ * rendered in the prompt.
+ *
+ * Entries are invalidated on every node upon label and identity changes, see {@link LlmUserContextInvalidationListener}.
+ * Changes of the server-set identities are seen once the entries expire.
+ */
+public class LlmUserContextCache implements CacheInvalidationSubscriber {
+    public static final String CACHE_NAME = "llm-classifier-user-context";
+    static final String ENABLED_PARAM = "userContextCache.enabled";
+    static final String MAX_SIZE_PARAM = "userContextCache.maxSize";
+    static final String TTL_PARAM = "userContextCache.ttl";
+    static final long DEFAULT_MAX_SIZE = 10_000;
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    public static LlmUserContextCache from(HierarchicalConfiguration<ImmutableNode> configuration, MetricFactory metricFactory) {
+        if (!configuration.getBoolean(ENABLED_PARAM, true)) {
+            return disabled(metricFactory);
+        }
+        Duration ttl = Optional.ofNullable(configuration.getString(TTL_PARAM, null))
+            .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+            .orElse(DEFAULT_TTL);
+        return new LlmUserContextCache(Optional.of(CacheBuilder.newBuilder()
+            .maximumSize(configuration.getLong(MAX_SIZE_PARAM, DEFAULT_MAX_SIZE))
+            .expireAfterWrite(ttl)
+            .build()), metricFactory);
+    }
+
+    public static LlmUserContextCache disabled(MetricFactory metricFactory) {
+        return new LlmUserContextCache(Optional.empty(), metricFactory);
+    }
+
+    private final Optional<Cache<Username, UserContext>> cache;
+    // Bumped on every invalidation so that a load racing with a label or identity change do not populate the cache with a stale value
+    private final AtomicLong invalidationGeneration;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+
+    private LlmUserContextCache(Optional<Cache<Username, UserContext>> cache, MetricFactory metricFactory) {
+        this.cache = cache;
+        this.invalidationGeneration = new AtomicLong();
+        this.hitMetric = metricFactory.generate("llm-classifier-user-context-cache-hit");
+        this.missMetric = metricFactory.generate("llm-classifier-user-context-cache-miss");
+    }
+
+    Mono<UserContext> get(Username username, Mono<UserContext> loader) {
+        return cache.map(presentCache -> cachedGet(presentCache, username, loader))
+            .orElse(loader);
+    }
+
+    private Mono<UserContext> cachedGet(Cache<Username, UserContext> presentCache, Username username, Mono<UserContext> loader) {
+        UserContext cachedUserContext = presentCache.getIfPresent(username);
+        if (cachedUserContext != null) {
+            hitMetric.increment();
+            return Mono.just(cachedUserContext);
+        }
+
+        missMetric.increment();
+        long generation = invalidationGeneration.get();
+        return loader.doOnNext(userContext -> {
+            if (generation == invalidationGeneration.get()) {
+                presentCache.put(username, userContext);
+            }
+        });
+    }
+
+    @Override
+    public String cacheName() {
+        return CACHE_NAME;
+    }
+
+    @Override
+    public void invalidate(String entry) {
+        invalidate(Username.of(entry));
+    }
+
+    public void invalidate(Username username) {
+        cache.ifPresent(presentCache -> {
+            invalidationGeneration.incrementAndGet();
+            presentCache.invalidate(username);
+        });
+    }
+}
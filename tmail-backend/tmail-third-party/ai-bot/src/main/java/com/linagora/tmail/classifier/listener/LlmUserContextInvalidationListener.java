@@ -0,0 +1,83 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.classifier.listener;
+
+import java.util.function.Predicate;
+
+import org.apache.james.events.Event;
+import org.apache.james.events.EventListener;
+import org.apache.james.events.Group;
+import org.apache.james.jmap.api.identity.IdentityEvent;
+import org.reactivestreams.Publisher;
+
+import com.linagora.tmail.cache.CacheInvalidationPublisher;
+import com.linagora.tmail.james.jmap.label.TmailLabelEvent;
+
+/**
+ * Invalidates, on every node, the classification context of the users whose labels or identities change.
+ *
+ * Label changes are dispatched on the TMail event bus while identity changes are dispatched on the JMAP event bus, hence
+ * one listener, with its own group, per event bus. Being group listeners, each change is handled once, then fanned out
+ * to every node through the {@link CacheInvalidationPublisher}.
+ */
+public class LlmUserContextInvalidationListener implements EventListener.ReactiveGroupEventListener {
+    public static class LlmUserContextLabelInvalidationGroup extends Group {
+
+    }
+
+    public static class LlmUserContextIdentityInvalidationGroup extends Group {
+
+    }
+
+    public static final Group LABEL_GROUP = new LlmUserContextLabelInvalidationGroup();
+    public static final Group IDENTITY_GROUP = new LlmUserContextIdentityInvalidationGroup();
+
+    public static LlmUserContextInvalidationListener forLabelChanges(CacheInvalidationPublisher invalidationPublisher) {
+        return new LlmUserContextInvalidationListener(LABEL_GROUP, TmailLabelEvent.class::isInstance, invalidationPublisher);
+    }
+
+    public static LlmUserContextInvalidationListener forIdentityChanges(CacheInvalidationPublisher invalidationPublisher) {
+        return new LlmUserContextInvalidationListener(IDENTITY_GROUP, IdentityEvent.class::isInstance, invalidationPublisher);
+    }
+
+    private final Group group;
+    private final Predicate<Event> handledEvents;
+    private final CacheInvalidationPublisher invalidationPublisher;
+
+    private LlmUserContextInvalidationListener(Group group, Predicate<Event> handledEvents, CacheInvalidationPublisher invalidationPublisher) {
+        this.group = group;
+        this.handledEvents = handledEvents;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public Group getDefaultGroup() {
+        return group;
+    }
+
+    @Override
+    public boolean isHandling(Event event) {
+        return handledEvents.test(event);
+    }
+
+    @Override
+    public Publisher<Void> reactiveEvent(Event event) {
+        return invalidationPublisher.invalidate(LlmUserContextCache.CACHE_NAME, event.getUsername().asString());
+    }
+}
@@ -30,13 +30,17 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.james.events.EventBus;
 import org.apache.james.events.EventListener;
 import org.apache.james.events.EventSerializer;
 import org.apache.james.events.Group;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.modules.mailbox.ListenerConfiguration;
 import org.apache.james.modules.mailbox.ListenersConfiguration;
 import org.apache.james.utils.ClassName;
 import org.apache.james.utils.GuiceLoader;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
 import org.apache.james.utils.NamingScheme;
 import org.apache.james.utils.PropertiesProvider;
 
@@ -47,9 +51,13 @@ import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.google.inject.name.Named;
 import com.google.inject.name.Names;
+import com.linagora.tmail.cache.CacheInvalidationPublisher;
+import com.linagora.tmail.cache.CacheInvalidationSubscriber;
 import com.linagora.tmail.classifier.event.AIAnalysisNeededEventSerializer;
 import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener;
 import com.linagora.tmail.classifier.listener.LlmMailClassifierListener;
+import com.linagora.tmail.classifier.listener.LlmUserContextCache;
+import com.linagora.tmail.classifier.listener.LlmUserContextInvalidationListener;
 import com.linagora.tmail.classifier.prompt.DefaultPromptRetrieverFactory;
 import com.linagora.tmail.classifier.prompt.PromptRetriever;
 import com.linagora.tmail.common.chatlanguagemodel.LlmConfig;
@@ -78,6 +86,8 @@ public class AIBaseModule extends AbstractModule {
         deadLetterIgnoredGroups.addBinding().toInstance(RagListener.GROUP);
         deadLetterIgnoredGroups.addBinding().toInstance(LlmMailClassifierListener.GROUP);
         deadLetterIgnoredGroups.addBinding().toInstance(LlmMailBackendClassifierListener.GROUP);
+        deadLetterIgnoredGroups.addBinding().toInstance(LlmUserContextInvalidationListener.LABEL_GROUP);
+        deadLetterIgnoredGroups.addBinding().toInstance(LlmUserContextInvalidationListener.IDENTITY_GROUP);
         // Backward-compatible old group names (see deprecated wrappers in com.linagora.tmail.mailet.rag / com.linagora.tmail.listener.rag)
         deadLetterIgnoredGroups.addBinding().toInstance(new Group() {
             @Override
@@ -101,6 +111,10 @@ public class AIBaseModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), EventListener.ReactiveGroupEventListener.class, Names.named(TMAIL_EVENT_BUS_INJECT_NAME))
             .addBinding()
             .to(LlmMailBackendClassifierListener.class);
+
+        Multibinder.newSetBinder(binder(), CacheInvalidationSubscriber.class)
+            .addBinding()
+            .to(LlmUserContextCache.class);
     }
 
     @Provides
@@ -128,6 +142,28 @@ public class AIBaseModule extends AbstractModule {
             .orElseGet(BaseHierarchicalConfiguration::new);
     }
 
+    @Provides
+    @Singleton
+    public LlmUserContextCache provideLlmUserContextCache(@Named(LLM_MAIL_CLASSIFIER_CONFIGURATION) HierarchicalConfiguration<ImmutableNode> configuration,
+                                                          MetricFactory metricFactory) {
+        return LlmUserContextCache.from(configuration, metricFactory);
+    }
+
+    @ProvidesIntoSet
+    @Named(TMAIL_EVENT_BUS_INJECT_NAME)
+    EventListener.ReactiveGroupEventListener provideLlmUserContextLabelInvalidationListener(CacheInvalidationPublisher invalidationPublisher) {
+        return LlmUserContextInvalidationListener.forLabelChanges(invalidationPublisher);
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation registerLlmUserContextIdentityInvalidationListener(@Named("JMAP") EventBus jmapEventBus,
+                                                                               CacheInvalidationPublisher invalidationPublisher) {
+        LlmUserContextInvalidationListener listener = LlmUserContextInvalidationListener.forIdentityChanges(invalidationPublisher);
+        return InitilizationOperationBuilder
+            .forClass(LlmUserContextInvalidationListener.class)
+            .init(() -> jmapEventBus.register(listener, listener.getDefaultGroup()));
+    }
+
     @ProvidesIntoSet
     public EventSerializer provideAIAnalysisNeededEventSerializer(AIAnalysisNeededEventSerializer aiAnalysisNeededEventSerializer) {
         return aiAnalysisNeededEventSerializer;
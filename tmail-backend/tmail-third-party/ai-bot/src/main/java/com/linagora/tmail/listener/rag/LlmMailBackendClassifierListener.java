@@ -30,6 +30,7 @@ import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.util.html.HtmlTextExtractor;
 
 import com.google.inject.name.Named;
+import com.linagora.tmail.classifier.listener.LlmUserContextCache;
 import com.linagora.tmail.classifier.prompt.PromptRetriever;
 import com.linagora.tmail.james.jmap.label.LabelRepository;
 
@@ -54,9 +55,10 @@ public class LlmMailBackendClassifierListener extends com.linagora.tmail.classif
                                             MetricFactory metricFactory,
                                             LabelRepository labelRepository,
                                             @Named(LLM_MAIL_CLASSIFIER_CONFIGURATION) HierarchicalConfiguration<ImmutableNode> configuration,
-                                            PromptRetriever.Factory promptRetrieverFactory) {
+                                            PromptRetriever.Factory promptRetrieverFactory,
+                                            LlmUserContextCache userContextCache) {
         super(mailboxManager, messageIdManager, chatLanguageModel, htmlTextExtractor,
-              identityRepository, metricFactory, labelRepository, configuration, promptRetrieverFactory);
+              identityRepository, metricFactory, labelRepository, configuration, promptRetrieverFactory, userContextCache);
     }
 
     @Override
@@ -0,0 +1,120 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.classifier.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class LlmAdmissionQueueTest {
+    private static final int SMALL_PROMPT = 100;
+    private static final int LARGE_PROMPT = 10_000;
+
+    private RecordingMetricFactory metricFactory;
+    private LlmAdmissionQueue testee;
+    private Sinks.Empty<Void> runningCall;
+
+    @BeforeEach
+    void setUp() {
+        metricFactory = new RecordingMetricFactory();
+        testee = new LlmAdmissionQueue(1, 2, 2000, metricFactory);
+        runningCall = Sinks.empty();
+    }
+
+    @Test
+    void callsShouldBeAdmittedRightAwayWhenBelowTheConcurrencyLimit() {
+        assertThat(testee.admit(SMALL_PROMPT, Mono.just("answer")).block()).isEqualTo("answer");
+        assertThat(metricFactory.countFor("llm-classifier-admission-in-flight")).isZero();
+    }
+
+    @Test
+    void callsExceedingTheConcurrencyLimitShouldWait() {
+        testee.admit(SMALL_PROMPT, runningCall.asMono()).subscribe();
+        List<String> answers = new CopyOnWriteArrayList<>();
+
+        testee.admit(SMALL_PROMPT, Mono.just("answer")).subscribe(answers::add);
+
+        assertThat(answers).isEmpty();
+        assertThat(testee.pendingCalls()).isEqualTo(1);
+        runningCall.tryEmitEmpty();
+        assertThat(answers).containsExactly("answer");
+        assertThat(testee.pendingCalls()).isZero();
+    }
+
+    @Test
+    void callsShouldBeShedWhenTooManyCallsAreWaiting() {
+        testee.admit(SMALL_PROMPT, runningCall.asMono()).subscribe();
+        testee.admit(SMALL_PROMPT, Mono.just("answer")).subscribe();
+        testee.admit(SMALL_PROMPT, Mono.just("answer")).subscribe();
+
+        assertThatThrownBy(() -> testee.admit(SMALL_PROMPT, Mono.just("answer")).block())
+            .isInstanceOf(LlmAdmissionQueue.AdmissionRejectedException.class);
+        assertThat(metricFactory.countFor("llm-classifier-admission-shed")).isEqualTo(1);
+    }
+
+    @Test
+    void smallPromptsShouldBeServedFirst() {
+        testee.admit(SMALL_PROMPT, runningCall.asMono()).subscribe();
+        List<String> admissionOrder = new CopyOnWriteArrayList<>();
+
+        testee.admit(LARGE_PROMPT, Mono.fromRunnable(() -> admissionOrder.add("large"))).subscribe();
+        testee.admit(SMALL_PROMPT, Mono.fromRunnable(() -> admissionOrder.add("small"))).subscribe();
+        runningCall.tryEmitEmpty();
+
+        assertThat(admissionOrder).containsExactly("small", "large");
+    }
+
+    @Test
+    void largePromptsShouldNotBeStarved() {
+        testee = new LlmAdmissionQueue(1, 100, 2000, metricFactory);
+        Sinks.Empty<Void> firstCall = Sinks.empty();
+        testee.admit(SMALL_PROMPT, firstCall.asMono()).subscribe();
+        List<String> admissionOrder = new CopyOnWriteArrayList<>();
+
+        testee.admit(LARGE_PROMPT, Mono.fromRunnable(() -> admissionOrder.add("large"))).subscribe();
+        for (int i = 0; i < LlmAdmissionQueue.SMALL_PROMPTS_BURST + 2; i++) {
+            testee.admit(SMALL_PROMPT, Mono.fromRunnable(() -> admissionOrder.add("small"))).subscribe();
+        }
+        firstCall.tryEmitEmpty();
+
+        assertThat(admissionOrder.indexOf("large")).isEqualTo(LlmAdmissionQueue.SMALL_PROMPTS_BURST);
+    }
+
+    @Test
+    void cancelledWaitingCallsShouldLeaveTheQueue() {
+        testee.admit(SMALL_PROMPT, runningCall.asMono()).subscribe();
+        Disposable waitingCall = testee.admit(SMALL_PROMPT, Mono.just("answer")).subscribe();
+
+        waitingCall.dispose();
+
+        assertThat(testee.pendingCalls()).isZero();
+        runningCall.tryEmitEmpty();
+        assertThat(testee.admit(SMALL_PROMPT, Mono.just("answer")).block()).isEqualTo("answer");
+    }
+}
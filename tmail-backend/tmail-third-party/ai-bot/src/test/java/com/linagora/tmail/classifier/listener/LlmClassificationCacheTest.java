@@ -0,0 +1,187 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.classifier.listener;
+
+import static com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.NEEDS_ACTION;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.core.Username;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.LlmOutput;
+import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.LlmUserPromptParameters;
+import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.UserContext;
+import com.linagora.tmail.james.jmap.model.DisplayName;
+import com.linagora.tmail.james.jmap.model.Label;
+import com.linagora.tmail.james.jmap.model.LabelCreationRequest;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class LlmClassificationCacheTest {
+    private static final Mono<LlmOutput> FAILING_LLM_CALL = Mono.error(new AssertionError("LLM should not be called"));
+
+    private static Label label(String name) {
+        return new LabelCreationRequest(new DisplayName(name), scala.Option.empty(), scala.Option.apply(name + " description"), false)
+            .toLabel();
+    }
+
+    private static UserContext userContext(String user, Label... labels) {
+        return UserContext.of(user, ImmutableSet.copyOf(labels), Username.of(user));
+    }
+
+    private static LlmUserPromptParameters prompt(String user, String body) {
+        return prompt(user, "all@domain.tld", body);
+    }
+
+    private static LlmUserPromptParameters prompt(String user, String to, String body) {
+        return new LlmUserPromptParameters(user, user, body, "newsletter@domain.tld", to, "Weekly news", "labels");
+    }
+
+    private static LlmUserPromptParameters prompt(String displayName, String user, String to, String body) {
+        return new LlmUserPromptParameters(displayName, user, body, "newsletter@domain.tld", to, "Weekly news", "labels");
+    }
+
+    private RecordingMetricFactory metricFactory;
+    private LlmClassificationCache testee;
+
+    @BeforeEach
+    void setUp() {
+        metricFactory = new RecordingMetricFactory();
+        testee = new LlmClassificationCache(100, Duration.ofMinutes(1), metricFactory);
+    }
+
+    @Test
+    void recipientsWithTheSameLabelsShouldShareTheClassification() {
+        Label bobWork = label("work");
+        Label aliceWork = label("work");
+        UserContext bob = userContext("bob@domain.tld", bobWork, label("personal"));
+        UserContext alice = userContext("alice@domain.tld", aliceWork, label("personal"));
+
+        testee.classify(prompt("bob@domain.tld", "Body"), bob, Mono.just(new LlmOutput(ImmutableSet.of(NEEDS_ACTION, bobWork.keyword())))).block();
+        LlmOutput aliceOutput = testee.classify(prompt("alice@domain.tld", "Body"), alice, FAILING_LLM_CALL).block();
+
+        assertThat(aliceOutput.labels()).containsExactlyInAnyOrder(NEEDS_ACTION, aliceWork.keyword());
+        assertThat(metricFactory.countFor("llm-classifier-result-cache-hit")).isEqualTo(1);
+    }
+
+    @Test
+    void recipientsNamedInTheRecipientsShouldNotShareTheNeedsActionDecision() {
+        Label work = label("work");
+        UserContext bob = userContext("bob@domain.tld", work);
+        UserContext alice = userContext("alice@domain.tld", label("work"));
+        String to = "Bob <bob@domain.tld>, alice@domain.tld";
+
+        testee.classify(prompt("bob@domain.tld", to, "Body"), bob, Mono.just(new LlmOutput(ImmutableSet.of(NEEDS_ACTION, work.keyword())))).block();
+        LlmOutput aliceOutput = testee.classify(prompt("alice@domain.tld", to, "Body"), alice, Mono.just(new LlmOutput(ImmutableSet.of()))).block();
+
+        assertThat(aliceOutput.labels()).isEmpty();
+    }
+
+    @Test
+    void recipientsNamedInTheBodyShouldNotShareTheNeedsActionDecision() {
+        Label work = label("work");
+        UserContext bob = userContext("bob@domain.tld", work);
+        UserContext alice = userContext("alice@domain.tld", label("work"));
+        String body = "Hi Bob, could you review the attached document?";
+
+        testee.classify(prompt("Bob Smith", "bob@domain.tld", "all@domain.tld", body), bob, Mono.just(new LlmOutput(ImmutableSet.of(NEEDS_ACTION)))).block();
+        LlmOutput aliceOutput = testee.classify(prompt("Alice Martin", "alice@domain.tld", "all@domain.tld", body), alice,
+            Mono.just(new LlmOutput(ImmutableSet.of()))).block();
+
+        assertThat(aliceOutput.labels()).isEmpty();
+    }
+
+    @Test
+    void contentShouldBeComparedIgnoringWhitespaces() {
+        Label work = label("work");
+        UserContext bob = userContext("bob@domain.tld", work);
+
+        testee.classify(prompt("bob@domain.tld", "Hello\n\n  world "), bob, Mono.just(new LlmOutput(ImmutableSet.of(work.keyword())))).block();
+
+        assertThat(testee.classify(prompt("bob@domain.tld", "Hello world"), bob, FAILING_LLM_CALL).block().labels())
+            .containsExactly(work.keyword());
+    }
+
+    @Test
+    void recipientsWithDifferentLabelsShouldNotShareTheClassification() {
+        Label work = label("work");
+        UserContext bob = userContext("bob@domain.tld", work);
+        UserContext alice = userContext("alice@domain.tld", label("work"), label("personal"));
+        AtomicInteger llmCalls = new AtomicInteger();
+        Mono<LlmOutput> llmCall = Mono.fromCallable(() -> {
+            llmCalls.incrementAndGet();
+            return new LlmOutput(ImmutableSet.of());
+        });
+
+        testee.classify(prompt("bob@domain.tld", "Body"), bob, llmCall).block();
+        testee.classify(prompt("alice@domain.tld", "Body"), alice, llmCall).block();
+
+        assertThat(llmCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void differentContentShouldNotShareTheClassification() {
+        Label work = label("work");
+        UserContext bob = userContext("bob@domain.tld", work);
+
+        testee.classify(prompt("bob@domain.tld", "Body"), bob, Mono.just(new LlmOutput(ImmutableSet.of(work.keyword())))).block();
+
+        assertThat(testee.classify(prompt("bob@domain.tld", "Other body"), bob, Mono.just(new LlmOutput(ImmutableSet.of()))).block().labels())
+            .isEmpty();
+    }
+
+    @Test
+    void concurrentClassificationsShouldShareASingleLlmCall() {
+        Label work = label("work");
+        UserContext bob = userContext("bob@domain.tld", work);
+        Sinks.One<LlmOutput> llmAnswer = Sinks.one();
+        AtomicInteger llmCalls = new AtomicInteger();
+        Mono<LlmOutput> llmCall = llmAnswer.asMono().doOnSubscribe(any -> llmCalls.incrementAndGet());
+
+        Flux<LlmOutput> classifications = Flux.range(0, 10)
+            .flatMap(i -> testee.classify(prompt("bob@domain.tld", "Body"), bob, llmCall))
+            .cache();
+        classifications.subscribe();
+        llmAnswer.tryEmitValue(new LlmOutput(ImmutableSet.of(work.keyword())));
+
+        assertThat(classifications.collectList().block()).hasSize(10);
+        assertThat(llmCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedClassificationsShouldNotBeCached() {
+        Label work = label("work");
+        UserContext bob = userContext("bob@domain.tld", work);
+
+        testee.classify(prompt("bob@domain.tld", "Body"), bob, Mono.error(new RuntimeException("LLM unavailable")))
+            .onErrorResume(any -> Mono.empty())
+            .block();
+
+        assertThat(testee.classify(prompt("bob@domain.tld", "Body"), bob, Mono.just(new LlmOutput(ImmutableSet.of(work.keyword())))).block().labels())
+            .containsExactly(work.keyword());
+    }
+}
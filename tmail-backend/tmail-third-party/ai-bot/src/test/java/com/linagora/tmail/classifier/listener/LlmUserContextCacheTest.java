@@ -0,0 +1,117 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.classifier.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
+import org.apache.james.core.Username;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.linagora.tmail.classifier.listener.LlmMailBackendClassifierListener.UserContext;
+
+import reactor.core.publisher.Mono;
+
+class LlmUserContextCacheTest {
+    private static final Username BOB = Username.of("bob@domain.tld");
+
+    private RecordingMetricFactory metricFactory;
+    private AtomicInteger loads;
+    private Mono<UserContext> loader;
+
+    @BeforeEach
+    void setUp() {
+        metricFactory = new RecordingMetricFactory();
+        loads = new AtomicInteger();
+        loader = Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return UserContext.of("Bob", ImmutableSet.of(), BOB);
+        });
+    }
+
+    @Test
+    void userContextShouldBeServedFromTheCache() {
+        LlmUserContextCache testee = LlmUserContextCache.from(new BaseHierarchicalConfiguration(), metricFactory);
+
+        testee.get(BOB, loader).block();
+        UserContext userContext = testee.get(BOB, loader).block();
+
+        assertThat(userContext.displayName()).isEqualTo("Bob");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(metricFactory.countFor("llm-classifier-user-context-cache-hit")).isEqualTo(1);
+        assertThat(metricFactory.countFor("llm-classifier-user-context-cache-miss")).isEqualTo(1);
+    }
+
+    @Test
+    void invalidationShouldForceReloadingTheUserContext() {
+        LlmUserContextCache testee = LlmUserContextCache.from(new BaseHierarchicalConfiguration(), metricFactory);
+
+        testee.get(BOB, loader).block();
+        testee.invalidate(BOB);
+        testee.get(BOB, loader).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidationNotifiedByAnotherNodeShouldForceReloadingTheUserContext() {
+        LlmUserContextCache testee = LlmUserContextCache.from(new BaseHierarchicalConfiguration(), metricFactory);
+
+        testee.get(BOB, loader).block();
+        testee.invalidate(BOB.asString());
+        testee.get(BOB, loader).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void loadRacingWithAnInvalidationShouldNotBeCached() {
+        LlmUserContextCache testee = LlmUserContextCache.from(new BaseHierarchicalConfiguration(), metricFactory);
+
+        testee.get(BOB, loader.doOnNext(any -> testee.invalidate(BOB))).block();
+        testee.get(BOB, loader).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void userContextShouldNotBeCachedWhenDisabled() {
+        BaseHierarchicalConfiguration configuration = new BaseHierarchicalConfiguration();
+        configuration.addProperty(LlmUserContextCache.ENABLED_PARAM, false);
+        LlmUserContextCache testee = LlmUserContextCache.from(configuration, metricFactory);
+
+        testee.get(BOB, loader).block();
+        testee.get(BOB, loader).block();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void labelsBlockShouldStartWithTheNeedsActionLabel() {
+        UserContext userContext = UserContext.of("Bob", ImmutableSet.of(), BOB);
+
+        assertThat(userContext.labelsInfo())
+            .startsWith("- labelId : " + LlmMailBackendClassifierListener.NEEDS_ACTION);
+    }
+}
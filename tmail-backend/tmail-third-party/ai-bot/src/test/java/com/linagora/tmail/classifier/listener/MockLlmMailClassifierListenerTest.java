@@ -18,12 +18,15 @@
 
 package com.linagora.tmail.classifier.listener;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import jakarta.mail.Flags;
 import jakarta.mail.internet.AddressException;
@@ -55,11 +58,17 @@ import org.apache.james.mailbox.store.StoreMailboxManager;
 import org.apache.james.mailbox.store.SystemMailboxesProviderImpl;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.mime4j.dom.Message;
 import org.apache.james.util.html.HtmlTextExtractor;
+import org.awaitility.Durations;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import com.google.common.collect.ImmutableMap;
+import com.linagora.tmail.cache.CacheInvalidationPublisher;
+import com.linagora.tmail.cache.CacheInvalidationRegistration;
+import com.linagora.tmail.cache.CacheInvalidationSubscriber;
 import com.linagora.tmail.classifier.prompt.DefaultPromptRetrieverFactory;
 import com.linagora.tmail.classifier.prompt.PromptRetriever;
 import com.linagora.tmail.james.jmap.event.ApplyWhenFilter;
@@ -111,6 +120,7 @@ public class MockLlmMailClassifierListenerTest implements LlmMailClassifierListe
     private LabelRepository labelRepository;
     private PromptRetriever.Factory promptRetrieverFactory;
     private EventBus tmailEventBus;
+    private LlmUserContextCache userContextCache;
     private String label1Id;
     private String label2Id;
     private String label3Id;
@@ -142,6 +152,11 @@ public class MockLlmMailClassifierListenerTest implements LlmMailClassifierListe
         ApplyWhenFilter applyWhenFilter = new ApplyWhenFilter.Always();
         model = new StubModel();
         tmailEventBus = new InVMEventBus(new InVmEventDelivery(metricFactory), backoffConfiguration, eventDeadLetters);
+        userContextCache = LlmUserContextCache.from(new BaseHierarchicalConfiguration(), metricFactory);
+        CacheInvalidationPublisher invalidationPublisher = new CacheInvalidationPublisher(tmailEventBus);
+        new CacheInvalidationRegistration(tmailEventBus, Set.<CacheInvalidationSubscriber>of(userContextCache)).register();
+        tmailEventBus.register(LlmUserContextInvalidationListener.forLabelChanges(invalidationPublisher));
+        tmailEventBus.register(LlmUserContextInvalidationListener.forIdentityChanges(invalidationPublisher));
 
         aliceSession = mailboxManager.createSystemSession(ALICE);
         MailboxPath aliceInboxPath = MailboxPath.inbox(ALICE);
@@ -182,7 +197,8 @@ public class MockLlmMailClassifierListenerTest implements LlmMailClassifierListe
             metricFactory,
             labelRepository,
             listenerConfig,
-            promptRetrieverFactory);
+            promptRetrieverFactory,
+            userContextCache);
 
         jmapSettingsRepositoryUtils().reset(ALICE, ImmutableMap.of("ai.label-categorization.enabled", "true"));
     }
@@ -268,7 +284,8 @@ public class MockLlmMailClassifierListenerTest implements LlmMailClassifierListe
             new RecordingMetricFactory(),
             labelRepository,
             overrideConfig,
-            promptRetrieverFactory);
+            promptRetrieverFactory,
+            userContextCache);
     }
 
     @Override
@@ -319,4 +336,32 @@ public class MockLlmMailClassifierListenerTest implements LlmMailClassifierListe
     public String markLabelAsSave(String labelKeyword){
         return labelKeyword + "-save";
     }
+
+    @Test
+    void labelCreatedAfterAClassificationShouldBeUsedByTheNextOne() throws Exception {
+        registerListenerToEventBus();
+        model.llOutput = label1Id;
+        MessageId firstMessageId = appendDelivery("First email");
+        CALMLY_AWAIT.atMost(Durations.TEN_SECONDS)
+            .untilAsserted(() -> assertThat(readFlags(firstMessageId, aliceSession).block().getUserFlags()).contains(label1Id));
+
+        Label label4 = Mono.from(labelRepository.addLabel(ALICE, new LabelCreationRequest(new DisplayName("label4"), scala.Option.apply(new Color("#0000")), scala.Option.apply("label4 description"), false))).block();
+        model.llOutput = label4.keyword();
+        MessageId secondMessageId = appendDelivery("Second email");
+
+        CALMLY_AWAIT.atMost(Durations.TEN_SECONDS)
+            .untilAsserted(() -> assertThat(readFlags(secondMessageId, aliceSession).block().getUserFlags()).contains(label4.keyword()));
+    }
+
+    private MessageId appendDelivery(String subject) throws Exception {
+        return aliceInbox.appendMessage(MessageManager.AppendCommand.builder()
+                    .isDelivery(true)
+                    .build(Message.Builder.of()
+                        .setSubject(subject)
+                        .setFrom(BOB.asString())
+                        .setTo(ALICE.asString())
+                        .setBody("Body", StandardCharsets.UTF_8)),
+                aliceSession)
+            .getId().getMessageId();
+    }
 }
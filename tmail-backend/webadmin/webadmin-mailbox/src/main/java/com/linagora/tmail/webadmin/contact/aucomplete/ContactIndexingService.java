@@ -141,7 +141,7 @@ public class ContactIndexingService {
         return messageMapper.findInMailboxReactive(mailbox, MessageRange.all(), MessageMapper.FetchType.HEADERS, UNLIMITED)
             .concatMap(mailboxMessage -> Flux.fromIterable(extractContact(mailboxMessage)))
             .filter(contact -> !bloomFilter.mightContain(bloomFilterSalt + contact.address().asString()))
-            .concatMap(contact -> Mono.from(contactAddIndexingProcessor.process(mailbox.getUser(), contact))
+            .flatMap(contact -> Mono.from(contactAddIndexingProcessor.process(mailbox.getUser(), contact))
                 .then(Mono.fromCallable(() -> {
                     context.increaseIndexedContactsCount();
                     return bloomFilterPut(bloomFilter, bloomFilterSalt, contact);
@@ -151,7 +151,7 @@ public class ContactIndexingService {
                     LOGGER.error("Error while indexing contact {} for user {}", contact, mailbox.getUser(), error);
                     context.increaseFailedContactsCount();
                     return Task.Result.PARTIAL;
-                })))
+                })), ReactorUtils.LOW_CONCURRENCY)
             .reduce(Task::combine)
             .switchIfEmpty(Mono.just(Task.Result.COMPLETED));
     }
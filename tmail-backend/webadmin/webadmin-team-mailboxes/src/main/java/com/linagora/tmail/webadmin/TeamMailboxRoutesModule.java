@@ -31,6 +31,10 @@ import com.google.inject.AbstractModule;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.google.inject.name.Named;
+import com.linagora.tmail.webadmin.membership.RebuildTeamMailboxMembershipIndexRoutes;
+import com.linagora.tmail.webadmin.membership.RebuildTeamMailboxMembershipIndexService;
+import com.linagora.tmail.webadmin.membership.RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO;
+import com.linagora.tmail.webadmin.membership.RebuildTeamMailboxMembershipIndexTaskDTO;
 import com.linagora.tmail.webadmin.quota.recompute.RecomputeQuotaTeamMailboxesRoutes;
 import com.linagora.tmail.webadmin.quota.recompute.RecomputeQuotaTeamMailboxesService;
 import com.linagora.tmail.webadmin.quota.recompute.RecomputeQuotaTeamMailboxesTaskAdditionalInformationDTO;
@@ -44,6 +48,7 @@ public class TeamMailboxRoutesModule extends AbstractModule {
         routesMultibinder.addBinding().to(UserTeamMailboxRoutes.class);
         routesMultibinder.addBinding().to(TeamMailboxQuotaRoutes.class);
         routesMultibinder.addBinding().to(RecomputeQuotaTeamMailboxesRoutes.class);
+        routesMultibinder.addBinding().to(RebuildTeamMailboxMembershipIndexRoutes.class);
     }
 
     @ProvidesIntoSet
@@ -61,4 +66,20 @@ public class TeamMailboxRoutesModule extends AbstractModule {
     public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> webAdminRecomputeQuotaTeamMailboxesAdditionalInformation() {
         return RecomputeQuotaTeamMailboxesTaskAdditionalInformationDTO.SERIALIZATION_MODULE;
     }
+
+    @ProvidesIntoSet
+    public TaskDTOModule<? extends Task, ? extends TaskDTO> rebuildTeamMailboxMembershipIndexTask(RebuildTeamMailboxMembershipIndexService rebuildTeamMailboxMembershipIndexService) {
+        return RebuildTeamMailboxMembershipIndexTaskDTO.module(rebuildTeamMailboxMembershipIndexService);
+    }
+
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> rebuildTeamMailboxMembershipIndexAdditionalInformation() {
+        return RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO.SERIALIZATION_MODULE;
+    }
+
+    @Named(DTOModuleInjections.WEBADMIN_DTO)
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> webAdminRebuildTeamMailboxMembershipIndexAdditionalInformation() {
+        return RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO.SERIALIZATION_MODULE;
+    }
 }
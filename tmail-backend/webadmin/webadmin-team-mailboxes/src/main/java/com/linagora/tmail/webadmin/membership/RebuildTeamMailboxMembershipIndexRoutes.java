@@ -0,0 +1,73 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.webadmin.membership;
+
+import java.util.Optional;
+
+import jakarta.inject.Inject;
+
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskManager;
+import org.apache.james.webadmin.Constants;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.tasks.TaskFromRequest;
+import org.apache.james.webadmin.utils.JsonTransformer;
+
+import com.google.common.base.Preconditions;
+
+import spark.Request;
+import spark.Service;
+
+public class RebuildTeamMailboxMembershipIndexRoutes implements Routes {
+    private static final String REBUILD_TASK = "Rebuild";
+    public static final String BASE_PATH = Constants.SEPARATOR + "team-mailboxes" + Constants.SEPARATOR + "membership-index";
+
+    private final TaskManager taskManager;
+    private final JsonTransformer jsonTransformer;
+    private final RebuildTeamMailboxMembershipIndexService rebuildService;
+
+    @Inject
+    public RebuildTeamMailboxMembershipIndexRoutes(TaskManager taskManager,
+                                                   JsonTransformer jsonTransformer,
+                                                   RebuildTeamMailboxMembershipIndexService rebuildService) {
+        this.taskManager = taskManager;
+        this.jsonTransformer = jsonTransformer;
+        this.rebuildService = rebuildService;
+    }
+
+    @Override
+    public String getBasePath() {
+        return BASE_PATH;
+    }
+
+    @Override
+    public void define(Service service) {
+        TaskFromRequest rebuildTaskRequest = this::rebuild;
+        service.post(BASE_PATH, rebuildTaskRequest.asRoute(taskManager), jsonTransformer);
+    }
+
+    public Task rebuild(Request request) {
+        Preconditions.checkArgument(Optional.ofNullable(request.queryParams("task"))
+                .filter(REBUILD_TASK::equals)
+                .isPresent(),
+            String.format("'task' is missing or must be '%s'", REBUILD_TASK));
+
+        return new RebuildTeamMailboxMembershipIndexTask(rebuildService);
+    }
+}
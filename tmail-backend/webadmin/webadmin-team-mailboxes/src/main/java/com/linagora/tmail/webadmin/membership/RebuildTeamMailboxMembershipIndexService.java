@@ -0,0 +1,213 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.webadmin.membership;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.inject.Inject;
+
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.MailboxManager;
+import org.apache.james.mailbox.exception.MailboxNotFoundException;
+import org.apache.james.task.Task;
+import org.apache.james.util.ReactorUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.linagora.tmail.team.TeamMailbox;
+import com.linagora.tmail.team.TeamMailboxMembership;
+import com.linagora.tmail.team.TeamMailboxMembershipIndex;
+import com.linagora.tmail.team.TeamMailboxRepository;
+import com.linagora.tmail.team.TeamMailboxRepositoryImpl;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import scala.jdk.javaapi.CollectionConverters;
+
+public class RebuildTeamMailboxMembershipIndexService {
+    public static class Context {
+        static class Snapshot {
+            private final long processedTeamMailboxCount;
+            private final long removedMembershipCount;
+            private final ImmutableList<String> failedTeamMailboxes;
+
+            private Snapshot(long processedTeamMailboxCount, long removedMembershipCount, ImmutableList<String> failedTeamMailboxes) {
+                this.processedTeamMailboxCount = processedTeamMailboxCount;
+                this.removedMembershipCount = removedMembershipCount;
+                this.failedTeamMailboxes = failedTeamMailboxes;
+            }
+
+            long getProcessedTeamMailboxCount() {
+                return processedTeamMailboxCount;
+            }
+
+            long getRemovedMembershipCount() {
+                return removedMembershipCount;
+            }
+
+            ImmutableList<String> getFailedTeamMailboxes() {
+                return failedTeamMailboxes;
+            }
+
+            @Override
+            public final boolean equals(Object o) {
+                if (o instanceof Snapshot that) {
+                    return Objects.equals(this.processedTeamMailboxCount, that.processedTeamMailboxCount)
+                        && Objects.equals(this.removedMembershipCount, that.removedMembershipCount)
+                        && Objects.equals(this.failedTeamMailboxes, that.failedTeamMailboxes);
+                }
+                return false;
+            }
+
+            @Override
+            public final int hashCode() {
+                return Objects.hash(processedTeamMailboxCount, removedMembershipCount, failedTeamMailboxes);
+            }
+
+            @Override
+            public String toString() {
+                return MoreObjects.toStringHelper(this)
+                    .add("processedTeamMailboxCount", processedTeamMailboxCount)
+                    .add("removedMembershipCount", removedMembershipCount)
+                    .add("failedTeamMailboxes", failedTeamMailboxes)
+                    .toString();
+            }
+        }
+
+        private final AtomicLong processedTeamMailboxCount;
+        private final AtomicLong removedMembershipCount;
+        private final ConcurrentLinkedDeque<String> failedTeamMailboxes;
+
+        public Context() {
+            this.processedTeamMailboxCount = new AtomicLong();
+            this.removedMembershipCount = new AtomicLong();
+            this.failedTeamMailboxes = new ConcurrentLinkedDeque<>();
+        }
+
+        public Context(long processedTeamMailboxCount, long removedMembershipCount, Collection<String> failedTeamMailboxes) {
+            this.processedTeamMailboxCount = new AtomicLong(processedTeamMailboxCount);
+            this.removedMembershipCount = new AtomicLong(removedMembershipCount);
+            this.failedTeamMailboxes = new ConcurrentLinkedDeque<>(failedTeamMailboxes);
+        }
+
+        void incrementProcessed() {
+            processedTeamMailboxCount.incrementAndGet();
+        }
+
+        void incrementRemoved() {
+            removedMembershipCount.incrementAndGet();
+        }
+
+        void addToFailedTeamMailboxes(TeamMailbox teamMailbox) {
+            failedTeamMailboxes.add(teamMailbox.asString());
+        }
+
+        public Snapshot snapshot() {
+            return new Snapshot(processedTeamMailboxCount.get(),
+                removedMembershipCount.get(),
+                ImmutableList.copyOf(failedTeamMailboxes));
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RebuildTeamMailboxMembershipIndexService.class);
+
+    private final TeamMailboxRepository teamMailboxRepository;
+    private final TeamMailboxMembershipIndex membershipIndex;
+    private final MailboxManager mailboxManager;
+
+    @Inject
+    public RebuildTeamMailboxMembershipIndexService(TeamMailboxRepository teamMailboxRepository,
+                                                    TeamMailboxMembershipIndex membershipIndex,
+                                                    MailboxManager mailboxManager) {
+        this.teamMailboxRepository = teamMailboxRepository;
+        this.membershipIndex = membershipIndex;
+        this.mailboxManager = mailboxManager;
+    }
+
+    /**
+     * Adds the memberships found in the team mailbox ACLs, then removes the index entries that no longer match an ACL.
+     *
+     * Once a rebuild completes, the index is marked as backfilled and team mailbox listings by member start relying on it.
+     */
+    public Mono<Task.Result> rebuild(Context context) {
+        Set<TeamMailboxMembership> expectedMemberships = ConcurrentHashMap.newKeySet();
+
+        return Flux.from(teamMailboxRepository.listTeamMailboxes())
+            .flatMap(teamMailbox -> indexMembers(teamMailbox, expectedMemberships, context), ReactorUtils.DEFAULT_CONCURRENCY)
+            .reduce(Task.Result.COMPLETED, Task::combine)
+            .flatMap(result -> removeStaleMemberships(expectedMemberships, context)
+                .map(removalResult -> Task.combine(result, removalResult)))
+            .flatMap(this::markBackfilledIfCompleted);
+    }
+
+    private Mono<Task.Result> markBackfilledIfCompleted(Task.Result result) {
+        if (result == Task.Result.COMPLETED) {
+            return Mono.from(membershipIndex.markBackfilled())
+                .thenReturn(result);
+        }
+        return Mono.just(result);
+    }
+
+    private Mono<Task.Result> indexMembers(TeamMailbox teamMailbox, Set<TeamMailboxMembership> expectedMemberships, Context context) {
+        return members(teamMailbox)
+            .flatMapMany(Flux::fromIterable)
+            .doOnNext(member -> expectedMemberships.add(new TeamMailboxMembership(member, teamMailbox)))
+            .concatMap(member -> membershipIndex.add(member, teamMailbox))
+            .then(Mono.just(Task.Result.COMPLETED))
+            .doOnNext(any -> context.incrementProcessed())
+            .onErrorResume(e -> {
+                LOGGER.error("Error while indexing members of team mailbox {}", teamMailbox.asString(), e);
+                context.addToFailedTeamMailboxes(teamMailbox);
+                return Mono.just(Task.Result.PARTIAL);
+            });
+    }
+
+    private Mono<Task.Result> removeStaleMemberships(Set<TeamMailboxMembership> expectedMemberships, Context context) {
+        return Flux.from(membershipIndex.listAll())
+            .filter(membership -> !expectedMemberships.contains(membership))
+            .flatMap(this::removeIfStale, ReactorUtils.DEFAULT_CONCURRENCY)
+            .doOnNext(any -> context.incrementRemoved())
+            .then(Mono.just(Task.Result.COMPLETED))
+            .onErrorResume(e -> {
+                LOGGER.error("Error while removing stale team mailbox memberships", e);
+                return Mono.just(Task.Result.PARTIAL);
+            });
+    }
+
+    // The membership might have been granted after its team mailbox was processed: check the ACL again before removal
+    private Mono<TeamMailboxMembership> removeIfStale(TeamMailboxMembership membership) {
+        return members(membership.teamMailbox())
+            .onErrorResume(MailboxNotFoundException.class, e -> Mono.just(Set.<Username>of()))
+            .filter(members -> !members.contains(membership.username()))
+            .flatMap(any -> Mono.from(membershipIndex.remove(membership.username(), membership.teamMailbox()))
+                .thenReturn(membership));
+    }
+
+    private Mono<Set<Username>> members(TeamMailbox teamMailbox) {
+        return Mono.from(mailboxManager.listRightsReactive(teamMailbox.mailboxPath(), mailboxManager.createSystemSession(teamMailbox.owner())))
+            .map(acl -> CollectionConverters.asJava(TeamMailboxRepositoryImpl.teamMailboxMembers(acl)));
+    }
+}
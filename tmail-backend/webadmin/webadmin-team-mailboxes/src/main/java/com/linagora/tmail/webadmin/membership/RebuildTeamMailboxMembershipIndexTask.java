@@ -0,0 +1,97 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.webadmin.membership;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.task.TaskType;
+
+import com.linagora.tmail.webadmin.membership.RebuildTeamMailboxMembershipIndexService.Context;
+
+public class RebuildTeamMailboxMembershipIndexTask implements Task {
+    static final TaskType TASK_TYPE = TaskType.of("rebuild-team-mailbox-membership-index");
+
+    public static class Details implements TaskExecutionDetails.AdditionalInformation {
+        private final Instant instant;
+        private final long processedTeamMailboxes;
+        private final long removedMemberships;
+        private final List<String> failedTeamMailboxes;
+
+        public Details(Instant instant,
+                       long processedTeamMailboxes,
+                       long removedMemberships,
+                       List<String> failedTeamMailboxes) {
+            this.instant = instant;
+            this.processedTeamMailboxes = processedTeamMailboxes;
+            this.removedMemberships = removedMemberships;
+            this.failedTeamMailboxes = failedTeamMailboxes;
+        }
+
+        public long getProcessedTeamMailboxes() {
+            return processedTeamMailboxes;
+        }
+
+        public long getRemovedMemberships() {
+            return removedMemberships;
+        }
+
+        public List<String> getFailedTeamMailboxes() {
+            return failedTeamMailboxes;
+        }
+
+        @Override
+        public Instant timestamp() {
+            return instant;
+        }
+    }
+
+    private final RebuildTeamMailboxMembershipIndexService service;
+    private final Context context;
+
+    public RebuildTeamMailboxMembershipIndexTask(RebuildTeamMailboxMembershipIndexService service) {
+        this.service = service;
+        this.context = new Context();
+    }
+
+    @Override
+    public Result run() {
+        return service.rebuild(context)
+            .block();
+    }
+
+    @Override
+    public TaskType type() {
+        return TASK_TYPE;
+    }
+
+    @Override
+    public Optional<TaskExecutionDetails.AdditionalInformation> details() {
+        Context.Snapshot snapshot = context.snapshot();
+        return Optional.of(new Details(
+            Clock.systemUTC().instant(),
+            snapshot.getProcessedTeamMailboxCount(),
+            snapshot.getRemovedMembershipCount(),
+            snapshot.getFailedTeamMailboxes()));
+    }
+}
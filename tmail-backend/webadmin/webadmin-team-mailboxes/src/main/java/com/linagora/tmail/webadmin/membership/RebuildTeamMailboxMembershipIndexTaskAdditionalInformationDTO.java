@@ -0,0 +1,61 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.webadmin.membership;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTO;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO(@JsonProperty("type") String type,
+                                                                            @JsonProperty("timestamp") Instant timestamp,
+                                                                            @JsonProperty("processedTeamMailboxes") long processedTeamMailboxes,
+                                                                            @JsonProperty("removedMemberships") long removedMemberships,
+                                                                            @JsonProperty("failedTeamMailboxes") List<String> failedTeamMailboxes) implements AdditionalInformationDTO {
+
+    public static final AdditionalInformationDTOModule<RebuildTeamMailboxMembershipIndexTask.Details, RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO> SERIALIZATION_MODULE =
+        DTOModule.forDomainObject(RebuildTeamMailboxMembershipIndexTask.Details.class)
+            .convertToDTO(RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO.class)
+            .toDomainObjectConverter(dto ->
+                new RebuildTeamMailboxMembershipIndexTask.Details(
+                    dto.timestamp(),
+                    dto.processedTeamMailboxes(),
+                    dto.removedMemberships(),
+                    dto.failedTeamMailboxes()))
+            .toDTOConverter(((domainObject, typeName) ->
+                new RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO(
+                    typeName, domainObject.timestamp(), domainObject.getProcessedTeamMailboxes(), domainObject.getRemovedMemberships(),
+                    domainObject.getFailedTeamMailboxes())))
+            .typeName(RebuildTeamMailboxMembershipIndexTask.TASK_TYPE.asString())
+            .withFactory(AdditionalInformationDTOModule::new);
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
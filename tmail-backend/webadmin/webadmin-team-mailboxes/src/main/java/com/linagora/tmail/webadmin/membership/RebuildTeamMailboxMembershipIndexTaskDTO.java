@@ -0,0 +1,41 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.webadmin.membership;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.TaskDTO;
+import org.apache.james.server.task.json.dto.TaskDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record RebuildTeamMailboxMembershipIndexTaskDTO(@JsonProperty("type") String type) implements TaskDTO {
+    public static TaskDTOModule<RebuildTeamMailboxMembershipIndexTask, RebuildTeamMailboxMembershipIndexTaskDTO> module(RebuildTeamMailboxMembershipIndexService service) {
+        return DTOModule.forDomainObject(RebuildTeamMailboxMembershipIndexTask.class)
+            .convertToDTO(RebuildTeamMailboxMembershipIndexTaskDTO.class)
+            .toDomainObjectConverter(dto -> new RebuildTeamMailboxMembershipIndexTask(service))
+            .toDTOConverter(((domainObject, typeName) -> new RebuildTeamMailboxMembershipIndexTaskDTO(typeName)))
+            .typeName(RebuildTeamMailboxMembershipIndexTask.TASK_TYPE.asString())
+            .withFactory(TaskDTOModule::new);
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+}
@@ -0,0 +1,209 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.webadmin;
+
+import static com.linagora.tmail.webadmin.TeamMailboxFixture.ANDRE;
+import static com.linagora.tmail.webadmin.TeamMailboxFixture.BOB;
+import static com.linagora.tmail.webadmin.TeamMailboxFixture.TEAM_MAILBOX;
+import static com.linagora.tmail.webadmin.TeamMailboxFixture.TEAM_MAILBOX_2;
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.jetty.http.HttpStatus.BAD_REQUEST_400;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import org.apache.james.json.DTOConverter;
+import org.apache.james.mailbox.SubscriptionManager;
+import org.apache.james.mailbox.inmemory.InMemoryMailboxManager;
+import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources;
+import org.apache.james.mailbox.store.StoreSubscriptionManager;
+import org.apache.james.task.Hostname;
+import org.apache.james.task.MemoryTaskManager;
+import org.apache.james.webadmin.WebAdminServer;
+import org.apache.james.webadmin.WebAdminUtils;
+import org.apache.james.webadmin.routes.TasksRoutes;
+import org.apache.james.webadmin.utils.JsonTransformer;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.linagora.tmail.team.MemoryTeamMailboxMembershipIndex;
+import com.linagora.tmail.team.TeamMailboxMember;
+import com.linagora.tmail.team.TeamMailboxMembershipIndex;
+import com.linagora.tmail.team.TeamMailboxRepository;
+import com.linagora.tmail.team.TeamMailboxRepositoryImpl;
+import com.linagora.tmail.webadmin.membership.RebuildTeamMailboxMembershipIndexRoutes;
+import com.linagora.tmail.webadmin.membership.RebuildTeamMailboxMembershipIndexService;
+import com.linagora.tmail.webadmin.membership.RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO;
+
+import io.restassured.RestAssured;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class RebuildTeamMailboxMembershipIndexRoutesTest {
+    private WebAdminServer webAdminServer;
+    private MemoryTaskManager taskManager;
+    private TeamMailboxRepository teamMailboxRepository;
+    private TeamMailboxMembershipIndex membershipIndex;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryIntegrationResources resources = InMemoryIntegrationResources.defaultResources();
+        taskManager = new MemoryTaskManager(new Hostname("foo"));
+        JsonTransformer jsonTransformer = new JsonTransformer();
+        InMemoryMailboxManager mailboxManager = resources.getMailboxManager();
+        SubscriptionManager subscriptionManager = new StoreSubscriptionManager(mailboxManager.getMapperFactory(),
+            mailboxManager.getMapperFactory(), mailboxManager.getEventBus());
+
+        // The repository does not maintain the index, as before it was introduced
+        teamMailboxRepository = new TeamMailboxRepositoryImpl(mailboxManager, subscriptionManager, mailboxManager.getMapperFactory(), java.util.Set.of());
+        membershipIndex = new MemoryTeamMailboxMembershipIndex();
+        RebuildTeamMailboxMembershipIndexService rebuildService = new RebuildTeamMailboxMembershipIndexService(teamMailboxRepository, membershipIndex, mailboxManager);
+
+        TasksRoutes tasksRoutes = new TasksRoutes(taskManager,
+            jsonTransformer,
+            DTOConverter.of(RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO.SERIALIZATION_MODULE));
+
+        webAdminServer = WebAdminUtils.createWebAdminServer(new RebuildTeamMailboxMembershipIndexRoutes(taskManager, jsonTransformer, rebuildService), tasksRoutes).start();
+
+        RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer)
+            .setBasePath(RebuildTeamMailboxMembershipIndexRoutes.BASE_PATH)
+            .build();
+
+        Mono.from(teamMailboxRepository.createTeamMailbox(TEAM_MAILBOX)).block();
+    }
+
+    @AfterEach
+    void stop() {
+        webAdminServer.destroy();
+        taskManager.stop();
+    }
+
+    @Test
+    void rebuildShouldReturnErrorWhenTaskParameterInvalid() {
+        given()
+            .queryParam("task", "invalid")
+            .post()
+        .then()
+            .statusCode(BAD_REQUEST_400)
+            .contentType(JSON)
+            .body("statusCode", is(BAD_REQUEST_400))
+            .body("type", is("InvalidArgument"))
+            .body("message", is("Invalid arguments supplied in the user request"))
+            .body("details", is("'task' is missing or must be 'Rebuild'"));
+    }
+
+    @Test
+    void rebuildShouldReturnErrorWhenMissingTaskParameter() {
+        given()
+            .post()
+        .then()
+            .statusCode(BAD_REQUEST_400)
+            .contentType(JSON)
+            .body("details", is("'task' is missing or must be 'Rebuild'"));
+    }
+
+    @Test
+    void rebuildTaskShouldReturnDetail() {
+        Mono.from(teamMailboxRepository.addMember(TEAM_MAILBOX, TeamMailboxMember.asMember(BOB))).block();
+        Mono.from(membershipIndex.add(ANDRE, TEAM_MAILBOX)).block();
+
+        String taskId = given()
+            .queryParam("task", "Rebuild")
+            .post()
+        .then()
+            .statusCode(HttpStatus.CREATED_201)
+            .extract()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+            .get(taskId + "/await")
+        .then()
+            .statusCode(HttpStatus.OK_200)
+            .body("status", is("completed"))
+            .body("taskId", is(taskId))
+            .body("type", is("rebuild-team-mailbox-membership-index"))
+            .body("additionalInformation.timestamp", is(notNullValue()))
+            .body("additionalInformation.type", is("rebuild-team-mailbox-membership-index"))
+            .body("additionalInformation.processedTeamMailboxes", is(1))
+            .body("additionalInformation.removedMemberships", is(1))
+            .body("additionalInformation.failedTeamMailboxes", is(empty()));
+    }
+
+    @Test
+    void rebuildShouldIndexMembersFromTheTeamMailboxAcl() {
+        Mono.from(teamMailboxRepository.addMember(TEAM_MAILBOX, TeamMailboxMember.asMember(BOB))).block();
+        Mono.from(teamMailboxRepository.addMember(TEAM_MAILBOX, TeamMailboxMember.asManager(ANDRE))).block();
+
+        String taskId = given()
+            .queryParam("task", "Rebuild")
+            .post()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+            .get(taskId + "/await");
+
+        assertThat(Flux.from(membershipIndex.listTeamMailboxes(BOB)).collectList().block())
+            .containsExactly(TEAM_MAILBOX);
+        assertThat(Flux.from(membershipIndex.listTeamMailboxes(ANDRE)).collectList().block())
+            .containsExactly(TEAM_MAILBOX);
+    }
+
+    @Test
+    void rebuildShouldRemoveStaleMemberships() {
+        Mono.from(membershipIndex.add(BOB, TEAM_MAILBOX)).block();
+        Mono.from(membershipIndex.add(BOB, TEAM_MAILBOX_2)).block();
+
+        String taskId = given()
+            .queryParam("task", "Rebuild")
+            .post()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+            .get(taskId + "/await");
+
+        assertThat(Flux.from(membershipIndex.listTeamMailboxes(BOB)).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void rebuildShouldMarkTheIndexAsBackfilled() {
+        String taskId = given()
+            .queryParam("task", "Rebuild")
+            .post()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+            .get(taskId + "/await");
+
+        assertThat(Mono.from(membershipIndex.isBackfilled()).block())
+            .isTrue();
+    }
+}
@@ -0,0 +1,41 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.webadmin.membership;
+
+import java.time.Instant;
+
+import org.apache.james.JsonSerializationVerifier;
+import org.apache.james.util.ClassLoaderUtils;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTOTest {
+    @Test
+    void shouldMatchJsonSerializationContract() throws Exception {
+        JsonSerializationVerifier.dtoModule(RebuildTeamMailboxMembershipIndexTaskAdditionalInformationDTO.SERIALIZATION_MODULE)
+            .bean(new RebuildTeamMailboxMembershipIndexTask.Details(
+                Instant.parse("2007-12-03T10:15:30.00Z"),
+                2,
+                1,
+                ImmutableList.of("marketing@abc.com", "sale@xyz.com")))
+            .json(ClassLoaderUtils.getSystemResourceAsString("json/rebuild_team_mailbox_membership_index.additionalInformation.json"))
+            .verify();
+    }
+}
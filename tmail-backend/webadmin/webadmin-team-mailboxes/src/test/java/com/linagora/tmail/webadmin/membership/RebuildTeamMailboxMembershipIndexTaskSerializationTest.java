@@ -0,0 +1,43 @@
+/********************************************************************
+ *  As a subpart of Twake Mail, this file is edited by Linagora.    *
+ *                                                                  *
+ *  https://twake-mail.com/                                         *
+ *  https://linagora.com                                            *
+ *                                                                  *
+ *  This file is subject to The Affero Gnu Public License           *
+ *  version 3.                                                      *
+ *                                                                  *
+ *  https://www.gnu.org/licenses/agpl-3.0.en.html                   *
+ *                                                                  *
+ *  This program is distributed in the hope that it will be         *
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied      *
+ *  warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR         *
+ *  PURPOSE. See the GNU Affero General Public License for          *
+ *  more details.                                                   *
+ ********************************************************************/
+
+package com.linagora.tmail.webadmin.membership;
+
+import static org.mockito.Mockito.mock;
+
+import org.apache.james.JsonSerializationVerifier;
+import org.apache.james.util.ClassLoaderUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RebuildTeamMailboxMembershipIndexTaskSerializationTest {
+    RebuildTeamMailboxMembershipIndexService rebuildService;
+
+    @BeforeEach
+    void setUp() {
+        rebuildService = mock(RebuildTeamMailboxMembershipIndexService.class);
+    }
+
+    @Test
+    void shouldMatchJsonSerializationContract() throws Exception {
+        JsonSerializationVerifier.dtoModule(RebuildTeamMailboxMembershipIndexTaskDTO.module(rebuildService))
+            .bean(new RebuildTeamMailboxMembershipIndexTask(rebuildService))
+            .json(ClassLoaderUtils.getSystemResourceAsString("json/rebuild_team_mailbox_membership_index.task.json"))
+            .verify();
+    }
+}